@@ -0,0 +1,79 @@
+package MultiGraph;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Query throughput of a ConcurrentMultiGraph on many threads, on its own and while a writer keeps publishing new
+ * snapshots. Choose the number of reader threads with -t.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentFindPathBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        ConcurrentMultiGraph graph;
+        Edge[] extra; // edges for the writer, joining the network to new stations
+
+        @Setup(Level.Iteration)
+        public void setUp(Networks networks) {
+            graph = new ConcurrentMultiGraph();
+            graph.addAll(Collections.<Node>emptyList(), networks.edges);
+            extra = new Edge[100000];
+            for (int i = 0; i < extra.length; i++) {
+                extra[i] = new Line("Extra", (Station)networks.starts[i & (Networks.QUERIES - 1)],
+                        new Station(-1 - i));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next; // index of the next query or edge
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Deque<Edge> findPath(Networks networks, Shared shared, Cursor cursor) {
+        int i = cursor.next++ & (Networks.QUERIES - 1);
+        return shared.graph.findPath(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    @Group("withWriter")
+    @GroupThreads(3)
+    public Deque<Edge> reader(Networks networks, Shared shared, Cursor cursor) {
+        int i = cursor.next++ & (Networks.QUERIES - 1);
+        return shared.graph.findPath(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    @Group("withWriter")
+    @GroupThreads(1)
+    public boolean writer(Shared shared, Cursor cursor) {
+        int i = cursor.next++;
+        return i < shared.extra.length && shared.graph.addEdge(shared.extra[i]);
+    }
+}
@@ -0,0 +1,65 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Time to fill a matrix from the QUERIES starts to the QUERIES destinations of each network, on all cores, on the
+ * heap and mapped from a file, to set against the same cells one findPath at a time in FindPathBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceMatrixBenchmark {
+
+    private List<Node> sources, targets; // rows and columns of the matrix
+    private Path file; // file of the mapped matrix
+
+    @Setup(Level.Trial)
+    public void setUp(Networks networks) throws IOException {
+        sources = Arrays.asList(networks.starts);
+        targets = Arrays.asList(networks.destinations);
+        file = Files.createTempFile(networks.network, ".matrix");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public DistanceMatrix hops(Networks networks) {
+        return networks.graph.distanceMatrix(sources, targets);
+    }
+
+    @Benchmark
+    public DistanceMatrix hopsMapped(Networks networks) throws IOException {
+        return networks.graph.distanceMatrix(sources, targets, file);
+    }
+
+    @Benchmark
+    public DistanceMatrix transfers(Networks networks) {
+        return networks.graph.transferMatrix(sources, targets);
+    }
+}
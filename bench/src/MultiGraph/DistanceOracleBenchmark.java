@@ -0,0 +1,61 @@
+package MultiGraph;
+
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Latency of DistanceOracle queries on one thread, to set against findPath in FindPathBenchmark. The time to build
+ * the oracle and the size of its labels are printed once per network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceOracleBenchmark {
+
+    private int next; // index of the next query
+
+    /**
+     * The oracle of the network.
+     */
+    @State(Scope.Benchmark)
+    public static class Oracle {
+
+        DistanceOracle oracle;
+
+        @Setup(Level.Trial)
+        public void setUp(Networks networks) {
+            long started = System.nanoTime();
+            oracle = DistanceOracle.build(networks.graph.snapshot());
+            System.out.printf("%n%s: built in %d ms, %s%n", networks.network,
+                    (System.nanoTime() - started) / 1_000_000, oracle);
+        }
+    }
+
+    @Benchmark
+    public int distance(Networks networks, Oracle oracle) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return oracle.oracle.distance(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    public Deque<Edge> path(Networks networks, Oracle oracle) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return oracle.oracle.path(networks.starts[i], networks.destinations[i]);
+    }
+}
@@ -0,0 +1,73 @@
+package MultiGraph;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Latency of single queries on one thread. Sampling gives the percentiles, and running with -prof gc gives the
+ * allocation rate per query.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FindPathBenchmark {
+
+    private int next; // index of the next query
+
+    @Benchmark
+    public Deque<Edge> findPath(Networks networks) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return networks.graph.findPath(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    public Deque<Edge> findPathMapped(Networks networks) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return networks.mapped.findPath(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    public Deque<Edge> findPathBidirectional(Networks networks) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return networks.graph.findPath(networks.starts[i], networks.destinations[i], SearchMode.BIDIRECTIONAL);
+    }
+
+    @Benchmark
+    public Deque<Edge> findPathLandmarks(Networks networks) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return networks.graph.findPath(networks.starts[i], networks.destinations[i], SearchMode.LANDMARKS);
+    }
+
+    @Benchmark
+    public Deque<Edge> findPathMinTransfers(Networks networks) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return networks.graph.findPathMinTransfers(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    public Deque<Edge> findShortestPath(Networks networks) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return networks.graph.findShortestPath(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    public List<Deque<Edge>> findKPaths(Networks networks) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return networks.graph.findKPaths(networks.starts[i], networks.destinations[i], 5);
+    }
+}
@@ -0,0 +1,69 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * How long it takes to build a graph edge by edge, in a MultiGraph or a CompactMultiGraph, and to compile it for
+ * queries, how long it takes to map a graph written as a GraphFile, and how fast stations are looked up by id.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GraphBuildBenchmark {
+
+    private int next; // index of the next query
+
+    @Benchmark
+    public MultiGraph addEdges(Networks networks) {
+        MultiGraph graph = new MultiGraph();
+        for (Edge e : networks.edges) graph.addEdge(e);
+        return graph;
+    }
+
+    @Benchmark
+    public MultiGraph builder(Networks networks) {
+        return MultiGraph.builder(networks.graph.snapshot().nodeCount(), networks.edges.size())
+                .addEdges(networks.edges.stream()).build();
+    }
+
+    @Benchmark
+    public CompactMultiGraph addEdgesCompact(Networks networks) {
+        CompactMultiGraph graph = new CompactMultiGraph();
+        for (Edge e : networks.edges) graph.addEdge(e);
+        return graph;
+    }
+
+    @Benchmark
+    public GraphSnapshot addEdgesAndSnapshot(Networks networks) {
+        MultiGraph graph = new MultiGraph();
+        for (Edge e : networks.edges) graph.addEdge(e);
+        return graph.snapshot();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MappedGraph mapFile(Networks networks) throws IOException {
+        return GraphFile.map(networks.file);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Node getNode(Networks networks) {
+        return networks.graph.getNode(networks.ids[next++ & (Networks.QUERIES - 1)]);
+    }
+}
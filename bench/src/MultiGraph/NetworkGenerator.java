@@ -0,0 +1,177 @@
+package MultiGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Generates synthetic transit networks as lists of edges, for benchmarks. Stations are numbered 0 .. n-1 and travel
+ * times are in seconds. The same seed always gives the same network.
+ */
+public class NetworkGenerator {
+
+    private final Random random;
+
+    public NetworkGenerator (long seed) {
+        random = new Random(seed);
+    }
+
+    // requires: rows > 0 && columns > 0
+    //  effects: returns a grid metro of rows * columns stations, with one line along every row and one line along
+    //           every column. Every station is an interchange between two lines.
+    public List<Edge> grid(int rows, int columns) {
+        Station[] stations = stations(rows * columns);
+        List<Edge> edges = new ArrayList<Edge>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c + 1 < columns; c++) {
+                edges.add(new Line("Row"+r, stations[r * columns + c], stations[r * columns + c + 1], travelTime()));
+            }
+        }
+        for (int c = 0; c < columns; c++) {
+            for (int r = 0; r + 1 < rows; r++) {
+                edges.add(new Line("Column"+c, stations[r * columns + c], stations[(r + 1) * columns + c],
+                        travelTime()));
+            }
+        }
+        return edges;
+    }
+
+    // requires: spokes > 0 && length > 0 && ringEvery > 0
+    //  effects: returns a hub-and-spoke network: spokes lines of length stations leave the hub station 0, and every
+    //           ringEvery stations a ring line joins the spokes at that distance from the hub
+    public List<Edge> radial(int spokes, int length, int ringEvery) {
+        Station[] stations = stations(1 + spokes * length);
+        List<Edge> edges = new ArrayList<Edge>();
+        for (int s = 0; s < spokes; s++) {
+            Station previous = stations[0];
+            for (int i = 0; i < length; i++) {
+                Station next = stations[1 + s * length + i];
+                edges.add(new Line("Spoke"+s, previous, next, travelTime()));
+                previous = next;
+            }
+        }
+        for (int i = ringEvery - 1; i < length; i += ringEvery) {
+            for (int s = 0; s < spokes; s++) {
+                int next = (s + 1) % spokes;
+                edges.add(new Line("Ring"+i, stations[1 + s * length + i], stations[1 + next * length + i],
+                        travelTime()));
+            }
+        }
+        return edges;
+    }
+
+    // requires: nodes > edgesPerNode > 0 && lines > 0
+    //  effects: returns a scale-free network grown by preferential attachment: every new station is joined to
+    //           edgesPerNode existing stations chosen in proportion to their degree, each edge on a random one of
+    //           lines lines
+    public List<Edge> scaleFree(int nodes, int edgesPerNode, int lines) {
+        Station[] stations = stations(nodes);
+        List<Edge> edges = new ArrayList<Edge>();
+        // every edge adds both of its ends, so picking a uniform entry picks a station in proportion to its degree
+        int[] ends = new int[2 * nodes * edgesPerNode];
+        int endCount = 0;
+        for (int n = 1; n <= edgesPerNode; n++) {
+            edges.add(new Line("Line"+random.nextInt(lines), stations[n - 1], stations[n], travelTime()));
+            ends[endCount++] = n - 1;
+            ends[endCount++] = n;
+        }
+        for (int n = edgesPerNode + 1; n < nodes; n++) {
+            for (int k = 0; k < edgesPerNode; k++) {
+                int target = ends[random.nextInt(endCount)];
+                edges.add(new Line("Line"+random.nextInt(lines), stations[n], stations[target], travelTime()));
+                ends[endCount++] = n;
+                ends[endCount++] = target;
+            }
+        }
+        return edges;
+    }
+
+    // requires: stations > 1 && lines > 0 && stopsPerLine > 1
+    //  effects: returns a metro shaped like the London Underground: stations are scattered over a plane and every
+    //           line wanders across it from a random terminus, preferring to keep its direction and to share track
+    //           with earlier lines. Shared track gives parallel edges of different lines between the same stations.
+    //           The default size, 270 stations and 11 lines of 40 stops, is about the size of the Underground.
+    public List<Edge> underground(int stations, int lines, int stopsPerLine) {
+        Station[] all = stations(stations);
+        double[] x = new double[stations], y = new double[stations];
+        for (int i = 0; i < stations; i++) {
+            x[i] = random.nextDouble();
+            y[i] = random.nextDouble();
+        }
+
+        List<Edge> edges = new ArrayList<Edge>();
+        List<List<Integer>> track = new ArrayList<List<Integer>>(); // stations joined by earlier lines
+        for (int i = 0; i < stations; i++) track.add(new ArrayList<Integer>());
+
+        for (int l = 0; l < lines; l++) {
+            String label = "Line"+l;
+            boolean[] onLine = new boolean[stations];
+            int current = random.nextInt(stations);
+            onLine[current] = true;
+            double direction = random.nextDouble() * 2 * Math.PI;
+
+            for (int stop = 1; stop < stopsPerLine; stop++) {
+                int next = -1;
+                // follow existing track now and then, like lines sharing a trunk section
+                if (random.nextInt(4) == 0) {
+                    for (int candidate : track.get(current)) {
+                        if (!onLine[candidate]) {
+                            next = candidate;
+                            break;
+                        }
+                    }
+                }
+                if (next < 0) {
+                    next = nearestAhead(x, y, onLine, current, direction);
+                }
+                if (next < 0) break; // nowhere left to go
+
+                direction = Math.atan2(y[next] - y[current], x[next] - x[current])
+                        + (random.nextDouble() - 0.5) * 0.8;
+                int seconds = 60 + (int)(Math.hypot(x[next] - x[current], y[next] - y[current]) * 1200);
+                edges.add(new Line(label, all[current], all[next], seconds));
+                track.get(current).add(next);
+                track.get(next).add(current);
+                onLine[next] = true;
+                current = next;
+            }
+        }
+        return edges;
+    }
+
+    // effects: returns the station nearest to current that is not on the line and lies within 90 degrees of
+    //          direction, or the nearest station not on the line if there is none ahead, or -1 if every station is
+    //          on the line
+    private static int nearestAhead(double[] x, double[] y, boolean[] onLine, int current, double direction) {
+        double dx = Math.cos(direction), dy = Math.sin(direction);
+        int best = -1, bestAny = -1;
+        double bestDistance = Double.MAX_VALUE, bestAnyDistance = Double.MAX_VALUE;
+        for (int i = 0; i < x.length; i++) {
+            if (onLine[i]) continue;
+            double ox = x[i] - x[current], oy = y[i] - y[current];
+            double distance = ox * ox + oy * oy;
+            if (distance < bestAnyDistance) {
+                bestAny = i;
+                bestAnyDistance = distance;
+            }
+            if (ox * dx + oy * dy > 0 && distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best >= 0 ? best : bestAny;
+    }
+
+    // effects: returns the stations 0 .. count-1
+    private static Station[] stations(int count) {
+        Station[] stations = new Station[count];
+        for (int i = 0; i < count; i++) stations[i] = new Station(i, "Station "+i);
+        return stations;
+    }
+
+    // effects: returns a random travel time between two neighbouring stations
+    private int travelTime() {
+        return 60 + random.nextInt(180);
+    }
+}
@@ -0,0 +1,80 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * The networks the benchmarks run on, with a fixed list of random queries for each one.
+ */
+@State(Scope.Benchmark)
+public class Networks {
+
+    static final int QUERIES = 1024; // power of two, so a query counter can wrap with a mask
+
+    @Param({"grid", "radial", "scaleFree", "underground"})
+    public String network;
+
+    List<Edge> edges; // the edges of the network
+    MultiGraph graph; // a graph of edges
+    Node[] starts, destinations; // start and destination of each query
+    int[] ids; // station id of each query for getNode
+    Path file; // graph written as a GraphFile
+    MappedGraph mapped; // graph mapped from file
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        edges = generate(network, 1);
+        graph = new MultiGraph();
+        for (Edge e : edges) graph.addEdge(e);
+
+        Random random = new Random(2);
+        GraphSnapshot snapshot = graph.snapshot();
+        starts = new Node[QUERIES];
+        destinations = new Node[QUERIES];
+        ids = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = snapshot.nodes[random.nextInt(snapshot.nodeCount())];
+            destinations[i] = snapshot.nodes[random.nextInt(snapshot.nodeCount())];
+            ids[i] = random.nextInt(snapshot.nodeCount());
+        }
+
+        snapshot.landmarks(); // built up front, so that no sample waits for them
+
+        file = Files.createTempFile(network, ".mgrf");
+        GraphFile.write(snapshot, file);
+        mapped = GraphFile.map(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // effects: returns the edges of the named network, generated from seed
+    static List<Edge> generate(String network, long seed) {
+        NetworkGenerator generator = new NetworkGenerator(seed);
+        switch (network) {
+            case "grid":
+                return generator.grid(60, 60);
+            case "radial":
+                return generator.radial(24, 60, 6);
+            case "scaleFree":
+                return generator.scaleFree(20000, 2, 200);
+            case "underground":
+                return generator.underground(270, 11, 40);
+            default:
+                throw new IllegalArgumentException("unknown network "+network);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Latency of RoutingCoordinator queries on one thread as the network is split into more regions, over a
+ * LoopbackTransport so that the numbers leave out the network but include encoding every message. The size of the
+ * cut and of the overlay are printed once per network and number of regions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PartitionedRoutingBenchmark {
+
+    private int next; // index of the next query
+
+    /**
+     * The network split into regions, with a coordinator over them.
+     */
+    @State(Scope.Benchmark)
+    public static class Regions {
+
+        @Param({"1", "2", "4", "8", "16"})
+        public int regions;
+
+        RoutingCoordinator coordinator;
+
+        @Setup(Level.Trial)
+        public void setUp(Networks networks) throws IOException {
+            long started = System.nanoTime();
+            Partition partition = Partition.of(networks.graph.snapshot(), regions);
+            long partitioned = System.nanoTime();
+            coordinator = new RoutingCoordinator(partition, LoopbackTransport.of(partition));
+            System.out.printf("%n%s: partitioned in %d ms, overlay in %d ms, %s, %s%n", networks.network,
+                    (partitioned - started) / 1_000_000, (System.nanoTime() - partitioned) / 1_000_000, partition,
+                    coordinator);
+        }
+    }
+
+    @Benchmark
+    public Deque<Edge> findPath(Networks networks, Regions regions) throws IOException {
+        int i = next++ & (Networks.QUERIES - 1);
+        return regions.coordinator.findPath(networks.starts[i], networks.destinations[i]);
+    }
+}
@@ -0,0 +1,99 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Measures the throughput and latency of a RouteServer under many connections at once. Each connection keeps depth
+ * PATH requests in flight between random stations of a generated network, and the time from sending each request to
+ * reading its response goes into a LatencyHistogram.
+ *
+ *   java -cp benchmarks.jar MultiGraph.RouteLoadGenerator network [connections] [depth] [seconds] [port]
+ *
+ * Without a port the generator serves the network itself, in the same process. With one it loads the RouteServer
+ * at that port, which must serve a GraphFile of the same network.
+ */
+public class RouteLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: RouteLoadGenerator network [connections] [depth] [seconds] [port]");
+            System.exit(2);
+        }
+        String network = args[0];
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        MultiGraph graph = new MultiGraph();
+        for (Edge e : Networks.generate(network, 1)) graph.addEdge(e);
+        GraphSnapshot snapshot = graph.snapshot();
+        int[] ids = new int[snapshot.nodeCount()];
+        for (int i = 0; i < ids.length; i++) ids[i] = snapshot.nodes[i].getId();
+
+        RouteServer server = args.length > 4 ? null : RouteServer.start(() -> snapshot, 0);
+        int port = server != null ? server.port() : Integer.parseInt(args[4]);
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ThreadFactory threads = RouteServer.connectionThreads();
+        List<CompletableFuture<Void>> clients = new ArrayList<CompletableFuture<Void>>(connections);
+        long started = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            Random random = new Random(c);
+            clients.add(CompletableFuture.runAsync(() -> {
+                try (RouteClient client = new RouteClient(port)) {
+                    load(client, ids, random, depth, deadline, latency);
+                } catch (IOException e) {
+                    failures.increment();
+                }
+            }, task -> threads.newThread(task).start()));
+        }
+        CompletableFuture.allOf(clients.toArray(new CompletableFuture<?>[0])).join();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("%s: %d connections, %d in flight each, %d failed%n", network, connections, depth,
+                failures.sum());
+        System.out.printf("%d requests in %.1f s, %.0f requests/s%n", latency.count(), elapsed,
+                latency.count() / elapsed);
+        System.out.printf("latency us: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                latency.valueAt(50) / 1e3, latency.valueAt(90) / 1e3, latency.valueAt(99) / 1e3,
+                latency.valueAt(99.9) / 1e3, latency.max() / 1e3);
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    // modifies: client, latency
+    //  effects: keeps depth PATH requests in flight on client until deadline, recording the latency of each
+    private static void load(RouteClient client, int[] ids, Random random, int depth, long deadline,
+                             LatencyHistogram latency) throws IOException {
+        long[] sent = new long[depth]; // time each request in flight was sent, oldest at next
+        for (int i = 0; i < depth; i++) {
+            sent[i] = System.nanoTime();
+            client.requestPath(ids[random.nextInt(ids.length)], ids[random.nextInt(ids.length)]);
+        }
+        client.flush();
+        int next = 0;
+        while (true) {
+            client.readPath();
+            long now = System.nanoTime();
+            latency.record(now - sent[next]);
+            if (now >= deadline) {
+                break;
+            }
+            sent[next] = System.nanoTime();
+            client.requestPath(ids[random.nextInt(ids.length)], ids[random.nextInt(ids.length)]);
+            client.flush();
+            next = (next + 1) % depth;
+        }
+        for (int i = 1; i < depth; i++) client.readPath(); // drain the rest before quitting
+    }
+}
@@ -0,0 +1,73 @@
+package MultiGraph;
+
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Cost of SearchProbes on findPath. withoutProbe and detachedProbe should be equal within error: a graph whose probe
+ * was removed again runs the same uncounted search as one that never had one. withMetrics is the price of counting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchProbeBenchmark {
+
+    private int next; // index of the next query
+
+    /**
+     * Graphs of the edges of the network, one with each kind of probe.
+     */
+    @State(Scope.Benchmark)
+    public static class Probed {
+
+        MultiGraph detached, metrics; // graph whose probe was removed, graph with SearchMetrics
+
+        @Setup(Level.Trial)
+        public void setUp(Networks networks) {
+            detached = new MultiGraph();
+            metrics = new MultiGraph();
+            for (Edge e : networks.edges) {
+                detached.addEdge(e);
+                metrics.addEdge(e);
+            }
+            detached.probe(new SearchMetrics());
+            detached.snapshot();
+            detached.probe(null);
+            metrics.probe(new SearchMetrics());
+        }
+    }
+
+    @Benchmark
+    public Deque<Edge> withoutProbe(Networks networks) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return networks.graph.findPath(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    public Deque<Edge> detachedProbe(Networks networks, Probed probed) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return probed.detached.findPath(networks.starts[i], networks.destinations[i]);
+    }
+
+    @Benchmark
+    public Deque<Edge> withMetrics(Networks networks, Probed probed) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return probed.metrics.findPath(networks.starts[i], networks.destinations[i]);
+    }
+}
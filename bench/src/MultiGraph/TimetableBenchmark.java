@@ -0,0 +1,156 @@
+package MultiGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Latency of Timetable queries on one thread, over a day of service on a generated network: every line runs both
+ * ways every HEADWAY seconds from 05:00 to 01:00, taking the weight of each edge to go along it. The time to build the
+ * timetable and its size are printed once per network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TimetableBenchmark {
+
+    static final int HEADWAY = 300; // seconds between trips of a line in one direction
+    static final int FIRST = 5 * 3600, LAST = 25 * 3600; // first and last times a trip leaves the end of its line
+    static final int DWELL = 20; // seconds a trip waits at each stop
+
+    private int next; // index of the next query
+
+    /**
+     * The timetable of the network, with a fixed list of random queries.
+     */
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        // scaleFree is left out: its lines are mostly single edges, so its day of service runs to tens of millions
+        // of connections
+        @Param({"grid", "radial", "underground"})
+        public String network;
+
+        Timetable timetable;
+        Node[] starts, destinations; // start and destination of each query
+        int[] departures; // time each query leaves, between 06:00 and 22:00
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            List<Edge> edges = Networks.generate(network, 1);
+            long started = System.nanoTime();
+            Timetable.Builder builder = Timetable.builder().changeTime(120);
+            for (List<Edge> route : routes(edges)) addTrips(builder, route);
+            timetable = builder.build();
+            System.out.printf("%n%s: built in %d ms, %s%n", network, (System.nanoTime() - started) / 1_000_000,
+                    timetable);
+
+            List<Node> stations = new ArrayList<Node>();
+            MultiGraph graph = new MultiGraph();
+            for (Edge e : edges) graph.addEdge(e);
+            for (Node n : graph.snapshot().nodes) stations.add(n);
+            Random random = new Random(2);
+            starts = new Node[Networks.QUERIES];
+            destinations = new Node[Networks.QUERIES];
+            departures = new int[Networks.QUERIES];
+            for (int i = 0; i < Networks.QUERIES; i++) {
+                starts[i] = stations.get(random.nextInt(stations.size()));
+                destinations[i] = stations.get(random.nextInt(stations.size()));
+                departures[i] = 6 * 3600 + random.nextInt(16 * 3600);
+            }
+        }
+
+        // effects: returns the edges split into routes, each a run of edges with the same label in which every edge
+        //          leaves from where the one before it arrives
+        private static List<List<Edge>> routes(List<Edge> edges) {
+            List<List<Edge>> routes = new ArrayList<List<Edge>>();
+            List<Edge> route = new ArrayList<Edge>();
+            for (Edge e : edges) {
+                if (!route.isEmpty()) {
+                    Edge last = route.get(route.size() - 1);
+                    if (!last.getLabel().equals(e.getLabel()) || !last.destination().equals(e.origin())) {
+                        routes.add(route);
+                        route = new ArrayList<Edge>();
+                    }
+                }
+                route.add(e);
+            }
+            if (!route.isEmpty()) routes.add(route);
+            return routes;
+        }
+
+        // modifies: builder
+        //  effects: adds the trips of a day along route and back again
+        private static void addTrips(Timetable.Builder builder, List<Edge> route) {
+            int n = route.size() + 1;
+            Node[] out = new Node[n], back = new Node[n];
+            int[] outArrivals = new int[n], outDepartures = new int[n], backArrivals = new int[n],
+                    backDepartures = new int[n];
+            out[0] = route.get(0).origin();
+            back[n - 1] = out[0];
+            for (int i = 0, at = 0; i < route.size(); i++) {
+                out[i + 1] = route.get(i).destination();
+                back[n - 2 - i] = out[i + 1];
+                outDepartures[i] = at;
+                at += route.get(i).getWeight();
+                outArrivals[i + 1] = at;
+                at += DWELL;
+            }
+            for (int i = 0, at = 0; i < route.size(); i++) {
+                backDepartures[i] = at;
+                at += route.get(route.size() - 1 - i).getWeight();
+                backArrivals[i + 1] = at;
+                at += DWELL;
+            }
+            for (int start = FIRST; start <= LAST; start += HEADWAY) {
+                builder.addTrip(route.get(0).getLabel(), out, shift(outArrivals, start), shift(outDepartures, start));
+                builder.addTrip(route.get(0).getLabel(), back, shift(backArrivals, start),
+                        shift(backDepartures, start));
+            }
+        }
+
+        // effects: returns times, each plus by
+        private static int[] shift(int[] times, int by) {
+            int[] shifted = new int[times.length];
+            for (int i = 0; i < times.length; i++) shifted[i] = times[i] + by;
+            return shifted;
+        }
+    }
+
+    @Benchmark
+    public Journey earliestArrival(Service service) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return service.timetable.earliestArrival(service.starts[i], service.destinations[i], service.departures[i]);
+    }
+
+    @Benchmark
+    public Profile profile(Service service) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return service.timetable.profile(service.starts[i], service.destinations[i], service.departures[i],
+                service.departures[i] + 3600);
+    }
+
+    @Benchmark
+    public List<Journey> paretoJourneys(Service service) {
+        int i = next++ & (Networks.QUERIES - 1);
+        return service.timetable.paretoJourneys(service.starts[i], service.destinations[i], service.departures[i], 4);
+    }
+}
@@ -0,0 +1,201 @@
+package MultiGraph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToIntFunction;
+
+
+/**
+ * Temporarily closed stations and edges of a graph. Searches neither pass through, start at nor end at a closed
+ * station, and never ride a closed edge. Closures are bitsets over the station and edge indices of the graph, which
+ * stay the same as the graph grows, so closing or reopening is O(1) and never copies or recompiles the graph.
+ *
+ * Every graph has one set of closures that all its queries and snapshots respect. A scenario is another set over
+ * the same graph that only applies to the queries it is given to, on top of the closures of the graph, for
+ * "what-if" routing. RouteCaches of the graph are told about every change so they can drop the routes it affects.
+ */
+public final class Closures {
+
+    private final ToIntFunction<Node> stationIndex; // index of a station in the graph, -1 if it is not in the graph
+    private final ToIntFunction<Edge> edgeIndex; // index of an edge in the graph, -1 if it is not in the graph
+    private final boolean global; // true for the closures of the graph, false for a scenario
+
+    // bitsets of closed indices, 32 per word. Words are changed in place and the field is written again afterwards
+    // so that searches on other threads see the change.
+    private volatile int[] stations = new int[0];
+    private volatile int[] edges = new int[0];
+    private volatile int closed; // number of closed stations and edges
+
+    private int[] stationClosedAt = new int[0]; // change at which each closed station was closed
+    private int[] edgeClosedAt = new int[0]; // change at which each closed edge was closed
+    private volatile int changes; // number of closings and reopenings so far
+    private final List<RouteCache> caches = new CopyOnWriteArrayList<RouteCache>(); // caches to tell of changes
+
+    // requires: stationIndex and edgeIndex give the indices of the snapshots of one graph
+    //  effects: creates the closures of that graph, with nothing closed
+    Closures (ToIntFunction<Node> stationIndex, ToIntFunction<Edge> edgeIndex) {
+        this(stationIndex, edgeIndex, true);
+    }
+
+    private Closures (ToIntFunction<Node> stationIndex, ToIntFunction<Edge> edgeIndex, boolean global) {
+        this.stationIndex = stationIndex;
+        this.edgeIndex = edgeIndex;
+        this.global = global;
+    }
+
+    // effects: returns a new scenario over the same graph with nothing closed
+    public Closures scenario() {
+        return new Closures(stationIndex, edgeIndex, false);
+    }
+
+    // requires: station != null
+    // modifies: this
+    //  effects: if station in Nodes and is open closes it and returns true, else returns false
+    public synchronized boolean close(Node station) {
+        int i = stationIndex.applyAsInt(station);
+        if (i < 0 || test(stations, i)) {
+            return false;
+        }
+        stations = set(stations, i, true);
+        stationClosedAt = stamp(stationClosedAt, i, ++changes);
+        closed++;
+        for (RouteCache cache : caches) cache.stationClosed(i);
+        return true;
+    }
+
+    // requires: station != null
+    // modifies: this
+    //  effects: if station is closed reopens it and returns true, else returns false
+    public synchronized boolean reopen(Node station) {
+        int i = stationIndex.applyAsInt(station);
+        if (i < 0 || !test(stations, i)) {
+            return false;
+        }
+        stations = set(stations, i, false);
+        changes++;
+        closed--;
+        for (RouteCache cache : caches) cache.reopened(stationClosedAt[i]);
+        return true;
+    }
+
+    // requires: edge != null
+    // modifies: this
+    //  effects: if edge in Edges and is open closes it and returns true, else returns false
+    public synchronized boolean close(Edge edge) {
+        int e = edgeIndex.applyAsInt(edge);
+        if (e < 0 || test(edges, e)) {
+            return false;
+        }
+        edges = set(edges, e, true);
+        edgeClosedAt = stamp(edgeClosedAt, e, ++changes);
+        closed++;
+        for (RouteCache cache : caches) cache.edgeClosed(e);
+        return true;
+    }
+
+    // requires: edge != null
+    // modifies: this
+    //  effects: if edge is closed reopens it and returns true, else returns false
+    public synchronized boolean reopen(Edge edge) {
+        int e = edgeIndex.applyAsInt(edge);
+        if (e < 0 || !test(edges, e)) {
+            return false;
+        }
+        edges = set(edges, e, false);
+        changes++;
+        closed--;
+        for (RouteCache cache : caches) cache.reopened(edgeClosedAt[e]);
+        return true;
+    }
+
+    // requires: station != null
+    //  effects: returns true if station is closed, else returns false
+    public boolean isClosed(Node station) {
+        int i = stationIndex.applyAsInt(station);
+        return i >= 0 && test(stations, i);
+    }
+
+    // requires: edge != null
+    //  effects: returns true if edge is closed, else returns false
+    public boolean isClosed(Edge edge) {
+        int e = edgeIndex.applyAsInt(edge);
+        return e >= 0 && test(edges, e);
+    }
+
+    // effects: returns true if nothing is closed, else returns false
+    public boolean isEmpty() {
+        return closed == 0;
+    }
+
+    // effects: returns the number of closings and reopenings so far
+    int changes() {
+        return changes;
+    }
+
+    // effects: returns the index of station in the graph, or -1 if it is not in the graph
+    int stationIndex(Node station) {
+        return stationIndex.applyAsInt(station);
+    }
+
+    // effects: returns the index of edge in the graph, or -1 if it is not in the graph
+    int edgeIndex(Edge edge) {
+        return edgeIndex.applyAsInt(edge);
+    }
+
+    // effects: returns true if the station with index i is closed, else returns false
+    boolean stationClosed(int i) {
+        return test(stations, i);
+    }
+
+    // effects: returns true if the edge with index e or the station with index i at its far end is closed,
+    //          else returns false
+    boolean blocks(int e, int i) {
+        return test(edges, e) || test(stations, i);
+    }
+
+    // requires: this is the closures of a graph && cache caches routes of that graph
+    // modifies: this
+    //  effects: tells cache of every change from now on
+    void register(RouteCache cache) {
+        if (!global) {
+            throw new IllegalArgumentException("routes are only cached for the closures of a graph");
+        }
+        caches.add(cache);
+    }
+
+    // modifies: this
+    //  effects: stops telling cache of changes
+    void unregister(RouteCache cache) {
+        caches.remove(cache);
+    }
+
+    // effects: returns true if bit i of bits is set, else returns false
+    private static boolean test(int[] bits, int i) {
+        int word = i >>> 5;
+        return word < bits.length && (bits[word] & (1 << i)) != 0;
+    }
+
+    // effects: returns bits, or a copy of it that is long enough, with bit i set to value
+    private static int[] set(int[] bits, int i, boolean value) {
+        int word = i >>> 5;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+        }
+        if (value) {
+            bits[word] |= 1 << i;
+        } else {
+            bits[word] &= ~(1 << i);
+        }
+        return bits;
+    }
+
+    // effects: returns stamps, or a copy of it that is long enough, with stamps[i] = change
+    private static int[] stamp(int[] stamps, int i, int change) {
+        if (i >= stamps.length) {
+            stamps = Arrays.copyOf(stamps, Math.max(i + 1, stamps.length * 2));
+        }
+        stamps[i] = change;
+        return stamps;
+    }
+}
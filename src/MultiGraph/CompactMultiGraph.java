@@ -0,0 +1,239 @@
+package MultiGraph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+
+/**
+ * A multigraph of Stations that keeps its edges in an EdgeTable instead of as objects. Added edges are taken apart
+ * into station indices, line id and travel time, and Lines are only made again for the paths queries return, so
+ * large networks take a fraction of the heap of a MultiGraph.
+ *
+ * Queries answer as MultiGraph does, except that ties between paths are broken by the order in which edges were
+ * added rather than by their hash codes. findPath may then return another path, and as its preference for staying
+ * on a line depends on that order, sometimes one with a different number of edges.
+ */
+public class CompactMultiGraph implements IMultiGraph {
+
+    private Node[] nodeList; // station of each index, in the order they were added
+    private int nodeCount; // |Nodes|
+    private final IntIntHashMap ids; // mapping of station ids to their index
+    private final EdgeTable edges; // the set of edges, between station indices
+    private GraphSnapshot snapshot; // compiled copy of the graph, null if the graph changed since
+    private final Closures closures; // temporarily closed stations and edges, shared with every snapshot
+    private SearchProbe probe; // told of the findPath searches of every snapshot, null if none
+    private Landmarks landmarks; // last landmarks built for a snapshot, which the next snapshot extends
+
+    CompactMultiGraph () {
+        this(16, 16);
+    }
+
+    // requires: expectedNodes >= 0 && expectedEdges >= 0
+    //  effects: creates an empty graph that holds expectedNodes nodes and expectedEdges edges without resizing
+    CompactMultiGraph (int expectedNodes, int expectedEdges) {
+        nodeList = new Node[Math.max(16, expectedNodes)];
+        ids = new IntIntHashMap(expectedNodes);
+        edges = new EdgeTable(expectedEdges);
+        closures = new Closures(this::indexOf, this::indexOf);
+    }
+
+    // requires: n is a Station
+    // modifies: this
+    //  effects: n in Nodes' && if n !in Nodes return true, else return false
+    @Override
+    public boolean addNode(Node n) {
+        int count = nodeCount;
+        index(n);
+        return nodeCount > count; // n was not in the set already
+    }
+
+    // requires: e != null && e.origin() and e.destination() are Stations
+    // modifies: this
+    //  effects: e in Edges' && e.origin() in Nodes' && e.destination() in Nodes' && if e !in Edges return true,
+    //           else return false. Throws IllegalArgumentException if e weighs less than 0.
+    @Override
+    public boolean addEdge(Edge e) {
+        if (e.getWeight() < 0) {
+            throw new IllegalArgumentException("negative travel time on "+e);
+        }
+        if (edges.add(index(e.origin()), index(e.destination()), e.getLineId(), e.getWeight())) {
+            changed();
+            return true;
+        }
+        return false;
+    }
+
+    // effects: returns true if e in Edges, else returns false
+    boolean containsEdge(Edge e) {
+        return indexOf(e) >= 0;
+    }
+
+    // effects: if n in Nodes returns the index of n, else returns -1
+    private int indexOf(Node n) {
+        return ids.get(n.getId());
+    }
+
+    // effects: if e in Edges returns the index of e, else returns -1
+    private int indexOf(Edge e) {
+        int o = ids.get(e.origin().getId()), d = ids.get(e.destination().getId());
+        return o < 0 || d < 0 ? -1 : edges.indexOf(o, d, e.getLineId());
+    }
+
+    // effects: same as MultiGraph.closures
+    public Closures closures() {
+        return closures;
+    }
+
+    // modifies: this
+    //  effects: same as MultiGraph.probe
+    public void probe(SearchProbe probe) {
+        this.probe = probe;
+        if (snapshot != null) {
+            snapshot.probe(probe);
+        }
+    }
+
+    // modifies: this
+    //  effects: same as MultiGraph.changed
+    private void changed() {
+        if (snapshot != null) {
+            Landmarks built = snapshot.builtLandmarks();
+            if (built != null) landmarks = built;
+            snapshot = null;
+        }
+    }
+
+    // requires: n is a Station
+    // modifies: this
+    //  effects: returns the index of n, adding n to Nodes with the next index if n !in Nodes
+    private int index(Node n) {
+        int index = ids.putIfAbsent(n.getId(), nodeCount); // stations are equal when their ids are
+        if (index >= 0) {
+            return index;
+        }
+        if (nodeCount == nodeList.length) {
+            nodeList = Arrays.copyOf(nodeList, nodeCount * 2);
+        }
+        nodeList[nodeCount] = n;
+        changed();
+        return nodeCount++;
+    }
+
+    //  effects: if exists n in Nodes | n.id = id return n, else return null
+    @Override
+    public Node getNode(int id) {
+        int i = ids.get(id);
+        return i < 0 ? null : nodeList[i];
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPath, up to ties between paths with the same number of edges
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination) {
+        return snapshot().findPath(start, destination);
+    }
+
+    //requires: start != null && destination != null && scenario is a scenario of closures()
+    // effects: same as MultiGraph.findPath(start, destination, scenario), up to ties
+    public Deque<Edge> findPath (Node start, Node destination, Closures scenario) {
+        return snapshot().findPath(start, destination, scenario);
+    }
+
+    //requires: start != null && destination != null && mode != null
+    // effects: same as MultiGraph.findPath, up to ties between paths with the same number of edges
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination, SearchMode mode) {
+        return snapshot().findPath(start, destination, mode);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathMinTransfers, up to ties
+    @Override
+    public Deque<Edge> findPathMinTransfers (Node start, Node destination) {
+        return snapshot().findPathMinTransfers(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathMinTransfersThenHops, up to ties
+    @Override
+    public Deque<Edge> findPathMinTransfersThenHops (Node start, Node destination) {
+        return snapshot().findPathMinTransfersThenHops(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPath, up to ties
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination) {
+        return snapshot().findShortestPath(start, destination);
+    }
+
+    //requires: start != null && destination != null && heuristic never overestimates the weight of a path
+    // effects: same as MultiGraph.findShortestPath, up to ties
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination, Heuristic heuristic) {
+        return snapshot().findShortestPath(start, destination, heuristic);
+    }
+
+    //requires: start != null && destination != null && scenario is a scenario of closures()
+    // effects: same as MultiGraph.findShortestPath(start, destination, scenario), up to ties
+    public Deque<Edge> findShortestPath (Node start, Node destination, Closures scenario) {
+        return snapshot().findShortestPath(start, destination, scenario);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathCompact, up to ties
+    @Override
+    public CompactPath findPathCompact (Node start, Node destination) {
+        return snapshot().findPathCompact(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPathCompact, up to ties
+    @Override
+    public CompactPath findShortestPathCompact (Node start, Node destination) {
+        return snapshot().findShortestPathCompact(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findKPaths, up to ties
+    @Override
+    public List<Deque<Edge>> findKPaths (Node start, Node destination, int k) {
+        return snapshot().findKPaths(start, destination, k);
+    }
+
+    //requires: start != null
+    // effects: same as MultiGraph.searchFrom, with the paths of findPath on this graph
+    @Override
+    public SearchTree searchFrom (Node start) {
+        return snapshot().searchFrom(start);
+    }
+
+    //requires: queries != null && no query is null
+    // effects: R.get(i) = findPath(Qi.first, Qi.second) for each i-th query Qi of queries, as MultiGraph.findPaths
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries) {
+        return snapshot().findPaths(queries);
+    }
+
+    //requires: queries != null && no query is null && executor != null
+    // effects: same as findPaths(queries), running the searches on executor
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries, Executor executor) {
+        return snapshot().findPaths(queries, executor);
+    }
+
+    // modifies: this
+    //  effects: returns an immutable snapshot of the current Nodes and Edges, compiled for fast path queries.
+    //           The snapshot is kept until Nodes or Edges change.
+    public GraphSnapshot snapshot() {
+        if (snapshot == null) {
+            snapshot = new GraphSnapshot(Arrays.copyOf(nodeList, nodeCount), edges, new IntIntHashMap(ids), closures);
+            snapshot.probe(probe);
+            snapshot.extendLandmarks(landmarks);
+        }
+        return snapshot;
+    }
+}
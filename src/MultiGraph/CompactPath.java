@@ -0,0 +1,87 @@
+package MultiGraph;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.function.IntFunction;
+
+
+/**
+ * A path as the indices of its edges in the graph it was found on, which are the order the edges were added in.
+ * A path costs one int per edge, its length and line changes take O(1), and Edges are only made when asDeque asks
+ * for them, so callers that only need the number of edges or the edge indices never allocate per edge.
+ */
+public final class CompactPath {
+
+    private static final CompactPath EMPTY = new CompactPath(new int[0], 0, e -> null);
+
+    private final int[] edges; // index of each edge of the path, in order from start
+    private final int transfers; // number of i | edge i and edge i+1 are on different lines
+    private final IntFunction<Edge> edgeOf; // makes the edge of an index of the graph
+
+    // requires: edges are the edge indices of a path of the graph edgeOf makes edges of && transfers is the
+    //           number of line changes along it && edges is not changed afterwards
+    CompactPath (int[] edges, int transfers, IntFunction<Edge> edgeOf) {
+        this.edges = edges;
+        this.transfers = transfers;
+        this.edgeOf = edgeOf;
+    }
+
+    // effects: returns the path without edges
+    static CompactPath empty() {
+        return EMPTY;
+    }
+
+    // effects: returns the number of edges of this path
+    public int length() {
+        return edges.length;
+    }
+
+    // effects: returns true if this path has no edges, else returns false
+    public boolean isEmpty() {
+        return edges.length == 0;
+    }
+
+    // effects: returns the number of i | ei.label != e(i+1).label
+    public int transferCount() {
+        return transfers;
+    }
+
+    // requires: 0 <= i < length()
+    //  effects: returns the index in the graph of the i-th edge of this path
+    public int edgeIndex(int i) {
+        return edges[i];
+    }
+
+    // effects: returns the indices in the graph of the edges of this path, in order
+    public int[] edgeIndices() {
+        return edges.clone();
+    }
+
+    // effects: returns the i-th edge of this path
+    public Edge edge(int i) {
+        return edgeOf.apply(edges[i]);
+    }
+
+    // effects: returns a new Deque of the edges of this path, the same as the one findPath returns
+    public Deque<Edge> asDeque() {
+        Deque<Edge> path = new LinkedList<Edge>();
+        for (int e : edges) path.addLast(edgeOf.apply(e));
+        return path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompactPath && Arrays.equals(edges, ((CompactPath)o).edges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(edges);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactPath"+Arrays.toString(edges);
+    }
+}
@@ -0,0 +1,249 @@
+package MultiGraph;
+
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+
+/**
+ * A multigraph that can be changed while other threads search it. Every query reads the current immutable
+ * GraphSnapshot through an atomic reference and never blocks. Changes are applied one writer at a time to a private
+ * MultiGraph, and a new snapshot is published once they are complete, so a query sees either all or none of a
+ * change. Compiling a snapshot costs O(|Nodes| + |Edges|), so many changes should be applied together with addAll.
+ * Only copying the node and edge arrays for it holds up other writers: the snapshot is compiled outside their lock,
+ * and writers that change the graph while another one is publishing share the next snapshot rather than compiling
+ * one each. Closing stations and edges costs O(1) instead, and takes effect on the current snapshot at once.
+ */
+public class ConcurrentMultiGraph implements IMultiGraph {
+
+    private final MultiGraph graph; // the graph being changed, guarded by itself
+    private final AtomicReference<GraphSnapshot> current; // the last published snapshot of graph
+    private final Object publishing = new Object(); // held while a snapshot is compiled and published
+    private long version; // number of changes applied to graph, guarded by graph
+    private long published; // number of changes in the current snapshot, guarded by publishing
+
+    ConcurrentMultiGraph () {
+        // closures resolve stations and edges under the lock, as they may be closed while others are added
+        graph = new MultiGraph(16, 16, new Closures(this::indexOf, this::indexOf));
+        current = new AtomicReference<GraphSnapshot>(graph.snapshot());
+    }
+
+    // effects: returns the snapshot queries currently run against
+    public GraphSnapshot snapshot() {
+        return current.get();
+    }
+
+    // effects: same as MultiGraph.closures, may be used from any thread
+    public Closures closures() {
+        return current.get().closures();
+    }
+
+    // modifies: this
+    //  effects: same as MultiGraph.probe, for the current snapshot and every one published later
+    public void probe(SearchProbe probe) {
+        synchronized (graph) {
+            graph.probe(probe);
+            current.get().probe(probe); // may be compiled outside the graph, which only probes its own
+        }
+    }
+
+    // effects: if n in Nodes returns the index of n, else returns -1
+    private int indexOf(Node n) {
+        synchronized (graph) {
+            return graph.indexOf(n);
+        }
+    }
+
+    // effects: if e in Edges returns the index of e, else returns -1
+    private int indexOf(Edge e) {
+        synchronized (graph) {
+            return graph.indexOf(e);
+        }
+    }
+
+    // requires: n != null
+    // modifies: this
+    //  effects: same as MultiGraph.addNode, queries see n once this returns
+    @Override
+    public boolean addNode(Node n) {
+        long change;
+        synchronized (graph) {
+            if (!graph.addNode(n)) {
+                return false;
+            }
+            change = ++version;
+        }
+        publish(change);
+        return true;
+    }
+
+    // requires: e != null && e.firstNode != null && e.secondNode != null
+    // modifies: this
+    //  effects: same as MultiGraph.addEdge, queries see e once this returns
+    @Override
+    public boolean addEdge(Edge e) {
+        long change;
+        synchronized (graph) {
+            if (!graph.addEdge(e)) {
+                return false;
+            }
+            change = ++version;
+        }
+        publish(change);
+        return true;
+    }
+
+    // requires: nodes != null && edges != null && they contain no null
+    // modifies: this
+    //  effects: adds every node of nodes and every edge of edges as addNode and addEdge do, publishing a single
+    //           new snapshot. Returns the number of nodes and edges that were not in the graph already.
+    public int addAll(Collection<? extends Node> nodes, Collection<? extends Edge> edges) {
+        int added = 0;
+        long change;
+        synchronized (graph) {
+            for (Node n : nodes) {
+                if (graph.addNode(n)) added++;
+            }
+            for (Edge e : edges) {
+                if (graph.addEdge(e)) added++;
+            }
+            if (added == 0) {
+                return 0;
+            }
+            change = ++version;
+        }
+        publish(change);
+        return added;
+    }
+
+    // requires: the calling thread does not hold the lock of graph
+    // modifies: this
+    //  effects: makes the state of graph up to the change numbered change visible to queries, unless a snapshot
+    //           with it was published already. The graph is locked only to copy its arrays, and the snapshot is
+    //           compiled from the copy while other writers go on. Writers waiting here while another one compiles
+    //           are all served by the next snapshot, as it holds every change applied before it was copied.
+    private void publish(long change) {
+        synchronized (publishing) {
+            if (published >= change) {
+                return;
+            }
+            Supplier<GraphSnapshot> task;
+            long upTo;
+            synchronized (graph) {
+                task = graph.snapshotTask();
+                upTo = version;
+            }
+            GraphSnapshot snapshot = task.get();
+            synchronized (graph) {
+                if (version == upTo) graph.adopt(snapshot); // its landmarks carry on to the next snapshot
+            }
+            current.set(snapshot);
+            published = upTo;
+        }
+    }
+
+    //  effects: if exists n in Nodes | n.id = id return n, else return null
+    @Override
+    public Node getNode(int id) {
+        return current.get().getNode(id);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPath
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination) {
+        return current.get().findPath(start, destination);
+    }
+
+    //requires: start != null && destination != null && scenario is a scenario of closures()
+    // effects: same as MultiGraph.findPath(start, destination, scenario)
+    public Deque<Edge> findPath (Node start, Node destination, Closures scenario) {
+        return current.get().findPath(start, destination, scenario);
+    }
+
+    //requires: start != null && destination != null && mode != null
+    // effects: same as MultiGraph.findPath
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination, SearchMode mode) {
+        return current.get().findPath(start, destination, mode);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathMinTransfers
+    @Override
+    public Deque<Edge> findPathMinTransfers (Node start, Node destination) {
+        return current.get().findPathMinTransfers(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathMinTransfersThenHops
+    @Override
+    public Deque<Edge> findPathMinTransfersThenHops (Node start, Node destination) {
+        return current.get().findPathMinTransfersThenHops(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPath
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination) {
+        return current.get().findShortestPath(start, destination);
+    }
+
+    //requires: start != null && destination != null && heuristic never overestimates the weight of a path
+    // effects: same as MultiGraph.findShortestPath
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination, Heuristic heuristic) {
+        return current.get().findShortestPath(start, destination, heuristic);
+    }
+
+    //requires: start != null && destination != null && scenario is a scenario of closures()
+    // effects: same as MultiGraph.findShortestPath(start, destination, scenario)
+    public Deque<Edge> findShortestPath (Node start, Node destination, Closures scenario) {
+        return current.get().findShortestPath(start, destination, scenario);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathCompact
+    @Override
+    public CompactPath findPathCompact (Node start, Node destination) {
+        return current.get().findPathCompact(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPathCompact
+    @Override
+    public CompactPath findShortestPathCompact (Node start, Node destination) {
+        return current.get().findShortestPathCompact(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findKPaths
+    @Override
+    public List<Deque<Edge>> findKPaths (Node start, Node destination, int k) {
+        return current.get().findKPaths(start, destination, k);
+    }
+
+    //requires: start != null
+    // effects: same as MultiGraph.searchFrom
+    @Override
+    public SearchTree searchFrom (Node start) {
+        return current.get().searchFrom(start);
+    }
+
+    //requires: queries != null && no query is null
+    // effects: same as MultiGraph.findPaths, all queries run against the same snapshot
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries) {
+        return current.get().findPaths(queries);
+    }
+
+    //requires: queries != null && no query is null && executor != null
+    // effects: same as MultiGraph.findPaths, all queries run against the same snapshot
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries, Executor executor) {
+        return current.get().findPaths(queries, executor);
+    }
+}
@@ -0,0 +1,169 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Hops or line changes from every one of a list of sources to every one of a list of targets of a GraphSnapshot, as
+ * a dense matrix of ints with a row per source and a column per target. Each row is one search from its source that
+ * stops once it has found every target, and rows are searched in parallel.
+ *
+ * The cells are either in an int array on the heap or in a file mapped into memory, for matrices too large for the
+ * heap. A matrix file holds the cells and nothing else: rows * columns little-endian ints, row after row, so other
+ * tools can read it as it is. A DistanceMatrix never changes once built, and can be read from many threads at once.
+ */
+public final class DistanceMatrix {
+
+    static final long MAX_CELLS = Integer.MAX_VALUE / 4; // cells of the largest matrix, which a single mapping holds
+
+    private final Node[] sources; // station of each row
+    private final Node[] targets; // station of each column
+    private final IntBuffer cells; // row-major cells, on the heap or mapped
+    private final boolean mapped; // true if cells are mapped from a file
+
+    private DistanceMatrix (Node[] sources, Node[] targets, IntBuffer cells, boolean mapped) {
+        this.sources = sources;
+        this.targets = targets;
+        this.cells = cells;
+        this.mapped = mapped;
+    }
+
+    // requires: graph, sources, targets and executor != null && sources and targets contain no null &&
+    //           parallelism > 0
+    //  effects: returns the matrix of graph.distanceMatrix(sources, targets), or of graph.transferMatrix if
+    //           transfers, on the heap, searching up to parallelism rows at once on executor. Throws
+    //           IllegalArgumentException if it has more than MAX_CELLS cells.
+    static DistanceMatrix build(GraphSnapshot graph, Collection<? extends Node> sources,
+                                Collection<? extends Node> targets, boolean transfers, Executor executor,
+                                int parallelism) {
+        Node[] rows = sources.toArray(new Node[0]), columns = targets.toArray(new Node[0]);
+        IntBuffer cells = IntBuffer.wrap(new int[cellCount(rows, columns)]);
+        fill(graph, rows, columns, transfers, cells, executor, parallelism);
+        return new DistanceMatrix(rows, columns, cells, false);
+    }
+
+    // requires: graph, sources, targets, file and executor != null && sources and targets contain no null &&
+    //           parallelism > 0
+    //  effects: same as build(graph, sources, targets, transfers, executor, parallelism), with the cells written to
+    //           file, which is created or replaced, and mapped from it. Throws IOException if file cannot be written.
+    static DistanceMatrix build(GraphSnapshot graph, Collection<? extends Node> sources,
+                                Collection<? extends Node> targets, boolean transfers, Path file, Executor executor,
+                                int parallelism) throws IOException {
+        Node[] rows = sources.toArray(new Node[0]), columns = targets.toArray(new Node[0]);
+        long bytes = 4L * cellCount(rows, columns);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes); // stays valid after closing
+        }
+        IntBuffer cells = buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        fill(graph, rows, columns, transfers, cells, executor, parallelism);
+        buffer.force();
+        return new DistanceMatrix(rows, columns, cells.asReadOnlyBuffer(), true);
+    }
+
+    // effects: returns the number of cells of a matrix from rows to columns. Throws IllegalArgumentException if
+    //          there are more than MAX_CELLS.
+    private static int cellCount(Node[] rows, Node[] columns) {
+        long cells = (long) rows.length * columns.length;
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException(rows.length+" x "+columns.length+" cells are more than "+MAX_CELLS);
+        }
+        return (int) cells;
+    }
+
+    // modifies: cells
+    //  effects: searches the row of every source with up to parallelism tasks on executor, each taking the next row
+    //           left until there are none and writing its own cells. A task per row would cost more than the
+    //           search of a row on small graphs.
+    private static void fill(GraphSnapshot graph, Node[] rows, Node[] columns, boolean transfers, IntBuffer cells,
+                             Executor executor, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: "+parallelism);
+        }
+        int[] columnIndices = new int[columns.length];
+        for (int j = 0; j < columns.length; j++) columnIndices[j] = graph.indexOf(columns[j]);
+        AtomicInteger next = new AtomicInteger(); // next row to search
+
+        int tasks = Math.min(rows.length, parallelism);
+        List<CompletableFuture<Void>> searches = new ArrayList<CompletableFuture<Void>>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            searches.add(CompletableFuture.runAsync(() -> {
+                int[] row = new int[columns.length];
+                SearchEngine engine = graph.engine();
+                for (int r = next.getAndIncrement(); r < rows.length; r = next.getAndIncrement()) {
+                    int s = graph.indexOf(rows[r]);
+                    if (s < 0) {
+                        Arrays.fill(row, -1);
+                    } else if (transfers) {
+                        engine.transferRow(s, columnIndices, row);
+                    } else {
+                        engine.hopRow(s, columnIndices, row);
+                    }
+                    cells.put(r * columns.length, row, 0, columns.length); // absolute, rows never share a position
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(searches.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    // effects: returns the number of rows, one per source
+    public int rows() {
+        return sources.length;
+    }
+
+    // effects: returns the number of columns, one per target
+    public int columns() {
+        return targets.length;
+    }
+
+    // requires: 0 <= row < rows()
+    //  effects: returns the source of row
+    public Node source(int row) {
+        return sources[row];
+    }
+
+    // requires: 0 <= column < columns()
+    //  effects: returns the target of column
+    public Node target(int column) {
+        return targets[column];
+    }
+
+    // requires: 0 <= row < rows() && 0 <= column < columns()
+    //  effects: returns the hops or line changes from source(row) to target(column), 0 if they are the same station,
+    //           and -1 if no path connects them or either is not a station of the graph
+    public int get(int row, int column) {
+        return cells.get(row * targets.length + column);
+    }
+
+    // requires: 0 <= row < rows() && into.length >= columns()
+    // modifies: into
+    //  effects: copies the cells of row into into, and returns into
+    public int[] row(int row, int[] into) {
+        cells.get(row * targets.length, into, 0, targets.length);
+        return into;
+    }
+
+    // effects: returns true if the cells are mapped from a file, false if they are on the heap
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    @Override
+    public String toString() {
+        return "DistanceMatrix["+sources.length+" x "+targets.length+(mapped ? ", mapped" : "")+"]";
+    }
+}
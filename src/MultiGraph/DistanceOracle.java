@@ -0,0 +1,283 @@
+package MultiGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Answers how many edges the shortest path between two stations of a GraphSnapshot has, without searching. Every
+ * station has a label of (hub, hops) pairs such that every shortest path passes through a hub in both labels, so
+ * distance(a, b) is the smallest hops(a, h) + hops(h, b) over the hubs h the two labels share, found by one linear
+ * merge of the labels.
+ *
+ * Labels are built by pruned landmark labelling: stations are taken as hubs in order of degree, and the breadth-first
+ * search from each hub stops at the stations whose distance the labels built so far already give. Stations of the
+ * same degree are taken in a shuffled order, fixed for the graph: in the order they were added, the rows of a grid
+ * would give labels twenty times larger. Hubs are searched
+ * in batches that run in parallel and only prune with the labels of the batches before, which costs a few extra
+ * label entries. Batches start with a single hub, as the first hubs prune the most, and double up to the
+ * parallelism. Each label is kept sorted by hub in one array of hubs and one of hops for all stations.
+ *
+ * The oracle answers for the graph with nothing closed, and does not change with the snapshot's closures.
+ */
+public final class DistanceOracle {
+
+    private final GraphSnapshot graph; // graph the labels are of
+    private final int[] order; // station of each hub rank, stations with more edges first
+    private final int[] labelStart; // first entry of the label of each station, labelStart[N] = entries
+    private final int[] hubs; // hub rank of each entry, ascending within a label
+    private final int[] hops; // edges from the station to the hub of each entry
+
+    private DistanceOracle (GraphSnapshot graph, int[] order, int[] labelStart, int[] hubs, int[] hops) {
+        this.graph = graph;
+        this.order = order;
+        this.labelStart = labelStart;
+        this.hubs = hubs;
+        this.hops = hops;
+    }
+
+    // requires: graph != null
+    //  effects: returns the oracle of graph, built on the common ForkJoinPool with as many hubs at once as it has
+    //           threads
+    public static DistanceOracle build(GraphSnapshot graph) {
+        return build(graph, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    // requires: graph != null && executor != null && parallelism > 0
+    //  effects: returns the oracle of graph, searching up to parallelism hubs at once on executor. The labels are the
+    //           same whatever the executor, and the same for the same parallelism.
+    public static DistanceOracle build(GraphSnapshot graph, Executor executor, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: "+parallelism);
+        }
+        int n = graph.nodeCount();
+        Integer[] byDegree = new Integer[n];
+        for (int i = 0; i < n; i++) byDegree[i] = i;
+        Collections.shuffle(Arrays.asList(byDegree), new Random(n)); // the sort keeps the shuffled order of ties
+        Arrays.sort(byDegree, (a, b) -> Integer.compare(degree(graph, b), degree(graph, a)));
+        int[] order = new int[n];
+        for (int r = 0; r < n; r++) order[r] = byDegree[r];
+
+        Labels labels = new Labels(n);
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(n));
+        int batch = 1;
+        for (int first = 0; first < n; first += batch, batch = Math.min(2 * batch, parallelism)) {
+            int size = Math.min(batch, n - first);
+            int[][] found = new int[size][]; // (station, hops) pairs the search from each hub of the batch labelled
+            if (size == 1) {
+                found[0] = scratch.get().search(graph, labels, first, order[first]);
+            } else {
+                List<CompletableFuture<Void>> searches = new ArrayList<CompletableFuture<Void>>(size);
+                for (int i = 0; i < size; i++) {
+                    int b = i, rank = first + i;
+                    searches.add(CompletableFuture.runAsync(
+                            () -> found[b] = scratch.get().search(graph, labels, rank, order[rank]), executor));
+                }
+                CompletableFuture.allOf(searches.toArray(new CompletableFuture<?>[0])).join();
+            }
+            for (int i = 0; i < size; i++) { // in rank order, so that every label stays sorted by hub
+                for (int j = 0; j < found[i].length; j += 2) labels.add(found[i][j], first + i, found[i][j + 1]);
+            }
+        }
+        return labels.flatten(graph, order);
+    }
+
+    // effects: returns the number of slots of station i of graph
+    private static int degree(GraphSnapshot graph, int i) {
+        return graph.offsets[i + 1] - graph.offsets[i];
+    }
+
+    /**
+     * Labels while they are being built, one growable pair of arrays per station.
+     */
+    private static final class Labels {
+
+        final int[][] hubs; // hub ranks of the label of each station, ascending
+        final int[][] hops; // edges to each of those hubs
+        final int[] sizes; // entries in the label of each station
+
+        Labels (int n) {
+            hubs = new int[n][];
+            hops = new int[n][];
+            sizes = new int[n];
+        }
+
+        // modifies: this
+        //  effects: adds (hub, distance) to the label of station
+        void add(int station, int hub, int distance) {
+            int size = sizes[station];
+            if (hubs[station] == null) {
+                hubs[station] = new int[4];
+                hops[station] = new int[4];
+            } else if (size == hubs[station].length) {
+                hubs[station] = Arrays.copyOf(hubs[station], 2 * size);
+                hops[station] = Arrays.copyOf(hops[station], 2 * size);
+            }
+            hubs[station][size] = hub;
+            hops[station][size] = distance;
+            sizes[station] = size + 1;
+        }
+
+        // effects: returns the oracle of these labels
+        DistanceOracle flatten(GraphSnapshot graph, int[] order) {
+            int n = sizes.length;
+            int[] labelStart = new int[n + 1];
+            for (int i = 0; i < n; i++) labelStart[i + 1] = labelStart[i] + sizes[i];
+            int[] allHubs = new int[labelStart[n]], allHops = new int[labelStart[n]];
+            for (int i = 0; i < n; i++) {
+                if (sizes[i] > 0) {
+                    System.arraycopy(hubs[i], 0, allHubs, labelStart[i], sizes[i]);
+                    System.arraycopy(hops[i], 0, allHops, labelStart[i], sizes[i]);
+                }
+            }
+            return new DistanceOracle(graph, order, labelStart, allHubs, allHops);
+        }
+    }
+
+    /**
+     * State of the pruned searches of one thread.
+     */
+    private static final class Scratch {
+
+        final int[] distance; // edges from the hub to each station, -1 if not reached yet
+        final int[] hubHops; // edges from the hub to each hub of its own label, -1 for other hubs
+        final int[] queue; // stations reached, in order
+        int[] found = new int[16]; // (station, hops) pairs labelled by the current search
+
+        Scratch (int n) {
+            distance = new int[n];
+            hubHops = new int[n];
+            queue = new int[n];
+            Arrays.fill(distance, -1);
+            Arrays.fill(hubHops, -1);
+        }
+
+        // requires: labels holds the labels of every batch of hubs before the one of rank
+        //  effects: runs the breadth-first search from station, the hub of rank rank, pruned at the stations whose
+        //           distance from it labels already give. Returns the stations it labels and their hops, in pairs.
+        //           Reads labels but does not change them.
+        int[] search(GraphSnapshot graph, Labels labels, int rank, int station) {
+            int[] ownHubs = labels.hubs[station], ownHops = labels.hops[station];
+            int ownSize = labels.sizes[station];
+            for (int j = 0; j < ownSize; j++) hubHops[ownHubs[j]] = ownHops[j];
+
+            int head = 0, tail = 0, count = 0;
+            queue[tail++] = station;
+            distance[station] = 0;
+            while (head < tail) {
+                int u = queue[head++];
+                int d = distance[u];
+                if (pruned(labels, u, d)) continue;
+
+                if (count + 2 > found.length) found = Arrays.copyOf(found, 2 * found.length);
+                found[count++] = u;
+                found[count++] = d;
+                for (int slot = graph.offsets[u], end = graph.offsets[u + 1]; slot < end; slot++) {
+                    int w = graph.neighbors[slot];
+                    if (distance[w] < 0) {
+                        distance[w] = d + 1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+
+            for (int i = 0; i < tail; i++) distance[queue[i]] = -1;
+            for (int j = 0; j < ownSize; j++) hubHops[ownHubs[j]] = -1;
+            return Arrays.copyOf(found, count);
+        }
+
+        // effects: returns true if the labels give a path of at most d edges between the hub and station u
+        private boolean pruned(Labels labels, int u, int d) {
+            int[] uHubs = labels.hubs[u], uHops = labels.hops[u];
+            for (int j = 0, size = labels.sizes[u]; j < size; j++) {
+                int h = hubHops[uHubs[j]];
+                if (h >= 0 && h + uHops[j] <= d) return true;
+            }
+            return false;
+        }
+    }
+
+    // requires: a != null && b != null
+    //  effects: returns the number of edges of the shortest path between a and b, or -1 if a or b !in Nodes or b
+    //           cannot be reached from a
+    public int distance(Node a, Node b) {
+        int s = graph.indexOf(a), d = graph.indexOf(b);
+        return s < 0 || d < 0 ? -1 : distance(s, d);
+    }
+
+    // requires: 0 <= a, b < the number of stations of the graph
+    //  effects: returns the number of edges of the shortest path between the stations with indices a and b, or -1
+    //           if there is none
+    int distance(int a, int b) {
+        int i = labelStart[a], iEnd = labelStart[a + 1], j = labelStart[b], jEnd = labelStart[b + 1];
+        int best = Integer.MAX_VALUE;
+        while (i < iEnd && j < jEnd) {
+            int hi = hubs[i], hj = hubs[j];
+            if (hi == hj) {
+                best = Math.min(best, hops[i++] + hops[j++]);
+            } else if (hi < hj) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    // requires: a != null && b != null
+    //  effects: returns null if a or b !in Nodes, an empty Deque if a = b or b cannot be reached from a, else a
+    //           shortest path from a to b, found by stepping to a neighbour one edge closer to b at a time and
+    //           staying on the same line where that is one of the choices
+    public Deque<Edge> path(Node a, Node b) {
+        int s = graph.indexOf(a), d = graph.indexOf(b);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+        Deque<Edge> path = new LinkedList<Edge>();
+        int left = distance(s, d);
+        int current = s, line = -1;
+        while (left > 0) {
+            int step = -1;
+            for (int slot = graph.offsets[current], end = graph.offsets[current + 1]; slot < end; slot++) {
+                if ((step < 0 || graph.slotLines[slot] == line) && distance(graph.neighbors[slot], d) == left - 1) {
+                    step = slot;
+                    if (graph.slotLines[slot] == line) break;
+                }
+            }
+            path.addLast(graph.edge(graph.slotEdges[step]));
+            line = graph.slotLines[step];
+            current = graph.neighbors[step];
+            left--;
+        }
+        return path;
+    }
+
+    // effects: returns the number of (hub, hops) entries of all labels
+    public long labelEntries() {
+        return hubs.length;
+    }
+
+    // effects: returns the mean number of entries of a label
+    public double averageLabelSize() {
+        return order.length == 0 ? 0 : (double)hubs.length / order.length;
+    }
+
+    // effects: returns the number of bytes the labels take
+    public long bytes() {
+        return 4L * (hubs.length + hops.length + labelStart.length + order.length);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DistanceOracle[%d stations, %d label entries, %.1f per station, %d bytes]",
+                order.length, labelEntries(), averageLabelSize(), bytes());
+    }
+}
@@ -4,7 +4,17 @@ public interface Edge {
 
     String getLabel();
 
+    // effects: returns the id of the label in LineRegistry.global()
+    default int getLineId() {
+        return LineRegistry.global().id(getLabel());
+    }
+
     Node origin();
 
     Node destination();
+
+    // effects: returns the travel time along the edge in seconds, 1 if the edge has no travel time
+    default int getWeight() {
+        return 1;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package MultiGraph;
+
+import java.util.Arrays;
+
+
+/**
+ * The edges of a graph as parallel int arrays: origin station, destination station and line id of each edge, plus
+ * a travel time array that is only allocated once some edge weighs other than 1. That is 12 bytes an edge, against
+ * about 100 for a Line in a HashMap, plus 4 to 8 bytes of dedupe table.
+ *
+ * Duplicates are found through an open-addressing table of edge indices. An edge hashes by its two stations packed
+ * into a long, mixed with its line, so the two directions of a segment and the segments of one line hash apart.
+ */
+final class EdgeTable {
+
+    private int[] origins; // origin station of each edge
+    private int[] destinations; // destination station of each edge
+    private int[] lines; // LineRegistry id of each edge
+    private int[] weights; // travel time of each edge, null while every edge weighs 1
+    private int size; // number of edges
+
+    private int[] table; // index + 1 of the edge in each slot, 0 if the slot is free
+    private int mask; // table.length - 1
+
+    // requires: expected >= 0
+    //  effects: creates an empty table that holds expected edges without growing
+    EdgeTable (int expected) {
+        int capacity = Math.max(16, expected);
+        origins = new int[capacity];
+        destinations = new int[capacity];
+        lines = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        mask = table.length - 1;
+    }
+
+    // effects: returns the number of edges
+    int size() {
+        return size;
+    }
+
+    // effects: returns the origin station of edge e
+    int origin(int e) {
+        return origins[e];
+    }
+
+    // effects: returns the destination station of edge e
+    int destination(int e) {
+        return destinations[e];
+    }
+
+    // effects: returns the LineRegistry id of edge e
+    int line(int e) {
+        return lines[e];
+    }
+
+    // effects: returns the travel time of edge e
+    int weight(int e) {
+        return weights == null ? 1 : weights[e];
+    }
+
+    // effects: returns the index of the edge from origin to destination on line, or -1 if there is none
+    int indexOf(int origin, int destination, int line) {
+        for (int i = hash(origin, destination, line) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int e = table[i] - 1;
+            if (origins[e] == origin && destinations[e] == destination && lines[e] == line) return e;
+        }
+        return -1;
+    }
+
+    // requires: weight >= 0
+    // modifies: this
+    //  effects: if there is no edge from origin to destination on line adds one with index size() and returns true,
+    //           else returns false
+    boolean add(int origin, int destination, int line, int weight) {
+        int i = hash(origin, destination, line) & mask;
+        for (; table[i] != 0; i = (i + 1) & mask) {
+            int e = table[i] - 1;
+            if (origins[e] == origin && destinations[e] == destination && lines[e] == line) return false;
+        }
+
+        if (size == origins.length) {
+            origins = Arrays.copyOf(origins, size * 2);
+            destinations = Arrays.copyOf(destinations, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+            if (weights != null) weights = Arrays.copyOf(weights, size * 2);
+        }
+        if (weight != 1 && weights == null) {
+            weights = new int[origins.length];
+            Arrays.fill(weights, 0, size, 1);
+        }
+        origins[size] = origin;
+        destinations[size] = destination;
+        lines[size] = line;
+        if (weights != null) weights[size] = weight;
+        table[i] = ++size;
+
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    // modifies: this
+    //  effects: doubles the number of slots of the dedupe table
+    private void rehash() {
+        table = new int[table.length * 2];
+        mask = table.length - 1;
+        for (int e = 0; e < size; e++) {
+            int i = hash(origins[e], destinations[e], lines[e]) & mask;
+            while (table[i] != 0) i = (i + 1) & mask;
+            table[i] = e + 1;
+        }
+    }
+
+    // effects: returns a well-mixed hash of the edge from origin to destination on line
+    static int hash(int origin, int destination, int line) {
+        long h = ((long)origin << 32 | (destination & 0xFFFFFFFFL)) ^ (line * 0xC2B2AE3D27D4EB4FL);
+        h *= 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,168 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Reads and writes graphs in a compact binary file that can be searched without loading it. All numbers are
+ * little-endian ints, so the file maps straight onto an IntBuffer on common hardware. Version 1 of the file is laid
+ * out as follows, where N is the number of stations, E of edges, L of lines and S of slots (two per edge, one per
+ * loop):
+ *
+ *   header            magic "MGRF", version, N, E, L, S, number of string bytes, 0
+ *   nodeIds           N     id of each station
+ *   idOrder           N     station indices sorted by id, then by index
+ *   nameStarts        N     first byte of the name of each station
+ *   nameLengths       N     bytes in the name of each station, -1 if it has none
+ *   labelStarts       L     first byte of the label of each line
+ *   labelLengths      L     bytes in the label of each line, -1 if it has none
+ *   edgeOrigins       E     origin station of each edge
+ *   edgeDestinations  E     destination station of each edge
+ *   edgeLines         E     line of each edge
+ *   edgeWeights       E     travel time of each edge
+ *   offsets           N+1   first slot of each station, as in GraphSnapshot
+ *   neighbors         S     station at the other end of each slot
+ *   slotEdges         S     edge of each slot
+ *   slotLines         S     line of each slot
+ *   strings                 UTF-8 bytes of every name and label
+ *
+ * Stations are read back as Stations and edges as Lines.
+ */
+public final class GraphFile {
+
+    static final int MAGIC = 0x4647524D; // "MGRF" read as a little-endian int
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 8;
+
+    private GraphFile () {
+    }
+
+    // requires: graph != null && file != null
+    //  effects: writes graph to file in the format above, replacing any file already there. The file is written
+    //           under a temporary name and moved into place, so processes that have the old file mapped keep
+    //           reading the old graph. Throws IOException if the file cannot be written or would be over 2 GB.
+    public static void write(GraphSnapshot graph, Path file) throws IOException {
+        int nodeCount = graph.nodeCount(), edgeCount = graph.edgeCount(), lineCount = graph.lineCount();
+        int slotCount = graph.neighbors.length;
+
+        byte[][] names = new byte[nodeCount][];
+        byte[][] labels = new byte[lineCount][];
+        long stringBytes = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (graph.nodes[i] instanceof Station && ((Station)graph.nodes[i]).getName() != null) {
+                names[i] = ((Station)graph.nodes[i]).getName().getBytes(StandardCharsets.UTF_8);
+                stringBytes += names[i].length;
+            }
+        }
+        for (int l = 0; l < lineCount; l++) {
+            if (graph.lineLabels[l] != null) {
+                labels[l] = graph.lineLabels[l].getBytes(StandardCharsets.UTF_8);
+                stringBytes += labels[l].length;
+            }
+        }
+
+        long ints = HEADER_INTS + 4L * nodeCount + 2L * lineCount + 4L * edgeCount + nodeCount + 1 + 3L * slotCount;
+        long size = 4 * ints + stringBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("graph of "+size+" bytes is too large for one file");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int)size).order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer out = buffer.asIntBuffer();
+        out.put(MAGIC).put(VERSION).put(nodeCount).put(edgeCount).put(lineCount).put(slotCount)
+                .put((int)stringBytes).put(0);
+
+        long[] idOrder = new long[nodeCount]; // id in the high half and index in the low half of each key
+        for (int i = 0; i < nodeCount; i++) {
+            out.put(graph.nodes[i].getId());
+            idOrder[i] = (long)graph.nodes[i].getId() << 32 | i;
+        }
+        Arrays.sort(idOrder); // by id, then by index
+        for (int i = 0; i < nodeCount; i++) out.put((int)idOrder[i]);
+
+        int start = 0;
+        start = putStrings(out, names, start);
+        putStrings(out, labels, start);
+
+        for (int e = 0; e < edgeCount; e++) out.put(graph.edgeOrigins[e]);
+        for (int e = 0; e < edgeCount; e++) out.put(graph.edgeDestinations[e]);
+        out.put(graph.edgeLines);
+        int[] weights = new int[edgeCount];
+        for (int slot = 0; slot < slotCount; slot++) weights[graph.slotEdges[slot]] = graph.slotWeights[slot];
+        out.put(weights);
+        out.put(graph.offsets);
+        out.put(graph.neighbors);
+        out.put(graph.slotEdges);
+        out.put(graph.slotLines);
+
+        buffer.position(4 * out.position());
+        for (byte[] name : names) if (name != null) buffer.put(name);
+        for (byte[] label : labels) if (label != null) buffer.put(label);
+        buffer.flip();
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // modifies: out
+    //  effects: puts the start and then the length (-1 for null) of each string, laid out from byte start on, and
+    //           returns the byte after the last string
+    private static int putStrings(IntBuffer out, byte[][] strings, int start) {
+        for (byte[] s : strings) {
+            out.put(start);
+            if (s != null) start += s.length;
+        }
+        for (byte[] s : strings) out.put(s == null ? -1 : s.length);
+        return start;
+    }
+
+    // requires: file != null
+    //  effects: maps file read-only and returns a graph that answers queries from the mapped pages. Processes that
+    //           map the same file share its pages. Throws IOException if the file cannot be read or is not a graph
+    //           file of a supported version.
+    public static MappedGraph map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file+" is not a graph file");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // stays valid after closing
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.capacity() < 4 * HEADER_INTS || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file+" is not a graph file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file+" is a graph file of unsupported version "+buffer.getInt(4));
+        }
+        long nodeCount = buffer.getInt(8), edgeCount = buffer.getInt(12), lineCount = buffer.getInt(16);
+        long slotCount = buffer.getInt(20), stringBytes = buffer.getInt(24);
+        long ints = HEADER_INTS + 4 * nodeCount + 2 * lineCount + 4 * edgeCount + nodeCount + 1 + 3 * slotCount;
+        if (nodeCount < 0 || edgeCount < 0 || lineCount < 0 || slotCount < edgeCount || slotCount > 2 * edgeCount
+                || stringBytes < 0 || 4 * ints + stringBytes != buffer.capacity()) {
+            throw new IOException(file+" is truncated or corrupt");
+        }
+        return new MappedGraph(buffer);
+    }
+}
@@ -0,0 +1,574 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+
+
+/**
+ * An immutable, compiled copy of a multigraph. Stations are numbered densely and the adjacency is stored in
+ * compressed-sparse-row form: the slots of station i are offsets[i] .. offsets[i+1]-1, and every slot already knows
+ * the station at the other end of its edge and the id of its line. Queries give the same results as the graph the
+ * snapshot was taken from.
+ *
+ * The snapshot shares the Closures of that graph, so stations and edges closed on the graph are closed for its
+ * snapshots too, old ones included.
+ */
+public class GraphSnapshot implements IMultiGraph {
+
+    final Node[] nodes; // station of each index
+    private final Edge[] edges; // edge of each index, null if edges are made on demand
+    private final int[] edgeWeights; // travel time of each edge made on demand, null if every edge weighs 1
+    private final IntIntHashMap ids; // mapping of station ids to the index of the first station with that id
+    final Closures closures; // closed stations and edges of the graph, shared with its other snapshots
+
+    final int[] offsets; // first slot of each station, offsets[nodeCount] = slotCount
+    final int[] neighbors; // station at the other end of each slot
+    final int[] slotEdges; // edge of each slot
+    final int[] slotLines; // line id of each slot
+    final int[] slotWeights; // travel time of each slot
+
+    final int[] edgeOrigins; // origin station of each edge
+    final int[] edgeDestinations; // destination station of each edge
+    final int[] edgeLines; // line id of each edge
+    final int[] lineIds; // LineRegistry id of each line id, line ids are dense per snapshot
+    final String[] lineLabels; // label of each line id
+
+    volatile SearchProbe probe; // told of every findPath search, null if none
+    private volatile LineStates lineStates; // (station, line) states, built by the first search that needs them
+    private volatile Landmarks landmarks; // hop distances to landmarks, built by the first search that needs them
+    private Landmarks base; // landmarks of an earlier snapshot of the same graph to extend, null if none
+    final IntFunction<Edge> edgeSource = this::edge; // makes the edges of CompactPaths
+    private final ThreadLocal<SearchEngine> engines = ThreadLocal.withInitial(() -> new SearchEngine(this));
+
+    // requires: nodes and edges are the nodes and edges of a graph by index && nodeToEdges[i] are the edges of nodes[i]
+    //           (or null if it has none) && edgeIndex maps every edge to its index && ids maps the id of every node
+    //           to the index of the first node with that id && closures is null or the closures of the graph
+    //  effects: compiles the graph, keeping the edge order of each station. If closures is null the snapshot gets
+    //           closures of its own.
+    GraphSnapshot (Node[] nodes, Edge[] edges, Set<Edge>[] nodeToEdges, Map<Edge, Integer> edgeIndex,
+                   IntIntHashMap ids, Closures closures) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.ids = ids;
+        if (closures == null) {
+            closures = new Closures(this::indexOf, e -> edgeIndex.getOrDefault(e, -1));
+        }
+        this.closures = closures;
+        edgeWeights = null;
+        int nodeCount = nodes.length, edgeCount = edges.length;
+
+        edgeOrigins = new int[edgeCount];
+        edgeDestinations = new int[edgeCount];
+        edgeLines = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        IntIntHashMap lineIndex = new IntIntHashMap(16); // registry id to line id
+        IntDeque registryIds = new IntDeque(16);
+        for (int e = 0; e < edgeCount; e++) {
+            edgeOrigins[e] = indexOf(edges[e].origin());
+            edgeDestinations[e] = indexOf(edges[e].destination());
+            edgeLines[e] = line(edges[e].getLineId(), lineIndex, registryIds);
+
+            weights[e] = edges[e].getWeight();
+            if (weights[e] < 0) {
+                throw new IllegalArgumentException("negative travel time on "+edges[e]);
+            }
+        }
+
+        int slotCount = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (nodeToEdges[i] != null) slotCount += nodeToEdges[i].size();
+        }
+        offsets = new int[nodeCount + 1];
+        neighbors = new int[slotCount];
+        slotEdges = new int[slotCount];
+        slotLines = new int[slotCount];
+        slotWeights = new int[slotCount];
+
+        int slot = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i] = slot;
+            if (nodeToEdges[i] == null) continue;
+            for (Edge e : nodeToEdges[i]) {
+                int index = edgeIndex.get(e);
+                // the neighbor is resolved the same way findPath resolves the opposite node
+                neighbors[slot] = e.origin().equals(nodes[i]) ? edgeDestinations[index] : edgeOrigins[index];
+                slotEdges[slot] = index;
+                slotLines[slot] = edgeLines[index];
+                slotWeights[slot] = weights[index];
+                slot++;
+            }
+        }
+        offsets[nodeCount] = slot;
+
+        lineIds = new int[registryIds.size()];
+        lineLabels = new String[lineIds.length];
+        for (int l = 0; l < lineIds.length; l++) {
+            lineIds[l] = registryIds.get(l);
+            lineLabels[l] = LineRegistry.global().label(lineIds[l]);
+        }
+    }
+
+    // requires: every node of nodes is a Station && table holds edges between indices of nodes && ids maps the id
+    //           of every node to its index && closures are the closures of the graph
+    //  effects: compiles the graph, with the edges of each station in the order they were added. Edges are made
+    //           into Lines only when a path returns them.
+    GraphSnapshot (Node[] nodes, EdgeTable table, IntIntHashMap ids, Closures closures) {
+        this.nodes = nodes;
+        this.edges = null;
+        this.ids = ids;
+        this.closures = closures;
+        int nodeCount = nodes.length, edgeCount = table.size();
+
+        edgeOrigins = new int[edgeCount];
+        edgeDestinations = new int[edgeCount];
+        edgeLines = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        boolean weighted = false;
+        IntIntHashMap lineIndex = new IntIntHashMap(16); // registry id to line id
+        IntDeque registryIds = new IntDeque(16);
+        offsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeOrigins[e] = table.origin(e);
+            edgeDestinations[e] = table.destination(e);
+            edgeLines[e] = line(table.line(e), lineIndex, registryIds);
+            weights[e] = table.weight(e);
+            weighted |= weights[e] != 1;
+
+            offsets[edgeOrigins[e] + 1]++; // count the slots of each station
+            if (edgeDestinations[e] != edgeOrigins[e]) offsets[edgeDestinations[e] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) offsets[i + 1] += offsets[i];
+        edgeWeights = weighted ? weights : null;
+
+        int slotCount = offsets[nodeCount];
+        neighbors = new int[slotCount];
+        slotEdges = new int[slotCount];
+        slotLines = new int[slotCount];
+        slotWeights = new int[slotCount];
+        int[] next = Arrays.copyOf(offsets, nodeCount); // next free slot of each station
+        for (int e = 0; e < edgeCount; e++) {
+            int o = edgeOrigins[e], d = edgeDestinations[e];
+            int slot = next[o]++;
+            neighbors[slot] = d;
+            slotEdges[slot] = e;
+            slotLines[slot] = edgeLines[e];
+            slotWeights[slot] = weights[e];
+            if (d != o) {
+                slot = next[d]++;
+                neighbors[slot] = o;
+                slotEdges[slot] = e;
+                slotLines[slot] = edgeLines[e];
+                slotWeights[slot] = weights[e];
+            }
+        }
+
+        lineIds = new int[registryIds.size()];
+        lineLabels = new String[lineIds.length];
+        for (int l = 0; l < lineIds.length; l++) {
+            lineIds[l] = registryIds.get(l);
+            lineLabels[l] = LineRegistry.global().label(lineIds[l]);
+        }
+    }
+
+    // modifies: lineIndex, registryIds
+    //  effects: returns the line id of LineRegistry id id, giving it the next line id if it has none
+    private static int line(int id, IntIntHashMap lineIndex, IntDeque registryIds) {
+        int line = lineIndex.putIfAbsent(id, registryIds.size());
+        if (line < 0) {
+            line = registryIds.size();
+            registryIds.addLast(id);
+        }
+        return line;
+    }
+
+    // effects: returns the edge of index e
+    Edge edge(int e) {
+        if (edges != null) {
+            return edges[e];
+        }
+        return new Line(lineIds[edgeLines[e]], (Station)nodes[edgeOrigins[e]], (Station)nodes[edgeDestinations[e]],
+                edgeWeights == null ? 1 : edgeWeights[e]);
+    }
+
+    // effects: throws UnsupportedOperationException, a snapshot cannot be modified
+    @Override
+    public boolean addNode(Node n) {
+        throw new UnsupportedOperationException("snapshot is immutable");
+    }
+
+    // effects: throws UnsupportedOperationException, a snapshot cannot be modified
+    @Override
+    public boolean addEdge(Edge e) {
+        throw new UnsupportedOperationException("snapshot is immutable");
+    }
+
+    //  effects: if exists n in Nodes | n.id = id return n, else return null
+    @Override
+    public Node getNode(int id) {
+        int i = ids.get(id);
+        return i < 0 ? null : nodes[i];
+    }
+
+    // effects: returns |Nodes|
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    // effects: returns |Edges|
+    public int edgeCount() {
+        return edgeOrigins.length;
+    }
+
+    // effects: returns the number of distinct line labels
+    public int lineCount() {
+        return lineLabels.length;
+    }
+
+    // requires: equal nodes have equal ids
+    //  effects: if n in Nodes returns the index of n, else returns -1
+    public int indexOf(Node n) {
+        int i = ids.get(n.getId());
+        if (i < 0 || nodes[i].equals(n)) {
+            return i;
+        }
+        // a different node has the same id, look for n among the nodes added after it
+        for (i++; i < nodes.length; i++) {
+            if (nodes[i].equals(n)) return i;
+        }
+        return -1;
+    }
+
+    // effects: returns the station at the other end of edge e from station n
+    int opposite(int e, int n) {
+        return edgeOrigins[e] == n ? edgeDestinations[e] : edgeOrigins[e];
+    }
+
+    // effects: returns the (station, line) states of this snapshot
+    LineStates lineStates() {
+        LineStates states = lineStates;
+        if (states == null) { // building twice on a race is harmless, the states never change
+            lineStates = states = new LineStates(this);
+        }
+        return states;
+    }
+
+    // effects: returns the landmarks that SearchMode.LANDMARKS searches towards. They are built with
+    //          Landmarks.DEFAULT_COUNT landmarks the first time they are needed, or extended from those of the
+    //          snapshot this one was compiled after.
+    public Landmarks landmarks() {
+        Landmarks table = landmarks;
+        if (table == null) { // building twice on a race is harmless, both give the same landmarks
+            landmarks = table = base != null ? base.extend(this) : Landmarks.build(this, Landmarks.DEFAULT_COUNT);
+        }
+        return table;
+    }
+
+    // requires: table != null
+    // modifies: this
+    //  effects: makes SearchMode.LANDMARKS search towards the landmarks of table, such as ones read back from a
+    //           file. Throws IllegalArgumentException if table holds the landmarks of another graph.
+    public void landmarks(Landmarks table) {
+        if (!table.isOf(this)) {
+            throw new IllegalArgumentException("landmarks of another graph");
+        }
+        landmarks = table;
+    }
+
+    // effects: returns the landmarks of this snapshot if they were built, else returns null
+    Landmarks builtLandmarks() {
+        return landmarks;
+    }
+
+    // requires: base is null or the landmarks of an earlier snapshot of the graph this one was compiled from, and
+    //           the graph only grew since && this snapshot has not been queried yet
+    // modifies: this
+    //  effects: makes landmarks() extend base instead of building landmarks from scratch
+    void extendLandmarks(Landmarks base) {
+        this.base = base;
+    }
+
+    // effects: returns the closed stations and edges of the graph this snapshot was taken from
+    public Closures closures() {
+        return closures;
+    }
+
+    // modifies: this
+    //  effects: tells probe of every findPath and findPathCompact search from now on, or stops telling anyone if
+    //           probe is null
+    public void probe(SearchProbe probe) {
+        this.probe = probe;
+    }
+
+    // effects: returns the search engine of the calling thread
+    public SearchEngine engine() {
+        return engines.get();
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPath on the graph this snapshot was taken from
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        return engine().findPath(s, d);
+    }
+
+    //requires: start != null && destination != null && scenario is a scenario of closures()
+    // effects: same as MultiGraph.findPath(start, destination, scenario) on the graph this snapshot was taken from
+    public Deque<Edge> findPath (Node start, Node destination, Closures scenario) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        SearchEngine engine = engine();
+        engine.scenario(scenario);
+        try {
+            return engine.findPath(s, d);
+        } finally {
+            engine.scenario(null);
+        }
+    }
+
+    //requires: start != null && destination != null && mode != null
+    // effects: same as MultiGraph.findPath(start, destination, mode) on the graph this snapshot was taken from
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination, SearchMode mode) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        switch (mode) {
+            case BIDIRECTIONAL:
+                return engine().findPathBidirectional(s, d);
+            case LANDMARKS:
+                return engine().findPathLandmarks(s, d);
+            default:
+                return engine().findPath(s, d);
+        }
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathMinTransfers on the graph this snapshot was taken from
+    @Override
+    public Deque<Edge> findPathMinTransfers (Node start, Node destination) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        return engine().findPathMinTransfers(s, d);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathMinTransfersThenHops on the graph this snapshot was taken from
+    @Override
+    public Deque<Edge> findPathMinTransfersThenHops (Node start, Node destination) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        return engine().findPathMinTransfersThenHops(s, d);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPath on the graph this snapshot was taken from
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination) {
+        return findShortestPath(start, destination, (Heuristic)null);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPath on the graph this snapshot was taken from
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination, Heuristic heuristic) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        return engine().findShortestPath(s, d, heuristic);
+    }
+
+    //requires: start != null && destination != null && scenario is a scenario of closures()
+    // effects: same as MultiGraph.findShortestPath(start, destination, scenario) on the graph this snapshot was
+    //          taken from
+    public Deque<Edge> findShortestPath (Node start, Node destination, Closures scenario) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        SearchEngine engine = engine();
+        engine.scenario(scenario);
+        try {
+            return engine.findShortestPath(s, d, null);
+        } finally {
+            engine.scenario(null);
+        }
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathCompact on the graph this snapshot was taken from
+    @Override
+    public CompactPath findPathCompact (Node start, Node destination) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        return engine().findPathCompact(s, d);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPathCompact on the graph this snapshot was taken from
+    @Override
+    public CompactPath findShortestPathCompact (Node start, Node destination) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        return engine().findShortestPathCompact(s, d, null);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findKPaths on the graph this snapshot was taken from
+    @Override
+    public List<Deque<Edge>> findKPaths (Node start, Node destination, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: "+k);
+        }
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        return engine().findKPaths(s, d, k);
+    }
+
+    //requires: start != null
+    // effects: same as MultiGraph.searchFrom on the graph this snapshot was taken from
+    @Override
+    public SearchTree searchFrom (Node start) {
+
+        int s = indexOf(start);
+        if (s < 0) {
+            return null;
+        }
+
+        return engine().searchTree(s);
+    }
+
+    //requires: queries != null && no query is null
+    // effects: same as MultiGraph.findPaths(queries) on the graph this snapshot was taken from
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries) {
+        return findPaths(queries, ForkJoinPool.commonPool());
+    }
+
+    //requires: queries != null && no query is null && executor != null
+    // effects: same as MultiGraph.findPaths(queries, executor) on the graph this snapshot was taken from
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries, Executor executor) {
+        @SuppressWarnings("unchecked")
+        Deque<Edge>[] results = (Deque<Edge>[]) new Deque<?>[queries.size()];
+
+        // queries from the same start share one search, remember where each one goes in the results
+        Map<Integer, List<Integer>> byStart = new LinkedHashMap<Integer, List<Integer>>();
+        int[] destinations = new int[results.length];
+        int i = 0;
+        for (Pair<Node, Node> query : queries) {
+            int s = indexOf(query.first()), d = indexOf(query.second());
+            if (s >= 0 && d >= 0) { // results of queries with unknown stations stay null
+                destinations[i] = d;
+                byStart.computeIfAbsent(s, k -> new ArrayList<Integer>()).add(i);
+            }
+            i++;
+        }
+
+        List<CompletableFuture<Void>> searches = new ArrayList<CompletableFuture<Void>>(byStart.size());
+        for (Map.Entry<Integer, List<Integer>> group : byStart.entrySet()) {
+            searches.add(CompletableFuture.runAsync(() -> {
+                List<Integer> positions = group.getValue();
+                int[] targets = new int[positions.size()];
+                for (int t = 0; t < targets.length; t++) targets[t] = destinations[positions.get(t)];
+
+                Deque<Edge>[] paths = engine().findPaths(group.getKey(), targets);
+                for (int t = 0; t < targets.length; t++) results[positions.get(t)] = paths[t];
+            }, executor));
+        }
+        CompletableFuture.allOf(searches.toArray(new CompletableFuture<?>[0])).join();
+
+        return Arrays.asList(results);
+    }
+
+    //requires: sources != null && targets != null && neither contains null
+    // effects: returns the matrix M of fewest edges such that M.get(i, j) is the number of edges of the shortest
+    //          path from the i-th source to the j-th target, 0 if they are the same station and -1 if none connects
+    //          them or either is not in Nodes. One breadth-first search per source serves its whole row, and the
+    //          rows are searched on all threads of the common ForkJoinPool. The cells are kept on the heap; throws
+    //          IllegalArgumentException if there are more than DistanceMatrix.MAX_CELLS of them.
+    public DistanceMatrix distanceMatrix (Collection<? extends Node> sources, Collection<? extends Node> targets) {
+        return DistanceMatrix.build(this, sources, targets, false, ForkJoinPool.commonPool(),
+                ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    //requires: sources != null && targets != null && neither contains null && file != null
+    // effects: same as distanceMatrix(sources, targets), with the cells written to file and mapped from it rather
+    //          than kept on the heap. Throws IOException if file cannot be written.
+    public DistanceMatrix distanceMatrix (Collection<? extends Node> sources, Collection<? extends Node> targets,
+                                          Path file) throws IOException {
+        return DistanceMatrix.build(this, sources, targets, false, file, ForkJoinPool.commonPool(),
+                ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    //requires: sources != null && targets != null && neither contains null
+    // effects: same as distanceMatrix(sources, targets), with the fewest changes between edges of different labels
+    //          that findPathMinTransfers counts in place of the fewest edges
+    public DistanceMatrix transferMatrix (Collection<? extends Node> sources, Collection<? extends Node> targets) {
+        return DistanceMatrix.build(this, sources, targets, true, ForkJoinPool.commonPool(),
+                ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    //requires: sources != null && targets != null && neither contains null && file != null
+    // effects: same as transferMatrix(sources, targets), with the cells written to file and mapped from it rather
+    //          than kept on the heap. Throws IOException if file cannot be written.
+    public DistanceMatrix transferMatrix (Collection<? extends Node> sources, Collection<? extends Node> targets,
+                                          Path file) throws IOException {
+        return DistanceMatrix.build(this, sources, targets, true, file, ForkJoinPool.commonPool(),
+                ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    @Override
+    public String toString() {
+        return "GraphSnapshot["+nodes.length+" nodes, "+edgeOrigins.length+" edges, "+lineLabels.length+" lines]";
+    }
+}
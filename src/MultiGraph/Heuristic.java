@@ -0,0 +1,12 @@
+package MultiGraph;
+
+/**
+ * A lower bound on the weight of the paths between two stations, used to direct weighted path searches towards the
+ * destination.
+ */
+public interface Heuristic {
+
+    // requires: n != null && destination != null
+    //  effects: returns h >= 0 such that every path from n to destination weighs at least h
+    int estimate(Node n, Node destination);
+}
@@ -1,6 +1,9 @@
 package MultiGraph;
 
+import java.util.Collection;
 import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 
 public interface IMultiGraph {
@@ -12,4 +15,26 @@ public interface IMultiGraph {
     public Node getNode(int id);
 
     public Deque<Edge> findPath (Node start, Node destination);
+
+    public Deque<Edge> findPath (Node start, Node destination, SearchMode mode);
+
+    public Deque<Edge> findPathMinTransfers (Node start, Node destination);
+
+    public Deque<Edge> findPathMinTransfersThenHops (Node start, Node destination);
+
+    public Deque<Edge> findShortestPath (Node start, Node destination);
+
+    public Deque<Edge> findShortestPath (Node start, Node destination, Heuristic heuristic);
+
+    public CompactPath findPathCompact (Node start, Node destination);
+
+    public CompactPath findShortestPathCompact (Node start, Node destination);
+
+    public List<Deque<Edge>> findKPaths (Node start, Node destination, int k);
+
+    public SearchTree searchFrom (Node start);
+
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries);
+
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries, Executor executor);
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package MultiGraph;
+
+import java.util.Arrays;
+
+
+/**
+ * A binary min-heap of node indices ordered by int keys. Each node is in the heap at most once and its key can be
+ * lowered in place, so searches never box keys or leave stale entries behind.
+ */
+final class IndexedMinHeap {
+
+    private final int[] heap; // nodes in heap order
+    private final int[] keys; // key of each node, valid while the node is in the heap
+    private final int[] position; // position of each node in heap, -1 if it is not in the heap
+    private int size; // number of nodes in the heap
+
+    // requires: capacity >= 0
+    //  effects: creates an empty heap for the nodes 0 .. capacity-1
+    IndexedMinHeap (int capacity) {
+        heap = new int[capacity];
+        keys = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    // effects: returns true if there are no nodes in the heap
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // effects: returns true if node is in the heap
+    boolean contains(int node) {
+        return position[node] >= 0;
+    }
+
+    // modifies: this
+    //  effects: removes every node from the heap
+    void clear() {
+        for (int i = 0; i < size; i++) position[heap[i]] = -1;
+        size = 0;
+    }
+
+    // requires: !contains(node) || key <= key of node
+    // modifies: this
+    //  effects: inserts node with key, or lowers the key of node to key if it is in the heap already
+    void insertOrDecrease(int node, int key) {
+        int i = position[node];
+        if (i < 0) {
+            i = size++;
+        }
+        keys[node] = key;
+        siftUp(i, node);
+    }
+
+    // requires: !isEmpty()
+    //  effects: returns the key of the node with the smallest key
+    int minKey() {
+        return keys[heap[0]];
+    }
+
+    // requires: !isEmpty()
+    // modifies: this
+    //  effects: removes and returns the node with the smallest key
+    int pollMin() {
+        int min = heap[0];
+        position[min] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return min;
+    }
+
+    // modifies: this
+    //  effects: places node at position i or above it, moving larger parents down
+    private void siftUp(int i, int node) {
+        int key = keys[node];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (keys[p] <= key) break;
+            heap[i] = p;
+            position[p] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        position[node] = i;
+    }
+
+    // modifies: this
+    //  effects: places node at position i or below it, moving smaller children up
+    private void siftDown(int i, int node) {
+        int key = keys[node];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[c]) {
+                child = right;
+                c = heap[child];
+            }
+            if (key <= keys[c]) break;
+            heap[i] = c;
+            position[c] = i;
+            i = child;
+        }
+        heap[i] = node;
+        position[node] = i;
+    }
+}
@@ -0,0 +1,83 @@
+package MultiGraph;
+
+import java.util.Arrays;
+
+
+/**
+ * A growable ring buffer of ints that can be used as a queue or as a deque, without boxing.
+ */
+final class IntDeque {
+
+    private int[] elements; // ring buffer, length is a power of two
+    private int head; // index of the first element
+    private int size; // number of elements
+
+    // requires: capacity > 0
+    IntDeque (int capacity) {
+        elements = new int[Integer.highestOneBit(Math.max(2, capacity) * 2 - 1)];
+    }
+
+    // effects: returns true if there are no elements
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // effects: returns the number of elements
+    int size() {
+        return size;
+    }
+
+    // modifies: this
+    //  effects: removes all elements
+    void clear() {
+        head = size = 0;
+    }
+
+    // modifies: this
+    //  effects: inserts v before the first element
+    void addFirst(int v) {
+        if (size == elements.length) grow();
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = v;
+        size++;
+    }
+
+    // modifies: this
+    //  effects: inserts v after the last element
+    void addLast(int v) {
+        if (size == elements.length) grow();
+        elements[(head + size) & (elements.length - 1)] = v;
+        size++;
+    }
+
+    // requires: !isEmpty()
+    //  effects: returns the first element
+    int peekFirst() {
+        return elements[head];
+    }
+
+    // requires: 0 <= i < size()
+    //  effects: returns the i-th element from the front
+    int get(int i) {
+        return elements[(head + i) & (elements.length - 1)];
+    }
+
+    // requires: !isEmpty()
+    // modifies: this
+    //  effects: removes and returns the first element
+    int pollFirst() {
+        int v = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return v;
+    }
+
+    // modifies: this
+    //  effects: doubles the capacity, keeping the elements in order
+    private void grow() {
+        int[] grown = Arrays.copyOf(elements, elements.length * 2);
+        // the elements that wrapped around to the front now continue after the old end
+        System.arraycopy(elements, 0, grown, elements.length, head);
+        elements = grown;
+    }
+}
@@ -0,0 +1,87 @@
+package MultiGraph;
+
+import java.util.Arrays;
+
+
+/**
+ * A map from int keys to non-negative int values with open addressing and linear probing, so lookups neither box
+ * nor follow pointers. Used to find the index of a station from its id.
+ */
+final class IntIntHashMap {
+
+    private static final int FREE = -1; // value of a free slot
+
+    private int[] keys; // key of each slot
+    private int[] values; // value of each slot, FREE if the slot is free
+    private int size; // number of keys
+
+    // requires: expected >= 0
+    //  effects: creates an empty map that holds expected keys without growing
+    IntIntHashMap (int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2) * 2 - 1);
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, FREE);
+    }
+
+    // effects: returns a copy of other
+    IntIntHashMap (IntIntHashMap other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        size = other.size;
+    }
+
+    // effects: returns the number of keys
+    int size() {
+        return size;
+    }
+
+    // effects: returns the value of key, or -1 if key is not in the map
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (values[i] == FREE) return -1;
+            if (keys[i] == key) return values[i];
+        }
+    }
+
+    // requires: value >= 0
+    // modifies: this
+    //  effects: if key is not in the map maps it to value and returns -1, else returns the value of key
+    int putIfAbsent(int key, int value) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        for (; values[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return -1;
+    }
+
+    // modifies: this
+    //  effects: doubles the number of slots, keeping every key
+    private void grow() {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(values, FREE);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] == FREE) continue;
+            int i = mix(oldKeys[j]) & mask;
+            while (values[i] != FREE) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    // effects: returns key with its bits spread, so that consecutive ids do not fill consecutive slots
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
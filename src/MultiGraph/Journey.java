@@ -0,0 +1,115 @@
+package MultiGraph;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * A trip through a Timetable from one station to another: the rides it takes, each on one vehicle from the station it
+ * boards at to the station it leaves at. Times are in seconds since midnight of the day of service, and may go past
+ * 24:00 for services that run after midnight.
+ */
+public final class Journey {
+
+    private final int departure; // time the journey leaves its start
+    private final int arrival; // time the journey reaches its destination, -1 if it cannot
+    private final List<Leg> legs; // rides of the journey, in order
+
+    // requires: legs is not changed afterwards
+    Journey (int departure, int arrival, List<Leg> legs) {
+        this.departure = departure;
+        this.arrival = arrival;
+        this.legs = Collections.unmodifiableList(legs);
+    }
+
+    // effects: returns the time the first leg leaves, or the time asked for if there are no legs
+    public int departure() {
+        return departure;
+    }
+
+    // effects: returns the time the last leg arrives, the time asked for if start = destination, or -1 if the
+    //          destination cannot be reached
+    public int arrival() {
+        return arrival;
+    }
+
+    // effects: returns true if the destination can be reached, else returns false
+    public boolean reaches() {
+        return arrival >= 0;
+    }
+
+    // effects: returns the rides of the journey, in order
+    public List<Leg> legs() {
+        return legs;
+    }
+
+    // effects: returns the number of changes between vehicles
+    public int transfers() {
+        return Math.max(0, legs.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "Journey"+legs+" arriving "+arrival;
+    }
+
+    /**
+     * A ride on one vehicle, as an Edge from the station it boards at to the station it leaves at whose weight is the
+     * time on board.
+     */
+    public static final class Leg implements Edge {
+
+        private final int line; // id of the line of the vehicle in LineRegistry.global()
+        private final Node origin, destination; // stations the ride boards and leaves at
+        private final int departure, arrival; // times the ride leaves origin and reaches destination
+
+        Leg (int line, Node origin, Node destination, int departure, int arrival) {
+            this.line = line;
+            this.origin = origin;
+            this.destination = destination;
+            this.departure = departure;
+            this.arrival = arrival;
+        }
+
+        @Override
+        public String getLabel() {
+            return LineRegistry.global().label(line);
+        }
+
+        @Override
+        public int getLineId() {
+            return line;
+        }
+
+        @Override
+        public Node origin() {
+            return origin;
+        }
+
+        @Override
+        public Node destination() {
+            return destination;
+        }
+
+        // effects: returns the time on board, arrival - departure
+        @Override
+        public int getWeight() {
+            return arrival - departure;
+        }
+
+        // effects: returns the time the ride leaves origin
+        public int departure() {
+            return departure;
+        }
+
+        // effects: returns the time the ride reaches destination
+        public int arrival() {
+            return arrival;
+        }
+
+        @Override
+        public String toString() {
+            return origin+" "+getLabel()+" "+departure+" -> "+destination+" "+arrival;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Hop distances from a few landmark stations to every station of a GraphSnapshot, for goal-directed searches. By the
+ * triangle inequality no path between a and b has fewer than |dist(l, a) - dist(l, b)| edges for any landmark l, and
+ * the largest of these bounds directs SearchMode.LANDMARKS towards the destination. Landmarks are picked one after
+ * another as the station farthest from those picked so far, starting from the station farthest from the one with
+ * the most edges.
+ *
+ * Distances are kept station by station in a short[] while they all fit, else in an int[], -1 where a landmark
+ * cannot reach a station. They are measured on the whole graph: closing stations and edges only makes paths longer,
+ * so the bounds still hold. As graphs only grow, the landmarks of a snapshot can be extended to a later snapshot of
+ * the same graph by following the new edges instead of searching again.
+ *
+ * Landmarks can be written to a file and read back for the same graph. The file holds, as little-endian ints, the
+ * magic "MGLM", version 1, N, E, the two halves of a fingerprint of the adjacency, K, 1 if the distances are shorts
+ * or 0 if ints, the K landmark indices, and then the N * K distances.
+ */
+public final class Landmarks {
+
+    static final int DEFAULT_COUNT = 16; // landmarks of a graph unless asked otherwise
+    static final int MAGIC = 0x4D4C474D; // "MGLM" read as a little-endian int
+    static final int VERSION = 1;
+
+    private final int nodeCount, edgeCount; // |Nodes| and |Edges| of the graph the distances are of
+    private final long fingerprint; // of the adjacency of that graph
+    private final int[] landmarks; // station index of each landmark
+    private final short[] narrow; // distance from landmark l to station n at n * K + l, null if wide is used
+    private final int[] wide; // the same when some distance does not fit in a short, else null
+
+    private Landmarks (GraphSnapshot graph, int[] landmarks, int[] distances) {
+        this(graph.nodeCount(), graph.edgeCount(), fingerprint(graph), landmarks, pack(distances), distances);
+    }
+
+    private Landmarks (int nodeCount, int edgeCount, long fingerprint, int[] landmarks, short[] narrow, int[] wide) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.fingerprint = fingerprint;
+        this.landmarks = landmarks;
+        this.narrow = narrow;
+        this.wide = narrow == null ? wide : null;
+    }
+
+    // requires: graph != null && count > 0
+    //  effects: picks up to count landmarks of graph and returns their distances to every station. Fewer are picked
+    //           if every station is a landmark or next to one. Takes count breadth-first searches.
+    public static Landmarks build(GraphSnapshot graph, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: "+count);
+        }
+        int n = graph.nodeCount();
+        int[] nearest = new int[n]; // hops to the nearest landmark picked so far, -1 if none reaches
+        int[][] hops = new int[Math.min(count, n)][]; // hops from each landmark picked
+        int[] picked = new int[hops.length];
+        IntDeque queue = new IntDeque(16);
+
+        int first = -1, degree = -1;
+        for (int i = 0; i < n; i++) {
+            if (graph.offsets[i + 1] - graph.offsets[i] > degree) {
+                degree = graph.offsets[i + 1] - graph.offsets[i];
+                first = i;
+            }
+        }
+        if (first >= 0) {
+            breadthFirst(graph, first, nearest, queue);
+            first = farthest(nearest);
+        }
+
+        int k = 0;
+        for (int next = first; next >= 0 && k < picked.length; k++) {
+            picked[k] = next;
+            hops[k] = new int[n];
+            breadthFirst(graph, next, hops[k], queue);
+            for (int i = 0; i < n; i++) {
+                int h = hops[k][i];
+                nearest[i] = k == 0 || nearest[i] < 0 ? h : h < 0 ? nearest[i] : Math.min(nearest[i], h);
+            }
+            next = farthest(nearest);
+            if (next >= 0 && nearest[next] == 0) next = -1; // every reachable station is a landmark already
+        }
+
+        int[] distances = new int[n * k];
+        for (int i = 0; i < n; i++) {
+            for (int l = 0; l < k; l++) distances[i * k + l] = hops[l][i];
+        }
+        return new Landmarks(graph, Arrays.copyOf(picked, k), distances);
+    }
+
+    // requires: graph is a later snapshot of the graph these landmarks are of, with every node and edge of it at the
+    //           same index
+    //  effects: returns the same landmarks with their distances on graph, found by following the stations and edges
+    //           added since
+    Landmarks extend(GraphSnapshot graph) {
+        int n = graph.nodeCount(), k = landmarks.length;
+        if (n < nodeCount || graph.edgeCount() < edgeCount) {
+            throw new IllegalArgumentException("graph is not a later snapshot of the graph of these landmarks");
+        }
+        if (n == nodeCount && graph.edgeCount() == edgeCount) {
+            return this;
+        }
+        int[] distances = new int[n * k];
+        Arrays.fill(distances, -1);
+        for (int i = 0; i < nodeCount * k; i++) distances[i] = distance(i / k, i % k);
+
+        // new edges can only shorten distances, so relax from their ends until nothing gets shorter
+        IntDeque queue = new IntDeque(16);
+        for (int l = 0; l < k; l++) {
+            for (int e = edgeCount; e < graph.edgeCount(); e++) {
+                relax(distances, k, l, graph.edgeOrigins[e], graph.edgeDestinations[e], queue);
+                relax(distances, k, l, graph.edgeDestinations[e], graph.edgeOrigins[e], queue);
+            }
+            while (!queue.isEmpty()) {
+                int u = queue.pollFirst();
+                for (int slot = graph.offsets[u], end = graph.offsets[u + 1]; slot < end; slot++) {
+                    relax(distances, k, l, u, graph.neighbors[slot], queue);
+                }
+            }
+        }
+        return new Landmarks(graph, landmarks, distances);
+    }
+
+    // modifies: distances, queue
+    //  effects: if v is closer to landmark l through u than it was, shortens its distance and queues it
+    private static void relax(int[] distances, int k, int l, int u, int v, IntDeque queue) {
+        int through = distances[u * k + l];
+        if (through >= 0 && (distances[v * k + l] < 0 || through + 1 < distances[v * k + l])) {
+            distances[v * k + l] = through + 1;
+            queue.addLast(v);
+        }
+    }
+
+    // modifies: hops, queue
+    //  effects: sets hops[i] to the number of edges from source to station i of graph, or -1 if it cannot be reached
+    private static void breadthFirst(GraphSnapshot graph, int source, int[] hops, IntDeque queue) {
+        Arrays.fill(hops, -1);
+        hops[source] = 0;
+        queue.clear();
+        queue.addLast(source);
+        while (!queue.isEmpty()) {
+            int u = queue.pollFirst();
+            for (int slot = graph.offsets[u], end = graph.offsets[u + 1]; slot < end; slot++) {
+                int v = graph.neighbors[slot];
+                if (hops[v] < 0) {
+                    hops[v] = hops[u] + 1;
+                    queue.addLast(v);
+                }
+            }
+        }
+    }
+
+    // effects: returns the first index of the largest value of hops, or -1 if they are all -1
+    private static int farthest(int[] hops) {
+        int farthest = -1;
+        for (int i = 0; i < hops.length; i++) {
+            if (hops[i] >= 0 && (farthest < 0 || hops[i] > hops[farthest])) farthest = i;
+        }
+        return farthest;
+    }
+
+    // effects: returns distances as shorts if they all fit, else null
+    private static short[] pack(int[] distances) {
+        short[] narrow = new short[distances.length];
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] > Short.MAX_VALUE) {
+                return null;
+            }
+            narrow[i] = (short)distances[i];
+        }
+        return narrow;
+    }
+
+    // effects: returns a fingerprint of the adjacency of graph, which tells graphs with different edges apart
+    static long fingerprint(GraphSnapshot graph) {
+        long hash = graph.nodeCount() * 31L + graph.edgeCount();
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            hash = hash * 0x9E3779B97F4A7C15L + ((long)graph.edgeOrigins[e] << 32 | graph.edgeDestinations[e]);
+        }
+        return hash;
+    }
+
+    // effects: returns the number of landmarks
+    public int count() {
+        return landmarks.length;
+    }
+
+    // requires: 0 <= i < count()
+    //  effects: returns the station index of the i-th landmark
+    public int landmark(int i) {
+        return landmarks[i];
+    }
+
+    // effects: returns true if these are the landmarks of graph, else returns false
+    public boolean isOf(GraphSnapshot graph) {
+        return graph.nodeCount() == nodeCount && graph.edgeCount() == edgeCount && fingerprint(graph) == fingerprint;
+    }
+
+    // requires: 0 <= n < the number of stations of the graph && 0 <= l < count()
+    //  effects: returns the number of edges from landmark l to station n, or -1 if it cannot be reached
+    int distance(int n, int l) {
+        return narrow != null ? narrow[n * landmarks.length + l] : wide[n * landmarks.length + l];
+    }
+
+    // requires: row.length >= count() && 0 <= destination < the number of stations of the graph
+    // modifies: row
+    //  effects: fills row with the distances from each landmark to destination, for bound
+    void row(int destination, int[] row) {
+        for (int l = 0; l < landmarks.length; l++) row[l] = distance(destination, l);
+    }
+
+    // requires: row was filled by row(destination, row)
+    //  effects: returns a lower bound on the number of edges of any path from station n to destination
+    int bound(int n, int[] row) {
+        int bound = 0, k = landmarks.length, base = n * k;
+        if (narrow != null) {
+            for (int l = 0; l < k; l++) {
+                int a = narrow[base + l], b = row[l];
+                if (a >= 0 && b >= 0) bound = Math.max(bound, Math.abs(a - b));
+            }
+        } else {
+            for (int l = 0; l < k; l++) {
+                int a = wide[base + l], b = row[l];
+                if (a >= 0 && b >= 0) bound = Math.max(bound, Math.abs(a - b));
+            }
+        }
+        return bound;
+    }
+
+    // requires: file != null
+    //  effects: writes the landmarks to file in the format above, replacing any file already there. Throws
+    //           IOException if the file cannot be written.
+    public void write(Path file) throws IOException {
+        int k = landmarks.length, cells = nodeCount * k;
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (8 + k) + (narrow != null ? 2 : 4) * cells)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(edgeCount)
+                .putInt((int)fingerprint).putInt((int)(fingerprint >>> 32)).putInt(k).putInt(narrow != null ? 1 : 0);
+        for (int landmark : landmarks) buffer.putInt(landmark);
+        if (narrow != null) {
+            buffer.asShortBuffer().put(narrow);
+        } else {
+            buffer.asIntBuffer().put(wide);
+        }
+        buffer.position(buffer.capacity());
+        buffer.flip();
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // requires: file != null && graph != null
+    //  effects: returns the landmarks written to file. Throws IOException if the file cannot be read, is not a
+    //           landmark file of a supported version, or holds the landmarks of another graph.
+    public static Landmarks read(Path file, GraphSnapshot graph) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < 32 || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file+" is not a landmark file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file+" is a landmark file of unsupported version "+buffer.getInt(4));
+        }
+        int nodeCount = buffer.getInt(8), edgeCount = buffer.getInt(12), k = buffer.getInt(24);
+        long fingerprint = buffer.getInt(16) & 0xFFFFFFFFL | (long)buffer.getInt(20) << 32;
+        boolean isNarrow = buffer.getInt(28) == 1;
+        if (nodeCount != graph.nodeCount() || edgeCount != graph.edgeCount() || fingerprint != fingerprint(graph)) {
+            throw new IOException(file+" holds the landmarks of another graph");
+        }
+        long size = 4L * (8 + k) + (isNarrow ? 2L : 4L) * nodeCount * k;
+        if (k < 0 || buffer.capacity() != size) {
+            throw new IOException(file+" is truncated or corrupt");
+        }
+
+        int[] landmarks = new int[k];
+        buffer.position(32);
+        buffer.asIntBuffer().get(landmarks);
+        buffer.position(32 + 4 * k);
+        for (int landmark : landmarks) {
+            if (landmark < 0 || landmark >= nodeCount) {
+                throw new IOException(file+" is truncated or corrupt");
+            }
+        }
+        if (isNarrow) {
+            short[] narrow = new short[nodeCount * k];
+            buffer.asShortBuffer().get(narrow);
+            return new Landmarks(nodeCount, edgeCount, fingerprint, landmarks, narrow, null);
+        }
+        int[] wide = new int[nodeCount * k];
+        buffer.asIntBuffer().get(wide);
+        return new Landmarks(nodeCount, edgeCount, fingerprint, landmarks, null, wide);
+    }
+}
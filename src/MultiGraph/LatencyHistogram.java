@@ -0,0 +1,79 @@
+package MultiGraph;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A histogram of latencies in nanoseconds with a fixed relative error, in the manner of an HdrHistogram. Values below
+ * 64 have a bucket each, and every power of two above is split into 32 buckets, so any value is reported at most
+ * 1/32 above what was recorded, from nanoseconds up to centuries in under 2000 buckets. Recording is lock-free and
+ * allocates nothing.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5; // log2 of the buckets per power of two
+    private static final int SUB = 1 << SUB_BITS; // buckets per power of two
+    private static final int BUCKETS = (63 - SUB_BITS) * SUB + SUB; // enough for Long.MAX_VALUE
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // values recorded in each bucket
+    private final AtomicLong count = new AtomicLong(); // values recorded
+    private final AtomicLong max = new AtomicLong(); // largest value recorded
+
+    // modifies: this
+    //  effects: records nanos, or 0 if nanos < 0
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    // effects: returns the number of values recorded
+    public long count() {
+        return count.get();
+    }
+
+    // effects: returns the largest value recorded, 0 if none
+    public long max() {
+        return max.get();
+    }
+
+    // requires: 0 <= percentile <= 100
+    //  effects: returns the smallest value v such that at least percentile % of the values recorded are <= v, up to
+    //           the error of the buckets and never above max(), or 0 if none were recorded
+    public long valueAt(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile out of range: "+percentile);
+        }
+        long total = count.get();
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highest(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // effects: returns the bucket of value >= 0
+    static int bucket(long value) {
+        if (value < 2 * SUB) {
+            return (int)value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS; // >= 1
+        return shift * SUB + (int)(value >>> shift);
+    }
+
+    // effects: returns the largest value in bucket i
+    static long highest(int i) {
+        if (i < 2 * SUB) {
+            return i;
+        }
+        int shift = i / SUB - 1;
+        long sub = i % SUB + SUB;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -2,19 +2,48 @@ package MultiGraph;
 
 public class Line implements Edge {
 
-    private String label;
+    private int line; // id of the label in LineRegistry.global()
     private Station origin, destination;
+    private int weight = 1;
 
+    // requires: label != null
     Line (String label, Station origin, Station destination) {
-        this.label = label;
+        this(LineRegistry.global().id(label), origin, destination);
+    }
+
+    // requires: line is an id of LineRegistry.global()
+    Line (int line, Station origin, Station destination) {
+        this.line = line;
         this.origin = origin;
         this.destination = destination;
     }
 
+    // requires: label != null
+    //  effects: throws IllegalArgumentException if weight < 0
+    Line (String label, Station origin, Station destination, int weight) {
+        this(LineRegistry.global().id(label), origin, destination, weight);
+    }
+
+    // requires: line is an id of LineRegistry.global()
+    //  effects: throws IllegalArgumentException if weight < 0
+    Line (int line, Station origin, Station destination, int weight) {
+        this(line, origin, destination);
+        if (weight < 0) {
+            throw new IllegalArgumentException("negative travel time "+weight);
+        }
+        this.weight = weight;
+    }
+
     // effects: returns lineLabel
     @Override
     public String getLabel() {
-        return label;
+        return LineRegistry.global().label(line);
+    }
+
+    // effects: returns the id of lineLabel in LineRegistry.global()
+    @Override
+    public int getLineId() {
+        return line;
     }
 
     // effects: returns lineFirstStation
@@ -29,21 +58,27 @@ public class Line implements Edge {
         return destination;
     }
 
+    // effects: returns lineTravelTime
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
     @Override
     public boolean equals (Object o) {
         if (o instanceof Line)
-            return (((Line)o).label.equals(label) && ((Line)o).origin.equals(origin)
+            return (((Line)o).line == line && ((Line)o).origin.equals(origin)
                     && ((Line)o).destination.equals(destination));
         return false;
     }
 
     @Override
     public int hashCode () {
-        return label.hashCode()+origin.hashCode()+destination.hashCode();
+        return getLabel().hashCode()+origin.hashCode()+destination.hashCode();
     }
 
     @Override
     public String toString() {
-        return origin.toString()+" "+label+" "+destination.toString();
+        return origin.toString()+" "+getLabel()+" "+destination.toString();
     }
 }
\ No newline at end of file
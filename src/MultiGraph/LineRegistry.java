@@ -0,0 +1,68 @@
+package MultiGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Interns line labels to dense int ids, 0, 1, 2, ... in the order they are first seen. Every Line keeps the id of its
+ * label instead of the label itself, so lines compare by int and each label is held once however many edges it has.
+ * Ids are never reused, so per-line data can be kept in arrays indexed by id.
+ *
+ * Safe for use by many threads: looking up a label that is already interned does not lock.
+ */
+public final class LineRegistry {
+
+    private static final LineRegistry GLOBAL = new LineRegistry();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>(); // id of each label
+    private volatile String[] labels = new String[16]; // label of each id, written before the id is published
+    private int size; // number of ids, guarded by this
+
+    private LineRegistry () {
+    }
+
+    // effects: returns the registry of all Lines
+    public static LineRegistry global() {
+        return GLOBAL;
+    }
+
+    // requires: label != null
+    // modifies: this
+    //  effects: returns the id of label, giving it the next id if it has none
+    public int id(String label) {
+        Integer id = ids.get(label);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(label);
+            if (id == null) {
+                if (size == labels.length) {
+                    labels = Arrays.copyOf(labels, size * 2);
+                }
+                labels[size] = label;
+                id = size++;
+                ids.put(label, id); // publishes labels[id]
+            }
+            return id;
+        }
+    }
+
+    // effects: returns the id of label, or -1 if label has none
+    public int find(String label) {
+        Integer id = label == null ? null : ids.get(label);
+        return id == null ? -1 : id;
+    }
+
+    // requires: id was returned by id(label)
+    //  effects: returns label
+    public String label(int id) {
+        return labels[id];
+    }
+
+    // effects: returns the number of labels interned so far
+    public int size() {
+        return ids.size();
+    }
+}
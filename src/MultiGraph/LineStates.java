@@ -0,0 +1,83 @@
+package MultiGraph;
+
+import java.util.Arrays;
+
+
+/**
+ * The (station, line) states of a GraphSnapshot, used to search for paths with few line changes. Every line that
+ * serves a station gives the station one state, numbered densely so that a state is a single int. Riding an edge
+ * moves between states of the same line, changing line moves between states of the same station.
+ */
+final class LineStates {
+
+    final int[] offsets; // first state of each station, offsets[nodeCount] = stateCount
+    final int[] nodes; // station of each state
+    final int[] lines; // line id of each state, increasing within a station
+
+    final int[] rideOffsets; // first ride of each state, rideOffsets[stateCount] = rideCount
+    final int[] rideTargets; // state at the other end of each ride
+    final int[] rideEdges; // edge of each ride
+
+    // effects: builds the states and rides of graph, keeping the edge order of each station
+    LineStates (GraphSnapshot graph) {
+        int nodeCount = graph.nodeCount();
+        int[] slotOffsets = graph.offsets, slotLines = graph.slotLines;
+        int slotCount = slotOffsets[nodeCount];
+
+        // the states of a station are the distinct lines of its slots
+        offsets = new int[nodeCount + 1];
+        int[] stateNodes = new int[slotCount];
+        int[] stateLines = new int[slotCount];
+        int stateCount = 0;
+        for (int n = 0; n < nodeCount; n++) {
+            offsets[n] = stateCount;
+            int first = stateCount;
+            for (int slot = slotOffsets[n]; slot < slotOffsets[n + 1]; slot++) {
+                stateLines[stateCount++] = slotLines[slot];
+            }
+            Arrays.sort(stateLines, first, stateCount);
+            int unique = first;
+            for (int i = first; i < stateCount; i++) {
+                if (i == first || stateLines[i] != stateLines[unique - 1]) {
+                    stateLines[unique] = stateLines[i];
+                    stateNodes[unique++] = n;
+                }
+            }
+            stateCount = unique;
+        }
+        offsets[nodeCount] = stateCount;
+        nodes = Arrays.copyOf(stateNodes, stateCount);
+        lines = Arrays.copyOf(stateLines, stateCount);
+
+        // every slot is a ride from the state of its line at its station to the state of its line at the neighbor
+        int[] slotStates = new int[slotCount];
+        rideOffsets = new int[stateCount + 1];
+        for (int n = 0; n < nodeCount; n++) {
+            for (int slot = slotOffsets[n]; slot < slotOffsets[n + 1]; slot++) {
+                slotStates[slot] = state(n, slotLines[slot]);
+                rideOffsets[slotStates[slot] + 1]++;
+            }
+        }
+        for (int s = 0; s < stateCount; s++) rideOffsets[s + 1] += rideOffsets[s];
+
+        rideTargets = new int[slotCount];
+        rideEdges = new int[slotCount];
+        int[] fill = Arrays.copyOf(rideOffsets, stateCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            int ride = fill[slotStates[slot]]++;
+            rideTargets[ride] = state(graph.neighbors[slot], slotLines[slot]);
+            rideEdges[ride] = graph.slotEdges[slot];
+        }
+    }
+
+    // effects: returns the number of states
+    int stateCount() {
+        return nodes.length;
+    }
+
+    // requires: line serves station n
+    //  effects: returns the state of line at station n
+    int state(int n, int line) {
+        return Arrays.binarySearch(lines, offsets[n], offsets[n + 1], line);
+    }
+}
@@ -0,0 +1,34 @@
+package MultiGraph;
+
+import java.io.IOException;
+
+
+/**
+ * A PartitionTransport to PartitionServers in the same process. Messages are still encoded and decoded, so a
+ * coordinator on a loopback transport does the same work as one on sockets, less the network.
+ */
+public final class LoopbackTransport implements PartitionTransport {
+
+    private final PartitionServer[] servers; // server of each region
+
+    // requires: servers != null && servers[r] serves region r for every region r
+    //  effects: creates a transport to servers
+    public LoopbackTransport (PartitionServer... servers) {
+        this.servers = servers.clone();
+    }
+
+    // requires: partition != null
+    //  effects: returns a transport to a server for the graph of each region of partition
+    public static LoopbackTransport of(Partition partition) {
+        PartitionServer[] servers = new PartitionServer[partition.regionCount()];
+        for (int r = 0; r < servers.length; r++) {
+            servers[r] = new PartitionServer(partition.regionGraph(r).snapshot());
+        }
+        return new LoopbackTransport(servers);
+    }
+
+    @Override
+    public byte[] call(int partition, byte[] request) throws IOException {
+        return servers[partition].handle(request);
+    }
+}
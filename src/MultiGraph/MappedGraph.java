@@ -0,0 +1,395 @@
+package MultiGraph;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+
+/**
+ * An immutable multigraph read from a memory-mapped GraphFile. getNode and findPath run directly on the mapped
+ * pages, so opening a graph costs the same whatever its size and nothing is copied onto the heap; only the stations
+ * and edges of a returned path are created as objects. The other queries need the structures of a GraphSnapshot,
+ * which is loaded from the file the first time one of them is asked.
+ *
+ * Paths are the same as those of the graph the file was written from.
+ */
+public class MappedGraph implements IMultiGraph {
+
+    private final ByteBuffer strings; // UTF-8 names and labels
+    private final IntBuffer nodeIds, idOrder, nameStarts, nameLengths, labelStarts, labelLengths;
+    private final IntBuffer edgeOrigins, edgeDestinations, edgeLines, edgeWeights;
+    private final IntBuffer offsets, neighbors, slotEdges, slotLines;
+    private final int nodeCount, edgeCount, lineCount;
+
+    private final int[] lineIds; // LineRegistry id of each line, -1 until the first path that uses it
+    private final IntFunction<Edge> edgeSource = this::edge; // makes the edges of CompactPaths
+    private final ThreadLocal<Scratch> scratch; // search state of each thread
+    private volatile GraphSnapshot snapshot; // loaded by the first query that needs it
+
+    // requires: file holds a valid graph file, in little-endian order
+    MappedGraph (ByteBuffer file) {
+        IntBuffer ints = file.asIntBuffer();
+        nodeCount = ints.get(2);
+        edgeCount = ints.get(3);
+        lineCount = ints.get(4);
+        int slotCount = ints.get(5);
+
+        int at = GraphFile.HEADER_INTS;
+        nodeIds = ints.slice(at, nodeCount);
+        idOrder = ints.slice(at += nodeCount, nodeCount);
+        nameStarts = ints.slice(at += nodeCount, nodeCount);
+        nameLengths = ints.slice(at += nodeCount, nodeCount);
+        labelStarts = ints.slice(at += nodeCount, lineCount);
+        labelLengths = ints.slice(at += lineCount, lineCount);
+        edgeOrigins = ints.slice(at += lineCount, edgeCount);
+        edgeDestinations = ints.slice(at += edgeCount, edgeCount);
+        edgeLines = ints.slice(at += edgeCount, edgeCount);
+        edgeWeights = ints.slice(at += edgeCount, edgeCount);
+        offsets = ints.slice(at += edgeCount, nodeCount + 1);
+        neighbors = ints.slice(at += nodeCount + 1, slotCount);
+        slotEdges = ints.slice(at += slotCount, slotCount);
+        slotLines = ints.slice(at += slotCount, slotCount);
+        at += slotCount;
+        strings = file.slice(4 * at, file.capacity() - 4 * at);
+
+        lineIds = new int[lineCount];
+        Arrays.fill(lineIds, -1);
+        scratch = ThreadLocal.withInitial(() -> new Scratch(nodeCount, edgeCount));
+    }
+
+    // effects: returns the number of stations
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    // effects: returns the number of edges
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    // effects: returns the number of distinct line labels
+    public int lineCount() {
+        return lineCount;
+    }
+
+    // effects: throws UnsupportedOperationException
+    @Override
+    public boolean addNode(Node n) {
+        throw new UnsupportedOperationException("mapped graph is immutable");
+    }
+
+    // effects: throws UnsupportedOperationException
+    @Override
+    public boolean addEdge(Edge e) {
+        throw new UnsupportedOperationException("mapped graph is immutable");
+    }
+
+    //  effects: if exists n in Nodes | n.id = id return n, else return null
+    @Override
+    public Node getNode(int id) {
+        int i = first(id);
+        return i < 0 ? null : station(i);
+    }
+
+    // effects: returns the index of the first station with the given id, or -1 if there is none
+    private int first(int id) {
+        int low = 0, high = nodeCount; // binary search for the first position whose id is not less than id
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (nodeIds.get(idOrder.get(middle)) < id) low = middle + 1;
+            else high = middle;
+        }
+        return low < nodeCount && nodeIds.get(idOrder.get(low)) == id ? idOrder.get(low) : -1;
+    }
+
+    // effects: if n in Nodes returns the index of n, else returns -1
+    int indexOf(Node n) {
+        return n instanceof Station ? first(n.getId()) : -1; // stations are equal when their ids are
+    }
+
+    // effects: returns the station of index i
+    private Station station(int i) {
+        int length = nameLengths.get(i);
+        return new Station(nodeIds.get(i), length < 0 ? null : string(nameStarts.get(i), length));
+    }
+
+    // effects: returns the edge of index e
+    private Edge edge(int e) {
+        return new Line(lineId(edgeLines.get(e)), station(edgeOrigins.get(e)), station(edgeDestinations.get(e)),
+                edgeWeights.get(e));
+    }
+
+    // effects: returns the station at the other end of edge e from station n
+    private int opposite(int e, int n) {
+        return edgeOrigins.get(e) == n ? edgeDestinations.get(e) : edgeOrigins.get(e);
+    }
+
+    // effects: returns the LineRegistry id of the label of line
+    private int lineId(int line) {
+        int id = lineIds[line];
+        if (id < 0) { // interning twice on a race is harmless, both get the same id
+            lineIds[line] = id = LineRegistry.global().id(string(labelStarts.get(line), labelLengths.get(line)));
+        }
+        return id;
+    }
+
+    // effects: returns the string of length bytes from byte start
+    private String string(int start, int length) {
+        byte[] bytes = new byte[length];
+        strings.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPath on the graph the file was written from
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        Deque<Edge> path = new LinkedList<Edge>();
+        if (s == d) {
+            return path;
+        }
+
+        Scratch state = scratch.get();
+        if (search(state, s, d)) {
+            int current = d;
+            while (current != s) {
+                int e = state.from[current];
+                path.addFirst(edge(e));
+                current = opposite(e, current);
+            }
+        }
+        return path;
+    }
+
+    // requires: 0 <= start, destination < nodeCount && start != destination
+    // modifies: state
+    //  effects: same as the breadth-first search of SearchEngine.findPath, on the mapped arrays
+    private boolean search (Scratch state, int start, int destination) {
+        final int[] nodeMark = state.nodeMark, edgeMark = state.edgeMark, from = state.from, queue = state.queue;
+        final int mask = queue.length - 1;
+        final int q = state.nextQuery();
+
+        int head = 0, tail = 0;
+        queue[tail++ & mask] = start;
+        nodeMark[start] = q;
+
+        while (head != tail) {
+            int n = queue[head++ & mask];
+
+            for (int slot = offsets.get(n), end = offsets.get(n + 1); slot < end; slot++) {
+                int e = slotEdges.get(slot);
+                if (edgeMark[e] == q) continue; // explored from the other side already
+                edgeMark[e] = q;
+
+                int opposite = neighbors.get(slot);
+
+                if (nodeMark[opposite] != q) { // found a new node
+                    nodeMark[opposite] = q;
+                    from[opposite] = e;
+                    if (opposite == destination) { // we reached the destination!
+                        return true;
+                    }
+                    queue[tail++ & mask] = opposite;
+
+                } else if (n != start) { // try to stay on the same line if possible
+                    int nLine = edgeLines.get(from[n]);
+                    if (nLine != edgeLines.get(from[opposite]) && nLine == slotLines.get(slot)) {
+                        from[opposite] = e;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // effects: returns this graph loaded onto the heap as a GraphSnapshot
+    public GraphSnapshot snapshot() {
+        GraphSnapshot loaded = snapshot;
+        if (loaded == null) { // loading twice on a race is harmless, the file never changes
+            snapshot = loaded = load();
+        }
+        return loaded;
+    }
+
+    // effects: returns a GraphSnapshot of the stations and edges of the file, with the same edge order per station
+    @SuppressWarnings("unchecked")
+    private GraphSnapshot load() {
+        Node[] nodes = new Node[nodeCount];
+        IntIntHashMap ids = new IntIntHashMap(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = station(i);
+            ids.putIfAbsent(nodeIds.get(i), i);
+        }
+
+        Edge[] edges = new Edge[edgeCount];
+        Map<Edge, Integer> edgeIndex = new HashMap<Edge, Integer>(edgeCount * 2);
+        for (int e = 0; e < edgeCount; e++) {
+            edges[e] = new Line(lineId(edgeLines.get(e)), (Station)nodes[edgeOrigins.get(e)],
+                    (Station)nodes[edgeDestinations.get(e)], edgeWeights.get(e));
+            edgeIndex.put(edges[e], e);
+        }
+
+        Set<Edge>[] nodeToEdges = (Set<Edge>[]) new Set<?>[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodeToEdges[i] = new LinkedHashSet<Edge>();
+            for (int slot = offsets.get(i), end = offsets.get(i + 1); slot < end; slot++) {
+                nodeToEdges[i].add(edges[slotEdges.get(slot)]);
+            }
+        }
+        return new GraphSnapshot(nodes, edges, nodeToEdges, edgeIndex, ids, null);
+    }
+
+    //requires: start != null && destination != null && mode != null
+    // effects: same as MultiGraph.findPath(start, destination, mode) on the graph the file was written from
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination, SearchMode mode) {
+        if (mode == SearchMode.FORWARD) {
+            return findPath(start, destination);
+        }
+        return snapshot().findPath(start, destination, mode);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathMinTransfers on the graph the file was written from
+    @Override
+    public Deque<Edge> findPathMinTransfers (Node start, Node destination) {
+        return snapshot().findPathMinTransfers(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathMinTransfersThenHops on the graph the file was written from
+    @Override
+    public Deque<Edge> findPathMinTransfersThenHops (Node start, Node destination) {
+        return snapshot().findPathMinTransfersThenHops(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPath on the graph the file was written from
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination) {
+        return snapshot().findShortestPath(start, destination);
+    }
+
+    //requires: start != null && destination != null && heuristic never overestimates the weight of a path
+    // effects: same as MultiGraph.findShortestPath on the graph the file was written from
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination, Heuristic heuristic) {
+        return snapshot().findShortestPath(start, destination, heuristic);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findPathCompact on the graph the file was written from, searching the mapped
+    //          pages without making any Edge
+    @Override
+    public CompactPath findPathCompact (Node start, Node destination) {
+
+        int s = indexOf(start), d = indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+
+        Scratch state = scratch.get();
+        if (s == d || !search(state, s, d)) {
+            return CompactPath.empty();
+        }
+        int length = 0;
+        for (int current = d; current != s; length++) current = opposite(state.from[current], current);
+        int[] edges = new int[length];
+        int transfers = 0;
+        for (int current = d; current != s; ) {
+            int e = state.from[current];
+            edges[--length] = e;
+            if (length + 1 < edges.length && edgeLines.get(e) != edgeLines.get(edges[length + 1])) transfers++;
+            current = opposite(e, current);
+        }
+        return new CompactPath(edges, transfers, edgeSource);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findShortestPathCompact on the graph the file was written from
+    @Override
+    public CompactPath findShortestPathCompact (Node start, Node destination) {
+        return snapshot().findShortestPathCompact(start, destination);
+    }
+
+    //requires: start != null && destination != null
+    // effects: same as MultiGraph.findKPaths on the graph the file was written from
+    @Override
+    public List<Deque<Edge>> findKPaths (Node start, Node destination, int k) {
+        return snapshot().findKPaths(start, destination, k);
+    }
+
+    //requires: start != null
+    // effects: same as MultiGraph.searchFrom on the graph the file was written from
+    @Override
+    public SearchTree searchFrom (Node start) {
+        return snapshot().searchFrom(start);
+    }
+
+    //requires: queries != null && no query is null
+    // effects: same as MultiGraph.findPaths on the graph the file was written from
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries) {
+        return snapshot().findPaths(queries);
+    }
+
+    //requires: queries != null && no query is null && executor != null
+    // effects: same as MultiGraph.findPaths on the graph the file was written from
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries, Executor executor) {
+        return snapshot().findPaths(queries, executor);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedGraph["+nodeCount+" nodes, "+edgeCount+" edges, "+lineCount+" lines]";
+    }
+
+    /**
+     * Search state of one thread, stamped with the number of the query like the marks of SearchEngine. It holds no
+     * reference to its graph, which the threads it was made on would otherwise keep mapped.
+     */
+    private static final class Scratch {
+
+        final int[] nodeMark; // query in which each node was visited
+        final int[] edgeMark; // query in which each edge was explored
+        final int[] from; // edge each node was reached from
+        final int[] queue; // ring buffer
+        private int query; // number of the current query
+
+        Scratch (int nodeCount, int edgeCount) {
+            nodeMark = new int[nodeCount];
+            edgeMark = new int[edgeCount];
+            from = new int[nodeCount];
+            queue = new int[Integer.highestOneBit(Math.max(1, nodeCount) * 2 - 1)];
+        }
+
+        // modifies: this
+        //  effects: starts a new query and returns its number
+        int nextQuery() {
+            if (++query == 0) { // stamps wrapped around, old marks could look current
+                Arrays.fill(nodeMark, 0);
+                Arrays.fill(edgeMark, 0);
+                query = 1;
+            }
+            return query;
+        }
+    }
+}
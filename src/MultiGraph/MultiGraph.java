@@ -1,6 +1,10 @@
 package MultiGraph;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -8,18 +12,66 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 
 public class MultiGraph implements IMultiGraph {
 
-    private Set<Edge> edges; // the set of edges
-    private Set<Node> nodes; // the set of nodes
-    private Map<Node, Set<Edge>> nodeToEdges; // mapping of nodes to their edges
+    private Map<Edge, Integer> edges; // the set of edges, mapped to their index
+    private Map<Node, Integer> nodes; // the set of nodes, mapped to their index
+    private Edge[] edgeList; // edge of each index, in the order they were added
+    private int[] edgeEnds; // node indices of the origin and destination of each edge, two ints per edge
+    private Node[] nodeList; // node of each index, in the order they were added
+    private Set<Edge>[] nodeToEdges; // edges of each node index, null if the node has no edges
+    private int edgeCount, nodeCount; // |Edges|, |Nodes|
+    private IntIntHashMap ids; // mapping of node ids to the index of the first node with that id
+    private int[] parents; // union-find parent of each node index, a component's root is its own parent
+    private int[] sizes; // number of nodes in the component of each root index
+    private int componentCount; // number of connected components of the graph
+    private final Closures closures; // temporarily closed nodes and edges, shared with every snapshot
+    private GraphSnapshot snapshot; // compiled copy of the graph, null if the graph changed since
+    private SearchProbe probe; // told of the findPath searches of every snapshot, null if none
+    private Landmarks landmarks; // last landmarks built for a snapshot, which the next snapshot extends
 
     MultiGraph () {
-        edges = new HashSet<Edge>();
-        nodes = new HashSet<Node>();
-        nodeToEdges = new HashMap<Node, Set<Edge>>();
+        this(16, 16);
+    }
+
+    // requires: expectedNodes >= 0 && expectedEdges >= 0
+    //  effects: creates an empty graph that holds expectedNodes nodes and expectedEdges edges without resizing
+    MultiGraph (int expectedNodes, int expectedEdges) {
+        this(expectedNodes, expectedEdges, null);
+    }
+
+    // requires: expectedNodes >= 0 && expectedEdges >= 0 && closures is null or resolves nodes and edges through
+    //           indexOf(Node) and indexOf(Edge) of this graph
+    //  effects: creates an empty graph that holds expectedNodes nodes and expectedEdges edges without resizing,
+    //           with closures as its closures, or closures of its own if closures is null
+    @SuppressWarnings("unchecked")
+    MultiGraph (int expectedNodes, int expectedEdges, Closures closures) {
+        edges = new HashMap<Edge, Integer>(capacity(expectedEdges));
+        nodes = new HashMap<Node, Integer>(capacity(expectedNodes));
+        edgeList = new Edge[Math.max(16, expectedEdges)];
+        edgeEnds = new int[2 * edgeList.length];
+        nodeList = new Node[Math.max(16, expectedNodes)];
+        nodeToEdges = (Set<Edge>[]) new Set<?>[nodeList.length];
+        ids = new IntIntHashMap(expectedNodes);
+        parents = new int[nodeList.length];
+        sizes = new int[nodeList.length];
+        this.closures = closures != null ? closures : new Closures(this::indexOf, this::indexOf);
+    }
+
+    // effects: returns a builder for a graph of unknown size
+    public static Builder builder() {
+        return new Builder(16, 16);
+    }
+
+    // requires: expectedNodes >= 0 && expectedEdges >= 0
+    //  effects: returns a builder for a graph of about expectedNodes nodes and expectedEdges edges
+    public static Builder builder(int expectedNodes, int expectedEdges) {
+        return new Builder(expectedNodes, expectedEdges);
     }
 
     // requires: n != null
@@ -27,12 +79,9 @@ public class MultiGraph implements IMultiGraph {
     //  effects: n in Nodes� && if n !in Nodes return true, else return false
     @Override
     public boolean addNode(Node n) {
-        if (nodes.add(n)) { // n was not in the set already
-            Set<Edge> nodeEdges = new HashSet<Edge>();
-            nodeToEdges.put(n, nodeEdges);
-            return true;
-        }
-        return false;
+        int count = nodeCount;
+        index(n);
+        return nodeCount > count; // n was not in the set already
     }
 
     // requires: e != null && e.firstNode != null && e.secondNode != null
@@ -40,44 +89,189 @@ public class MultiGraph implements IMultiGraph {
     //  effects: e in Edges� && e.firstNode in Nodes� && e.secondNode in Nodes� && if e !in Edges return true, else return false
     @Override
     public boolean addEdge(Edge e) {
-        Set<Edge> nodeEdges=null;
-
-        if (edges.add(e)) { // e was not in the set already
+        if (edges.putIfAbsent(e, edgeCount) == null) { // e was not in the set already
+            if (edgeCount == edgeList.length) {
+                edgeList = Arrays.copyOf(edgeList, edgeCount * 2);
+                edgeEnds = Arrays.copyOf(edgeEnds, edgeCount * 4);
+            }
+            edgeList[edgeCount++] = e;
 
             // if either of the nodes are not in the set then add them!
+            int origin = index(e.origin()), destination = index(e.destination());
+            edgeEnds[2 * edgeCount - 2] = origin;
+            edgeEnds[2 * edgeCount - 1] = destination;
+            link(origin, e);
+            link(destination, e);
+            union(origin, destination);
+
+            changed();
+            return true;
+        }
+        return false;
+    }
 
-            if (nodes.add(e.origin())) { // node was not in the set already
-                nodeEdges = new HashSet<Edge>();
-                nodeEdges.add(e);
-                nodeToEdges.put(e.origin(), nodeEdges);
-            } else {
-                nodeEdges = nodeToEdges.get(e.origin());
-                nodeEdges.add(e);
-            }
+    // effects: returns true if e in Edges, else returns false
+    boolean containsEdge(Edge e) {
+        return edges.containsKey(e);
+    }
 
-            if (nodes.add(e.destination())) { // node was not in the set already
-                nodeEdges = new HashSet<Edge>();
-                nodeEdges.add(e);
-                nodeToEdges.put(e.destination(), nodeEdges);
-            } else {
-                nodeEdges = nodeToEdges.get(e.destination());
-                nodeEdges.add(e);
-            }
+    // effects: if n in Nodes returns the index of n, else returns -1
+    int indexOf(Node n) {
+        Integer i = nodes.get(n);
+        return i == null ? -1 : i;
+    }
 
-            return true;
+    // effects: if e in Edges returns the index of e, else returns -1
+    int indexOf(Edge e) {
+        Integer i = edges.get(e);
+        return i == null ? -1 : i;
+    }
+
+    // effects: returns the temporarily closed nodes and edges of this graph, which every query respects. Closing
+    //          and reopening takes O(1) and does not recompile the graph.
+    public Closures closures() {
+        return closures;
+    }
+
+    // modifies: this
+    //  effects: tells probe what every findPath and findPathCompact search does from now on, on this graph and the
+    //           snapshots it compiles, or stops telling anyone if probe is null. Without a probe searches count
+    //           nothing at all.
+    public void probe(SearchProbe probe) {
+        this.probe = probe;
+        if (snapshot != null) {
+            snapshot.probe(probe);
+        }
+    }
+
+    // modifies: this
+    //  effects: drops the compiled snapshot as Nodes or Edges changed, keeping its landmarks for the next one
+    private void changed() {
+        if (snapshot != null) {
+            Landmarks built = snapshot.builtLandmarks();
+            if (built != null) landmarks = built;
+            snapshot = null;
         }
-        return false;
+    }
+
+    // modifies: this
+    //  effects: adds e to the edges of the node with index i
+    private void link(int i, Edge e) {
+        Set<Edge> nodeEdges = nodeToEdges[i];
+        if (nodeEdges == null) {
+            nodeEdges = new HashSet<Edge>();
+            nodeToEdges[i] = nodeEdges;
+        }
+        nodeEdges.add(e);
+    }
+
+    // requires: n != null
+    // modifies: this
+    //  effects: returns the index of n, adding n to Nodes with the next index if n !in Nodes
+    private int index(Node n) {
+        Integer index = nodes.putIfAbsent(n, nodeCount);
+        if (index != null) {
+            return index;
+        }
+        if (nodeCount == nodeList.length) {
+            nodeList = Arrays.copyOf(nodeList, nodeCount * 2);
+            nodeToEdges = Arrays.copyOf(nodeToEdges, nodeCount * 2);
+            parents = Arrays.copyOf(parents, nodeCount * 2);
+            sizes = Arrays.copyOf(sizes, nodeCount * 2);
+        }
+        nodeList[nodeCount] = n;
+        parents[nodeCount] = nodeCount; // a new node is a component of its own
+        sizes[nodeCount] = 1;
+        componentCount++;
+        ids.putIfAbsent(n.getId(), nodeCount);
+        changed();
+        return nodeCount++;
+    }
+
+    // modifies: this
+    //  effects: joins the components of the nodes with indices a and b, hanging the smaller one under the larger
+    private void union(int a, int b) {
+        a = root(a);
+        b = root(b);
+        if (a == b) {
+            return;
+        }
+        if (sizes[a] < sizes[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parents[b] = a;
+        sizes[a] += sizes[b];
+        componentCount--;
+    }
+
+    // modifies: this
+    //  effects: returns the root index of the component of the node with index i, halving the path to it. Halving
+    //           only ever points a node at another of its ancestors, so concurrent queries stay correct.
+    private int root(int i) {
+        while (parents[i] != i) {
+            int grandparent = parents[parents[i]];
+            parents[i] = grandparent;
+            i = grandparent;
+        }
+        return i;
+    }
+
+    // requires: a != null && b != null
+    //  effects: if a !in Nodes || b !in Nodes returns false
+    //           else returns true if there is a path between a and b, else returns false. Takes O(a(|Nodes|)).
+    public boolean isConnected(Node a, Node b) {
+        Integer i = nodes.get(a), j = nodes.get(b);
+        return i != null && j != null && root(i) == root(j);
+    }
+
+    // requires: n != null
+    //  effects: if n !in Nodes returns 0, else returns the number of nodes n is connected to, n included
+    public int componentSize(Node n) {
+        Integer i = nodes.get(n);
+        return i == null ? 0 : sizes[root(i)];
+    }
+
+    // effects: returns the number of connected components of the graph, each node without edges counting as one
+    public int componentCount() {
+        return componentCount;
+    }
+
+    // effects: returns the sizes of the connected components of the graph, largest first
+    public int[] componentSizes() {
+        int[] result = new int[componentCount];
+        int c = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (parents[i] == i) result[c++] = sizes[i];
+        }
+        Arrays.sort(result);
+        for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+            int t = result[i];
+            result[i] = result[j];
+            result[j] = t;
+        }
+        return result;
+    }
+
+    // requires: start != null && destination != null
+    //  effects: returns true if start in Nodes && destination in Nodes and there is no path between them, else
+    //           returns false
+    private boolean separated(Node start, Node destination) {
+        Integer s = nodes.get(start), d = nodes.get(destination);
+        return s != null && d != null && root(s) != root(d);
     }
 
     //  effects: if exists n in Nodes | n.id = id return n, else return null
     @Override
     public Node getNode(int id) {
+        int i = ids.get(id);
+        return i < 0 ? null : nodeList[i];
+    }
 
-        for (Node n : nodes) {
-            if (n.getId() == id) // node found!
-                return n;
-        }
-        return null;
+    // effects: returns the HashMap capacity that holds expected entries without resizing
+    private static int capacity(int expected) {
+        return Math.max(16, (int)(expected / 0.75f) + 1);
     }
 
     //requires: start != null && destination != null
@@ -85,123 +279,298 @@ public class MultiGraph implements IMultiGraph {
     // 			else if no path is found then return empty Deque
     //			else return P = {e1, �, eN | (e1.firstNode = start && eN.secondNode = destination) &&
     //			forAll i in {2, �, N-1}, ei.firstNode = e(i-1).secondNode && ei.secondNode = e(i+1).firstNode}
+    //          A pair in different components is answered in O(a(|Nodes|)), without searching.
+    //          No path passes through, starts or ends at a closed node, or takes a closed edge.
     @Override
     public Deque<Edge> findPath (Node start, Node destination) {
+        if (separated(start, destination)) {
+            return new LinkedList<Edge>(); // answered without compiling or searching the graph
+        }
+        return snapshot().findPath(start, destination);
+    }
 
-        if (!nodes.contains(start) || !nodes.contains(destination)) {
-            return null;
+    //requires: start != null && destination != null && scenario is a scenario of closures()
+    // effects: same as findPath(start, destination), as if the nodes and edges closed in scenario were closed
+    //          on this graph too
+    public Deque<Edge> findPath (Node start, Node destination, Closures scenario) {
+        if (separated(start, destination)) {
+            return new LinkedList<Edge>();
         }
+        return snapshot().findPath(start, destination, scenario);
+    }
 
-        Deque<Edge> path = new LinkedList<Edge>();
+    //requires: start != null && destination != null && mode != null
+    // effects: same as findPath(start, destination), except that the BIDIRECTIONAL and LANDMARKS modes may return a
+    //          different path with the same number of edges. LANDMARKS builds the landmarks of snapshot() the first
+    //          time, or extends those of the last snapshot, see GraphSnapshot.landmarks.
+    @Override
+    public Deque<Edge> findPath (Node start, Node destination, SearchMode mode) {
+        if (separated(start, destination)) {
+            return new LinkedList<Edge>();
+        }
+        return snapshot().findPath(start, destination, mode);
+    }
 
-        if (start.equals(destination)) {
-            return path;
+    //requires: start != null && destination != null
+    // effects: if start !in Nodes || destination !in Nodes returns null
+    //          else if no path is found then return empty Deque
+    //          else return a path P from start to destination with the fewest i | ei.label != e(i+1).label
+    @Override
+    public Deque<Edge> findPathMinTransfers (Node start, Node destination) {
+        if (separated(start, destination)) {
+            return new LinkedList<Edge>();
         }
+        return snapshot().findPathMinTransfers(start, destination);
+    }
 
-        // Maps for node and edge labels
-        Map<Node, String> nodeLabels = new HashMap<Node, String>();
-        Map<Edge, String> edgeLabels = new HashMap<Edge, String>();
+    //requires: start != null && destination != null
+    // effects: same as findPathMinTransfers, and among the paths with the fewest line changes P has the fewest edges
+    @Override
+    public Deque<Edge> findPathMinTransfersThenHops (Node start, Node destination) {
+        if (separated(start, destination)) {
+            return new LinkedList<Edge>();
+        }
+        return snapshot().findPathMinTransfersThenHops(start, destination);
+    }
 
-        for (Node n: nodes) nodeLabels.put(n,  "Unexplored");
-        for (Edge e: edges) edgeLabels.put(e,  "Unexplored");
+    //requires: start != null && destination != null
+    // effects: if start !in Nodes || destination !in Nodes returns null
+    //          else if no path is found then return empty Deque
+    //          else return a path P from start to destination with the smallest sum of ei.weight. Between paths
+    //          of the same weight, prefers staying on edges with the same label.
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination) {
+        if (separated(start, destination)) {
+            return new LinkedList<Edge>();
+        }
+        return snapshot().findShortestPath(start, destination);
+    }
 
-        // Map to track which edge you reached a node from
-        Map<Node, Edge> from = new HashMap<Node, Edge>();
+    //requires: start != null && destination != null && heuristic never overestimates the weight of a path
+    // effects: same as findShortestPath(start, destination), searching towards destination first as estimated by
+    //          heuristic
+    @Override
+    public Deque<Edge> findShortestPath (Node start, Node destination, Heuristic heuristic) {
+        if (separated(start, destination)) {
+            return new LinkedList<Edge>();
+        }
+        return snapshot().findShortestPath(start, destination, heuristic);
+    }
 
-        // start node visited
-        nodeLabels.remove(start);
-        nodeLabels.put(start, "Visited");
+    //requires: start != null && destination != null && scenario is a scenario of closures()
+    // effects: same as findShortestPath(start, destination), as if the nodes and edges closed in scenario were
+    //          closed on this graph too
+    public Deque<Edge> findShortestPath (Node start, Node destination, Closures scenario) {
+        if (separated(start, destination)) {
+            return new LinkedList<Edge>();
+        }
+        return snapshot().findShortestPath(start, destination, scenario);
+    }
 
-        // track visited nodes, whose edges have not been explored yet
-        List<Node> visitedNodes = new ArrayList<Node>();
-        visitedNodes.add(start);
+    //requires: start != null && destination != null
+    // effects: if start !in Nodes || destination !in Nodes returns null
+    //          else returns the path findPath(start, destination) returns, as the indices of its edges in the
+    //          order they were added. Edges are only made if the CompactPath is asked for them.
+    @Override
+    public CompactPath findPathCompact (Node start, Node destination) {
+        if (separated(start, destination)) {
+            return CompactPath.empty();
+        }
+        return snapshot().findPathCompact(start, destination);
+    }
 
-        // while there are more nodes whose edge we have not explored
-        while (!visitedNodes.isEmpty()) {
+    //requires: start != null && destination != null
+    // effects: same as findPathCompact, with the path findShortestPath(start, destination) returns
+    @Override
+    public CompactPath findShortestPathCompact (Node start, Node destination) {
+        if (separated(start, destination)) {
+            return CompactPath.empty();
+        }
+        return snapshot().findShortestPathCompact(start, destination);
+    }
 
-            // discovered nodes whose edge will be explored next
-            List<Node>  tobeVisited = new ArrayList<Node>();
+    //requires: start != null && destination != null
+    // effects: if start !in Nodes || destination !in Nodes returns null
+    //          else returns up to k paths P1, .., Pk from start to destination that visit no node twice, in order of
+    //          fewest edges and then fewest i | ei.label != e(i+1).label. Returns {{}} if start == destination and
+    //          {} if no path is found. Throws IllegalArgumentException if k < 1.
+    @Override
+    public List<Deque<Edge>> findKPaths (Node start, Node destination, int k) {
+        if (k >= 1 && separated(start, destination)) {
+            return new ArrayList<Deque<Edge>>();
+        }
+        return snapshot().findKPaths(start, destination, k);
+    }
 
-            for (Node n: visitedNodes) {
-                for (Edge e: nodeToEdges.get(n)) { // for each edge of each visited node do
+    //requires: start != null
+    // effects: if start !in Nodes returns null
+    //          else returns the tree T of the paths from start, such that T.pathTo(d) = findPath(start, d) for every
+    //          d in Nodes. The tree does not change when the graph does.
+    @Override
+    public SearchTree searchFrom (Node start) {
+        return snapshot().searchFrom(start);
+    }
 
-                    if (edgeLabels.get(e).equals("Unexplored")) {
-                        Node opposite = e.origin().equals(n) ? e.destination() : e.origin();
+    //requires: queries != null && no query is null
+    // effects: returns R such that R.get(i) = findPath(Qi.first, Qi.second) for each i-th query Qi of queries.
+    //          The queries run in parallel on the common ForkJoinPool against a snapshot of the graph, and the
+    //          queries with the same start share one search.
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries) {
+        return snapshot().findPaths(queries);
+    }
 
-                        if (nodeLabels.get(opposite).equals("Unexplored")) {
-                            // found a new node
+    //requires: queries != null && no query is null && executor != null
+    // effects: same as findPaths(queries), running the searches on executor
+    @Override
+    public List<Deque<Edge>> findPaths (Collection<Pair<Node, Node>> queries, Executor executor) {
+        return snapshot().findPaths(queries, executor);
+    }
 
-                            // current edge led to node discovery
-                            edgeLabels.remove(e);
-                            edgeLabels.put(e, "Discovery");
+    // modifies: this
+    //  effects: returns a distance oracle of snapshot(), built on all cores. It answers hop counts between stations
+    //           in about the time of merging two short sorted arrays, and keeps answering for this snapshot after
+    //           the graph changes.
+    public DistanceOracle distanceOracle() {
+        return DistanceOracle.build(snapshot());
+    }
 
-                            // node was reached from the current edge
-                            from.put(opposite, e);
+    //requires: sources != null && targets != null && neither contains null
+    // effects: returns the matrix M such that M.get(i, j) is the number of edges of the shortest path from the i-th
+    //          source to the j-th target, 0 if they are the same station and -1 if none connects them or either is
+    //          not in Nodes. Searches once per source, on all cores, and keeps the cells on the heap.
+    public DistanceMatrix distanceMatrix (Collection<? extends Node> sources, Collection<? extends Node> targets) {
+        return snapshot().distanceMatrix(sources, targets);
+    }
 
-                            // newly discovered node edges are still to be explored
-                            tobeVisited.add(opposite);
+    //requires: sources != null && targets != null && neither contains null && file != null
+    // effects: same as distanceMatrix(sources, targets), with the cells written to file and mapped from it, for
+    //          matrices too large for the heap. Throws IOException if file cannot be written.
+    public DistanceMatrix distanceMatrix (Collection<? extends Node> sources, Collection<? extends Node> targets,
+                                          Path file) throws IOException {
+        return snapshot().distanceMatrix(sources, targets, file);
+    }
 
-                            // new discovered node is now visited
-                            nodeLabels.remove(opposite);
-                            nodeLabels.put(opposite, "Visited");
+    //requires: sources != null && targets != null && neither contains null
+    // effects: same as distanceMatrix(sources, targets), with the fewest i | ei.label != e(i+1).label on a path in
+    //          place of the fewest edges
+    public DistanceMatrix transferMatrix (Collection<? extends Node> sources, Collection<? extends Node> targets) {
+        return snapshot().transferMatrix(sources, targets);
+    }
 
-                        } else { // node has already been visited by another edge
+    //requires: sources != null && targets != null && neither contains null && file != null
+    // effects: same as transferMatrix(sources, targets), with the cells written to file and mapped from it
+    public DistanceMatrix transferMatrix (Collection<? extends Node> sources, Collection<? extends Node> targets,
+                                          Path file) throws IOException {
+        return snapshot().transferMatrix(sources, targets, file);
+    }
 
-                            // try to stay on edge on same colour edge if possible
-                            if (!n.equals(start)) {	// start has no previous node
-                                String nLabel = from.get(n).getLabel();
-                                String oppositeLabel = from.get(opposite).getLabel();
+    // modifies: this
+    //  effects: returns an immutable snapshot of the current Nodes and Edges, compiled for fast path queries.
+    //           The snapshot is kept until Nodes or Edges change.
+    public GraphSnapshot snapshot() {
+        if (snapshot == null) {
+            snapshot = new GraphSnapshot(Arrays.copyOf(nodeList, nodeCount), Arrays.copyOf(edgeList, edgeCount),
+                    nodeToEdges, edges, new IntIntHashMap(ids), closures);
+            snapshot.probe(probe);
+            snapshot.extendLandmarks(landmarks);
+        }
+        return snapshot;
+    }
 
-                                // if the current edge colour is different from the previous one
-                                // or the current node was reached from an edge of the same colour as the previous one
-                                // then the current edge is just a cross, i.e. ignore
-                                if(nLabel.equals(oppositeLabel) || !nLabel.equals(e.getLabel())) {
-                                    edgeLabels.remove(e);
-                                    edgeLabels.put(e, "Cross");
+    // effects: returns a task that compiles the snapshot() of the current Nodes and Edges, even if they change
+    //           before it runs. Here the node and edge arrays are only copied, so a writer can hold its lock for
+    //           this and leave the compiling to the task, which links the edges of each node in the same order
+    //           the graph did and so gives the same paths as snapshot() would.
+    Supplier<GraphSnapshot> snapshotTask() {
+        if (snapshot != null) {
+            GraphSnapshot compiled = snapshot;
+            return () -> compiled;
+        }
+        Node[] nodes = Arrays.copyOf(nodeList, nodeCount);
+        Edge[] edges = Arrays.copyOf(edgeList, edgeCount);
+        int[] ends = Arrays.copyOf(edgeEnds, 2 * edgeCount);
+        IntIntHashMap ids = new IntIntHashMap(this.ids);
+        SearchProbe probe = this.probe;
+        Landmarks landmarks = this.landmarks;
+        return () -> {
+            @SuppressWarnings("unchecked")
+            Set<Edge>[] nodeToEdges = (Set<Edge>[]) new Set<?>[nodes.length];
+            Map<Edge, Integer> edgeIndex = new HashMap<Edge, Integer>(capacity(edges.length));
+            for (int e = 0; e < edges.length; e++) {
+                edgeIndex.put(edges[e], e);
+                for (int end = 2 * e; end < 2 * e + 2; end++) {
+                    if (nodeToEdges[ends[end]] == null) nodeToEdges[ends[end]] = new HashSet<Edge>();
+                    nodeToEdges[ends[end]].add(edges[e]);
+                }
+            }
+            GraphSnapshot compiled = new GraphSnapshot(nodes, edges, nodeToEdges, edgeIndex, ids, closures);
+            compiled.probe(probe);
+            compiled.extendLandmarks(landmarks);
+            return compiled;
+        };
+    }
 
-                                } else { // we just found an edge that can keep us on the same colour
+    // requires: compiled was made by a task of snapshotTask, and Nodes and Edges did not change since
+    // modifies: this
+    //  effects: keeps compiled as the snapshot of the graph, as snapshot() would have kept its own
+    void adopt(GraphSnapshot compiled) {
+        compiled.probe(probe);
+        snapshot = compiled;
+    }
 
-                                    // replace the previous edge with the current one
-                                    Edge previous = from.get(opposite);
-                                    edgeLabels.remove(previous);
-                                    edgeLabels.put(previous, "Cross");
-                                    from.remove(opposite);
-                                    from.put(opposite, e);
-                                    edgeLabels.remove(e);
-                                    edgeLabels.put(e, "Discovery");
-                                }
+    /**
+     * Loads a graph in bulk. The graph is sized for the expected number of nodes and edges up front, and every edge
+     * is linked to its nodes as it is added, so loading never resizes and never passes over the edges twice.
+     */
+    public static class Builder {
 
-                            } else {
-                                edgeLabels.remove(e);
-                                edgeLabels.put(e, "Cross");
-                            }
-                        }
-                        if (opposite.equals(destination)) { // we reached the destination!
+        private MultiGraph graph; // the graph being built, null once built
 
-                            Edge currentFrom = from.get(destination);
-                            Node currentNode = destination.equals(currentFrom.origin()) ? currentFrom.destination() : currentFrom.origin();
+        Builder (int expectedNodes, int expectedEdges) {
+            graph = new MultiGraph(expectedNodes, expectedEdges);
+        }
 
-                            // the last edge is added to the path
-                            path.addFirst(currentFrom);
+        // requires: n != null && build() was not called
+        // modifies: this
+        //  effects: adds n to the graph being built
+        public Builder addNode(Node n) {
+            graph.addNode(n);
+            return this;
+        }
 
-                            // follow the edges back from the destination to the start adding them to the path
-                            while (!start.equals(currentNode)) {
-                                currentFrom = from.get(currentNode);
-                                path.addFirst(currentFrom);
-                                currentNode = currentNode.equals(currentFrom.origin()) ? currentFrom.destination() : currentFrom.origin();
-                            }
+        // requires: e != null && e.firstNode != null && e.secondNode != null && build() was not called
+        // modifies: this
+        //  effects: adds e to the graph being built
+        public Builder addEdge(Edge e) {
+            graph.addEdge(e);
+            return this;
+        }
 
-                            return path;
-                        }
-                    } // if edge has not been explored
-                } // for all edges of the current node
-            } // for all nodes whose edges yet to be explored
+        // requires: edges contains no null && build() was not called
+        // modifies: this
+        //  effects: adds every edge of edges to the graph being built
+        public Builder addEdges(Edge[] edges) {
+            for (Edge e : edges) graph.addEdge(e);
+            return this;
+        }
 
-            // move the next level of node to be followed
-            visitedNodes.clear();
-            visitedNodes.addAll(tobeVisited);
-        } // while there are more node whose edges yet to be explored
+        // requires: edges contains no null && build() was not called
+        // modifies: this
+        //  effects: adds every edge of edges to the graph being built, in order
+        public Builder addEdges(Stream<? extends Edge> edges) {
+            MultiGraph g = graph;
+            edges.sequential().forEachOrdered(g::addEdge);
+            return this;
+        }
 
-        return path;
+        // requires: build() was not called
+        // modifies: this
+        //  effects: returns the graph that was built
+        public MultiGraph build() {
+            MultiGraph built = graph;
+            graph = null;
+            return built;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,375 @@
+package MultiGraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Loads a network from two comma-separated files, one of stations and one of line segments:
+ *
+ *   stations:  id,name                     (or GTFS stop_id,stop_name)
+ *   segments:  line,from,to[,seconds]      (or route_id,from_stop_id,to_stop_id,travel_time)
+ *
+ * Ids are ints. A first line that names any of these columns is a header, and the columns may then come in any order
+ * and be among others. Fields may be quoted, blank lines are skipped, and a segment without a travel
+ * time weighs 1. Segments of the same line between the same two stations are parallel and only the first one is
+ * kept, whichever way it runs.
+ *
+ * Files are read in chunks through a FileChannel. Chunks are parsed on the executor, several at a time, and added to
+ * the graph one after another in file order, so the graph is the same however many run in parallel and at most
+ * parallelism + 1 chunks are in memory at once.
+ */
+public class NetworkImporter {
+
+    private int chunkSize = 1 << 22; // bytes read at a time
+    private Executor executor = ForkJoinPool.commonPool(); // runs the parse of each chunk
+    private int parallelism = Runtime.getRuntime().availableProcessors(); // chunks parsed at the same time
+    private ProgressListener listener; // told of progress, may be null
+
+    NetworkImporter () {
+    }
+
+    // requires: bytes > 0
+    // modifies: this
+    //  effects: reads files bytes at a time. Lines longer than bytes are still read whole.
+    public NetworkImporter chunkSize(int bytes) {
+        chunkSize = bytes;
+        return this;
+    }
+
+    // requires: executor != null && parallelism > 0
+    // modifies: this
+    //  effects: parses up to parallelism chunks at the same time on executor
+    public NetworkImporter executor(Executor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    // modifies: this
+    //  effects: tells listener how far each file has been read, or nobody if listener is null
+    public NetworkImporter progress(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    // requires: stations != null && segments != null
+    //  effects: returns a new graph of the stations and segments in the files. Throws IOException if a file cannot
+    //           be read, or names the file and line of the first line that is not a valid station or segment.
+    public MultiGraph load(Path stations, Path segments) throws IOException {
+        MultiGraph graph = new MultiGraph();
+        load(stations, segments, graph);
+        return graph;
+    }
+
+    // requires: stations != null && segments != null && graph != null && every node of graph is a Station
+    // modifies: graph
+    //  effects: adds the stations and segments in the files to graph, as load(stations, segments) does. Segments
+    //           may also join stations that are already in graph, and stations that are in neither are added
+    //           without a name.
+    public void load(Path stations, Path segments, MultiGraph graph) throws IOException {
+        read(stations, new String[][] {{"id", "stop_id"}, {"name", "stop_name"}}, 1,
+                StationChunk::new, graph);
+        read(segments, new String[][] {{"line", "route_id", "route_short_name"}, {"from", "from_stop_id"},
+                {"to", "to_stop_id"}, {"seconds", "travel_time"}}, 3, SegmentChunk::new, graph);
+    }
+
+    // requires: names[i] are the names column i may have in a header && the first required columns are required
+    // modifies: graph
+    //  effects: parses file chunk by chunk with chunks and adds every chunk to graph in file order
+    private void read(Path file, String[][] names, int required, ChunkFactory chunks, MultiGraph graph)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size(), done = 0;
+            int line = 0; // lines of file before the next chunk to add
+            int[] columns = null;
+            ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+            byte[] rest = new byte[0]; // start of a line whose end has not been read yet
+            Deque<CompletableFuture<Chunk>> parsing = new ArrayDeque<CompletableFuture<Chunk>>();
+
+            boolean end = false;
+            while (!end) {
+                buffer.clear();
+                while (buffer.hasRemaining() && !end) {
+                    end = channel.read(buffer) < 0;
+                }
+                byte[] bytes = Arrays.copyOf(rest, rest.length + buffer.position());
+                System.arraycopy(buffer.array(), 0, bytes, rest.length, buffer.position());
+
+                int cut = end ? bytes.length : lastLineEnd(bytes) + 1; // chunks hold whole lines only
+                rest = Arrays.copyOfRange(bytes, cut, bytes.length);
+                String text = new String(bytes, 0, cut, StandardCharsets.UTF_8);
+                long textBytes = cut;
+
+                if (columns == null && !text.isEmpty()) {
+                    int header = text.indexOf('\n') < 0 ? text.length() : text.indexOf('\n');
+                    columns = columns(file, text.substring(0, header), names, required);
+                    if (columns != null) { // the first line is a header, not data
+                        int headerBytes = text.substring(0, Math.min(text.length(), header + 1))
+                                .getBytes(StandardCharsets.UTF_8).length;
+                        text = text.substring(Math.min(text.length(), header + 1));
+                        textBytes -= headerBytes;
+                        done += headerBytes;
+                        line++;
+                    } else {
+                        columns = new int[names.length];
+                        for (int c = 0; c < columns.length; c++) columns[c] = c;
+                    }
+                }
+
+                Chunk chunk = chunks.create(text, textBytes);
+                int[] chunkColumns = columns;
+                parsing.add(CompletableFuture.supplyAsync(() -> chunk.parse(chunkColumns), executor));
+                while (parsing.size() >= parallelism || (end && !parsing.isEmpty())) {
+                    Chunk parsed = parsing.poll().join();
+                    if (parsed.error != null) {
+                        throw new IOException(file+" line "+(line + parsed.errorLine + 1)+": "+parsed.error);
+                    }
+                    parsed.addTo(graph);
+                    line += parsed.lines;
+                    done = Math.min(size, done + parsed.bytes);
+                    if (listener != null) listener.progress(file, done, size);
+                }
+            }
+        }
+    }
+
+    // effects: returns the index of the last '\n' in bytes, or -1 if there is none
+    private static int lastLineEnd(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') return i;
+        }
+        return -1;
+    }
+
+    // effects: if header names any of the columns returns the column of each of names in it (-1 if it has none),
+    //          else returns null. Throws IOException if header names some columns but not a required one.
+    private static int[] columns(Path file, String header, String[][] names, int required) throws IOException {
+        String[] fields = grow(new String[8], header);
+        int count = split(header, 0, header.length(), fields);
+        int[] columns = new int[names.length];
+        boolean named = false;
+        for (int c = 0; c < names.length; c++) {
+            columns[c] = -1;
+            for (int f = 0; f < count && columns[c] < 0; f++) {
+                if (Arrays.asList(names[c]).contains(fields[f].trim().toLowerCase(Locale.ROOT))) columns[c] = f;
+            }
+            named |= columns[c] >= 0;
+        }
+        if (!named) {
+            return null;
+        }
+        for (int c = 0; c < required; c++) {
+            if (columns[c] < 0) throw new IOException(file+" has no column "+names[c][0]);
+        }
+        return columns;
+    }
+
+    // effects: returns fields, or a larger array if line has more fields than fields can hold
+    private static String[] grow(String[] fields, String line) {
+        int commas = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == ',') commas++;
+        }
+        return commas < fields.length ? fields : new String[commas + 1];
+    }
+
+    // requires: fields can hold every field of text[start .. end)
+    // modifies: fields
+    //  effects: splits the line text[start .. end) at commas outside quotes into fields and returns their number.
+    //           Quotes around a field are removed and doubled quotes inside one are undoubled. A quoted field
+    //           cannot span lines.
+    static int split(String text, int start, int end, String[] fields) {
+        if (end > start && text.charAt(end - 1) == '\r') end--;
+        int count = 0;
+        int i = start;
+        while (true) {
+            if (i < end && text.charAt(i) == '"') { // quoted field
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (i < end) {
+                    char c = text.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < end && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                fields[count++] = field.toString();
+                while (i < end && text.charAt(i) != ',') i++; // ignore anything between the quote and the comma
+            } else {
+                int comma = text.indexOf(',', i);
+                if (comma < 0 || comma > end) comma = end;
+                fields[count++] = text.substring(i, comma);
+                i = comma;
+            }
+            if (i >= end) return count;
+            i++; // skip the comma
+        }
+    }
+
+    private interface ChunkFactory {
+        Chunk create(String text, long bytes);
+    }
+
+    /**
+     * The lines of a chunk of a file, parsed into plain arrays on any thread and added to the graph later.
+     */
+    private abstract static class Chunk {
+
+        final String text; // the whole lines of the chunk
+        final long bytes; // size of the chunk in the file
+        int lines; // lines in the chunk, including blank ones
+        int errorLine; // line of the chunk with the first error
+        String error; // the first error, null if there is none
+
+        Chunk (String text, long bytes) {
+            this.text = text;
+            this.bytes = bytes;
+        }
+
+        // modifies: this
+        //  effects: parses every line of text with the given columns, stopping at the first error, and returns this
+        Chunk parse(int[] columns) {
+            String[] fields = new String[8];
+            int start = 0;
+            while (start < text.length()) {
+                int end = text.indexOf('\n', start);
+                if (end < 0) end = text.length();
+                if (end > start && !text.substring(start, end).trim().isEmpty()) {
+                    fields = grow(fields, text.substring(start, end));
+                    int count = split(text, start, end, fields);
+                    try {
+                        parse(fields, count, columns);
+                    } catch (IllegalArgumentException e) {
+                        errorLine = lines;
+                        error = e.getMessage();
+                        return this;
+                    }
+                }
+                lines++;
+                start = end + 1;
+            }
+            return this;
+        }
+
+        // modifies: this
+        //  effects: parses the fields of one line. Throws IllegalArgumentException if the line is not valid.
+        abstract void parse(String[] fields, int count, int[] columns);
+
+        // modifies: graph
+        //  effects: adds what was parsed to graph
+        abstract void addTo(MultiGraph graph);
+
+        // effects: returns the field in column of fields, throws IllegalArgumentException if there is none
+        static String field(String[] fields, int count, int column) {
+            if (column >= count) {
+                throw new IllegalArgumentException("expected at least "+(column + 1)+" fields");
+            }
+            return fields[column].trim();
+        }
+
+        // effects: returns the int in column of fields, throws IllegalArgumentException if there is none
+        static int number(String[] fields, int count, int column) {
+            String field = field(fields, count, column);
+            try {
+                return Integer.parseInt(field);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'"+field+"' is not a number");
+            }
+        }
+    }
+
+    private static final class StationChunk extends Chunk {
+
+        private int[] ids = new int[16];
+        private String[] names = new String[16];
+        private int size;
+
+        StationChunk (String text, long bytes) {
+            super(text, bytes);
+        }
+
+        @Override
+        void parse(String[] fields, int count, int[] columns) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+            }
+            ids[size] = number(fields, count, columns[0]);
+            names[size++] = columns[1] >= 0 && columns[1] < count ? fields[columns[1]] : null;
+        }
+
+        @Override
+        void addTo(MultiGraph graph) {
+            for (int i = 0; i < size; i++) {
+                graph.addNode(new Station(ids[i], names[i]));
+            }
+        }
+    }
+
+    private static final class SegmentChunk extends Chunk {
+
+        private int[] lines = new int[16]; // line id of each segment in LineRegistry.global()
+        private int[] from = new int[16], to = new int[16], seconds = new int[16];
+        private int size;
+
+        SegmentChunk (String text, long bytes) {
+            super(text, bytes);
+        }
+
+        @Override
+        void parse(String[] fields, int count, int[] columns) {
+            if (size == from.length) {
+                lines = Arrays.copyOf(lines, size * 2);
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+                seconds = Arrays.copyOf(seconds, size * 2);
+            }
+            lines[size] = LineRegistry.global().id(field(fields, count, columns[0]));
+            from[size] = number(fields, count, columns[1]);
+            to[size] = number(fields, count, columns[2]);
+            seconds[size] = columns[3] >= 0 && columns[3] < count && !fields[columns[3]].trim().isEmpty()
+                    ? number(fields, count, columns[3]) : 1;
+            if (seconds[size] < 0) {
+                throw new IllegalArgumentException("negative travel time "+seconds[size]);
+            }
+            size++;
+        }
+
+        @Override
+        void addTo(MultiGraph graph) {
+            for (int i = 0; i < size; i++) {
+                Station origin = station(graph, from[i]), destination = station(graph, to[i]);
+                if (!graph.containsEdge(new Line(lines[i], destination, origin))) { // parallel the other way
+                    graph.addEdge(new Line(lines[i], origin, destination, seconds[i]));
+                }
+            }
+        }
+
+        // modifies: graph
+        //  effects: returns the station of graph with the given id, adding one without a name if there is none
+        private static Station station(MultiGraph graph, int id) {
+            Node n = graph.getNode(id);
+            if (n == null) {
+                n = new Station(id);
+                graph.addNode(n);
+            }
+            return (Station)n;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package MultiGraph;
+
+import java.util.Objects;
+
+
+/**
+ * An immutable pair of values, for example the start and destination of a path query.
+ */
+public final class Pair<A, B> {
+
+    private final A first;
+    private final B second;
+
+    public Pair (A first, B second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    // effects: returns a pair of first and second
+    public static <A, B> Pair<A, B> of(A first, B second) {
+        return new Pair<A, B>(first, second);
+    }
+
+    // effects: returns pairFirst
+    public A first() {
+        return first;
+    }
+
+    // effects: returns pairSecond
+    public B second() {
+        return second;
+    }
+
+    @Override
+    public boolean equals (Object o) {
+        if (o instanceof Pair)
+            return Objects.equals(((Pair<?, ?>)o).first, first) && Objects.equals(((Pair<?, ?>)o).second, second);
+        return false;
+    }
+
+    @Override
+    public int hashCode () {
+        return 31 * Objects.hashCode(first) + Objects.hashCode(second);
+    }
+
+    @Override
+    public String toString() {
+        return "("+first+", "+second+")";
+    }
+}
@@ -0,0 +1,268 @@
+package MultiGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * A split of the stations of a GraphSnapshot into regions of about the same size with few edges between them, so
+ * that each region can be served by a process of its own, see PartitionServer and RoutingCoordinator. The edges
+ * between regions are the cut, and the stations at their ends are the boundary stations of their regions.
+ *
+ * Regions are made by recursive bisection. Each bisection orders the stations by a breadth-first search from a
+ * station far from the others, takes the first part of the order as one side, and then moves stations with more
+ * edges to the other side than to their own across while the sides stay balanced, which only ever shrinks the cut.
+ * On grids and rings the cut this leaves is close to the smallest one; on scale-free networks no small cut exists.
+ */
+public final class Partition {
+
+    private static final int REFINE_PASSES = 8; // passes over the stations of a bisection that move stations across
+    private static final double IMBALANCE = 0.03; // share of the stations a side may have more or less than its due
+
+    private final GraphSnapshot graph; // graph partitioned
+    private final int regionCount; // number of regions
+    private final int[] regions; // region of each station
+    private final int[] sizes; // stations in each region
+    private final int[] cut; // edges whose stations are in different regions, ascending
+    private final int[][] boundaries; // boundary stations of each region, ascending
+
+    private Partition (GraphSnapshot graph, int regionCount, int[] regions) {
+        this.graph = graph;
+        this.regionCount = regionCount;
+        this.regions = regions;
+
+        sizes = new int[regionCount];
+        for (int r : regions) sizes[r]++;
+
+        int cutCount = 0;
+        boolean[] boundary = new boolean[regions.length];
+        int[] cutEdges = new int[graph.edgeCount()];
+        for (int e = 0; e < cutEdges.length; e++) {
+            int o = graph.edgeOrigins[e], d = graph.edgeDestinations[e];
+            if (regions[o] != regions[d]) {
+                cutEdges[cutCount++] = e;
+                boundary[o] = boundary[d] = true;
+            }
+        }
+        cut = Arrays.copyOf(cutEdges, cutCount);
+
+        int[] boundarySizes = new int[regionCount];
+        for (int i = 0; i < regions.length; i++) {
+            if (boundary[i]) boundarySizes[regions[i]]++;
+        }
+        boundaries = new int[regionCount][];
+        for (int r = 0; r < regionCount; r++) boundaries[r] = new int[boundarySizes[r]];
+        Arrays.fill(boundarySizes, 0);
+        for (int i = 0; i < regions.length; i++) {
+            if (boundary[i]) boundaries[regions[i]][boundarySizes[regions[i]]++] = i;
+        }
+    }
+
+    // requires: graph != null
+    //  effects: returns a partition of the stations of graph into regionCount regions, or into as many as there are
+    //           stations if there are fewer. Throws IllegalArgumentException if regionCount < 1.
+    public static Partition of(GraphSnapshot graph, int regionCount) {
+        if (regionCount < 1) {
+            throw new IllegalArgumentException("a graph needs at least one region: "+regionCount);
+        }
+        int n = graph.nodeCount();
+        regionCount = Math.max(1, Math.min(regionCount, n));
+        int[] regions = new int[n];
+        int[] stations = new int[n];
+        for (int i = 0; i < n; i++) stations[i] = i;
+        new Bisection(graph, regions).split(stations, 0, regionCount);
+        return new Partition(graph, regionCount, regions);
+    }
+
+    /**
+     * State of the recursive bisection. While a set of stations is being split, regions holds the same group for all
+     * of them and another group for every other station.
+     */
+    private static final class Bisection {
+
+        final GraphSnapshot graph; // graph partitioned
+        final int[] regions; // group of each station, and in the end its region
+        final int[] distance; // edges from the start of the last search to each station, -1 if not reached
+        final int[] queue; // stations in the order the last search reached them
+
+        Bisection (GraphSnapshot graph, int[] regions) {
+            this.graph = graph;
+            this.regions = regions;
+            distance = new int[regions.length];
+            queue = new int[regions.length];
+            Arrays.fill(distance, -1);
+        }
+
+        // requires: stations are all the stations with regions[i] = first, and no others
+        // modifies: this
+        //  effects: splits stations into the regions first .. first+count-1, each with its share of the stations
+        void split(int[] stations, int first, int count) {
+            if (count == 1 || stations.length == 0) {
+                return;
+            }
+            int leftCount = count / 2;
+            int right = first + leftCount; // group of the second side, free as no region above first is made yet
+            int due = (int)((long)stations.length * leftCount / count); // stations the first side should get
+
+            int[] order = order(stations, first);
+            for (int i = due; i < order.length; i++) regions[order[i]] = right;
+            int slack = Math.max(1, (int)(IMBALANCE * stations.length));
+            refine(stations, first, right, due, Math.max(leftCount, due - slack),
+                    Math.min(stations.length - (count - leftCount), due + slack));
+
+            int leftSize = 0;
+            for (int i : stations) {
+                if (regions[i] == first) leftSize++;
+            }
+            int[] left = new int[leftSize], rest = new int[stations.length - leftSize];
+            int l = 0, r = 0;
+            for (int i : stations) {
+                if (regions[i] == first) {
+                    left[l++] = i;
+                } else {
+                    rest[r++] = i;
+                }
+            }
+            split(left, first, leftCount);
+            split(rest, right, count - leftCount);
+        }
+
+        // requires: stations are all the stations with regions[i] = group
+        //  effects: returns stations in breadth-first order within the group, each component searched from a station
+        //           as far from the others as one search finds
+        int[] order(int[] stations, int group) {
+            int[] order = new int[stations.length];
+            int ordered = 0;
+            for (int start : stations) {
+                if (distance[start] >= 0) continue; // in a component ordered already
+                int far = search(start, group);
+                for (int i = 0; i < far; i++) distance[queue[i]] = -1;
+                int reached = search(queue[far - 1], group);
+                System.arraycopy(queue, 0, order, ordered, reached);
+                ordered += reached;
+            }
+            for (int i : stations) distance[i] = -1;
+            return order;
+        }
+
+        // modifies: this
+        //  effects: searches the stations of group breadth-first from start, leaving distance set for the stations
+        //           reached and returns how many there are
+        private int search(int start, int group) {
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            distance[start] = 0;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int slot = graph.offsets[u], end = graph.offsets[u + 1]; slot < end; slot++) {
+                    int w = graph.neighbors[slot];
+                    if (distance[w] < 0 && regions[w] == group) {
+                        distance[w] = distance[u] + 1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            return tail;
+        }
+
+        // requires: stations are the stations of groups left and right, due of them in left
+        // modifies: this
+        //  effects: moves stations with more slots to the other side than to their own to the other side, as long as
+        //           left keeps between min and max stations
+        void refine(int[] stations, int left, int right, int due, int min, int max) {
+            int leftSize = due;
+            for (int pass = 0; pass < REFINE_PASSES; pass++) {
+                boolean moved = false;
+                for (int i : stations) {
+                    int side = regions[i], other = side == left ? right : left;
+                    int gain = 0;
+                    for (int slot = graph.offsets[i], end = graph.offsets[i + 1]; slot < end; slot++) {
+                        int g = regions[graph.neighbors[slot]];
+                        if (g == other) {
+                            gain++;
+                        } else if (g == side && graph.neighbors[slot] != i) {
+                            gain--;
+                        }
+                    }
+                    int newLeftSize = side == left ? leftSize - 1 : leftSize + 1;
+                    if (gain > 0 && newLeftSize >= min && newLeftSize <= max) {
+                        regions[i] = other;
+                        leftSize = newLeftSize;
+                        moved = true;
+                    }
+                }
+                if (!moved) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // effects: returns the graph partitioned
+    public GraphSnapshot graph() {
+        return graph;
+    }
+
+    // effects: returns the number of regions
+    public int regionCount() {
+        return regionCount;
+    }
+
+    // requires: n != null
+    //  effects: returns the region of n, or -1 if n !in Nodes
+    public int region(Node n) {
+        int i = graph.indexOf(n);
+        return i < 0 ? -1 : regions[i];
+    }
+
+    // requires: 0 <= region < regionCount()
+    //  effects: returns the number of stations in region
+    public int size(int region) {
+        return sizes[region];
+    }
+
+    // effects: returns the number of edges between stations in different regions
+    public int cutSize() {
+        return cut.length;
+    }
+
+    // effects: returns the edges between stations in different regions, in the order they were added
+    public List<Edge> cut() {
+        List<Edge> edges = new ArrayList<Edge>(cut.length);
+        for (int e : cut) edges.add(graph.edge(e));
+        return edges;
+    }
+
+    // requires: 0 <= region < regionCount()
+    //  effects: returns the stations of region with an edge to another region, in the order they were added
+    public List<Node> boundary(int region) {
+        List<Node> stations = new ArrayList<Node>(boundaries[region].length);
+        for (int i : boundaries[region]) stations.add(graph.nodes[i]);
+        return stations;
+    }
+
+    // requires: 0 <= region < regionCount()
+    //  effects: returns a graph of the stations of region and the edges between them, for a PartitionServer to
+    //           serve
+    public MultiGraph regionGraph(int region) {
+        MultiGraph.Builder builder = MultiGraph.builder(sizes[region], 2 * sizes[region]);
+        for (int i = 0; i < regions.length; i++) {
+            if (regions[i] == region) builder.addNode(graph.nodes[i]);
+        }
+        for (int e = 0, edges = graph.edgeCount(); e < edges; e++) {
+            if (regions[graph.edgeOrigins[e]] == region && regions[graph.edgeDestinations[e]] == region) {
+                builder.addEdge(graph.edge(e));
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        int boundaryCount = 0;
+        for (int[] b : boundaries) boundaryCount += b.length;
+        return String.format("Partition[%d stations, %d regions, %d cut edges, %d boundary stations]",
+                regions.length, regionCount, cut.length, boundaryCount);
+    }
+}
@@ -0,0 +1,244 @@
+package MultiGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.LongConsumer;
+
+
+/**
+ * Answers the searches a RoutingCoordinator needs inside one region of a Partition, on the graph of that region
+ * alone. A server answers messages handed to handle by a PartitionTransport, and can also listen on a loopback
+ * socket for a SocketTransport, so that every region can live in a process of its own.
+ *
+ * Messages are big-endian, as DataOutputStream writes them, and stations are given by id:
+ *
+ *   DISTANCES from n t1 .. tn  ->  n, then the edges of a shortest path from from to each ti within the region,
+ *                                  or -1 for each if from is not in the region or ti cannot be reached
+ *   PATH from to               ->  k, then the k edges "origin destination weight label" of a shortest path from
+ *                                  from to to within the region, or -1 if either station is not in the region
+ *
+ * Shortest paths are those with the fewest edges. They are searched without findPath's preference for staying on
+ * the same line, which can make its paths longer, so that the lengths the coordinator adds up are exact.
+ *
+ * A request starts with its kind as one byte. Over a socket every message is sent as its length and then its bytes.
+ */
+public final class PartitionServer implements AutoCloseable {
+
+    static final byte DISTANCES = 1; // kind of a DISTANCES request
+    static final byte PATH = 2; // kind of a PATH request
+
+    private final GraphSnapshot graph; // graph of the region
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet(); // open connections
+    private ServerSocket socket; // listening socket, null if the server does not listen
+    private volatile boolean closed; // true once close was called
+
+    // requires: graph != null && graph may be queried from any thread, as a GraphSnapshot may
+    //  effects: creates a server for the region graph, such as a snapshot of Partition.regionGraph
+    public PartitionServer (GraphSnapshot graph) {
+        this.graph = graph;
+    }
+
+    // effects: returns the graph of the region
+    public GraphSnapshot graph() {
+        return graph;
+    }
+
+    // requires: request != null
+    //  effects: returns the response to request as described above. Throws IOException if request is not one.
+    public byte[] handle(byte[] request) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte kind = in.readByte();
+        switch (kind) {
+            case DISTANCES:
+                distances(in, out);
+                break;
+            case PATH:
+                path(in, out);
+                break;
+            default:
+                throw new IOException("unknown partition request "+kind);
+        }
+        return bytes.toByteArray();
+    }
+
+    // modifies: out
+    //  effects: reads the rest of a DISTANCES request from in and writes its response to out
+    private void distances(DataInputStream in, DataOutputStream out) throws IOException {
+        int from = indexOf(in.readInt());
+        int[] distance = from < 0 ? null : search(from, -1, null);
+        int n = in.readInt();
+        out.writeInt(n);
+        for (int i = 0; i < n; i++) {
+            int to = indexOf(in.readInt());
+            out.writeInt(distance == null || to < 0 ? -1 : distance[to]);
+        }
+    }
+
+    // modifies: out
+    //  effects: reads the rest of a PATH request from in and writes its response to out
+    private void path(DataInputStream in, DataOutputStream out) throws IOException {
+        int from = indexOf(in.readInt()), to = indexOf(in.readInt());
+        if (from < 0 || to < 0) {
+            out.writeInt(-1);
+            return;
+        }
+        int[] parentEdge = new int[graph.nodeCount()];
+        int[] distance = search(from, to, parentEdge);
+        out.writeInt(Math.max(0, distance[to]));
+        if (distance[to] <= 0) {
+            return;
+        }
+        int[] edges = new int[distance[to]];
+        for (int i = edges.length - 1, current = to; i >= 0; i--) {
+            edges[i] = parentEdge[current];
+            current = graph.opposite(edges[i], current);
+        }
+        for (int e : edges) {
+            Edge edge = graph.edge(e);
+            out.writeInt(edge.origin().getId());
+            out.writeInt(edge.destination().getId());
+            out.writeInt(edge.getWeight());
+            out.writeUTF(edge.getLabel());
+        }
+    }
+
+    // effects: returns the index of the station with id in the region, or -1 if it has none
+    private int indexOf(int id) {
+        Node n = graph.getNode(id);
+        return n == null ? -1 : graph.indexOf(n);
+    }
+
+    // requires: 0 <= start < graph.nodeCount() && stop < graph.nodeCount()
+    // modifies: parentEdge
+    //  effects: searches the region breadth-first from start until stop is reached, or everywhere if stop < 0, and
+    //           returns the edges from start to each station, -1 for those not reached. If parentEdge is not null
+    //           it gets the edge each station reached was reached by.
+    private int[] search(int start, int stop, int[] parentEdge) {
+        int n = graph.nodeCount();
+        int[] distance = new int[n], queue = new int[n];
+        Arrays.fill(distance, -1);
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        distance[start] = 0;
+        while (head < tail && (stop < 0 || distance[stop] < 0)) {
+            int u = queue[head++];
+            for (int slot = graph.offsets[u], end = graph.offsets[u + 1]; slot < end; slot++) {
+                int w = graph.neighbors[slot];
+                if (distance[w] < 0) {
+                    distance[w] = distance[u] + 1;
+                    if (parentEdge != null) parentEdge[w] = graph.slotEdges[slot];
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return distance;
+    }
+
+    // requires: listen was not called && 0 <= port <= 65535
+    // modifies: this
+    //  effects: starts answering SocketTransports at port of the loopback address, or at a free port if port = 0,
+    //           and returns the port. Throws IOException if the port cannot be bound.
+    public int listen(int port) throws IOException {
+        return listen(new ServerSocket(port, 256, InetAddress.getLoopbackAddress()), RouteServer::sleep);
+    }
+
+    // requires: listen was not called && socket != null && pause != null
+    // modifies: this
+    //  effects: starts answering SocketTransports at socket, waiting by calling pause with the RouteServer.backOff
+    //           of every accept that fails, and returns its port
+    int listen(ServerSocket socket, LongConsumer pause) {
+        this.socket = socket;
+        ThreadFactory threads = RouteServer.connectionThreads();
+        threads.newThread(() -> accept(threads, pause)).start();
+        return socket.getLocalPort();
+    }
+
+    // effects: accepts connections until the server is closed, serving each on a thread of its own, and backs off
+    //          while accepting fails as RouteServer does
+    private void accept(ThreadFactory threads, LongConsumer pause) {
+        int failures = 0; // accepts that failed in a row
+        while (!closed) {
+            try {
+                Socket connection = socket.accept();
+                failures = 0;
+                connection.setTcpNoDelay(true);
+                connections.add(connection);
+                if (closed) { // close may have missed it
+                    connection.close();
+                    continue;
+                }
+                threads.newThread(() -> serve(connection)).start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("partition server: "+e.getMessage());
+                    pause.accept(RouteServer.backOff(++failures));
+                }
+            }
+        }
+    }
+
+    // effects: answers the messages of connection in order until the transport hangs up
+    private void serve(Socket connection) {
+        try (connection) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            while (true) {
+                byte[] request = new byte[in.readInt()];
+                in.readFully(request);
+                byte[] response = handle(request);
+                out.writeInt(response.length);
+                out.write(response);
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // the transport hung up, or the server was closed
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("partition server: "+e.getMessage());
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    // modifies: this
+    //  effects: stops listening and closes the connections that are open
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (socket != null) {
+            socket.close();
+        }
+        for (Socket connection : connections) {
+            connection.close();
+        }
+    }
+
+    // effects: serves the region graph file args[0] at port args[1] until the process is killed
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: PartitionServer region-graph-file port");
+            System.exit(2);
+        }
+        PartitionServer server = new PartitionServer(GraphFile.map(Paths.get(args[0])).snapshot());
+        int port = server.listen(Integer.parseInt(args[1]));
+        System.out.println("serving "+server.graph.nodeCount()+" stations at port "+port);
+    }
+}
@@ -0,0 +1,20 @@
+package MultiGraph;
+
+import java.io.IOException;
+
+
+/**
+ * Carries the requests of a RoutingCoordinator to the PartitionServers of the regions of a Partition and brings back
+ * their responses. Requests and responses are the opaque messages PartitionServer.handle reads and writes, so a
+ * transport only has to move bytes: LoopbackTransport calls servers in the same process, SocketTransport reaches
+ * servers in other processes, and others can use whatever channel a deployment has.
+ *
+ * A transport may be called from many threads at once.
+ */
+public interface PartitionTransport {
+
+    // requires: 0 <= partition < the number of regions && request was made for a PartitionServer
+    //  effects: returns the response of the PartitionServer of partition to request. Throws IOException if the
+    //           server cannot be reached or fails.
+    byte[] call(int partition, byte[] request) throws IOException;
+}
@@ -0,0 +1,58 @@
+package MultiGraph;
+
+import java.util.Arrays;
+
+
+/**
+ * The earliest arrival at a destination of a Timetable for every time one could leave a start, as the departures
+ * after which the arrival gets later. For every departure the profile holds, no journey leaving at that time or later
+ * arrives before its arrival, and leaving any later means arriving later, so arrivals ascend with departures.
+ */
+public final class Profile {
+
+    private final int[] departures; // latest time to leave for each arrival, ascending
+    private final int[] arrivals; // earliest arrival when leaving at each departure, ascending
+
+    // requires: departures and arrivals have the same length, both ascend strictly, and are not changed afterwards
+    Profile (int[] departures, int[] arrivals) {
+        this.departures = departures;
+        this.arrivals = arrivals;
+    }
+
+    // effects: returns the number of departures in the profile
+    public int size() {
+        return departures.length;
+    }
+
+    // requires: 0 <= i < size()
+    //  effects: returns the i-th latest time to leave, in ascending order
+    public int departure(int i) {
+        return departures[i];
+    }
+
+    // requires: 0 <= i < size()
+    //  effects: returns the earliest arrival when leaving at departure(i)
+    public int arrival(int i) {
+        return arrivals[i];
+    }
+
+    // effects: returns the earliest arrival when leaving at time or later, or -1 if the destination cannot be
+    //          reached by leaving then
+    public int arrivalLeavingAt(int time) {
+        int i = Arrays.binarySearch(departures, time);
+        if (i < 0) {
+            i = -i - 1; // first departure after time
+        }
+        return i < departures.length ? arrivals[i] : -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("Profile[");
+        for (int i = 0; i < departures.length; i++) {
+            if (i > 0) s.append(", ");
+            s.append(departures[i]).append(" -> ").append(arrivals[i]);
+        }
+        return s.append(']').toString();
+    }
+}
@@ -0,0 +1,14 @@
+package MultiGraph;
+
+import java.nio.file.Path;
+
+/**
+ * Told how far a NetworkImporter has got through the files it reads.
+ */
+public interface ProgressListener {
+
+    // requires: 0 <= bytesDone <= bytesTotal
+    //  effects: called on the importing thread each time another part of file has been added to the graph, with the
+    //           number of bytes of file added so far
+    void progress(Path file, long bytesDone, long bytesTotal);
+}
@@ -0,0 +1,211 @@
+package MultiGraph;
+
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+
+/**
+ * A cache of the shortest paths of a graph that stays valid while stations and edges are closed and reopened.
+ *
+ * Closing a station or edge only drops the routes that use it: a path that avoids it is still a shortest path, as
+ * closing can only make the other paths heavier or remove them. Reopening only drops the routes that were found
+ * while it was closed, as the routes found before it was closed were either dropped then or did not depend on it.
+ * Any other change to the graph gives it a new snapshot, which drops every route.
+ *
+ * The least recently used routes are dropped once there are more than capacity of them. A cache may be used by
+ * many threads at once, searches run outside of its lock.
+ */
+public final class RouteCache {
+
+    private final Supplier<GraphSnapshot> graph; // current snapshot of the graph whose routes are cached
+    private final Closures closures; // closures of the graph
+    private final int capacity; // most routes kept
+
+    private GraphSnapshot snapshot; // snapshot the routes were found on
+    private final LinkedHashMap<Long, Route> routes; // route of each (start, destination) pair, least recent first
+    private final Map<Integer, Set<Long>> byStation = new HashMap<Integer, Set<Long>>(); // routes through a station
+    private final Map<Integer, Set<Long>> byEdge = new HashMap<Integer, Set<Long>>(); // routes along an edge
+    private long hits, misses; // lookups answered from the cache, and lookups that had to search
+
+    // requires: graph supplies the current snapshot of a MultiGraph, CompactMultiGraph or ConcurrentMultiGraph
+    //           && capacity > 0
+    //  effects: creates an empty cache of at most capacity routes of that graph
+    public RouteCache (Supplier<GraphSnapshot> graph, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: "+capacity);
+        }
+        this.graph = graph;
+        this.capacity = capacity;
+        this.routes = new LinkedHashMap<Long, Route>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Route> eldest) {
+                if (size() > RouteCache.this.capacity) {
+                    unindex(eldest.getValue());
+                }
+                return size() > RouteCache.this.capacity;
+            }
+        };
+        snapshot = graph.get();
+        closures = snapshot.closures();
+        closures.register(this);
+    }
+
+    // requires: start != null && destination != null
+    // modifies: this
+    //  effects: same as findShortestPath(start, destination) on the current snapshot of the graph
+    public Deque<Edge> findShortestPath (Node start, Node destination) {
+        GraphSnapshot current = graph.get();
+        int s = current.indexOf(start), d = current.indexOf(destination);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+        Long key = (long)s << 32 | (d & 0xFFFFFFFFL);
+
+        int changes;
+        synchronized (this) {
+            if (current != snapshot) { // the graph changed, every route may have
+                clear();
+                snapshot = current;
+            }
+            Route route = routes.get(key);
+            if (route != null) {
+                hits++;
+                return new LinkedList<Edge>(route.path);
+            }
+            misses++;
+            changes = closures.changes();
+        }
+
+        Deque<Edge> path = current.findShortestPath(start, destination);
+
+        synchronized (this) {
+            // a route found while closures changed may already be out of date, and would not have been dropped
+            if (current == snapshot && changes == closures.changes() && !routes.containsKey(key)) {
+                Route route = new Route(key, new LinkedList<Edge>(path), changes, current, s, d);
+                routes.put(key, route);
+                for (int i : route.stations) byStation.computeIfAbsent(i, k -> new HashSet<Long>()).add(key);
+                for (int e : route.edges) byEdge.computeIfAbsent(e, k -> new HashSet<Long>()).add(key);
+            }
+        }
+        return path;
+    }
+
+    // effects: returns the number of routes in the cache
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    // effects: returns the number of lookups answered from the cache
+    public synchronized long hits() {
+        return hits;
+    }
+
+    // effects: returns the number of lookups that had to search
+    public synchronized long misses() {
+        return misses;
+    }
+
+    // modifies: this
+    //  effects: drops every route and stops following the closures of the graph
+    public synchronized void detach() {
+        closures.unregister(this);
+        clear();
+    }
+
+    // modifies: this
+    //  effects: drops the routes that pass through, start or end at the station with index i
+    synchronized void stationClosed(int i) {
+        drop(byStation.remove(i));
+    }
+
+    // modifies: this
+    //  effects: drops the routes that take the edge with index e
+    synchronized void edgeClosed(int e) {
+        drop(byEdge.remove(e));
+    }
+
+    // modifies: this
+    //  effects: drops the routes found since change closedAt, when something that was closed then reopened
+    synchronized void reopened(int closedAt) {
+        for (Iterator<Route> it = routes.values().iterator(); it.hasNext(); ) {
+            Route route = it.next();
+            if (route.changes >= closedAt) {
+                it.remove();
+                unindex(route);
+            }
+        }
+    }
+
+    // modifies: this
+    //  effects: drops the routes of keys, if any
+    private void drop(Set<Long> keys) {
+        if (keys == null) {
+            return;
+        }
+        for (Long key : keys) {
+            Route route = routes.remove(key);
+            if (route != null) unindex(route);
+        }
+    }
+
+    // modifies: this
+    //  effects: removes route from the indices of the stations and edges it uses
+    private void unindex(Route route) {
+        for (int i : route.stations) forget(byStation, i, route.key);
+        for (int e : route.edges) forget(byEdge, e, route.key);
+    }
+
+    // modifies: index
+    //  effects: removes key from the routes of i, and i from index once it has no routes
+    private static void forget(Map<Integer, Set<Long>> index, int i, Long key) {
+        Set<Long> keys = index.get(i);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(i);
+        }
+    }
+
+    // modifies: this
+    //  effects: drops every route
+    private void clear() {
+        routes.clear();
+        byStation.clear();
+        byEdge.clear();
+    }
+
+    /**
+     * A cached path, with the indices of its stations and edges.
+     */
+    private final class Route {
+
+        final Long key; // (start, destination) pair of the route
+        final Deque<Edge> path; // the path, never handed out itself
+        final int changes; // number of closure changes when the path was searched
+        final int[] stations; // indices of the stations of the path, start and destination included
+        final int[] edges; // indices of the edges of the path
+
+        // requires: path is the path from the station with index start to the one with index destination
+        Route (Long key, Deque<Edge> path, int changes, GraphSnapshot snapshot, int start, int destination) {
+            this.key = key;
+            this.path = path;
+            this.changes = changes;
+            stations = new int[2 * path.size() + 2]; // edges may be ridden either way, so take both their ends
+            edges = new int[path.size()];
+            stations[0] = start;
+            stations[1] = destination;
+            int k = 0;
+            for (Edge e : path) {
+                edges[k] = closures.edgeIndex(e);
+                stations[2 * k + 2] = snapshot.indexOf(e.origin());
+                stations[2 * k + 3] = snapshot.indexOf(e.destination());
+                k++;
+            }
+        }
+    }
+}
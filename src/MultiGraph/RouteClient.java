@@ -0,0 +1,127 @@
+package MultiGraph;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.LinkedList;
+
+
+/**
+ * A connection to a RouteServer. The request methods only buffer a request, flush sends everything buffered, and
+ * the read methods read the responses in the order of the requests, so many requests can be in flight at once.
+ * findPath and getNode send a single request and wait for its response.
+ *
+ * A client must only be used by one thread at a time.
+ */
+public final class RouteClient implements AutoCloseable {
+
+    private final Socket socket; // connection to the server
+    private final BufferedReader in; // responses
+    private final Writer out; // requests, buffered until flushed
+
+    // requires: 0 < port <= 65535
+    //  effects: connects to the RouteServer at port of the loopback address. Throws IOException if it cannot.
+    public RouteClient (int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 14);
+    }
+
+    // modifies: this
+    //  effects: returns the path the server's findPath finds between the stations with ids start and destination,
+    //           or null if either is not in its graph. Edges are Lines between Stations without names.
+    public Deque<Edge> findPath(int start, int destination) throws IOException {
+        requestPath(start, destination);
+        flush();
+        return readPath();
+    }
+
+    // modifies: this
+    //  effects: returns the station with id id in the server's graph, or null if there is none
+    public Station getNode(int id) throws IOException {
+        requestNode(id);
+        flush();
+        return readNode();
+    }
+
+    // modifies: this
+    //  effects: buffers a PATH request
+    public void requestPath(int start, int destination) throws IOException {
+        out.write("PATH "+start+" "+destination+"\n");
+    }
+
+    // modifies: this
+    //  effects: buffers a NODE request
+    public void requestNode(int id) throws IOException {
+        out.write("NODE "+id+"\n");
+    }
+
+    // modifies: this
+    //  effects: sends every buffered request
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // requires: the next response is to a PATH request
+    // modifies: this
+    //  effects: reads it and returns the path, as findPath does. Throws IOException if the server hung up or
+    //           answered with an error.
+    public Deque<Edge> readPath() throws IOException {
+        String response = response();
+        if (response.equals("NONE")) {
+            return null;
+        }
+        int k = Integer.parseInt(response.substring(3));
+        Deque<Edge> path = new LinkedList<Edge>();
+        for (int i = 0; i < k; i++) {
+            String[] edge = response().split(" ", 4);
+            path.add(new Line(edge[3], new Station(Integer.parseInt(edge[0])), new Station(Integer.parseInt(edge[1])),
+                    Integer.parseInt(edge[2])));
+        }
+        return path;
+    }
+
+    // requires: the next response is to a NODE request
+    // modifies: this
+    //  effects: reads it and returns the station, as getNode does. Throws IOException if the server hung up or
+    //           answered with an error.
+    public Station readNode() throws IOException {
+        String response = response();
+        if (response.equals("NONE")) {
+            return null;
+        }
+        String[] node = response.split(" ", 3);
+        return new Station(Integer.parseInt(node[1]), node.length > 2 ? node[2] : null);
+    }
+
+    // modifies: this
+    //  effects: returns the next line from the server. Throws IOException if there is none or it is an error.
+    private String response() throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            throw new IOException("route server hung up");
+        }
+        if (line.startsWith("ERR")) {
+            throw new IOException("route server: "+line.substring(3).trim());
+        }
+        return line;
+    }
+
+    // modifies: this
+    //  effects: quits and closes the connection
+    @Override
+    public void close() throws IOException {
+        try (socket) {
+            out.write("QUIT\n");
+            out.flush();
+        }
+    }
+}
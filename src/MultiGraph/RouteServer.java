@@ -0,0 +1,262 @@
+package MultiGraph;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+
+/**
+ * Answers findPath and getNode over a line-based protocol on a loopback socket, so that many processes can share one
+ * graph. Every connection is served by a thread of its own: a virtual thread where the runtime has them, else a
+ * daemon platform thread with a small stack. All connections query the same snapshot supplier, so they share one
+ * compiled graph and see changes to it as soon as it is published.
+ *
+ * Requests and responses are UTF-8 lines:
+ *
+ *   PATH start destination   ->  OK k, then k lines "origin destination weight label", or NONE if a station id
+ *                                is unknown. Stations are given by id.
+ *   NODE id                  ->  OK id [name], or NONE if there is no station with that id
+ *   QUIT                     ->  closes the connection
+ *   anything else            ->  ERR reason
+ *
+ * Requests may be pipelined: a client can send many before reading any response, and responses come back in the
+ * order of the requests. Responses are only flushed once every request received so far has been answered.
+ */
+public final class RouteServer implements AutoCloseable {
+
+    private static final int BACKLOG = 4096; // connections waiting to be accepted, enough for bursts of clients
+    static final long MAX_BACKOFF = 1000; // longest pause in milliseconds after accepts that failed in a row
+
+    private final Supplier<GraphSnapshot> graph; // current snapshot of the graph served
+    private final ServerSocket socket; // listening socket
+    private final ThreadFactory threads; // makes the thread of each connection
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet(); // open connections
+    private final LongConsumer pause; // waits the milliseconds it is given, between accepts that failed
+    private final LongAdder requests = new LongAdder(); // requests answered
+    private volatile boolean closed; // true once close was called
+
+    private RouteServer (Supplier<GraphSnapshot> graph, ServerSocket socket, LongConsumer pause) {
+        this.graph = graph;
+        this.socket = socket;
+        this.pause = pause;
+        this.threads = connectionThreads();
+    }
+
+    // requires: graph supplies snapshots that may be queried from any thread, as ConcurrentMultiGraph::snapshot
+    //           does && 0 <= port <= 65535
+    //  effects: returns a server answering queries on graph at port of the loopback address, or at a free port if
+    //           port = 0. Throws IOException if the port cannot be bound.
+    public static RouteServer start(Supplier<GraphSnapshot> graph, int port) throws IOException {
+        return start(graph, new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress()), RouteServer::sleep);
+    }
+
+    // requires: graph as for start(graph, port) && socket != null && pause != null
+    //  effects: returns a server answering queries on graph at socket, which waits by calling pause with the
+    //           backOff of every accept that fails
+    static RouteServer start(Supplier<GraphSnapshot> graph, ServerSocket socket, LongConsumer pause) {
+        RouteServer server = new RouteServer(graph, socket, pause);
+        server.threads.newThread(server::accept).start();
+        return server;
+    }
+
+    // effects: returns the port the server listens at
+    public int port() {
+        return socket.getLocalPort();
+    }
+
+    // effects: returns the number of connections open
+    public int connections() {
+        return connections.size();
+    }
+
+    // effects: returns the number of requests answered so far
+    public long requests() {
+        return requests.sum();
+    }
+
+    // modifies: this
+    //  effects: stops accepting connections and closes those that are open
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+        for (Socket connection : connections) {
+            connection.close();
+        }
+    }
+
+    // effects: accepts connections until the server is closed, serving each on a thread of its own, and backs off
+    //          while accepting fails
+    private void accept() {
+        int failures = 0; // accepts that failed in a row
+        while (!closed) {
+            try {
+                Socket connection = socket.accept();
+                failures = 0;
+                connection.setTcpNoDelay(true);
+                connections.add(connection);
+                if (closed) { // close may have missed it
+                    connection.close();
+                    continue;
+                }
+                threads.newThread(() -> serve(connection)).start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("route server: "+e.getMessage());
+                    pause.accept(backOff(++failures));
+                }
+            }
+        }
+    }
+
+    // requires: failures > 0
+    //  effects: returns the milliseconds to wait after failures accepts failed in a row: 10 after the first, twice
+    //           as long after each one after it, and MAX_BACKOFF at most. An error that lasts, such as running out
+    //           of file descriptors, would otherwise keep a core busy accepting and failing.
+    static long backOff(int failures) {
+        return Math.min(MAX_BACKOFF, 10L << Math.min(failures - 1, 10));
+    }
+
+    // effects: sleeps for millis milliseconds, or until interrupted
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // effects: answers the requests of connection in order until the client quits or hangs up
+    private void serve(Socket connection) {
+        try (connection) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(
+                    new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8), 1 << 14);
+            String request;
+            while ((request = in.readLine()) != null && answer(request, out)) {
+                requests.increment();
+                if (!in.ready()) { // answered every request sent so far
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (SocketException e) {
+            // the client hung up, or the server was closed
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("route server: "+e.getMessage());
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    // modifies: out
+    //  effects: writes the response to request to out, and returns false if the client quit, else returns true
+    private boolean answer(String request, Writer out) throws IOException {
+        String[] words = request.trim().split("\\s+");
+        try {
+            switch (words[0]) {
+                case "PATH":
+                    if (words.length != 3) break;
+                    path(Integer.parseInt(words[1]), Integer.parseInt(words[2]), out);
+                    return true;
+                case "NODE":
+                    if (words.length != 2) break;
+                    node(Integer.parseInt(words[1]), out);
+                    return true;
+                case "QUIT":
+                    return false;
+                default:
+                    out.write("ERR unknown request "+words[0]+"\n");
+                    return true;
+            }
+        } catch (NumberFormatException e) {
+            out.write("ERR station ids must be ints\n");
+            return true;
+        }
+        out.write("ERR wrong number of arguments to "+words[0]+"\n");
+        return true;
+    }
+
+    // modifies: out
+    //  effects: writes the response to PATH start destination to out
+    private void path(int start, int destination, Writer out) throws IOException {
+        GraphSnapshot snapshot = graph.get();
+        Node s = snapshot.getNode(start), d = snapshot.getNode(destination);
+        if (s == null || d == null) {
+            out.write("NONE\n");
+            return;
+        }
+        Deque<Edge> path = snapshot.findPath(s, d);
+        StringBuilder response = new StringBuilder(32 * (path.size() + 1));
+        response.append("OK ").append(path.size()).append('\n');
+        for (Edge e : path) {
+            response.append(e.origin().getId()).append(' ').append(e.destination().getId()).append(' ')
+                    .append(e.getWeight()).append(' ').append(e.getLabel()).append('\n');
+        }
+        out.write(response.toString());
+    }
+
+    // modifies: out
+    //  effects: writes the response to NODE id to out
+    private void node(int id, Writer out) throws IOException {
+        Node n = graph.get().getNode(id);
+        if (n == null) {
+            out.write("NONE\n");
+        } else if (n instanceof Station && ((Station)n).getName() != null) {
+            out.write("OK "+id+" "+((Station)n).getName()+"\n");
+        } else {
+            out.write("OK "+id+"\n");
+        }
+    }
+
+    // effects: returns a factory of virtual threads if the runtime has them, else of daemon platform threads with
+    //          small stacks, so that thousands of connections can be open at once either way
+    static ThreadFactory connectionThreads() {
+        try { // Thread.ofVirtual().name("route-", 0).factory(), which only exists from Java 21 on
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Method name = builder.getMethod("name", String.class, long.class);
+            Method factory = builder.getMethod("factory");
+            Object virtual = name.invoke(Thread.class.getMethod("ofVirtual").invoke(null), "route-", 0L);
+            return (ThreadFactory)factory.invoke(virtual);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return task -> {
+                Thread thread = new Thread(null, task, "route-"+count.getAndIncrement(), 256 * 1024);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    // effects: serves the graph file args[0] at port args[1] (7070 if not given) until the process is killed
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: RouteServer graph-file [port]");
+            System.exit(2);
+        }
+        GraphSnapshot snapshot = GraphFile.map(Paths.get(args[0])).snapshot();
+        RouteServer server = start(() -> snapshot, args.length > 1 ? Integer.parseInt(args[1]) : 7070);
+        System.out.println("serving "+snapshot.nodeCount()+" stations at port "+server.port());
+    }
+}
@@ -0,0 +1,321 @@
+package MultiGraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+
+/**
+ * Answers findPath on a graph split by a Partition, whose regions are served by PartitionServers behind a
+ * PartitionTransport. The coordinator only keeps the region of every station id and an overlay graph of the boundary
+ * stations: the cut edges, and between every two boundary stations of a region a shortcut as long as the shortest
+ * path between them within the region, asked of its server once when the coordinator is made.
+ *
+ * A query asks the server of the start's region how far the start is from each of its boundary stations, and the
+ * server of the destination's region how far each of its boundary stations is from the destination. A search over the
+ * overlay from the first boundary stations to the second finds the shortest way between the regions, which is then
+ * compared with the path within the region when both stations are in the same one. Every path out of a region leaves
+ * it through a boundary station, so this finds a path with the fewest edges on the whole graph. Finally the servers
+ * are asked for the path of each shortcut taken.
+ *
+ * Closures are not passed on to the servers. Edges within regions are made again from the servers' responses, as
+ * Lines between Stations without names, which equal the edges of the graph.
+ */
+public final class RoutingCoordinator {
+
+    private static final int UNREACHED = Integer.MAX_VALUE; // distance of stations the overlay search has not reached
+
+    private final PartitionTransport transport; // reaches the server of each region
+    private final IntIntHashMap regions; // region of each station id
+    private final IntIntHashMap overlayIndex; // overlay station of each boundary station id
+    private final int[] overlayIds; // station id of each overlay station
+    private final int[][] boundaryIds; // station ids of the boundary stations of each region
+    private final int[][] boundaryStations; // overlay stations of the boundary stations of each region
+    private final Edge[] cut; // edges between regions
+    private final int[] arcStart; // first arc of each overlay station, arcStart[overlay stations] = arcs
+    private final int[] arcSources; // overlay station each arc leaves
+    private final int[] arcTargets; // overlay station each arc leads to
+    private final int[] arcWeights; // edges of the path each arc stands for
+    private final int[] arcVia; // region of the path of each shortcut, or -1-c for the cut edge c
+    private final ThreadLocal<Search> searches; // overlay search of each thread
+
+    // requires: partition != null && transport != null && transport reaches a server for the graph of each region
+    //           of partition
+    //  effects: creates a coordinator for the graph of partition, asking each server for the shortcuts between its
+    //           boundary stations. Throws IOException if a server cannot be reached.
+    public RoutingCoordinator (Partition partition, PartitionTransport transport) throws IOException {
+        this.transport = transport;
+        GraphSnapshot graph = partition.graph();
+        int regionCount = partition.regionCount();
+
+        regions = new IntIntHashMap(graph.nodeCount());
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            regions.putIfAbsent(graph.nodes[i].getId(), partition.region(graph.nodes[i]));
+        }
+
+        boundaryIds = new int[regionCount][];
+        boundaryStations = new int[regionCount][];
+        int overlaySize = 0;
+        for (int r = 0; r < regionCount; r++) {
+            List<Node> boundary = partition.boundary(r);
+            boundaryIds[r] = new int[boundary.size()];
+            boundaryStations[r] = new int[boundary.size()];
+            for (int j = 0; j < boundary.size(); j++) {
+                boundaryIds[r][j] = boundary.get(j).getId();
+                boundaryStations[r][j] = overlaySize++;
+            }
+        }
+        overlayIds = new int[overlaySize];
+        overlayIndex = new IntIntHashMap(overlaySize);
+        for (int r = 0; r < regionCount; r++) {
+            for (int j = 0; j < boundaryIds[r].length; j++) {
+                overlayIds[boundaryStations[r][j]] = boundaryIds[r][j];
+                overlayIndex.putIfAbsent(boundaryIds[r][j], boundaryStations[r][j]);
+            }
+        }
+
+        List<Edge> cutEdges = partition.cut();
+        cut = cutEdges.toArray(new Edge[0]);
+        int[] cutOrigins = new int[cut.length], cutDestinations = new int[cut.length];
+        int[] degrees = new int[overlaySize + 1];
+        for (int c = 0; c < cut.length; c++) {
+            cutOrigins[c] = overlayIndex.get(cut[c].origin().getId());
+            cutDestinations[c] = overlayIndex.get(cut[c].destination().getId());
+            degrees[cutOrigins[c]]++;
+            degrees[cutDestinations[c]]++;
+        }
+        int[][] rows = new int[overlaySize][]; // edges within the region from each overlay station to the others
+        for (int r = 0; r < regionCount; r++) {
+            for (int j = 0; j < boundaryIds[r].length; j++) {
+                int[] row = distances(r, boundaryIds[r][j], boundaryIds[r]);
+                rows[boundaryStations[r][j]] = row;
+                for (int hops : row) {
+                    if (hops > 0) degrees[boundaryStations[r][j]]++;
+                }
+            }
+        }
+
+        arcStart = new int[overlaySize + 1];
+        for (int v = 0; v < overlaySize; v++) arcStart[v + 1] = arcStart[v] + degrees[v];
+        int arcCount = arcStart[overlaySize];
+        arcSources = new int[arcCount];
+        arcTargets = new int[arcCount];
+        arcWeights = new int[arcCount];
+        arcVia = new int[arcCount];
+        int[] next = Arrays.copyOf(arcStart, overlaySize);
+        for (int c = 0; c < cut.length; c++) {
+            arc(next, cutOrigins[c], cutDestinations[c], 1, -1 - c);
+            arc(next, cutDestinations[c], cutOrigins[c], 1, -1 - c);
+        }
+        for (int r = 0; r < regionCount; r++) {
+            for (int j = 0; j < boundaryIds[r].length; j++) {
+                int[] row = rows[boundaryStations[r][j]];
+                for (int k = 0; k < row.length; k++) {
+                    if (row[k] > 0) arc(next, boundaryStations[r][j], boundaryStations[r][k], row[k], r);
+                }
+            }
+        }
+        searches = ThreadLocal.withInitial(() -> new Search(overlayIds.length));
+    }
+
+    // modifies: this
+    //  effects: adds the arc from source to target of weight edges via via as the next arc of source
+    private void arc(int[] next, int source, int target, int weight, int via) {
+        int a = next[source]++;
+        arcSources[a] = source;
+        arcTargets[a] = target;
+        arcWeights[a] = weight;
+        arcVia[a] = via;
+    }
+
+    /**
+     * State of the overlay searches of one thread. Every array is back to its initial values between searches.
+     */
+    private static final class Search {
+
+        final IndexedMinHeap heap; // overlay stations reached but not settled, by distance
+        final int[] distance; // edges from the start to each overlay station, UNREACHED if not reached
+        final int[] parentArc; // arc each overlay station was reached by, -1 for boundary stations of the start
+        final int[] exit; // edges from each boundary station of the destination to it, -1 for other stations
+        final int[] reached; // overlay stations reached, in order
+        int reachedCount; // number of overlay stations reached
+
+        Search (int n) {
+            heap = new IndexedMinHeap(n);
+            distance = new int[n];
+            parentArc = new int[n];
+            exit = new int[n];
+            reached = new int[n];
+            Arrays.fill(distance, UNREACHED);
+            Arrays.fill(exit, -1);
+        }
+
+        // modifies: this
+        //  effects: reaches overlay station v by arc after hops edges, if that is fewer than before
+        void reach(int v, int hops, int arc) {
+            if (hops < distance[v]) {
+                if (distance[v] == UNREACHED) reached[reachedCount++] = v;
+                distance[v] = hops;
+                parentArc[v] = arc;
+                heap.insertOrDecrease(v, hops);
+            }
+        }
+
+        // modifies: this
+        //  effects: sets every array back to its initial values
+        void clear() {
+            for (int i = 0; i < reachedCount; i++) distance[reached[i]] = UNREACHED;
+            reachedCount = 0;
+            heap.clear();
+        }
+    }
+
+    // requires: start != null && destination != null
+    //  effects: if start !in Nodes || destination !in Nodes returns null
+    //           else if no path is found returns an empty Deque
+    //           else returns a path from start to destination with the fewest edges on the whole graph, which can
+    //           be fewer than findPath's as it does not prefer staying on the same line. Throws IOException if a
+    //           server cannot be reached.
+    public Deque<Edge> findPath (Node start, Node destination) throws IOException {
+        int s = start.getId(), d = destination.getId();
+        int startRegion = regions.get(s), destinationRegion = regions.get(d);
+        if (startRegion < 0 || destinationRegion < 0) {
+            return null;
+        }
+        Deque<Edge> path = new LinkedList<Edge>();
+        if (s == d) {
+            return path;
+        }
+
+        int[] entries = boundaryIds[startRegion];
+        boolean sameRegion = startRegion == destinationRegion;
+        int[] fromStart = distances(startRegion, s, sameRegion ? append(entries, d) : entries);
+        int[] toDestination = distances(destinationRegion, d, boundaryIds[destinationRegion]);
+
+        int best = sameRegion && fromStart[entries.length] >= 0 ? fromStart[entries.length] : UNREACHED;
+        int bestExit = -1; // overlay station the best path leaves the overlay at, -1 if it stays in the region
+        int[] arcs; // arcs of the best path over the overlay, in order
+        Search search = searches.get();
+        int[] exits = boundaryStations[destinationRegion];
+        try {
+            for (int j = 0; j < exits.length; j++) search.exit[exits[j]] = toDestination[j];
+            for (int j = 0; j < entries.length; j++) {
+                if (fromStart[j] >= 0) search.reach(boundaryStations[startRegion][j], fromStart[j], -1);
+            }
+            while (!search.heap.isEmpty() && search.heap.minKey() < best) {
+                int v = search.heap.pollMin();
+                int hops = search.distance[v];
+                if (search.exit[v] >= 0 && hops + search.exit[v] < best) {
+                    best = hops + search.exit[v];
+                    bestExit = v;
+                }
+                for (int a = arcStart[v], end = arcStart[v + 1]; a < end; a++) {
+                    search.reach(arcTargets[a], hops + arcWeights[a], a);
+                }
+            }
+
+            int count = 0;
+            for (int v = bestExit; v >= 0 && search.parentArc[v] >= 0; v = arcSources[search.parentArc[v]]) count++;
+            arcs = new int[count];
+            for (int v = bestExit; v >= 0 && search.parentArc[v] >= 0; v = arcSources[search.parentArc[v]]) {
+                arcs[--count] = search.parentArc[v];
+            }
+        } finally {
+            for (int v : exits) search.exit[v] = -1;
+            search.clear();
+        }
+
+        if (best == UNREACHED) {
+            return path;
+        }
+        if (bestExit < 0) {
+            path.addAll(path(startRegion, s, d));
+            return path;
+        }
+        int at = arcs.length > 0 ? overlayIds[arcSources[arcs[0]]] : overlayIds[bestExit];
+        path.addAll(path(startRegion, s, at));
+        for (int a : arcs) {
+            if (arcVia[a] < 0) {
+                path.addLast(cut[-1 - arcVia[a]]);
+            } else {
+                path.addAll(path(arcVia[a], overlayIds[arcSources[a]], overlayIds[arcTargets[a]]));
+            }
+        }
+        path.addAll(path(destinationRegion, overlayIds[bestExit], d));
+        return path;
+    }
+
+    // effects: returns ids with id added at the end
+    private static int[] append(int[] ids, int id) {
+        int[] result = Arrays.copyOf(ids, ids.length + 1);
+        result[ids.length] = id;
+        return result;
+    }
+
+    // requires: 0 <= region < the number of regions
+    //  effects: returns the edges of the shortest path within region from the station with id from to each of the
+    //           stations with ids targets, -1 for those that cannot be reached
+    private int[] distances(int region, int from, int[] targets) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9 + 4 * targets.length);
+        DataOutputStream request = new DataOutputStream(bytes);
+        request.writeByte(PartitionServer.DISTANCES);
+        request.writeInt(from);
+        request.writeInt(targets.length);
+        for (int t : targets) request.writeInt(t);
+
+        DataInputStream response = new DataInputStream(new ByteArrayInputStream(transport.call(region,
+                bytes.toByteArray())));
+        int[] hops = new int[response.readInt()];
+        for (int i = 0; i < hops.length; i++) hops[i] = response.readInt();
+        return hops;
+    }
+
+    // requires: 0 <= region < the number of regions && the stations with ids from and to are in region
+    //  effects: returns findPath(from, to) within region
+    private Deque<Edge> path(int region, int from, int to) throws IOException {
+        Deque<Edge> path = new LinkedList<Edge>();
+        if (from == to) {
+            return path;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        DataOutputStream request = new DataOutputStream(bytes);
+        request.writeByte(PartitionServer.PATH);
+        request.writeInt(from);
+        request.writeInt(to);
+
+        DataInputStream response = new DataInputStream(new ByteArrayInputStream(transport.call(region,
+                bytes.toByteArray())));
+        int k = response.readInt();
+        if (k < 0) {
+            throw new IOException("partition "+region+" does not have stations "+from+" and "+to);
+        }
+        for (int i = 0; i < k; i++) {
+            Station origin = new Station(response.readInt()), destination = new Station(response.readInt());
+            int weight = response.readInt();
+            path.addLast(new Line(response.readUTF(), origin, destination, weight));
+        }
+        return path;
+    }
+
+    // effects: returns the number of boundary stations in the overlay
+    public int overlaySize() {
+        return overlayIds.length;
+    }
+
+    // effects: returns the number of arcs of the overlay, two per cut edge and one per shortcut
+    public int overlayArcs() {
+        return arcTargets.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RoutingCoordinator[%d regions, %d overlay stations, %d overlay arcs]",
+                boundaryIds.length, overlayIds.length, arcTargets.length);
+    }
+}
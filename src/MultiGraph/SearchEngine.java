@@ -0,0 +1,1333 @@
+package MultiGraph;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+
+/**
+ * Breadth-first path search over a GraphSnapshot that reuses its scratch state between queries. Marks are stamped
+ * with the number of the current query instead of being cleared, so starting a query costs nothing and the only
+ * object a query allocates is the returned path.
+ *
+ * Searches skip the closed stations and edges of the graph, and those of the scenario of the query if it has one.
+ * Whether anything is closed is checked once per query, so closures cost nothing while there are none.
+ *
+ * If the graph has a SearchProbe, findPath runs a copy of its search that counts what it does and tells the probe.
+ * The search run without one has no counters at all rather than counters behind a check.
+ *
+ * An engine must only be used by one thread at a time, GraphSnapshot.engine() hands out one per thread.
+ */
+public class SearchEngine {
+
+    private final WeakReference<GraphSnapshot> graph; // held weakly, so that a thread's engine never keeps it alive
+    private final Closures closures; // closed stations and edges of the graph
+
+    private final int[] nodeMark; // query in which each node was visited
+    private final int[] edgeMark; // query in which each edge was explored
+    private final int[] from; // edge each node was reached from, valid when nodeMark is the current query
+    private final int[] queue; // ring buffer of visited nodes whose edges have not been explored yet
+    private final int mask; // queue.length - 1
+    private int query; // number of the current query
+    private Closures scenario; // closures of the next queries on top of those of the graph, null if none
+    private boolean closing; // true if the current query has closed stations or edges to skip
+
+    // extra state of bidirectional searches, allocated by the first one
+    private int[] level; // edges from start to each node, valid when nodeMark is the current query
+    private int[] backMark; // query in which each node was visited from destination
+    private int[] backFrom; // edge each node was reached from on the way to destination
+    private int[] backLevel; // edges from each node to destination
+    private int[] backQueue; // ring buffer of the destination side
+
+    // best place found so far where the two sides of a bidirectional search meet
+    private int meetEdge, meetForward, meetBackward, meetTransfers;
+
+    // state of searches over (station, line) states, allocated by the first one
+    private LineStates states;
+    private int[] stateMark; // query in which each state was reached
+    private int[] stateDone; // query in which each state was expanded
+    private int[] stateTransfers; // line changes to reach each state
+    private int[] stateHops; // edges to reach each state
+    private int[] stateParent; // state each state was reached from, -1 for states of start
+    private int[] stateEdge; // edge each state was reached by, -1 if it was reached by changing line
+    private int[] transferMark; // query in which the line changes at each station were explored
+    private IntDeque pending, rides, transfers; // states still to be expanded
+
+    // state of searches for many destinations, allocated by the first one
+    private int[] targetMark; // query in which each node is a destination
+    private int[] firstFrom; // edge each destination was discovered from
+    private int[] cost; // edges or line changes from start to each node found by a row search
+
+    // state of searches for alternative paths, allocated by the first one
+    private int[] bannedNode; // query in which each node may not be visited
+    private int[] bannedEdge; // query in which each edge may not be ridden
+    private int[] toDestination; // edges from each node to the destination of the current search, -1 if none
+    private IntDeque[] spurQueues; // queues of the levels of a spur search
+
+    // state of weighted searches, allocated by the first one
+    private int[] distance; // weight of the best path found to each node, valid when nodeMark is the current query
+    private IndexedMinHeap heap; // reached nodes that may still lead to better paths
+
+    // state of landmark searches, allocated by the first one. distance holds the edges of the shortest path found.
+    private int[] estimate; // lower bound on the edges from each node to destination, valid with distance
+    private int[] landmarkRow; // distances from each landmark to the destination of the current search
+    private IntDeque[] buckets; // reached nodes by edges so far plus estimate, modulo 3
+
+    SearchEngine (GraphSnapshot graph) {
+        this.graph = new WeakReference<GraphSnapshot>(graph);
+        this.closures = graph.closures;
+        nodeMark = new int[graph.nodeCount()];
+        edgeMark = new int[graph.edgeCount()];
+        from = new int[graph.nodeCount()];
+        queue = new int[Integer.highestOneBit(Math.max(1, graph.nodeCount()) * 2 - 1)];
+        mask = queue.length - 1;
+    }
+
+    // effects: returns the graph this engine searches. Throws IllegalStateException if the graph is no longer
+    //          reachable from anywhere but this engine and has been collected.
+    public GraphSnapshot graph() {
+        GraphSnapshot snapshot = graph.get();
+        if (snapshot == null) {
+            throw new IllegalStateException("the graph of this engine has been collected");
+        }
+        return snapshot;
+    }
+
+    // modifies: this
+    //  effects: lets go of the graph as if it had been collected, for tests
+    void dropGraph() {
+        graph.clear();
+    }
+
+    // requires: scenario is null or a scenario of graph.closures()
+    // modifies: this
+    //  effects: makes the following queries also skip the stations and edges closed in scenario
+    void scenario(Closures scenario) {
+        this.scenario = scenario;
+    }
+
+    // effects: returns true if edge e or station n is closed for the current query, else returns false
+    private boolean closed(int e, int n) {
+        return closures.blocks(e, n) || (scenario != null && scenario.blocks(e, n));
+    }
+
+    // effects: returns true if station n or destination is closed for the current query, else returns false
+    private boolean closedEnds(int n, int destination) {
+        return closing && (closedStation(n) || closedStation(destination));
+    }
+
+    // effects: returns true if station n is closed for the current query, else returns false
+    private boolean closedStation(int n) {
+        return closures.stationClosed(n) || (scenario != null && scenario.stationClosed(n));
+    }
+
+    // modifies: this
+    //  effects: starts a new query, every node and edge is unexplored again
+    private void nextQuery() {
+        closing = !closures.isEmpty() || (scenario != null && !scenario.isEmpty());
+        if (++query == 0) { // stamps wrapped around, old marks could look current
+            Arrays.fill(nodeMark, 0);
+            Arrays.fill(edgeMark, 0);
+            if (backMark != null) Arrays.fill(backMark, 0);
+            if (targetMark != null) Arrays.fill(targetMark, 0);
+            if (bannedNode != null) {
+                Arrays.fill(bannedNode, 0);
+                Arrays.fill(bannedEdge, 0);
+            }
+            if (states != null) {
+                Arrays.fill(stateMark, 0);
+                Arrays.fill(stateDone, 0);
+                Arrays.fill(transferMark, 0);
+            }
+            query = 1;
+        }
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount()
+    // modifies: this
+    //  effects: if no path is found then return empty Deque
+    //           else returns the path from start to destination that GraphSnapshot.findPath returns
+    public Deque<Edge> findPath (int start, int destination) {
+        final GraphSnapshot graph = graph();
+        Deque<Edge> path = new LinkedList<Edge>();
+        if (start == destination) {
+            return path;
+        }
+
+        SearchProbe probe = graph.probe;
+        if (probe == null ? search(start, destination) : probedSearch(start, destination, probe)) {
+            int current = destination;
+            while (current != start) {
+                int e = from[current];
+                path.addFirst(graph.edge(e));
+                current = graph.opposite(e, current);
+            }
+        }
+        return path;
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount()
+    // modifies: this
+    //  effects: returns the same path as findPath(start, destination), as edge indices
+    public CompactPath findPathCompact (int start, int destination) {
+        final GraphSnapshot graph = graph();
+        if (start == destination) {
+            return CompactPath.empty();
+        }
+        SearchProbe probe = graph.probe;
+        if (!(probe == null ? search(start, destination) : probedSearch(start, destination, probe))) {
+            return CompactPath.empty();
+        }
+        return compactPath(start, destination);
+    }
+
+    // requires: from[] leads back from destination to start
+    //  effects: returns the path that from[] leads along, as edge indices
+    private CompactPath compactPath (int start, int destination) {
+        final GraphSnapshot graph = graph();
+        final int[] edgeLines = graph.edgeLines;
+        int length = 0;
+        for (int current = destination; current != start; current = graph.opposite(from[current], current)) {
+            length++;
+        }
+        int[] edges = new int[length];
+        int transfers = 0;
+        for (int current = destination; current != start; ) {
+            int e = from[current];
+            edges[--length] = e;
+            if (length + 1 < edges.length && edgeLines[e] != edgeLines[edges[length + 1]]) transfers++;
+            current = graph.opposite(e, current);
+        }
+        return new CompactPath(edges, transfers, graph.edgeSource);
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount() && start != destination
+    // modifies: this
+    //  effects: runs a breadth-first search from start until destination is discovered and returns true,
+    //           or returns false if destination cannot be reached. Afterwards from[] leads back from destination
+    //           to start.
+    private boolean search (int start, int destination) {
+        final GraphSnapshot graph = graph();
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors;
+        final int[] slotEdges = graph.slotEdges, slotLines = graph.slotLines, edgeLines = graph.edgeLines;
+
+        nextQuery();
+        final int q = query;
+        if (closedEnds(start, destination)) {
+            return false;
+        }
+
+        // nodes are expanded in the order they were discovered, which is the same as expanding the graph level by
+        // level, so one queue serves all levels
+        int head = 0, tail = 0;
+        queue[tail++ & mask] = start;
+        nodeMark[start] = q;
+
+        while (head != tail) {
+            int n = queue[head++ & mask];
+
+            for (int slot = offsets[n], end = offsets[n + 1]; slot < end; slot++) {
+                int e = slotEdges[slot];
+                if (edgeMark[e] == q) continue; // explored from the other side already
+                edgeMark[e] = q;
+
+                int opposite = neighbors[slot];
+                if (closing && closed(e, opposite)) continue;
+
+                if (nodeMark[opposite] != q) { // found a new node
+                    nodeMark[opposite] = q;
+                    from[opposite] = e;
+                    if (opposite == destination) { // we reached the destination!
+                        return true;
+                    }
+                    queue[tail++ & mask] = opposite;
+
+                } else if (n != start) { // try to stay on the same line if possible
+                    // if the current node was reached on the line of this edge and the opposite node was not,
+                    // then reach the opposite node from this edge instead
+                    int nLine = edgeLines[from[n]];
+                    if (nLine != edgeLines[from[opposite]] && nLine == slotLines[slot]) {
+                        from[opposite] = e;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount() && start != destination
+    // modifies: this
+    //  effects: same as search(start, destination), and tells probe what the search did. search itself counts
+    //           nothing, so that graphs without a probe pay nothing for it.
+    private boolean probedSearch (int start, int destination, SearchProbe probe) {
+        final GraphSnapshot graph = graph();
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors;
+        final int[] slotEdges = graph.slotEdges, slotLines = graph.slotLines, edgeLines = graph.edgeLines;
+        final long started = System.nanoTime();
+
+        nextQuery();
+        final int q = query;
+        if (closedEnds(start, destination)) {
+            probe.searched(0, 0, 0, 0, System.nanoTime() - started);
+            return false;
+        }
+
+        int head = 0, tail = 0;
+        int scanned = 0, peakFrontier = 1, swaps = 0;
+        queue[tail++ & mask] = start;
+        nodeMark[start] = q;
+
+        boolean found = false;
+        search:
+        while (head != tail) {
+            int n = queue[head++ & mask];
+
+            for (int slot = offsets[n], end = offsets[n + 1]; slot < end; slot++) {
+                scanned++;
+                int e = slotEdges[slot];
+                if (edgeMark[e] == q) continue;
+                edgeMark[e] = q;
+
+                int opposite = neighbors[slot];
+                if (closing && closed(e, opposite)) continue;
+
+                if (nodeMark[opposite] != q) {
+                    nodeMark[opposite] = q;
+                    from[opposite] = e;
+                    if (opposite == destination) {
+                        found = true;
+                        break search;
+                    }
+                    queue[tail++ & mask] = opposite;
+                    peakFrontier = Math.max(peakFrontier, tail - head);
+
+                } else if (n != start) {
+                    int nLine = edgeLines[from[n]];
+                    if (nLine != edgeLines[from[opposite]] && nLine == slotLines[slot]) {
+                        from[opposite] = e;
+                        swaps++;
+                    }
+                }
+            }
+        }
+        probe.searched(head, scanned, peakFrontier, swaps, System.nanoTime() - started);
+        return found;
+    }
+
+    // requires: 0 <= start < graph.nodeCount()
+    // modifies: this
+    //  effects: returns the tree of the paths findPath returns from start to every station, from one search
+    public SearchTree searchTree (int start) {
+        final GraphSnapshot graph = graph();
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors;
+        final int[] slotEdges = graph.slotEdges, slotLines = graph.slotLines, edgeLines = graph.edgeLines;
+        int n = graph.nodeCount();
+        int[] lastEdge = new int[n], parentEdge = new int[n], hops = new int[n];
+        int[] depth = new int[n]; // edges from start to each expanded station along parentEdge
+        Arrays.fill(lastEdge, -1);
+        Arrays.fill(parentEdge, -1);
+        Arrays.fill(hops, -1);
+
+        nextQuery();
+        final int q = query;
+
+        // the same search as findPath, except that it goes on until every station has been expanded
+        int head = 0, tail = 0;
+        queue[tail++ & mask] = start;
+        nodeMark[start] = q;
+        hops[start] = 0;
+        if (closedEnds(start, start)) {
+            head = tail; // nothing can be reached from a closed station
+        }
+
+        while (head != tail) {
+            int current = queue[head++ & mask];
+            if (current != start) {
+                // every edge of an expanded station has been explored, so from[] cannot change for it any more
+                parentEdge[current] = from[current];
+                depth[current] = depth[graph.opposite(from[current], current)] + 1;
+            }
+
+            for (int slot = offsets[current], end = offsets[current + 1]; slot < end; slot++) {
+                int e = slotEdges[slot];
+                if (edgeMark[e] == q) continue;
+                edgeMark[e] = q;
+
+                int opposite = neighbors[slot];
+                if (closing && closed(e, opposite)) continue;
+
+                if (nodeMark[opposite] != q) { // found a new node, findPath to it would stop here
+                    nodeMark[opposite] = q;
+                    from[opposite] = e;
+                    lastEdge[opposite] = e;
+                    hops[opposite] = depth[current] + 1;
+                    queue[tail++ & mask] = opposite;
+
+                } else if (current != start) {
+                    int nLine = edgeLines[from[current]];
+                    if (nLine != edgeLines[from[opposite]] && nLine == slotLines[slot]) {
+                        from[opposite] = e;
+                    }
+                }
+            }
+        }
+        return new SearchTree(graph, start, lastEdge, parentEdge, hops);
+    }
+
+    // requires: 0 <= start < graph.nodeCount() && every destination is in 0 .. graph.nodeCount()-1
+    // modifies: this
+    //  effects: returns the paths from start to every destination, in the order of destinations, each one the path
+    //           findPath(start, destination) returns. One search serves all destinations.
+    public Deque<Edge>[] findPaths (int start, int[] destinations) {
+        final GraphSnapshot graph = graph();
+        @SuppressWarnings("unchecked")
+        Deque<Edge>[] paths = (Deque<Edge>[]) new Deque<?>[destinations.length];
+
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors;
+        final int[] slotEdges = graph.slotEdges, slotLines = graph.slotLines, edgeLines = graph.edgeLines;
+
+        nextQuery();
+        final int q = query;
+        int remaining = markTargets(start, destinations);
+
+        // the same search as findPath, except that it goes on until every destination has been discovered
+        int head = 0, tail = 0;
+        queue[tail++ & mask] = start;
+        nodeMark[start] = q;
+        if (closedEnds(start, start)) {
+            head = tail;
+        }
+
+        while (head != tail && remaining > 0) {
+            int n = queue[head++ & mask];
+
+            for (int slot = offsets[n], end = offsets[n + 1]; slot < end; slot++) {
+                int e = slotEdges[slot];
+                if (edgeMark[e] == q) continue;
+                edgeMark[e] = q;
+
+                int opposite = neighbors[slot];
+                if (closing && closed(e, opposite)) continue;
+
+                if (nodeMark[opposite] != q) { // found a new node
+                    nodeMark[opposite] = q;
+                    from[opposite] = e;
+                    queue[tail++ & mask] = opposite;
+                    if (targetMark[opposite] == q) {
+                        // findPath would stop here, and from[] can still change for this node but not for the
+                        // nodes on its path which have all been expanded already
+                        firstFrom[opposite] = e;
+                        remaining--;
+                    }
+
+                } else if (n != start) {
+                    int nLine = edgeLines[from[n]];
+                    if (nLine != edgeLines[from[opposite]] && nLine == slotLines[slot]) {
+                        from[opposite] = e;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < destinations.length; i++) {
+            int d = destinations[i];
+            Deque<Edge> path = new LinkedList<Edge>();
+            if (d != start && nodeMark[d] == q) {
+                int e = firstFrom[d];
+                path.addFirst(graph.edge(e));
+                int current = graph.opposite(e, d);
+                while (current != start) {
+                    e = from[current];
+                    path.addFirst(graph.edge(e));
+                    current = graph.opposite(e, current);
+                }
+            }
+            paths[i] = path;
+        }
+        return paths;
+    }
+
+    // requires: 0 <= start < graph.nodeCount() && every target is -1 or a node index
+    // modifies: this
+    //  effects: marks the targets other than start and -1 as targets of the current query, and returns how many
+    //           different nodes it marked
+    private int markTargets(int start, int[] targets) {
+        final GraphSnapshot graph = graph();
+        if (targetMark == null) {
+            targetMark = new int[graph.nodeCount()];
+            firstFrom = new int[graph.nodeCount()];
+            cost = new int[graph.nodeCount()];
+        }
+        int remaining = 0;
+        for (int t : targets) {
+            if (t >= 0 && t != start && targetMark[t] != query) {
+                targetMark[t] = query;
+                remaining++;
+            }
+        }
+        return remaining;
+    }
+
+    // requires: 0 <= start < graph.nodeCount() && every target is -1 or a node index && row.length >= targets.length
+    // modifies: this, row
+    //  effects: sets row[i] to the fewest edges from start to targets[i], 0 if targets[i] = start, and -1 if
+    //           targets[i] = -1 or no path reaches it. One breadth-first search serves the whole row, and stops once
+    //           it has discovered every target.
+    void hopRow(int start, int[] targets, int[] row) {
+        final GraphSnapshot graph = graph();
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors, slotEdges = graph.slotEdges;
+
+        nextQuery();
+        final int q = query;
+        int remaining = markTargets(start, targets);
+
+        // the queue holds one level after the other, so a level ends where the queue ended when it began
+        int head = 0, tail = 0, levelEnd = 1, hops = 1;
+        queue[tail++ & mask] = start;
+        nodeMark[start] = q;
+        if (closedEnds(start, start)) {
+            head = tail;
+        }
+
+        while (head != tail && remaining > 0) {
+            if (head == levelEnd) {
+                levelEnd = tail;
+                hops++;
+            }
+            int n = queue[head++ & mask];
+
+            for (int slot = offsets[n], end = offsets[n + 1]; slot < end; slot++) {
+                int opposite = neighbors[slot];
+                if (nodeMark[opposite] == q) continue;
+                if (closing && closed(slotEdges[slot], opposite)) continue;
+
+                nodeMark[opposite] = q;
+                cost[opposite] = hops;
+                queue[tail++ & mask] = opposite;
+                if (targetMark[opposite] == q) remaining--;
+            }
+        }
+
+        for (int i = 0; i < targets.length; i++) {
+            int t = targets[i];
+            row[i] = t == start ? 0 : t >= 0 && nodeMark[t] == q ? cost[t] : -1;
+        }
+    }
+
+    // requires: 0 <= start < graph.nodeCount() && every target is -1 or a node index && row.length >= targets.length
+    // modifies: this, row
+    //  effects: sets row[i] to the fewest changes between edges of different labels on a path from start to
+    //           targets[i], as findPathMinTransfers counts them, 0 if targets[i] = start, and -1 if targets[i] = -1 or
+    //           no path reaches it. One search serves the whole row, and stops once it has settled every target.
+    void transferRow(int start, int[] targets, int[] row) {
+        prepareStates();
+        final int[] rideOffsets = states.rideOffsets, rideTargets = states.rideTargets, rideEdges = states.rideEdges;
+        final int[] stateOffsets = states.offsets, stateNodes = states.nodes;
+
+        nextQuery();
+        final int q = query;
+        int remaining = markTargets(start, targets);
+
+        // the same 0-1 breadth-first search as findPathMinTransfers, where the first state of a station to be
+        // expanded gives the line changes to the station
+        pending.clear();
+        if (!closedEnds(start, start)) {
+            for (int s = stateOffsets[start]; s < stateOffsets[start + 1]; s++) {
+                reach(s, 0, 0, -1, -1);
+                pending.addLast(s);
+            }
+        }
+
+        while (!pending.isEmpty() && remaining > 0) {
+            int s = pending.pollFirst();
+            if (stateDone[s] == q) continue;
+            stateDone[s] = q;
+
+            int n = stateNodes[s], t = stateTransfers[s];
+            if (nodeMark[n] != q) {
+                nodeMark[n] = q;
+                cost[n] = t;
+                if (targetMark[n] == q) remaining--;
+            }
+
+            for (int ride = rideOffsets[s]; ride < rideOffsets[s + 1]; ride++) {
+                int next = rideTargets[ride];
+                if (closing && closed(rideEdges[ride], stateNodes[next])) continue;
+                if (stateMark[next] != q || stateTransfers[next] > t) {
+                    reach(next, t, 0, s, rideEdges[ride]);
+                    pending.addFirst(next);
+                }
+            }
+
+            if (transferMark[n] != q) {
+                transferMark[n] = q;
+                for (int next = stateOffsets[n]; next < stateOffsets[n + 1]; next++) {
+                    if (stateMark[next] != q || stateTransfers[next] > t + 1) {
+                        reach(next, t + 1, 0, s, -1);
+                        pending.addLast(next);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < targets.length; i++) {
+            int target = targets[i];
+            row[i] = target == start ? 0 : target >= 0 && nodeMark[target] == q ? cost[target] : -1;
+        }
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount()
+    // modifies: this
+    //  effects: if no path is found then return empty Deque
+    //           else returns a path from start to destination with as few edges as findPath(start, destination).
+    //           Among paths with that many edges, prefers staying on the same line like findPath does, both on
+    //           each side and where the two sides meet.
+    public Deque<Edge> findPathBidirectional (int start, int destination) {
+        final GraphSnapshot graph = graph();
+        Deque<Edge> path = new LinkedList<Edge>();
+        if (start == destination) {
+            return path;
+        }
+
+        if (backMark == null) {
+            int n = graph.nodeCount();
+            level = new int[n];
+            backMark = new int[n];
+            backFrom = new int[n];
+            backLevel = new int[n];
+            backQueue = new int[queue.length];
+        }
+
+        nextQuery();
+        final int q = query;
+        if (closedEnds(start, destination)) {
+            return path;
+        }
+
+        nodeMark[start] = q;
+        level[start] = 0;
+        queue[0] = start;
+        int head = 0, tail = 1;
+
+        backMark[destination] = q;
+        backLevel[destination] = 0;
+        backQueue[0] = destination;
+        int backHead = 0, backTail = 1;
+
+        meetEdge = -1;
+
+        // grow the smaller frontier by one whole level until the two sides meet
+        while (head != tail && backHead != backTail) {
+            if (tail - head <= backTail - backHead) {
+                int next = expandLevel(queue, head, tail, nodeMark, from, level, start,
+                        backMark, backFrom, destination, true);
+                head = tail;
+                tail = next;
+            } else {
+                int next = expandLevel(backQueue, backHead, backTail, backMark, backFrom, backLevel, destination,
+                        nodeMark, from, start, false);
+                backHead = backTail;
+                backTail = next;
+            }
+
+            if (meetEdge >= 0) { // the sides met, every meeting in this level gives a shortest path
+                path.add(graph.edge(meetEdge));
+
+                int current = meetForward;
+                while (current != start) {
+                    int e = from[current];
+                    path.addFirst(graph.edge(e));
+                    current = graph.opposite(e, current);
+                }
+
+                current = meetBackward;
+                while (current != destination) {
+                    int e = backFrom[current];
+                    path.addLast(graph.edge(e));
+                    current = graph.opposite(e, current);
+                }
+                return path;
+            }
+        }
+        return path;
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount()
+    // modifies: this
+    //  effects: if no path is found then return empty Deque
+    //           else returns a path from start to destination with as few edges as findPath(start, destination).
+    //           Among paths with that many edges, prefers staying on the same line where it reaches a node again.
+    public Deque<Edge> findPathLandmarks (int start, int destination) {
+        final GraphSnapshot graph = graph();
+        Deque<Edge> path = new LinkedList<Edge>();
+        if (start == destination) {
+            return path;
+        }
+
+        Landmarks landmarks = graph.landmarks();
+        if (estimate == null) {
+            distance = distance == null ? new int[graph.nodeCount()] : distance;
+            estimate = new int[graph.nodeCount()];
+            buckets = new IntDeque[] {new IntDeque(64), new IntDeque(64), new IntDeque(64)};
+        }
+        if (landmarkRow == null || landmarkRow.length < landmarks.count()) {
+            landmarkRow = new int[landmarks.count()];
+        }
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors, slotEdges = graph.slotEdges;
+        final int[] slotLines = graph.slotLines, edgeLines = graph.edgeLines;
+        final int[] row = landmarkRow;
+
+        nextQuery();
+        final int q = query;
+        if (closedEnds(start, destination)) {
+            return path;
+        }
+        landmarks.row(destination, row);
+        for (IntDeque bucket : buckets) bucket.clear();
+
+        // the estimate of neighbours differs by at most one, so the f = edges + estimate of a reached node is the f of
+        // the node expanded, or one or two more, and three buckets taken in turn expand the nodes in order of f
+        nodeMark[start] = q;
+        distance[start] = 0;
+        estimate[start] = landmarks.bound(start, row);
+        int f = estimate[start];
+        buckets[f % 3].addLast(start);
+        boolean found = false;
+
+        while (true) {
+            IntDeque bucket = buckets[f % 3];
+            if (bucket.isEmpty()) {
+                if (buckets[(f + 1) % 3].isEmpty() && buckets[(f + 2) % 3].isEmpty()) break;
+                f++;
+                continue;
+            }
+            int n = bucket.pollFirst();
+            if (distance[n] + estimate[n] != f) continue; // reached again by a shorter path since
+            if (n == destination) { // no node left has a smaller f, so no path is shorter
+                found = true;
+                break;
+            }
+
+            int through = distance[n] + 1;
+            int nLine = n == start ? -1 : edgeLines[from[n]];
+            for (int slot = offsets[n], end = offsets[n + 1]; slot < end; slot++) {
+                int opposite = neighbors[slot];
+                if (closing && closed(slotEdges[slot], opposite)) continue;
+
+                if (nodeMark[opposite] != q || through < distance[opposite]) { // found a shorter path
+                    if (nodeMark[opposite] != q) {
+                        nodeMark[opposite] = q;
+                        estimate[opposite] = landmarks.bound(opposite, row);
+                    }
+                    distance[opposite] = through;
+                    from[opposite] = slotEdges[slot];
+                    int g = through + estimate[opposite];
+                    if (g == f) { // heads straight for destination, so try it before the nodes that do not
+                        bucket.addFirst(opposite);
+                    } else {
+                        buckets[g % 3].addLast(opposite);
+                    }
+
+                } else if (through == distance[opposite] && nLine == slotLines[slot]
+                        && nLine != edgeLines[from[opposite]]) {
+                    // as short as the path found before, and it stays on the line the current node was reached on
+                    from[opposite] = slotEdges[slot];
+                }
+            }
+        }
+
+        if (found) {
+            int current = destination;
+            while (current != start) {
+                int e = from[current];
+                path.addFirst(graph.edge(e));
+                current = graph.opposite(e, current);
+            }
+        }
+        return path;
+    }
+
+    // requires: queue[head .. tail-1] are the nodes of one level of one side of a bidirectional search
+    // modifies: this, queue, mark, from, level
+    //  effects: explores the edges of every node of the level, discovering the next level of the side and recording
+    //           the meeting with the fewest line changes if an edge leads to a node of the other side.
+    //           Returns the new tail of queue.
+    private int expandLevel (int[] queue, int head, int tail, int[] mark, int[] from, int[] level, int root,
+                             int[] otherMark, int[] otherFrom, int otherRoot, boolean forward) {
+        final GraphSnapshot graph = graph();
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors;
+        final int[] slotEdges = graph.slotEdges, slotLines = graph.slotLines, edgeLines = graph.edgeLines;
+        final int q = query;
+
+        int next = tail;
+        for (int i = head; i != tail; i++) {
+            int n = queue[i & mask];
+            int nLine = n == root ? -1 : edgeLines[from[n]];
+
+            for (int slot = offsets[n], end = offsets[n + 1]; slot < end; slot++) {
+                int opposite = neighbors[slot];
+                int line = slotLines[slot];
+                if (closing && closed(slotEdges[slot], opposite)) continue;
+
+                if (otherMark[opposite] == q) { // the two sides meet on this edge
+                    int changes = 0;
+                    if (nLine >= 0 && nLine != line) changes++;
+                    if (opposite != otherRoot && edgeLines[otherFrom[opposite]] != line) changes++;
+
+                    if (meetEdge < 0 || changes < meetTransfers) {
+                        meetEdge = slotEdges[slot];
+                        meetForward = forward ? n : opposite;
+                        meetBackward = forward ? opposite : n;
+                        meetTransfers = changes;
+                    }
+
+                } else if (mark[opposite] != q) { // found a new node
+                    mark[opposite] = q;
+                    from[opposite] = slotEdges[slot];
+                    level[opposite] = level[n] + 1;
+                    queue[next++ & mask] = opposite;
+
+                } else if (nLine >= 0 && level[opposite] == level[n] + 1) {
+                    // another way into the next level, take it if it stays on the line the current node was
+                    // reached on and the opposite node was not reached on that line
+                    if (nLine == line && nLine != edgeLines[from[opposite]]) {
+                        from[opposite] = slotEdges[slot];
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    // modifies: this
+    //  effects: allocates the state of searches over (station, line) states if this is the first one
+    private void prepareStates() {
+        final GraphSnapshot graph = graph();
+        if (states == null) {
+            states = graph.lineStates();
+            int n = states.stateCount();
+            stateMark = new int[n];
+            stateDone = new int[n];
+            stateTransfers = new int[n];
+            stateHops = new int[n];
+            stateParent = new int[n];
+            stateEdge = new int[n];
+            transferMark = new int[graph.nodeCount()];
+            pending = new IntDeque(64);
+            rides = new IntDeque(64);
+            transfers = new IntDeque(64);
+        }
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount()
+    // modifies: this
+    //  effects: if no path is found then return empty Deque
+    //           else returns a path from start to destination with the fewest changes between edges of different
+    //           labels
+    public Deque<Edge> findPathMinTransfers (int start, int destination) {
+        if (start == destination) {
+            return new LinkedList<Edge>();
+        }
+        prepareStates();
+        nextQuery();
+        final int q = query;
+        final int[] rideOffsets = states.rideOffsets, rideTargets = states.rideTargets, rideEdges = states.rideEdges;
+        final int[] stateOffsets = states.offsets, stateNodes = states.nodes;
+        if (closedEnds(start, destination)) {
+            return new LinkedList<Edge>();
+        }
+
+        // 0-1 breadth-first search: riding is free and goes to the front, changing line costs one and goes to the back
+        pending.clear();
+        for (int s = stateOffsets[start]; s < stateOffsets[start + 1]; s++) {
+            reach(s, 0, 0, -1, -1);
+            pending.addLast(s);
+        }
+
+        while (!pending.isEmpty()) {
+            int s = pending.pollFirst();
+            if (stateDone[s] == q) continue; // expanded with fewer line changes already
+            stateDone[s] = q;
+
+            int n = stateNodes[s];
+            if (n == destination) {
+                return statePath(s);
+            }
+
+            int t = stateTransfers[s];
+            for (int ride = rideOffsets[s]; ride < rideOffsets[s + 1]; ride++) {
+                int next = rideTargets[ride];
+                if (closing && closed(rideEdges[ride], stateNodes[next])) continue;
+                if (stateMark[next] != q || stateTransfers[next] > t) {
+                    reach(next, t, stateHops[s] + 1, s, rideEdges[ride]);
+                    pending.addFirst(next);
+                }
+            }
+
+            // the first state of a station to be expanded has the fewest line changes of all its states, so the
+            // line changes at a station only need to be explored once
+            if (transferMark[n] != q) {
+                transferMark[n] = q;
+                for (int next = stateOffsets[n]; next < stateOffsets[n + 1]; next++) {
+                    if (stateMark[next] != q || stateTransfers[next] > t + 1) {
+                        reach(next, t + 1, stateHops[s], s, -1);
+                        pending.addLast(next);
+                    }
+                }
+            }
+        }
+        return new LinkedList<Edge>();
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount()
+    // modifies: this
+    //  effects: if no path is found then return empty Deque
+    //           else returns a path from start to destination with the fewest changes between edges of different
+    //           labels, and the fewest edges among those
+    public Deque<Edge> findPathMinTransfersThenHops (int start, int destination) {
+        if (start == destination) {
+            return new LinkedList<Edge>();
+        }
+        prepareStates();
+        nextQuery();
+        final int q = query;
+        final int[] rideOffsets = states.rideOffsets, rideTargets = states.rideTargets, rideEdges = states.rideEdges;
+        final int[] stateOffsets = states.offsets, stateNodes = states.nodes;
+        if (closedEnds(start, destination)) {
+            return new LinkedList<Edge>();
+        }
+
+        // states are expanded one number of line changes at a time. Within one number, the states reached by
+        // changing line and the states reached by riding are each queued with increasing edges, so always taking
+        // the smaller head of the two queues expands them in increasing (line changes, edges) order.
+        // Queues hold (state, edges) pairs so that entries which were improved later can be told apart.
+        pending.clear();
+        rides.clear();
+        transfers.clear();
+        for (int s = stateOffsets[start]; s < stateOffsets[start + 1]; s++) {
+            reach(s, 0, 0, -1, -1);
+            pending.addLast(s);
+            pending.addLast(0);
+        }
+
+        for (int t = 0; !pending.isEmpty(); t++) {
+            while (!pending.isEmpty() || !rides.isEmpty()) {
+                IntDeque queue = rides.isEmpty() || (!pending.isEmpty() && pending.get(1) <= rides.get(1))
+                        ? pending : rides;
+                int s = queue.pollFirst();
+                int h = queue.pollFirst();
+                if (stateDone[s] == q || stateTransfers[s] != t || stateHops[s] != h) continue; // improved since
+                stateDone[s] = q;
+
+                int n = stateNodes[s];
+                if (n == destination) {
+                    return statePath(s);
+                }
+
+                for (int ride = rideOffsets[s]; ride < rideOffsets[s + 1]; ride++) {
+                    int next = rideTargets[ride];
+                    if (closing && closed(rideEdges[ride], stateNodes[next])) continue;
+                    if (stateMark[next] != q || stateTransfers[next] > t
+                            || (stateTransfers[next] == t && stateHops[next] > h + 1)) {
+                        reach(next, t, h + 1, s, rideEdges[ride]);
+                        rides.addLast(next);
+                        rides.addLast(h + 1);
+                    }
+                }
+
+                if (transferMark[n] != q) {
+                    transferMark[n] = q;
+                    for (int next = stateOffsets[n]; next < stateOffsets[n + 1]; next++) {
+                        if (stateMark[next] != q || stateTransfers[next] > t + 1
+                                || (stateTransfers[next] == t + 1 && stateHops[next] > h)) {
+                            reach(next, t + 1, h, s, -1);
+                            transfers.addLast(next);
+                            transfers.addLast(h);
+                        }
+                    }
+                }
+            }
+
+            IntDeque swap = pending;
+            pending = transfers;
+            transfers = swap;
+        }
+        return new LinkedList<Edge>();
+    }
+
+    // modifies: this
+    //  effects: records that state s was reached with the given line changes and edges from parent by edge
+    private void reach(int s, int changes, int hops, int parent, int edge) {
+        stateMark[s] = query;
+        stateTransfers[s] = changes;
+        stateHops[s] = hops;
+        stateParent[s] = parent;
+        stateEdge[s] = edge;
+    }
+
+    // effects: returns the edges that lead from a state of start to state s
+    private Deque<Edge> statePath(int s) {
+        final GraphSnapshot graph = graph();
+        Deque<Edge> path = new LinkedList<Edge>();
+        for (; s >= 0; s = stateParent[s]) {
+            if (stateEdge[s] >= 0) path.addFirst(graph.edge(stateEdge[s]));
+        }
+        return path;
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount() && k > 0
+    // modifies: this
+    //  effects: returns up to k paths from start to destination that visit no station twice, with the fewest edges
+    //           first and the fewest changes between edges of different labels among paths with as many edges.
+    //           Returns just the empty path if start == destination, and no paths if destination cannot be reached.
+    public List<Deque<Edge>> findKPaths (int start, int destination, int k) {
+        final GraphSnapshot graph = graph();
+        final int[] edgeLines = graph.edgeLines;
+        List<Deque<Edge>> paths = new ArrayList<Deque<Edge>>(k);
+        if (start == destination) {
+            paths.add(new LinkedList<Edge>());
+            return paths;
+        }
+        prepareStates();
+        if (bannedNode == null) {
+            bannedNode = new int[graph.nodeCount()];
+            bannedEdge = new int[graph.edgeCount()];
+            toDestination = new int[graph.nodeCount()];
+            spurQueues = new IntDeque[7];
+            for (int i = 0; i < spurQueues.length; i++) spurQueues[i] = new IntDeque(64);
+        }
+        nextQuery();
+        if (closedEnds(start, destination) || !searchToDestination(destination) || toDestination[start] < 0) {
+            return paths;
+        }
+
+        // Yen's algorithm: every next path leaves one of the paths found so far at one of its stations, the spur,
+        // after following it from start. The spur searches share the engine's marks, which forget the previous
+        // search in O(1), and are pruned by the edges from each station to destination, which are searched once.
+        List<int[]> found = new ArrayList<int[]>(k);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+        Set<Candidate> seen = new HashSet<Candidate>();
+
+        int best = spurPath(start, -1, destination, Integer.MAX_VALUE);
+        if (best < 0) {
+            return paths;
+        }
+        found.add(stateEdges(best, 0, null));
+
+        while (found.size() < k) {
+            int[] last = found.get(found.size() - 1);
+            int[] stations = stations(start, last);
+
+            // once there are enough candidates, paths with more edges than all of them will never be taken
+            int maxHops = Integer.MAX_VALUE;
+            if (candidates.size() >= k - found.size()) {
+                maxHops = 0;
+                for (Candidate c : candidates) maxHops = Math.max(maxHops, c.edges.length);
+            }
+
+            int rootTransfers = 0; // line changes along the first i edges of last
+            for (int i = 0; i < last.length; i++) {
+                int spur = stations[i];
+                if (i > 1 && edgeLines[last[i - 2]] != edgeLines[last[i - 1]]) {
+                    rootTransfers++;
+                }
+                if (toDestination[spur] < 0 || i + toDestination[spur] > maxHops) continue;
+
+                nextQuery();
+                final int q = query;
+                for (int j = 0; j < i; j++) bannedNode[stations[j]] = q; // the root may not be visited again
+                for (int[] path : found) { // nor may the spur leave the way a path with the same root does
+                    if (path.length > i && Arrays.equals(path, 0, i, last, 0, i)) bannedEdge[path[i]] = q;
+                }
+
+                int end = spurPath(spur, i == 0 ? -1 : edgeLines[last[i - 1]], destination,
+                        maxHops == Integer.MAX_VALUE ? maxHops : maxHops - i);
+                if (end < 0) continue;
+                // the line changes of the spur include the one at the spur itself
+                Candidate candidate = new Candidate(stateEdges(end, i, last), rootTransfers + stateTransfers[end]);
+                if (seen.add(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+
+            Candidate next = candidates.poll();
+            if (next == null) {
+                break;
+            }
+            found.add(next.edges);
+        }
+
+        for (int[] path : found) {
+            Deque<Edge> edges = new LinkedList<Edge>();
+            for (int e : path) edges.addLast(graph.edge(e));
+            paths.add(edges);
+        }
+        return paths;
+    }
+
+    // requires: the current query has just started
+    // modifies: this
+    //  effects: sets toDestination to the number of edges from every station to destination, or -1 for stations
+    //           that cannot reach it. Returns false if destination is closed, else returns true.
+    private boolean searchToDestination (int destination) {
+        final GraphSnapshot graph = graph();
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors, slotEdges = graph.slotEdges;
+        Arrays.fill(toDestination, -1);
+        if (closing && closedStation(destination)) {
+            return false;
+        }
+
+        int head = 0, tail = 0;
+        queue[tail++ & mask] = destination;
+        toDestination[destination] = 0;
+        while (head != tail) {
+            int n = queue[head++ & mask];
+            for (int slot = offsets[n], end = offsets[n + 1]; slot < end; slot++) {
+                int opposite = neighbors[slot];
+                if (toDestination[opposite] >= 0 || (closing && closed(slotEdges[slot], opposite))) continue;
+                toDestination[opposite] = toDestination[n] + 1;
+                queue[tail++ & mask] = opposite;
+            }
+        }
+        return true;
+    }
+
+    // requires: bannedNode and bannedEdge are marked for the current query && toDestination is searched
+    // modifies: this
+    //  effects: searches the (station, line) states for the path from spur to destination with the fewest edges,
+    //           and the fewest line changes among those, counting a change at spur if the path leaves it on another
+    //           line than arrival (-1 for none). Paths with more than maxHops edges are not searched. Returns the
+    //           state the path ends at, or -1 if there is none.
+    private int spurPath (int spur, int arrival, int destination, int maxHops) {
+        final int q = query;
+        final int[] rideOffsets = states.rideOffsets, rideTargets = states.rideTargets, rideEdges = states.rideEdges;
+        final int[] stateOffsets = states.offsets, stateNodes = states.nodes;
+
+        // A* towards destination: a state with g edges at a station h edges from destination is expanded at level
+        // f = g + h, which the rest of the path can only keep or raise. Riding an edge raises f by 0, 1 or 2, as h
+        // differs by at most one between neighbors, and changing line keeps it. Each level is expanded in order of
+        // line changes by taking the smallest head of its queues, which each get entries in that order: the states
+        // reached from the level before, from the one before that, by riding within the level and by changing line.
+        // Queues hold (state, line changes) pairs so that entries which were improved later can be told apart.
+        IntDeque fromOne = spurQueues[0], toOne = spurQueues[1]; // entries one level up
+        IntDeque fromTwo = spurQueues[2], waiting = spurQueues[3], toTwo = spurQueues[4]; // entries two levels up
+        IntDeque within = spurQueues[5], changes = spurQueues[6]; // entries of the level itself
+        for (IntDeque queue : spurQueues) queue.clear();
+
+        for (int s = stateOffsets[spur]; s < stateOffsets[spur + 1]; s++) {
+            if (arrival < 0 || states.lines[s] == arrival) {
+                reach(s, 0, 0, -1, -1);
+                within.addLast(s);
+                within.addLast(0);
+            }
+        }
+
+        for (int f = toDestination[spur]; f <= maxHops; f++) {
+            while (true) {
+                IntDeque queue = null;
+                if (!fromOne.isEmpty()) queue = fromOne;
+                if (!fromTwo.isEmpty() && (queue == null || fromTwo.get(1) < queue.get(1))) queue = fromTwo;
+                if (!within.isEmpty() && (queue == null || within.get(1) < queue.get(1))) queue = within;
+                if (!changes.isEmpty() && (queue == null || changes.get(1) < queue.get(1))) queue = changes;
+                if (queue == null) break;
+
+                int s = queue.pollFirst();
+                int t = queue.pollFirst();
+                int n = stateNodes[s];
+                int g = stateHops[s];
+                if (stateDone[s] == q || g + toDestination[n] != f || stateTransfers[s] != t) continue; // improved
+                stateDone[s] = q;
+
+                if (n == destination) {
+                    return s;
+                }
+
+                for (int ride = rideOffsets[s]; ride < rideOffsets[s + 1]; ride++) {
+                    int next = rideTargets[ride], e = rideEdges[ride], v = stateNodes[next];
+                    if (bannedEdge[e] == q || bannedNode[v] == q || (closing && closed(e, v))) continue;
+                    int h = toDestination[v];
+                    if (h < 0 || (long)g + 1 + h > maxHops) continue;
+                    if (stateMark[next] != q || stateHops[next] > g + 1
+                            || (stateHops[next] == g + 1 && stateTransfers[next] > t)) {
+                        reach(next, t, g + 1, s, e);
+                        IntDeque to = g + 1 + h == f ? within : g + 1 + h == f + 1 ? toOne : toTwo;
+                        to.addLast(next);
+                        to.addLast(t);
+                    }
+                }
+
+                if (transferMark[n] != q) { // the first state of a station expanded has its fewest line changes
+                    transferMark[n] = q;
+                    for (int next = stateOffsets[n]; next < stateOffsets[n + 1]; next++) {
+                        if (stateMark[next] != q || stateHops[next] > g
+                                || (stateHops[next] == g && stateTransfers[next] > t + 1)) {
+                            reach(next, t + 1, g, s, -1);
+                            changes.addLast(next);
+                            changes.addLast(t + 1);
+                        }
+                    }
+                }
+            }
+
+            if (toOne.isEmpty() && waiting.isEmpty() && toTwo.isEmpty()) {
+                break;
+            }
+            IntDeque swap = fromOne; // move one level up
+            fromOne = toOne;
+            toOne = swap;
+            swap = fromTwo;
+            fromTwo = waiting;
+            waiting = toTwo;
+            toTwo = swap;
+        }
+        return -1;
+    }
+
+    // requires: root has at least i edges
+    //  effects: returns the first i edges of root followed by the edges that lead to state s
+    private int[] stateEdges (int s, int i, int[] root) {
+        int[] path = new int[i + stateHops[s]];
+        if (i > 0) System.arraycopy(root, 0, path, 0, i);
+        for (int k = path.length; s >= 0; s = stateParent[s]) {
+            if (stateEdge[s] >= 0) path[--k] = stateEdge[s];
+        }
+        return path;
+    }
+
+    // requires: path is a path of edge indices from start
+    //  effects: returns the stations path visits, start first
+    private int[] stations (int start, int[] path) {
+        final GraphSnapshot graph = graph();
+        int[] stations = new int[path.length + 1];
+        stations[0] = start;
+        for (int i = 0; i < path.length; i++) stations[i + 1] = graph.opposite(path[i], stations[i]);
+        return stations;
+    }
+
+    /**
+     * A path that may be the next one found by findKPaths, ordered by edges and then line changes, and equal to
+     * the paths with the same edges.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+
+        final int[] edges; // edge indices of the path
+        final int transfers; // line changes along the path
+
+        Candidate (int[] edges, int transfers) {
+            this.edges = edges;
+            this.transfers = transfers;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (edges.length != other.edges.length) return Integer.compare(edges.length, other.edges.length);
+            return Integer.compare(transfers, other.transfers);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Candidate && Arrays.equals(edges, ((Candidate)o).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount() && heuristic is null or never overestimates
+    //           && the weight of every path fits in an int
+    // modifies: this
+    //  effects: if no path is found then return empty Deque
+    //           else returns a path from start to destination with the smallest weight, searched by Dijkstra's
+    //           algorithm if heuristic is null and by A* otherwise
+    public Deque<Edge> findShortestPath (int start, int destination, Heuristic heuristic) {
+        final GraphSnapshot graph = graph();
+        Deque<Edge> path = new LinkedList<Edge>();
+        if (start != destination && weightedSearch(start, destination, heuristic)) {
+            int current = destination;
+            while (current != start) {
+                int e = from[current];
+                path.addFirst(graph.edge(e));
+                current = graph.opposite(e, current);
+            }
+        }
+        return path;
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount() && heuristic is null or never overestimates
+    //           && the weight of every path fits in an int
+    // modifies: this
+    //  effects: returns the same path as findShortestPath(start, destination, heuristic), as edge indices
+    public CompactPath findShortestPathCompact (int start, int destination, Heuristic heuristic) {
+        if (start == destination || !weightedSearch(start, destination, heuristic)) {
+            return CompactPath.empty();
+        }
+        return compactPath(start, destination);
+    }
+
+    // requires: 0 <= start, destination < graph.nodeCount() && start != destination && heuristic is null or never
+    //           overestimates && the weight of every path fits in an int
+    // modifies: this
+    //  effects: runs Dijkstra's algorithm, or A* if heuristic is not null, from start until destination is taken
+    //           and returns true, or returns false if destination cannot be reached. Afterwards from[] leads back
+    //           from destination to start along a path of the smallest weight.
+    private boolean weightedSearch (int start, int destination, Heuristic heuristic) {
+        final GraphSnapshot graph = graph();
+        if (heap == null) {
+            distance = distance == null ? new int[graph.nodeCount()] : distance;
+            heap = new IndexedMinHeap(graph.nodeCount());
+        }
+        final int[] offsets = graph.offsets, neighbors = graph.neighbors, slotEdges = graph.slotEdges;
+        final int[] slotLines = graph.slotLines, slotWeights = graph.slotWeights, edgeLines = graph.edgeLines;
+        final Node goal = graph.nodes[destination];
+
+        nextQuery();
+        final int q = query;
+        if (closedEnds(start, destination)) {
+            return false;
+        }
+
+        nodeMark[start] = q;
+        distance[start] = 0;
+        heap.clear();
+        heap.insertOrDecrease(start, 0);
+
+        while (!heap.isEmpty()) {
+            int n = heap.pollMin();
+            if (n == destination) { // with a lower bound as heuristic the first time it is taken it is the best
+                heap.clear();
+                return true;
+            }
+
+            int d = distance[n];
+            int nLine = n == start ? -1 : edgeLines[from[n]];
+            for (int slot = offsets[n], end = offsets[n + 1]; slot < end; slot++) {
+                int opposite = neighbors[slot];
+                if (closing && closed(slotEdges[slot], opposite)) continue;
+                int weight = slotWeights[slot];
+                int through = d + weight;
+
+                if (nodeMark[opposite] != q || through < distance[opposite]) { // found a better path
+                    nodeMark[opposite] = q;
+                    distance[opposite] = through;
+                    from[opposite] = slotEdges[slot];
+                    int estimate = heuristic == null ? 0 : heuristic.estimate(graph.nodes[opposite], goal);
+                    heap.insertOrDecrease(opposite, through + estimate);
+
+                } else if (through == distance[opposite] && weight > 0 && opposite != start
+                        && nLine == slotLines[slot] && nLine != edgeLines[from[opposite]]) {
+                    // as good as the path found before, and it stays on the line the current node was reached on
+                    from[opposite] = slotEdges[slot];
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,77 @@
+package MultiGraph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A SearchProbe that adds up what the searches of a graph did, and keeps a histogram of how long they took. It may
+ * be told of searches on many threads at once.
+ */
+public final class SearchMetrics implements SearchProbe {
+
+    private final LongAdder searches = new LongAdder(); // searches told of
+    private final LongAdder expanded = new LongAdder(); // stations expanded by all searches
+    private final LongAdder scanned = new LongAdder(); // edge slots scanned by all searches
+    private final LongAdder swaps = new LongAdder(); // same-line swaps of all searches
+    private final LongAccumulator peakFrontier = new LongAccumulator(Math::max, 0); // largest frontier of any search
+    private final LatencyHistogram latency = new LatencyHistogram(); // time each search took
+
+    @Override
+    public void searched(int expanded, int scanned, int peakFrontier, int swaps, long nanos) {
+        searches.increment();
+        this.expanded.add(expanded);
+        this.scanned.add(scanned);
+        this.swaps.add(swaps);
+        this.peakFrontier.accumulate(peakFrontier);
+        latency.record(nanos);
+    }
+
+    // effects: returns the number of searches told of
+    public long searches() {
+        return searches.sum();
+    }
+
+    // effects: returns the number of stations expanded by all searches
+    public long expanded() {
+        return expanded.sum();
+    }
+
+    // effects: returns the number of edge slots scanned by all searches
+    public long scanned() {
+        return scanned.sum();
+    }
+
+    // effects: returns the number of same-line swaps of all searches
+    public long swaps() {
+        return swaps.sum();
+    }
+
+    // effects: returns the largest frontier of any search
+    public long peakFrontier() {
+        return peakFrontier.get();
+    }
+
+    // effects: returns the histogram of how long the searches took
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    // effects: returns the counters and the latency percentiles by name, for export to a monitoring system
+    public Map<String, Long> export() {
+        Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put("searches", searches());
+        metrics.put("expanded_stations", expanded());
+        metrics.put("scanned_edges", scanned());
+        metrics.put("same_line_swaps", swaps());
+        metrics.put("peak_frontier", peakFrontier());
+        metrics.put("latency_p50_ns", latency.valueAt(50));
+        metrics.put("latency_p90_ns", latency.valueAt(90));
+        metrics.put("latency_p99_ns", latency.valueAt(99));
+        metrics.put("latency_p999_ns", latency.valueAt(99.9));
+        metrics.put("latency_max_ns", latency.max());
+        return metrics;
+    }
+}
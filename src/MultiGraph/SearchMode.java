@@ -0,0 +1,16 @@
+package MultiGraph;
+
+/**
+ * How findPath searches for a path.
+ */
+public enum SearchMode {
+
+    // breadth-first from start until destination is reached
+    FORWARD,
+
+    // breadth-first from both start and destination, always growing the smaller frontier, until they meet
+    BIDIRECTIONAL,
+
+    // A* towards destination, with lower bounds on the edges left from the hop distances to a few landmarks
+    LANDMARKS
+}
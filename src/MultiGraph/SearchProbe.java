@@ -0,0 +1,15 @@
+package MultiGraph;
+
+/**
+ * Told what each findPath search of a graph did. A graph without a probe runs searches that count nothing, so
+ * attaching none costs nothing.
+ */
+public interface SearchProbe {
+
+    // requires: all arguments >= 0
+    //  effects: called on the searching thread after each breadth-first search of findPath or findPathCompact, with
+    //           the number of stations it expanded, the number of edge slots it scanned, the most stations waiting
+    //           to be expanded at once, the number of times it moved a station onto the line it was reached on,
+    //           and how long it took
+    void searched(int expanded, int scanned, int peakFrontier, int swaps, long nanos);
+}
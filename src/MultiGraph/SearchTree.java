@@ -0,0 +1,102 @@
+package MultiGraph;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+
+/**
+ * The paths findPath returns from one start to every station, as an immutable tree over the stations of a
+ * GraphSnapshot. Every station keeps the edge it was discovered by, which is the last edge of its path, and the edge
+ * it was finally reached by, which is the edge its path takes when it passes through on the way to another station.
+ * These differ only where findPath's preference for staying on the same line changed its mind.
+ *
+ * pathTo(d) is the same path as findPath(start, d) and takes O(|path|), hopsTo(d) takes O(1), and withinHops(k)
+ * takes O(|result|).
+ */
+public final class SearchTree {
+
+    private final GraphSnapshot graph; // the graph searched
+    private final int start; // index of the start station
+    private final int[] lastEdge; // edge each station was discovered by, -1 for start and unreachable stations
+    private final int[] parentEdge; // edge each station was finally reached by, -1 for start and unreachable ones
+    private final int[] hops; // edges of the path to each station, -1 for unreachable stations
+    private final int[] byHops; // reachable stations in order of hops
+    private final int[] hopsStart; // first position in byHops of each number of hops, hopsStart[max + 1] = |byHops|
+
+    // requires: the arrays hold the search from start as described above, and are not changed afterwards
+    SearchTree (GraphSnapshot graph, int start, int[] lastEdge, int[] parentEdge, int[] hops) {
+        this.graph = graph;
+        this.start = start;
+        this.lastEdge = lastEdge;
+        this.parentEdge = parentEdge;
+        this.hops = hops;
+
+        int max = 0, reached = 0;
+        for (int h : hops) {
+            max = Math.max(max, h);
+            if (h >= 0) reached++;
+        }
+        hopsStart = new int[max + 2]; // counting sort of the reachable stations by hops
+        for (int h : hops) {
+            if (h >= 0) hopsStart[h + 1]++;
+        }
+        for (int h = 0; h <= max; h++) hopsStart[h + 1] += hopsStart[h];
+        byHops = new int[reached];
+        int[] next = hopsStart.clone();
+        for (int i = 0; i < hops.length; i++) {
+            if (hops[i] >= 0) byHops[next[hops[i]]++] = i;
+        }
+    }
+
+    // effects: returns the station the tree starts from
+    public Node start() {
+        return graph.nodes[start];
+    }
+
+    // effects: returns true if destination can be reached from start, else returns false
+    public boolean reaches(Node destination) {
+        return hopsTo(destination) >= 0;
+    }
+
+    // requires: destination != null
+    //  effects: same as findPath(start(), destination) on the graph the tree was searched on
+    public Deque<Edge> pathTo(Node destination) {
+        int d = graph.indexOf(destination);
+        if (d < 0) {
+            return null;
+        }
+
+        Deque<Edge> path = new LinkedList<Edge>();
+        if (d == start || hops[d] < 0) {
+            return path;
+        }
+        int e = lastEdge[d];
+        path.addFirst(graph.edge(e));
+        int current = graph.opposite(e, d);
+        while (current != start) {
+            e = parentEdge[current];
+            path.addFirst(graph.edge(e));
+            current = graph.opposite(e, current);
+        }
+        return path;
+    }
+
+    // requires: destination != null
+    //  effects: returns the number of edges of pathTo(destination), or -1 if destination !in Nodes or cannot be
+    //           reached from start
+    public int hopsTo(Node destination) {
+        int d = graph.indexOf(destination);
+        return d < 0 ? -1 : hops[d];
+    }
+
+    // requires: k >= 0
+    //  effects: returns the stations whose path from start has at most k edges, start first, in order of hops
+    public List<Node> withinHops(int k) {
+        int end = hopsStart[Math.min(k + 1, hopsStart.length - 1)];
+        List<Node> stations = new ArrayList<Node>(end);
+        for (int i = 0; i < end; i++) stations.add(graph.nodes[byHops[i]]);
+        return stations;
+    }
+}
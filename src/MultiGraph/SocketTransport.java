@@ -0,0 +1,93 @@
+package MultiGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * A PartitionTransport to PartitionServers listening on loopback sockets, one port per region. Each call takes a
+ * connection of its own to the server, so calls from many threads do not wait for one another; connections are
+ * kept open and reused, and one that fails is dropped.
+ */
+public final class SocketTransport implements PartitionTransport, AutoCloseable {
+
+    private final int[] ports; // port of the server of each region
+    private final Queue<Connection>[] idle; // open connections to each server that no call is using
+    private volatile boolean closed; // true once close was called
+
+    // requires: ports != null && the PartitionServer of region r listens at ports[r] for every region r
+    //  effects: creates a transport to those servers, connecting when calls need to
+    @SuppressWarnings("unchecked")
+    public SocketTransport (int... ports) {
+        this.ports = ports.clone();
+        idle = (Queue<Connection>[]) new Queue<?>[ports.length];
+        for (int r = 0; r < ports.length; r++) idle[r] = new ConcurrentLinkedQueue<Connection>();
+    }
+
+    @Override
+    public byte[] call(int partition, byte[] request) throws IOException {
+        if (closed) {
+            throw new IOException("transport closed");
+        }
+        Connection connection = idle[partition].poll();
+        if (connection == null) {
+            connection = new Connection(ports[partition]);
+        }
+        byte[] response;
+        try {
+            response = connection.call(request);
+        } catch (IOException e) {
+            connection.socket.close();
+            throw e;
+        }
+        idle[partition].add(connection);
+        if (closed) { // close may have missed it
+            connection.socket.close();
+        }
+        return response;
+    }
+
+    // modifies: this
+    //  effects: closes every open connection, after which calls fail
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        for (Queue<Connection> connections : idle) {
+            for (Connection c; (c = connections.poll()) != null; ) c.socket.close();
+        }
+    }
+
+    /**
+     * A connection to one server, used by one call at a time.
+     */
+    private static final class Connection {
+
+        final Socket socket; // connection to the server
+        final DataInputStream in; // responses
+        final DataOutputStream out; // requests
+
+        Connection (int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        // effects: sends request and returns the response
+        byte[] call(byte[] request) throws IOException {
+            out.writeInt(request.length);
+            out.write(request);
+            out.flush();
+            byte[] response = new byte[in.readInt()];
+            in.readFully(response);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,626 @@
+package MultiGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The trips that run on a network in one day of service, as connections: a vehicle leaving one station at one time
+ * and reaching the next station at a later time without stopping. Connections are kept in one flat int array sorted by
+ * departure, and every query is a Connection Scan: a single pass over the connections in time order that relaxes the
+ * arrival times of the stations they reach. The pass reads memory in order and never follows a pointer, so a query
+ * over a day of a large city takes milliseconds.
+ *
+ * Times are in seconds since midnight of the day of service and may go past 24:00 for services that run after
+ * midnight, up to MAX_TIME. Stations are told apart by id. Changing from one vehicle to another at a station takes
+ * the change time of the station; staying on board takes nothing.
+ *
+ * A Timetable never changes once built, and can be queried from many threads at once.
+ */
+public final class Timetable {
+
+    public static final int MAX_TIME = (1 << 20) - 1; // latest time a timetable can hold, a little over 12 days
+    private static final int UNREACHED = Integer.MAX_VALUE; // time of stations a scan has not reached
+
+    static final int STRIDE = 5; // ints per connection
+    static final int FROM = 0; // offset of the station a connection leaves
+    static final int TO = 1; // offset of the station a connection reaches
+    static final int DEPARTURE = 2; // offset of the time a connection leaves
+    static final int ARRIVAL = 3; // offset of the time a connection arrives
+    static final int TRIP = 4; // offset of the trip a connection is part of
+
+    private final Node[] stations; // station of each index
+    private final IntIntHashMap ids; // index of the station with each id
+    private final int[] changeTimes; // seconds it takes to change vehicles at each station
+    private final int[] connections; // STRIDE ints per connection, by departure, then arrival, then as added
+    private final int connectionCount; // number of connections
+    private final int[] tripLines; // LineRegistry id of the line of each trip
+    private final ThreadLocal<Scan> scans = ThreadLocal.withInitial(() -> new Scan(this)); // scratch of each thread
+
+    private Timetable (Node[] stations, IntIntHashMap ids, int[] changeTimes, int[] connections,
+                       int connectionCount, int[] tripLines) {
+        this.stations = stations;
+        this.ids = ids;
+        this.changeTimes = changeTimes;
+        this.connections = connections;
+        this.connectionCount = connectionCount;
+        this.tripLines = tripLines;
+    }
+
+    // effects: returns a builder for an empty timetable
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // effects: returns the number of stations
+    public int stationCount() {
+        return stations.length;
+    }
+
+    // effects: returns the number of connections, with the repeats build makes of connections that feed each other
+    //          in a cycle at the same time
+    public int connectionCount() {
+        return connectionCount;
+    }
+
+    // effects: returns the number of trips, with the copies build makes of trips to repeat their connections
+    public int tripCount() {
+        return tripLines.length;
+    }
+
+    // effects: returns the index of n, or -1 if n is not a station of the timetable
+    private int indexOf(Node n) {
+        return ids.get(n.getId());
+    }
+
+    // effects: returns the first connection leaving at time or later, or connectionCount if there is none
+    private int firstLeaving(int time) {
+        int low = 0, high = connectionCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (connections[middle * STRIDE + DEPARTURE] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Scratch state of the earliest arrival scans of one thread, back to its initial values between scans.
+     */
+    private static final class Scan {
+
+        final int[] ready; // time each station can be left by a new vehicle, UNREACHED if not reached
+        final int[] enter; // connection the last leg to each station boards by
+        final int[] exit; // connection the last leg to each station arrives by
+        final int[] boarded; // connection each trip was first boarded by, -1 if it was not
+        final IntDeque reached = new IntDeque(64); // stations whose ready time was set
+        final IntDeque trips = new IntDeque(64); // trips that were boarded
+
+        Scan (Timetable timetable) {
+            ready = new int[timetable.stations.length];
+            enter = new int[ready.length];
+            exit = new int[ready.length];
+            boarded = new int[timetable.tripLines.length];
+            Arrays.fill(ready, UNREACHED);
+            Arrays.fill(boarded, -1);
+        }
+
+        // modifies: this
+        //  effects: sets every array back to its initial values
+        void clear() {
+            while (!reached.isEmpty()) ready[reached.pollFirst()] = UNREACHED;
+            while (!trips.isEmpty()) boarded[trips.pollFirst()] = -1;
+        }
+    }
+
+    // requires: from != null && to != null && 0 <= departure <= MAX_TIME
+    //  effects: if from or to is not a station of the timetable returns null
+    //           else returns the journey leaving from at departure or later that reaches to earliest, which is empty
+    //           if from = to and does not reach to if no trip gets there. Between journeys arriving at the same time
+    //           returns one of them.
+    public Journey earliestArrival(Node from, Node to, int departure) {
+        int s = indexOf(from), d = indexOf(to);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+        if (s == d) {
+            return new Journey(departure, departure, Collections.<Journey.Leg>emptyList());
+        }
+
+        final int[] connections = this.connections, changeTimes = this.changeTimes;
+        Scan scan = scans.get();
+        final int[] ready = scan.ready, enter = scan.enter, exit = scan.exit, boarded = scan.boarded;
+        int arrival = UNREACHED;
+        try {
+            ready[s] = departure;
+            scan.reached.addLast(s);
+            for (int c = firstLeaving(departure), base = c * STRIDE; c < connectionCount; c++, base += STRIDE) {
+                if (connections[base + DEPARTURE] >= arrival) {
+                    break; // nothing leaving now arrives any earlier
+                }
+                int trip = connections[base + TRIP];
+                if (boarded[trip] < 0) {
+                    if (ready[connections[base + FROM]] > connections[base + DEPARTURE]) {
+                        continue; // neither on board nor at the station in time
+                    }
+                    boarded[trip] = c;
+                    scan.trips.addLast(trip);
+                }
+                int station = connections[base + TO], time = connections[base + ARRIVAL];
+                if (station == d) {
+                    if (time < arrival) {
+                        arrival = time;
+                        enter[d] = boarded[trip];
+                        exit[d] = c;
+                    }
+                } else if (time + changeTimes[station] < ready[station]) {
+                    if (ready[station] == UNREACHED) scan.reached.addLast(station);
+                    ready[station] = time + changeTimes[station];
+                    enter[station] = boarded[trip];
+                    exit[station] = c;
+                }
+            }
+            if (arrival == UNREACHED) {
+                return new Journey(departure, -1, Collections.<Journey.Leg>emptyList());
+            }
+
+            List<Journey.Leg> legs = new ArrayList<Journey.Leg>();
+            for (int station = d; station != s; station = connections[enter[station] * STRIDE + FROM]) {
+                legs.add(leg(enter[station], exit[station]));
+            }
+            Collections.reverse(legs);
+            return new Journey(legs.get(0).departure(), arrival, legs);
+        } finally {
+            scan.clear();
+        }
+    }
+
+    // requires: enter and exit are connections of the same trip, enter no later than exit
+    //  effects: returns the ride on that trip boarding by enter and leaving by exit
+    private Journey.Leg leg(int enter, int exit) {
+        int e = enter * STRIDE, x = exit * STRIDE;
+        return new Journey.Leg(tripLines[connections[e + TRIP]], stations[connections[e + FROM]],
+                stations[connections[x + TO]], connections[e + DEPARTURE], connections[x + ARRIVAL]);
+    }
+
+    // requires: from != null && to != null && 0 <= earliest <= latest <= MAX_TIME
+    //  effects: if from or to is not a station of the timetable returns null
+    //           else returns the profile of the earliest arrivals at to for leaving from between earliest and
+    //           latest, which is empty if from = to. The last pair may leave after latest, being the way to arrive
+    //           earliest when leaving at latest. Scans the connections once, from the last one leaving by the
+    //           earliest arrival for leaving at latest back to the first one leaving at earliest.
+    public Profile profile(Node from, Node to, int earliest, int latest) {
+        int s = indexOf(from), d = indexOf(to);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+        if (s == d) {
+            return new Profile(new int[0], new int[0]);
+        }
+
+        // the profile of every station, as (departure, arrival) pairs added in descending order of both
+        int[][] departures = new int[stations.length][], arrivals = new int[stations.length][];
+        int[] sizes = new int[stations.length];
+        int[] tripArrivals = new int[tripLines.length]; // earliest arrival at d staying on each trip
+        Arrays.fill(tripArrivals, UNREACHED);
+
+        // leaving earlier and arriving after the earliest arrival for leaving at latest is never in the profile,
+        // and neither is any connection leaving after it
+        int bound = earliestArrival(from, to, latest).arrival();
+        int last = bound < 0 ? connectionCount - 1 : firstLeaving(bound + 1) - 1;
+
+        final int[] connections = this.connections, changeTimes = this.changeTimes;
+        for (int c = last, first = firstLeaving(earliest); c >= first; c--) {
+            int base = c * STRIDE;
+            int station = connections[base + TO], time = connections[base + ARRIVAL];
+            int trip = connections[base + TRIP];
+            int arrival = tripArrivals[trip];
+            if (station == d) {
+                arrival = Math.min(arrival, time);
+            } else if (sizes[station] > 0) {
+                arrival = Math.min(arrival, leaving(departures[station], arrivals[station], sizes[station],
+                        time + changeTimes[station]));
+            }
+            if (arrival == UNREACHED) {
+                continue;
+            }
+            tripArrivals[trip] = arrival;
+
+            int origin = connections[base + FROM], departure = connections[base + DEPARTURE];
+            int size = sizes[origin];
+            if (size > 0 && arrival >= arrivals[origin][size - 1]) {
+                continue; // leaving later gets there as early
+            }
+            if (size > 0 && departures[origin][size - 1] == departure) {
+                arrivals[origin][size - 1] = arrival; // a better way to leave at the same time
+                continue;
+            }
+            if (size == 0) {
+                departures[origin] = new int[4];
+                arrivals[origin] = new int[4];
+            } else if (size == departures[origin].length) {
+                departures[origin] = Arrays.copyOf(departures[origin], 2 * size);
+                arrivals[origin] = Arrays.copyOf(arrivals[origin], 2 * size);
+            }
+            departures[origin][size] = departure;
+            arrivals[origin][size] = arrival;
+            sizes[origin] = size + 1;
+        }
+
+        int count = 0;
+        for (int i = sizes[s] - 1; i >= 0; i--) { // up to the first pair leaving at latest or after
+            count++;
+            if (departures[s][i] >= latest) break;
+        }
+        int[] profileDepartures = new int[count], profileArrivals = new int[count];
+        for (int i = sizes[s] - 1, j = 0; j < count; i--, j++) { // ascending, leaving out those after it
+            profileDepartures[j] = departures[s][i];
+            profileArrivals[j] = arrivals[s][i];
+        }
+        return new Profile(profileDepartures, profileArrivals);
+    }
+
+    // requires: departures and arrivals hold size pairs of a station's profile, both descending
+    //  effects: returns the earliest arrival when leaving the station at time or later, or UNREACHED if no pair
+    //           leaves then
+    private static int leaving(int[] departures, int[] arrivals, int size, int time) {
+        if (departures[0] < time) {
+            return UNREACHED;
+        }
+        int low = 0, high = size - 1; // the last pair leaving at time or later, which arrives earliest
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (departures[middle] >= time) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return arrivals[low];
+    }
+
+    // requires: from != null && to != null && 0 <= departure <= MAX_TIME && maxTransfers >= 0
+    //  effects: if from or to is not a station of the timetable returns null
+    //           else returns the journeys leaving from at departure or later that are best for arrival and transfers
+    //           together: for every number of transfers up to maxTransfers, the journey with that many transfers
+    //           that reaches to earliest, if it reaches to before every journey with fewer transfers. Journeys are
+    //           in order of transfers, so their arrivals descend. Returns {} if no journey with at most maxTransfers
+    //           transfers reaches to, and {{}} if from = to. Throws IllegalArgumentException if maxTransfers < 0.
+    public List<Journey> paretoJourneys(Node from, Node to, int departure, int maxTransfers) {
+        if (maxTransfers < 0) {
+            throw new IllegalArgumentException("negative number of transfers "+maxTransfers);
+        }
+        int s = indexOf(from), d = indexOf(to);
+        if (s < 0 || d < 0) {
+            return null;
+        }
+        List<Journey> journeys = new ArrayList<Journey>();
+        if (s == d) {
+            journeys.add(new Journey(departure, departure, Collections.<Journey.Leg>emptyList()));
+            return journeys;
+        }
+
+        // ready, enter and exit are kept for k = 0 .. maxTrips trips as for earliestArrival, each station's at k
+        // trips at k * n + station, and so are the arrival at d and its last leg. A station reached with k trips
+        // counts as reached with more, unless that could not get to d any earlier. The trips of the last leg to each
+        // station are kept too, as they can be fewer than k.
+        final int[] connections = this.connections, changeTimes = this.changeTimes;
+        int n = stations.length, maxTrips = maxTransfers + 1;
+        int[] ready = new int[(maxTrips + 1) * n], enter = new int[ready.length], exit = new int[ready.length];
+        int[] trips = new int[ready.length];
+        int[] arrivals = new int[maxTrips + 1], enterDestination = new int[maxTrips + 1];
+        int[] exitDestination = new int[maxTrips + 1], tripsDestination = new int[maxTrips + 1];
+        int[] tripLevels = new int[tripLines.length]; // fewest trips a trip can be on by, maxTrips + 1 if none
+        int[] boarded = new int[tripLines.length]; // connection each trip is boarded by at that level
+        Arrays.fill(ready, UNREACHED);
+        Arrays.fill(arrivals, UNREACHED);
+        Arrays.fill(tripLevels, maxTrips + 1);
+        for (int k = 0; k <= maxTrips; k++) ready[k * n + s] = departure;
+
+        for (int c = firstLeaving(departure), base = c * STRIDE; c < connectionCount; c++, base += STRIDE) {
+            int leaves = connections[base + DEPARTURE];
+            if (leaves >= arrivals[1]) {
+                break; // nothing leaving now arrives any earlier with any number of trips
+            }
+            int trip = connections[base + TRIP], origin = connections[base + FROM];
+            int level = tripLevels[trip];
+            for (int k = 1; k < level && k <= maxTrips; k++) { // board with as few trips before as possible
+                if (ready[(k - 1) * n + origin] <= leaves) {
+                    level = tripLevels[trip] = k;
+                    boarded[trip] = c;
+                    break;
+                }
+            }
+            if (level > maxTrips) {
+                continue;
+            }
+            int station = connections[base + TO], time = connections[base + ARRIVAL];
+            if (station == d) {
+                for (int k = level; k <= maxTrips && time < arrivals[k]; k++) {
+                    arrivals[k] = time;
+                    enterDestination[k] = boarded[trip];
+                    exitDestination[k] = c;
+                    tripsDestination[k] = level;
+                }
+            } else {
+                int canLeave = time + changeTimes[station];
+                for (int k = level, i = level * n + station; k <= maxTrips && canLeave < ready[i]
+                        && time < arrivals[k]; k++, i += n) {
+                    ready[i] = canLeave;
+                    enter[i] = boarded[trip];
+                    exit[i] = c;
+                    trips[i] = level;
+                }
+            }
+        }
+
+        for (int k = 1; k <= maxTrips; k++) {
+            if (arrivals[k] == UNREACHED || arrivals[k] >= arrivals[k - 1]) {
+                continue; // another trip does not get there any earlier
+            }
+            List<Journey.Leg> legs = new ArrayList<Journey.Leg>(k);
+            legs.add(leg(enterDestination[k], exitDestination[k]));
+            int level = tripsDestination[k], station = connections[enterDestination[k] * STRIDE + FROM];
+            while (station != s) { // each leg was boarded where the one before it arrived with one trip less
+                int i = (level - 1) * n + station;
+                legs.add(leg(enter[i], exit[i]));
+                level = trips[i];
+                station = connections[enter[i] * STRIDE + FROM];
+            }
+            Collections.reverse(legs);
+            journeys.add(new Journey(legs.get(0).departure(), arrivals[k], legs));
+        }
+        return journeys;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Timetable[%d stations, %d trips, %d connections]", stations.length, tripLines.length,
+                connectionCount);
+    }
+
+    /**
+     * Collects the trips of a timetable. Trips may be added in any order; build sorts their connections.
+     */
+    public static final class Builder {
+
+        private final List<Node> stations = new ArrayList<Node>(); // station of each index
+        private final IntIntHashMap ids = new IntIntHashMap(16); // index of the station with each id
+        private int[] changeTimes = new int[16]; // change time of each station, -1 for the default
+        private int defaultChange = 0; // change time of stations without one of their own
+        private int[] connections = new int[16 * STRIDE]; // STRIDE ints per connection, as added
+        private int connectionCount; // number of connections
+        private int[] tripLines = new int[16]; // line of each trip
+        private int tripCount; // number of trips
+
+        Builder () {
+        }
+
+        // requires: station != null
+        // modifies: this
+        //  effects: returns the index of station, giving it the next one if it has none
+        private int index(Node station) {
+            int i = ids.putIfAbsent(station.getId(), stations.size());
+            if (i >= 0) {
+                return i;
+            }
+            stations.add(station);
+            if (stations.size() > changeTimes.length) {
+                changeTimes = Arrays.copyOf(changeTimes, 2 * changeTimes.length);
+            }
+            changeTimes[stations.size() - 1] = -1;
+            return stations.size() - 1;
+        }
+
+        // modifies: this
+        //  effects: makes seconds the change time of every station without one of its own. Throws
+        //           IllegalArgumentException if seconds < 0.
+        public Builder changeTime(int seconds) {
+            if (seconds < 0) {
+                throw new IllegalArgumentException("negative change time "+seconds);
+            }
+            defaultChange = seconds;
+            return this;
+        }
+
+        // requires: station != null
+        // modifies: this
+        //  effects: makes seconds the change time of station. Throws IllegalArgumentException if seconds < 0.
+        public Builder changeTime(Node station, int seconds) {
+            if (seconds < 0) {
+                throw new IllegalArgumentException("negative change time "+seconds);
+            }
+            int i = index(station); // before reading changeTimes, which index may grow
+            changeTimes[i] = seconds;
+            return this;
+        }
+
+        // requires: line != null && stops and times contain no null
+        // modifies: this
+        //  effects: adds a trip on line that leaves stops[i] at times[i] and reaches it at the same time, for every
+        //           stop. Throws IllegalArgumentException as addTrip(line, stops, times, times) does.
+        public Builder addTrip(String line, Node[] stops, int[] times) {
+            return addTrip(line, stops, times, times);
+        }
+
+        // requires: line != null && stops contains no null
+        // modifies: this
+        //  effects: adds a trip on line that reaches stops[i] at arrivals[i] and leaves it at departures[i], for
+        //           every stop. arrivals[0] and departures[stops.length - 1] are not used. Throws
+        //           IllegalArgumentException if the trip has fewer than two stops, the arrays are not all as long,
+        //           or a time is not in 0 .. MAX_TIME or is before the time before it.
+        public Builder addTrip(String line, Node[] stops, int[] arrivals, int[] departures) {
+            if (stops.length < 2 || arrivals.length != stops.length || departures.length != stops.length) {
+                throw new IllegalArgumentException("a trip needs two or more stops, each with its times");
+            }
+            for (int i = 0; i + 1 < stops.length; i++) {
+                if (departures[i] < (i == 0 ? 0 : arrivals[i]) || arrivals[i + 1] < departures[i]
+                        || arrivals[i + 1] > MAX_TIME) {
+                    throw new IllegalArgumentException("times out of order or range at stop "+i+" of "+line);
+                }
+            }
+            if (tripCount == tripLines.length) {
+                tripLines = Arrays.copyOf(tripLines, 2 * tripCount);
+            }
+            int trip = tripCount++;
+            tripLines[trip] = LineRegistry.global().id(line);
+            for (int i = 0; i + 1 < stops.length; i++) {
+                if ((connectionCount + 1) * STRIDE > connections.length) {
+                    connections = Arrays.copyOf(connections, 2 * connections.length);
+                }
+                int base = connectionCount++ * STRIDE;
+                connections[base + FROM] = index(stops[i]);
+                connections[base + TO] = index(stops[i + 1]);
+                connections[base + DEPARTURE] = departures[i];
+                connections[base + ARRIVAL] = arrivals[i + 1];
+                connections[base + TRIP] = trip;
+            }
+            return this;
+        }
+
+        // effects: returns a timetable of the trips added so far. Sorts the connections by departure, then by
+        //          arrival, then in the order they were added, with two counting sorts over the times, and puts
+        //          the connections that take no time in feed order as feedOrder does.
+        public Timetable build() {
+            int[] byArrival = countingSort(connections, connectionCount, ARRIVAL, null);
+            IntDeque copied = new IntDeque(16); // trip copied by each trip feedOrder adds
+            int[] sorted = feedOrder(countingSort(connections, connectionCount, DEPARTURE, byArrival), copied);
+            int[] lines = Arrays.copyOf(tripLines, tripCount + copied.size());
+            for (int i = 0; i < copied.size(); i++) lines[tripCount + i] = tripLines[copied.get(i)];
+
+            int[] changes = Arrays.copyOf(changeTimes, stations.size());
+            for (int i = 0; i < changes.length; i++) {
+                if (changes[i] < 0) changes[i] = defaultChange;
+            }
+            return new Timetable(stations.toArray(new Node[0]), new IntIntHashMap(ids), changes, sorted,
+                    sorted.length / STRIDE, lines);
+        }
+
+        // requires: order holds the connections sorted by departure and then by arrival
+        // modifies: copied
+        //  effects: returns the connections in the order of order, with every run of connections that leave and
+        //           arrive at the same time put in feed order, each one reaching a station before the ones leaving
+        //           it. The sort alone would scan a connection of the run before the one it can be reached by when
+        //           changes take no time. Connections that feed each other in a cycle cannot all be in feed order,
+        //           so they are repeated once per station they leave from, which scans every chain of them in
+        //           order. All but the last repeat are on new trips, added to copied with the trip they copy, so
+        //           that a trip boarded in one repeat is not taken to be on board in the next one before its stop.
+        private int[] feedOrder(int[] order, IntDeque copied) {
+            int[] fed = new int[order.length * STRIDE]; // connections in feed order
+            int size = 0;
+            int stationCount = stations.size();
+            int[] pending = new int[stationCount]; // connections of the run not placed yet that reach each station
+            int[] outCount = new int[stationCount]; // connections of the run not placed yet that leave each station
+            int[] outFirst = new int[stationCount]; // first of them in byOrigin
+            int[] filled = new int[stationCount]; // those of them put in byOrigin so far
+            for (int start = 0, end; start < order.length; start = end) {
+                int time = connections[order[start] * STRIDE + DEPARTURE];
+                end = start + 1;
+                if (connections[order[start] * STRIDE + ARRIVAL] == time) {
+                    while (end < order.length && connections[order[end] * STRIDE + DEPARTURE] == time
+                            && connections[order[end] * STRIDE + ARRIVAL] == time) {
+                        end++;
+                    }
+                }
+                if (end - start < 2) {
+                    fed = append(fed, size++, order[start], connections[order[start] * STRIDE + TRIP]);
+                    continue;
+                }
+
+                // the connections of the run grouped by the station they leave, each group in sorted order
+                IntDeque origins = new IntDeque(16); // stations the run leaves, by their first connection
+                for (int i = start; i < end; i++) {
+                    int from = connections[order[i] * STRIDE + FROM], to = connections[order[i] * STRIDE + TO];
+                    if (outCount[from]++ == 0) origins.addLast(from);
+                    if (to != from) pending[to]++;
+                }
+                int[] byOrigin = new int[end - start];
+                for (int i = 0, offset = 0; i < origins.size(); i++) {
+                    outFirst[origins.get(i)] = offset;
+                    offset += outCount[origins.get(i)];
+                }
+                for (int i = start; i < end; i++) {
+                    int from = connections[order[i] * STRIDE + FROM];
+                    byOrigin[outFirst[from] + filled[from]++] = order[i];
+                }
+
+                // Kahn's algorithm over the stations: the connections leaving a station are placed once every
+                // connection of the run reaching it is
+                IntDeque free = new IntDeque(16);
+                for (int i = 0; i < origins.size(); i++) {
+                    if (pending[origins.get(i)] == 0) free.addLast(origins.get(i));
+                }
+                while (!free.isEmpty()) {
+                    int station = free.pollFirst();
+                    for (int i = outFirst[station], last = i + outCount[station]; i < last; i++) {
+                        int to = connections[byOrigin[i] * STRIDE + TO];
+                        fed = append(fed, size++, byOrigin[i], connections[byOrigin[i] * STRIDE + TRIP]);
+                        if (to != station && --pending[to] == 0 && outCount[to] > 0) free.addLast(to);
+                    }
+                    outCount[station] = 0;
+                }
+
+                // what is left leaves stations on or after a cycle. A chain that visits no station twice takes at
+                // most one connection from each, so as many passes as there are such stations scan it in order.
+                // Each trip keeps its own number in the last pass only, which a journey can stay on past the run.
+                int cyclic = 0;
+                for (int i = 0; i < origins.size(); i++) {
+                    if (outCount[origins.get(i)] > 0) cyclic++;
+                }
+                for (int pass = 0; pass < cyclic; pass++) {
+                    IntIntHashMap copies = new IntIntHashMap(16); // new trip of each trip in this pass
+                    for (int i = start; i < end; i++) {
+                        if (outCount[connections[order[i] * STRIDE + FROM]] == 0) continue;
+                        int trip = connections[order[i] * STRIDE + TRIP];
+                        if (pass + 1 < cyclic) {
+                            int copy = copies.putIfAbsent(trip, tripCount + copied.size());
+                            if (copy < 0) {
+                                copy = tripCount + copied.size();
+                                copied.addLast(trip);
+                            }
+                            trip = copy;
+                        }
+                        fed = append(fed, size++, order[i], trip);
+                    }
+                }
+
+                for (int i = start; i < end; i++) { // back to zero for the next run
+                    int from = connections[order[i] * STRIDE + FROM];
+                    pending[connections[order[i] * STRIDE + TO]] = outCount[from] = outFirst[from] = filled[from] = 0;
+                }
+            }
+            return size * STRIDE == fed.length ? fed : Arrays.copyOf(fed, size * STRIDE);
+        }
+
+        // modifies: fed, unless it is too short
+        //  effects: copies connection c on trip to position size of fed, and returns fed, or a copy twice as long
+        //           if fed was full
+        private int[] append(int[] fed, int size, int c, int trip) {
+            if ((size + 1) * STRIDE > fed.length) fed = Arrays.copyOf(fed, 2 * fed.length + STRIDE);
+            System.arraycopy(connections, c * STRIDE, fed, size * STRIDE, STRIDE);
+            fed[size * STRIDE + TRIP] = trip;
+            return fed;
+        }
+
+        // effects: returns the connections in the order of order, or as added if order is null, stably sorted by
+        //          the time at offset field
+        private static int[] countingSort(int[] connections, int count, int field, int[] order) {
+            int max = 0;
+            for (int c = 0; c < count; c++) max = Math.max(max, connections[c * STRIDE + field]);
+            int[] starts = new int[max + 2];
+            for (int c = 0; c < count; c++) starts[connections[c * STRIDE + field] + 1]++;
+            for (int t = 0; t <= max; t++) starts[t + 1] += starts[t];
+            int[] sorted = new int[count];
+            for (int i = 0; i < count; i++) {
+                int c = order == null ? i : order[i];
+                sorted[starts[connections[c * STRIDE + field]]++] = c;
+            }
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package MultiGraph;
+
+import java.lang.ref.WeakReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Asks for garbage collection in tests of what a graph keeps reachable. The JVM does not have to honour System.gc(),
+ * and under -XX:+DisableExplicitGC it never does, so such tests are skipped rather than failed when it collects
+ * nothing at all.
+ */
+final class GarbageCollection {
+
+    private GarbageCollection () {
+    }
+
+    // requires: collected != null
+    //  effects: asks the JVM to collect garbage until collected is true, for about half a second at most. Skips the
+    //           calling test if an object nothing refers to was not collected in that time, as the JVM then ignored
+    //           every request.
+    static void await(BooleanSupplier collected) throws InterruptedException {
+        WeakReference<Object> garbage = new WeakReference<Object>(new Object());
+        for (int i = 0; i < 50 && (garbage.get() != null || !collected.getAsBoolean()); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assumeTrue(garbage.get() == null, "the JVM did not collect garbage when asked to");
+    }
+}
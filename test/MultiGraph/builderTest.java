@@ -0,0 +1,88 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class builderTest {
+
+    private Station station0, station1, station2, station3;
+    private Edge[] edges;
+
+    @BeforeEach
+    void setUp() {
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+
+        edges = new Edge[] {
+                new Line("Blue", station0, station1),
+                new Line("Blue", station1, station2),
+                new Line("Red", station1, station3),
+                new Line("Red", station3, station2),
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        station0 = station1 = station2 = station3 = null;
+        edges = null;
+    }
+
+
+    /*
+     * Testing strategy for builder
+     *
+     * Input partitions:
+     * edges:    array, stream, one by one
+     * expected: 0, less than the size of the graph, the size of the graph
+     *
+     * The graph built should answer findPath and getNode exactly as a graph built with addEdge.
+     */
+
+    @Test
+    void sameAsAddEdge() {
+        MultiGraph expected = new MultiGraph();
+        for (Edge e : edges) expected.addEdge(e);
+
+        MultiGraph fromArray = MultiGraph.builder(4, 4).addEdges(edges).build();
+        MultiGraph fromStream = MultiGraph.builder(0, 0).addEdges(Stream.of(edges)).build();
+        MultiGraph oneByOne = MultiGraph.builder(2, 2).addEdge(edges[0]).addEdge(edges[1])
+                .addEdge(edges[2]).addEdge(edges[3]).build();
+
+        for (MultiGraph built : new MultiGraph[] { fromArray, fromStream, oneByOne }) {
+            for (int s = 0; s < 4; s++) {
+                for (int d = 0; d < 4; d++) {
+                    assertEquals(expected.findPath(new Station(s), new Station(d)),
+                            built.findPath(new Station(s), new Station(d)), s+" to "+d);
+                }
+                assertEquals(expected.getNode(s), built.getNode(s));
+            }
+        }
+    }
+
+    @Test
+    void getNodeAfterManyNodes() {
+        MultiGraph.Builder builder = MultiGraph.builder();
+        for (int id = -1000; id <= 1000; id += 2) {
+            builder.addNode(new Station(id));
+        }
+        MultiGraph graph = builder.build();
+        assertAll("Every added id should be found and no other",
+                () -> assertEquals(new Station(-1000), graph.getNode(-1000)),
+                () -> assertEquals(new Station(500), graph.getNode(500)),
+                () -> assertNull(graph.getNode(501)),
+                () -> assertNull(graph.getNode(-1)));
+    }
+
+    @Test
+    void duplicateEdgesAreIgnored() {
+        MultiGraph graph = MultiGraph.builder().addEdges(edges).addEdges(edges).build();
+        assertEquals(edges.length, graph.snapshot().edgeCount());
+    }
+}
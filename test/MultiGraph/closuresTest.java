@@ -0,0 +1,201 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class closuresTest {
+
+    private MultiGraph multigraph;
+    private Station station0, station1, station2, station3;
+    private Line red01, red12, blue03, blue32;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        // two ways from station0 to station2, the Red one is faster
+        red01 = new Line("Red", station0, station1, 2);
+        red12 = new Line("Red", station1, station2, 2);
+        blue03 = new Line("Blue", station0, station3, 5);
+        blue32 = new Line("Blue", station3, station2, 5);
+        multigraph.addEdge(red01);
+        multigraph.addEdge(red12);
+        multigraph.addEdge(blue03);
+        multigraph.addEdge(blue32);
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = null;
+        red01 = red12 = blue03 = blue32 = null;
+    }
+
+
+    /*
+     * Testing strategy for Closures
+     *
+     * Input partitions:
+     * closed:      nothing, station on the path, station off the path, start, edge on the path, !in the graph
+     * applies to:  the graph, a snapshot taken before, a scenario of one query
+     * search:      findPath, findShortestPath, the other search modes, searchFrom
+     *
+     * Paths should avoid closed stations and edges, and be the same as on a graph without them. A RouteCache
+     * should only drop the routes a change affects.
+     */
+
+    @Test
+    void closeAndReopenStation() {
+        Closures closures = multigraph.closures();
+        GraphSnapshot before = multigraph.snapshot();
+        assertTrue(closures.close(station1));
+        assertFalse(closures.close(station1));
+        assertFalse(closures.close(new Station(9)));
+
+        assertAll("Paths should avoid station1",
+                () -> assertTrue(closures.isClosed(station1)),
+                () -> assertEquals(List.of(blue03, blue32), List.copyOf(multigraph.findShortestPath(station0, station2))),
+                () -> assertEquals(2, multigraph.findPath(station0, station2).size()),
+                () -> assertEquals(blue03, before.findPath(station0, station2).getFirst()),
+                () -> assertTrue(multigraph.findPath(station0, station1).isEmpty()),
+                () -> assertTrue(multigraph.findPath(station1, station2).isEmpty()),
+                () -> assertFalse(multigraph.searchFrom(station0).reaches(station1)),
+                () -> assertSame(before, multigraph.snapshot()));
+
+        assertTrue(closures.reopen(station1));
+        assertFalse(closures.reopen(station1));
+        assertEquals(List.of(red01, red12), List.copyOf(multigraph.findShortestPath(station0, station2)));
+    }
+
+    @Test
+    void closeEdge() {
+        assertTrue(multigraph.closures().close(new Line("Red", station1, station2)));
+        assertAll("Paths should avoid the closed edge",
+                () -> assertTrue(multigraph.closures().isClosed(red12)),
+                () -> assertEquals(blue32, multigraph.findShortestPath(station0, station2).getLast()),
+                () -> assertEquals(1, multigraph.findPath(station0, station1).size()),
+                () -> assertEquals(blue32, multigraph.findPathMinTransfers(station0, station2).getLast()),
+                () -> assertEquals(blue32, multigraph.findPath(station0, station2, SearchMode.BIDIRECTIONAL).getLast()));
+    }
+
+    @Test
+    void scenarioOnlyForItsQuery() {
+        Closures scenario = multigraph.closures().scenario();
+        scenario.close(red01);
+        multigraph.closures().close(blue32);
+        assertAll("A scenario should apply on top of the closures of the graph, and only when given",
+                () -> assertTrue(multigraph.findShortestPath(station0, station2, scenario).isEmpty()),
+                () -> assertTrue(multigraph.findPath(station0, station2, scenario).isEmpty()),
+                () -> assertEquals(2, multigraph.findShortestPath(station0, station2).size()),
+                () -> assertFalse(multigraph.closures().isClosed(red01)));
+    }
+
+    @Test
+    void sameAsGraphWithoutClosedOnRandomGraph() {
+        Random random = new Random(16);
+        Station[] stations = new Station[40];
+        for (int i = 0; i < stations.length; i++) stations[i] = new Station(i + 10);
+        List<Line> lines = new ArrayList<Line>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(new Line("Line"+random.nextInt(4), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)], 1 + random.nextInt(9)));
+        }
+        CompactMultiGraph compact = new CompactMultiGraph();
+        for (Station s : stations) {
+            multigraph.addNode(s);
+            compact.addNode(s);
+        }
+        for (Line l : lines) {
+            multigraph.addEdge(l);
+            compact.addEdge(l);
+        }
+
+        MultiGraph open = new MultiGraph(); // the graph without its closed stations and edges
+        for (Station s : stations) open.addNode(s);
+        for (int i = 0; i < 4; i++) {
+            multigraph.closures().close(stations[i * 3]);
+            compact.closures().close(stations[i * 3]);
+        }
+        for (Line l : lines) {
+            if (random.nextInt(5) == 0) {
+                multigraph.closures().close(l);
+                compact.closures().close(l);
+            }
+        }
+        Closures closures = multigraph.closures();
+        for (Line l : lines) { // closing a line closes the lines equal to it too
+            if (!closures.isClosed(l) && !closures.isClosed(l.origin()) && !closures.isClosed(l.destination())) {
+                open.addEdge(l);
+            }
+        }
+
+        for (Station a : stations) {
+            SearchTree tree = multigraph.searchFrom(a);
+            for (Station b : stations) {
+                boolean closed = multigraph.closures().isClosed(a) || multigraph.closures().isClosed(b);
+                boolean reachable = !closed && (a.equals(b) || !open.findPath(a, b).isEmpty());
+                assertEquals(reachable || a.equals(b), a.equals(b) || !multigraph.findPath(a, b).isEmpty());
+                assertEquals(reachable, closed ? false : tree.reaches(b));
+                assertEquals(a.equals(b) || reachable, a.equals(b) || !multigraph.findPathMinTransfers(a, b).isEmpty());
+                if (!closed) {
+                    assertEquals(weight(open.findShortestPath(a, b)), weight(multigraph.findShortestPath(a, b)));
+                    assertEquals(weight(open.findShortestPath(a, b)), weight(compact.findShortestPath(a, b)));
+                    assertEquals(open.findPath(a, b, SearchMode.BIDIRECTIONAL).size(),
+                            multigraph.findPath(a, b, SearchMode.BIDIRECTIONAL).size());
+                }
+            }
+        }
+    }
+
+    // effects: returns the sum of the weights of path
+    private static int weight(Deque<Edge> path) {
+        int weight = 0;
+        for (Edge e : path) weight += e.getWeight();
+        return weight;
+    }
+
+    @Test
+    void routeCacheDropsOnlyAffectedRoutes() {
+        RouteCache cache = new RouteCache(multigraph::snapshot, 100);
+        Deque<Edge> red = cache.findShortestPath(station0, station2);
+        cache.findShortestPath(station0, station3);
+        assertEquals(red, cache.findShortestPath(station0, station2));
+        assertEquals(1, cache.hits());
+
+        multigraph.closures().close(blue03); // on the path to station3 only
+        assertEquals(red, cache.findShortestPath(station0, station2));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.size());
+
+        multigraph.closures().close(station1); // on the Red path
+        assertEquals(0, cache.size());
+        assertTrue(cache.findShortestPath(station0, station2).isEmpty());
+
+        multigraph.closures().reopen(blue03); // the route was found while blue03 was closed
+        assertEquals(0, cache.size());
+        multigraph.closures().reopen(station1);
+        cache.findShortestPath(station3, station0);
+        multigraph.closures().close(station2); // off the path from station3
+        multigraph.closures().reopen(station2);
+        assertAll("Reopening should only drop routes found while closed",
+                () -> assertEquals(1, cache.size()),
+                () -> assertEquals(List.of(blue03), List.copyOf(cache.findShortestPath(station3, station0))),
+                () -> assertEquals(3, cache.hits()));
+
+        multigraph.addEdge(new Line("Green", station0, station2, 1)); // a new snapshot drops every route
+        assertEquals(1, cache.findShortestPath(station0, station2).size());
+        assertEquals(1, cache.size());
+        cache.detach();
+    }
+}
@@ -0,0 +1,127 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class compactMultiGraphTest {
+
+    private CompactMultiGraph compact;
+    private MultiGraph multigraph;
+    private Station station0, station1, station2, station3;
+
+    @BeforeEach
+    void setUp() {
+        compact = new CompactMultiGraph();
+        multigraph = new MultiGraph();
+
+        station0 = new Station(0, "Aldgate");
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        compact = null;
+        multigraph = null;
+        station0 = station1 = station2 = station3 = null;
+    }
+
+    // modifies: compact, multigraph
+    //  effects: adds e to both graphs and asserts that both agree on whether it was new
+    private void addEdge(Edge e) {
+        assertEquals(multigraph.addEdge(e), compact.addEdge(e), e.toString());
+    }
+
+
+    /*
+     * Testing strategy for CompactMultiGraph
+     *
+     * Input partitions:
+     * e:      new, equal to an edge in Edges, reverse of an edge in Edges, travel time 1, other travel time
+     * graph:  small, random with parallel edges and loops
+     *
+     * Paths should be valid, found between the same stations as in a MultiGraph with the same edges, and as heavy
+     * for findShortestPath. findPath may break ties differently, and its preference for staying on a line can make
+     * its paths differ in length too. The edges of a path should equal the edges that were added.
+     */
+
+    @Test
+    void dedupesLikeMultiGraph() {
+        addEdge(new Line("Blue", station0, station1));
+        addEdge(new Line("Blue", station0, station1, 120));
+        addEdge(new Line("Blue", station1, station0));
+        addEdge(new Line("Red", station0, station1));
+        addEdge(new Line("Red", station2, station2));
+        assertAll("Compact graph should hold the same edges",
+                () -> assertEquals(multigraph.snapshot().edgeCount(), compact.snapshot().edgeCount()),
+                () -> assertTrue(compact.containsEdge(new Line("Blue", station1, station0))),
+                () -> assertFalse(compact.containsEdge(new Line("Red", station1, station0))),
+                () -> assertFalse(compact.addNode(new Station(0))),
+                () -> assertEquals("Aldgate", ((Station)compact.getNode(0)).getName()));
+    }
+
+    @Test
+    void pathsAreMadeOfAddedEdges() {
+        Edge blue = new Line("Blue", station0, station1, 120);
+        Edge red = new Line("Red", station2, station1, 80);
+        addEdge(blue);
+        addEdge(red);
+        addEdge(new Line("Green", station2, station3));
+
+        Deque<Edge> path = compact.findShortestPath(station0, station2);
+        assertAll("Edges of a path should equal the added edges",
+                () -> assertEquals(multigraph.findShortestPath(station0, station2), path),
+                () -> assertEquals(blue, path.getFirst()),
+                () -> assertEquals(80, path.getLast().getWeight()),
+                () -> assertNull(compact.findPath(station0, new Station(9))));
+    }
+
+    @Test
+    void sameAsRandomMultiGraph() {
+        Random random = new Random(13);
+        Station[] stations = new Station[60];
+        for (int i = 0; i < stations.length; i++) stations[i] = new Station(i * 7 - 100);
+        for (int i = 0; i < 200; i++) {
+            addEdge(new Line("Line"+random.nextInt(6), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)], 1 + random.nextInt(9)));
+        }
+
+        for (Station start : stations) {
+            for (Station destination : stations) {
+                Deque<Edge> path = compact.findPath(start, destination);
+                assertEquals(multigraph.findPath(start, destination).isEmpty(), path.isEmpty());
+                Node at = start;
+                for (Edge e : path) { // every edge continues from where the last one ended
+                    assertTrue(multigraph.containsEdge(e));
+                    assertTrue(e.origin().equals(at) || e.destination().equals(at));
+                    at = e.origin().equals(at) ? e.destination() : e.origin();
+                }
+                assertEquals(destination, at);
+                assertEquals(weight(multigraph.findShortestPath(start, destination)),
+                        weight(compact.findShortestPath(start, destination)));
+            }
+        }
+    }
+
+    // effects: returns the sum of the weights of path
+    private static int weight(Deque<Edge> path) {
+        int weight = 0;
+        for (Edge e : path) weight += e.getWeight();
+        return weight;
+    }
+
+    @Test
+    void reversedEdgesHashApart() {
+        assertAll("The two directions of a segment and neighbouring segments should not collide",
+                () -> assertNotEquals(EdgeTable.hash(1, 2, 0), EdgeTable.hash(2, 1, 0)),
+                () -> assertNotEquals(EdgeTable.hash(1, 2, 0), EdgeTable.hash(1, 2, 1)),
+                () -> assertNotEquals(EdgeTable.hash(1, 2, 0), EdgeTable.hash(1, 3, 0)));
+    }
+}
@@ -0,0 +1,96 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class componentsTest {
+
+    private MultiGraph multigraph;
+    private Station station0, station1, station2, station3;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        // a tram of station0 and station1, and a ferry of station2 and station3
+        multigraph.addEdge(new Line("Tram", station0, station1));
+        multigraph.addEdge(new Line("Ferry", station2, station3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = null;
+    }
+
+
+    /*
+     * Testing strategy for the component index
+     *
+     * Input partitions:
+     * a, b:    !in Nodes, in the same component, in different components
+     * graph:   separate networks, networks joined by a new edge, node without edges, random
+     *
+     * Test for outputs:
+     * isConnected: true, false
+     * findPath: null, {} for pairs in different components
+     */
+
+    @Test
+    void separateNetworks() {
+        assertAll("Tram and ferry should be separate components",
+                () -> assertTrue(multigraph.isConnected(station0, station1)),
+                () -> assertTrue(multigraph.isConnected(station2, station2)),
+                () -> assertFalse(multigraph.isConnected(station0, station3)),
+                () -> assertFalse(multigraph.isConnected(station0, new Station(9))),
+                () -> assertTrue(multigraph.findPath(station0, station3).isEmpty()),
+                () -> assertTrue(multigraph.findShortestPath(station1, station2).isEmpty()),
+                () -> assertNull(multigraph.findPath(station0, new Station(9))),
+                () -> assertEquals(2, multigraph.componentCount()),
+                () -> assertEquals(2, multigraph.componentSize(station3)),
+                () -> assertEquals(0, multigraph.componentSize(new Station(9))));
+    }
+
+    @Test
+    void joinedByNewEdge() {
+        assertTrue(multigraph.addNode(new Station(4)));
+        assertArrayEquals(new int[] {2, 2, 1}, multigraph.componentSizes());
+
+        multigraph.addEdge(new Line("Bus", station1, station2));
+        assertAll("A new edge should join the two networks",
+                () -> assertTrue(multigraph.isConnected(station0, station3)),
+                () -> assertEquals(3, multigraph.findPath(station0, station3).size()),
+                () -> assertEquals(4, multigraph.componentSize(station0)),
+                () -> assertArrayEquals(new int[] {4, 1}, multigraph.componentSizes()));
+    }
+
+    @Test
+    void sameAsFindPathOnRandomGraph() {
+        Random random = new Random(15);
+        Station[] stations = new Station[80];
+        for (int i = 0; i < stations.length; i++) multigraph.addNode(stations[i] = new Station(i + 10));
+        for (int i = 0; i < 60; i++) {
+            multigraph.addEdge(new Line("Line"+random.nextInt(3), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)]));
+        }
+
+        int total = 0;
+        for (int size : multigraph.componentSizes()) total += size;
+        assertEquals(84, total);
+        for (Station a : stations) {
+            SearchTree tree = multigraph.searchFrom(a);
+            for (Station b : stations) {
+                assertEquals(tree.reaches(b), multigraph.isConnected(a, b));
+            }
+            assertEquals(tree.withinHops(stations.length).size(), multigraph.componentSize(a));
+        }
+    }
+}
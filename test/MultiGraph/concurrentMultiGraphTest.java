@@ -0,0 +1,187 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class concurrentMultiGraphTest {
+
+    private ConcurrentMultiGraph multigraph;
+    private Station station0, station1;
+    private Edge edge0;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new ConcurrentMultiGraph();
+        station0 = new Station(0);
+        station1 = new Station(1);
+        edge0 = new Line("Line1", station0, station1);
+        multigraph.addEdge(edge0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = null;
+        edge0 = null;
+    }
+
+
+    /*
+     * Testing strategy for ConcurrentMultiGraph
+     *
+     * addNode, addEdge and addAll should behave as on MultiGraph and be visible to the next query, and the
+     * snapshots compiled outside the lock of the graph should find the same paths as MultiGraph's own.
+     * Queries running while edges are added should only ever see complete snapshots.
+     * Snapshots replaced by later ones should be collected, however many threads searched them.
+     */
+
+    @Test
+    void addEdgeVisibleToNextQuery() {
+        Station station2 = new Station(2);
+        Edge edge1 = new Line("Line1", station1, station2);
+        boolean result = multigraph.addEdge(edge1);
+        assertAll("Should add e and return true, findPath should find it",
+                () -> assertTrue(result),
+                () -> assertFalse(multigraph.addEdge(edge1)),
+                () -> assertEquals(station2, multigraph.getNode(2)),
+                () -> assertEquals(2, multigraph.findPath(station0, station2).size()));
+    }
+
+    @Test
+    void addNodeAlreadyInNodes() {
+        assertFalse(multigraph.addNode(station0));
+    }
+
+    @Test
+    void addAllPublishesOnce() {
+        GraphSnapshot before = multigraph.snapshot();
+        List<Edge> edges = new ArrayList<>();
+        edges.add(edge0);
+        edges.add(new Line("Line1", station1, new Station(2)));
+        edges.add(new Line("Line1", new Station(2), new Station(3)));
+
+        int added = multigraph.addAll(Collections.singletonList(new Station(4)), edges);
+
+        assertAll("Should add the new node and the two new edges",
+                () -> assertEquals(3, added),
+                () -> assertNotSame(before, multigraph.snapshot()),
+                () -> assertEquals(5, multigraph.snapshot().nodeCount()),
+                () -> assertEquals(2, before.nodeCount()));
+    }
+
+    @Test
+    void samePathsAsMultiGraph() {
+        MultiGraph plain = new MultiGraph();
+        plain.addEdge(edge0);
+        Random random = new Random(7);
+        Station[] stations = new Station[40];
+        for (int i = 0; i < stations.length; i++) stations[i] = new Station(i);
+        for (int i = 0; i < 120; i++) { // with parallel edges and loops
+            Edge e = new Line("Line"+random.nextInt(4), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)]);
+            plain.addEdge(e);
+            multigraph.addEdge(e);
+        }
+        plain.addNode(new Station(99));
+        multigraph.addNode(new Station(99));
+
+        for (Station a : stations) {
+            for (Station b : stations) {
+                assertEquals(plain.findPath(a, b), multigraph.findPath(a, b), a+" to "+b);
+                assertEquals(plain.findPathMinTransfers(a, b), multigraph.findPathMinTransfers(a, b), a+" to "+b);
+            }
+        }
+        assertEquals(plain.snapshot().nodeCount(), multigraph.snapshot().nodeCount());
+    }
+
+    @Test
+    void queriesSeeCompleteSnapshotsWhileEdgesAreAdded() throws InterruptedException {
+        // a writer extends a line station by station, readers always find either no path or a complete one
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        Node last = multigraph.getNode(i % 200);
+                        if (last == null) continue;
+                        Deque<Edge> path = multigraph.findPath(station0, last);
+                        assertEquals(last.getId(), path.size());
+                        if (!path.isEmpty()) assertEquals(last, path.getLast().destination());
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        Station previous = station1;
+        for (int i = 2; i < 200; i++) {
+            Station next = new Station(i);
+            multigraph.addEdge(new Line("Line1", previous, next));
+            previous = next;
+        }
+
+        for (Thread reader : readers) reader.join();
+        assertNull(failure.get());
+        assertEquals(199, multigraph.findPath(station0, previous).size());
+    }
+
+    @Test
+    void streamedUpdatesKeepMemoryBounded() throws InterruptedException {
+        // two writers add single edges to a star while readers search it, old snapshots must not be kept alive
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<WeakReference<GraphSnapshot>> replaced = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            int first = 2 + w * 1500;
+            threads.add(new Thread(() -> {
+                for (int i = first; i < first + 1500; i++) {
+                    multigraph.addEdge(new Line("Line"+i % 7, station0, new Station(i)));
+                    if (i % 100 == 0) {
+                        synchronized (replaced) {
+                            replaced.add(new WeakReference<GraphSnapshot>(multigraph.snapshot()));
+                        }
+                    }
+                }
+            }));
+        }
+        for (int r = 0; r < 4; r++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 3000; i++) {
+                        Node last = multigraph.getNode(2 + i);
+                        if (last == null) continue;
+                        assertEquals(1, multigraph.findPath(station0, last).size());
+                        assertEquals(2, multigraph.findPathMinTransfers(station1, last).size());
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        assertNull(failure.get());
+        assertEquals(3002, multigraph.snapshot().nodeCount());
+
+        GraphSnapshot current = multigraph.snapshot();
+        GarbageCollection.await(() -> replaced.stream().allMatch(r -> r.get() == null || r.get() == current));
+        for (WeakReference<GraphSnapshot> snapshot : replaced) {
+            assertTrue(snapshot.get() == null || snapshot.get() == current, "Replaced snapshots should be collected");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class distanceMatrixTest {
+
+    @TempDir
+    Path directory;
+
+    private MultiGraph multigraph;
+    private Station[] stations;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        Random random = new Random(25);
+        stations = new Station[120];
+        for (int i = 0; i < stations.length; i++) multigraph.addNode(stations[i] = new Station(i + 1));
+        for (int i = 0; i < 170; i++) {
+            multigraph.addEdge(new Line("Line"+random.nextInt(6), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)]));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        stations = null;
+    }
+
+    // effects: returns the number of i | ei.label != e(i+1).label on path
+    private static int transfers(Deque<Edge> path) {
+        int transfers = 0;
+        Edge last = null;
+        for (Edge e : path) {
+            if (last != null && !last.getLabel().equals(e.getLabel())) transfers++;
+            last = e;
+        }
+        return transfers;
+    }
+
+
+    /*
+     * Testing strategy for distanceMatrix and transferMatrix
+     *
+     * Input partitions:
+     * graph:             random with loops, parallel edges and unconnected stations, with closed stations
+     * sources, targets:  all stations, repeated stations, stations !in Nodes, empty
+     * cells:             on the heap, mapped from a file
+     *
+     * Test for outputs:
+     * hops of a shortest path, line changes of a path with the fewest, 0, -1, the same cells in the file
+     */
+
+    @Test
+    void sameAsSearches() {
+        List<Station> all = Arrays.asList(stations);
+        DistanceMatrix hops = multigraph.distanceMatrix(all, all);
+        DistanceMatrix changes = multigraph.transferMatrix(all, all);
+        DistanceOracle oracle = multigraph.distanceOracle();
+        assertEquals(stations.length, hops.rows());
+        assertEquals(stations.length, changes.columns());
+        assertFalse(hops.isMapped());
+
+        for (int i = 0; i < stations.length; i++) {
+            for (int j = 0; j < stations.length; j++) {
+                Station a = stations[i], b = stations[j];
+                assertEquals(oracle.distance(a, b), hops.get(i, j), a+" to "+b);
+
+                Deque<Edge> fewest = multigraph.findPathMinTransfers(a, b);
+                int expected = a.equals(b) ? 0 : fewest.isEmpty() ? -1 : transfers(fewest);
+                assertEquals(expected, changes.get(i, j), a+" to "+b);
+            }
+        }
+    }
+
+    @Test
+    void mappedFileHoldsTheSameCells() throws IOException {
+        List<Node> sources = new ArrayList<Node>(Arrays.asList(stations).subList(0, 40));
+        sources.add(new Station(999));
+        sources.add(stations[3]);
+        List<Node> targets = new ArrayList<Node>(Arrays.asList(stations).subList(20, 120));
+        targets.add(new Station(999));
+        Path file = directory.resolve("hops.matrix");
+
+        DistanceMatrix heap = multigraph.distanceMatrix(sources, targets);
+        DistanceMatrix mapped = multigraph.distanceMatrix(sources, targets, file);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertTrue(mapped.isMapped());
+        assertEquals(4L * sources.size() * targets.size(), Files.size(file));
+
+        int[] row = new int[targets.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            assertArrayEquals(heap.row(i, new int[targets.size()]), mapped.row(i, row));
+            for (int j = 0; j < targets.size(); j++) assertEquals(heap.get(i, j), bytes.getInt());
+        }
+        assertAll("Matrix should fill rows and columns of stations !in Nodes with -1",
+                () -> assertEquals(-1, heap.get(sources.size() - 2, 0)),
+                () -> assertEquals(-1, heap.get(0, targets.size() - 1)),
+                () -> assertEquals(heap.get(3, 0), heap.get(sources.size() - 1, 0)),
+                () -> assertEquals(multigraph.distanceOracle().distance(stations[3], stations[20]), heap.get(3, 0)),
+                () -> assertEquals(0, multigraph.distanceMatrix(sources, new ArrayList<Node>()).columns()),
+                () -> assertEquals("DistanceMatrix[42 x 101, mapped]", mapped.toString()));
+    }
+
+    @Test
+    void closedStationsAreSkipped() throws IOException {
+        multigraph.closures().close(stations[5]);
+        multigraph.closures().close(stations[17]);
+        List<Station> all = Arrays.asList(stations);
+        DistanceMatrix hops = multigraph.distanceMatrix(all, all);
+        DistanceMatrix changes = multigraph.transferMatrix(all, all, directory.resolve("transfers.matrix"));
+
+        for (int i = 0; i < stations.length; i++) {
+            for (int j = 0; j < stations.length; j++) {
+                Station a = stations[i], b = stations[j];
+                Deque<Edge> path = multigraph.findPath(a, b, SearchMode.BIDIRECTIONAL);
+                assertEquals(a.equals(b) ? 0 : path.isEmpty() ? -1 : path.size(), hops.get(i, j), a+" to "+b);
+
+                Deque<Edge> fewest = multigraph.findPathMinTransfers(a, b);
+                assertEquals(a.equals(b) ? 0 : fewest.isEmpty() ? -1 : transfers(fewest), changes.get(i, j));
+            }
+        }
+    }
+}
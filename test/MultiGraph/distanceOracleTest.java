@@ -0,0 +1,93 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class distanceOracleTest {
+
+    private MultiGraph multigraph;
+    private Station[] stations;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        Random random = new Random(22);
+        stations = new Station[120];
+        for (int i = 0; i < stations.length; i++) multigraph.addNode(stations[i] = new Station(i + 1));
+        for (int i = 0; i < 170; i++) {
+            multigraph.addEdge(new Line("Line"+random.nextInt(6), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)]));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        stations = null;
+    }
+
+
+    /*
+     * Testing strategy for DistanceOracle
+     *
+     * Input partitions:
+     * graph:       random with loops, parallel edges and unconnected stations
+     * a, b:        equal, connected, unconnected, !in Nodes
+     * build:       on one thread, in parallel batches
+     *
+     * Test for outputs:
+     * distance as the number of edges of a shortest path, -1, paths of that many edges, null
+     */
+
+    @Test
+    void sameAsShortestPaths() {
+        DistanceOracle oracle = multigraph.distanceOracle();
+        for (Station a : stations) {
+            for (Station b : stations) {
+                Deque<Edge> shortest = multigraph.findPath(a, b, SearchMode.BIDIRECTIONAL);
+                int expected = a.equals(b) ? 0 : shortest.isEmpty() ? -1 : shortest.size();
+                assertEquals(expected, oracle.distance(a, b), a+" to "+b);
+
+                Deque<Edge> path = oracle.path(a, b);
+                assertEquals(Math.max(0, expected), path.size());
+                Node at = a;
+                for (Edge e : path) { // every edge continues from where the last one ended
+                    assertTrue(e.origin().equals(at) || e.destination().equals(at));
+                    at = e.origin().equals(at) ? e.destination() : e.origin();
+                }
+                if (expected > 0) assertEquals(b, at);
+            }
+        }
+        assertAll("Oracle should report the size of its labels",
+                () -> assertEquals(-1, oracle.distance(stations[0], new Station(999))),
+                () -> assertNull(oracle.path(new Station(999), stations[0])),
+                () -> assertTrue(oracle.labelEntries() >= stations.length),
+                () -> assertTrue(oracle.bytes() > 8 * oracle.labelEntries()),
+                () -> assertEquals((double)oracle.labelEntries() / stations.length, oracle.averageLabelSize()));
+    }
+
+    @Test
+    void parallelBuildAnswersTheSame() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            DistanceOracle sequential = DistanceOracle.build(snapshot, Runnable::run, 1);
+            DistanceOracle parallel = DistanceOracle.build(snapshot, executor, 8);
+            for (Station a : stations) {
+                for (Station b : stations) assertEquals(sequential.distance(a, b), parallel.distance(a, b));
+            }
+            assertTrue(parallel.labelEntries() >= sequential.labelEntries());
+        } finally {
+            executor.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> DistanceOracle.build(snapshot, Runnable::run, 0));
+    }
+}
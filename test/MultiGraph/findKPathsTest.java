@@ -0,0 +1,153 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class findKPathsTest {
+
+    private MultiGraph multigraph;
+    private Station station0, station1, station2, station3;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        // station0 to station2 directly on Green, through station1 on Red, or through station1 changing line
+        multigraph.addEdge(new Line("Green", station0, station2));
+        multigraph.addEdge(new Line("Red", station0, station1));
+        multigraph.addEdge(new Line("Red", station1, station2));
+        multigraph.addEdge(new Line("Blue", station1, station2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = null;
+    }
+
+
+    /*
+     * Testing strategy for findKPaths
+     *
+     * Input partitions:
+     * start, destination: !in Nodes, equal, unconnected, connected by fewer than k paths, by at least k paths
+     * graph:              small, random with parallel edges and loops
+     *
+     * Test for outputs:
+     * null, {{}}, {}, {P1, .., Pk} in order of edges then line changes, with no station visited twice
+     */
+
+    @Test
+    void unknownEqualAndUnconnected() {
+        multigraph.addNode(station3);
+        assertAll("Edge cases should answer like findPath",
+                () -> assertNull(multigraph.findKPaths(station0, new Station(9), 3)),
+                () -> assertEquals(List.of(List.of()), copy(multigraph.findKPaths(station0, station0, 3))),
+                () -> assertTrue(multigraph.findKPaths(station0, station3, 3).isEmpty()),
+                () -> assertThrows(IllegalArgumentException.class, () -> multigraph.findKPaths(station0, station2, 0)));
+    }
+
+    @Test
+    void rankedByEdgesThenTransfers() {
+        List<Deque<Edge>> paths = multigraph.findKPaths(station0, station2, 5);
+        assertAll("Paths should come in order of edges, then line changes",
+                () -> assertEquals(3, paths.size()),
+                () -> assertEquals(List.of(new Line("Green", station0, station2)), List.copyOf(paths.get(0))),
+                () -> assertEquals(new Line("Red", station1, station2), paths.get(1).getLast()),
+                () -> assertEquals(new Line("Blue", station1, station2), paths.get(2).getLast()));
+    }
+
+    @Test
+    void sameAsAllSimplePathsOnRandomGraph() {
+        Random random = new Random(17);
+        for (int round = 0; round < 20; round++) {
+            MultiGraph graph = new MultiGraph();
+            Station[] stations = new Station[9];
+            for (int i = 0; i < stations.length; i++) graph.addNode(stations[i] = new Station(i));
+            for (int i = 0; i < 16; i++) {
+                graph.addEdge(new Line("Line"+random.nextInt(3), stations[random.nextInt(stations.length)],
+                        stations[random.nextInt(stations.length)]));
+            }
+
+            Station start = stations[random.nextInt(stations.length)];
+            Station destination = stations[random.nextInt(stations.length)];
+            if (start.equals(destination)) continue;
+            List<int[]> all = new ArrayList<int[]>(); // (edges, line changes) of every simple path
+            enumerate(graph, start, destination, new ArrayList<Edge>(), new HashSet<Node>(), all);
+            all.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+
+            int k = 6;
+            List<Deque<Edge>> paths = graph.findKPaths(start, destination, k);
+            assertEquals(Math.min(k, all.size()), paths.size());
+            Set<List<Edge>> distinct = new HashSet<List<Edge>>();
+            for (int i = 0; i < paths.size(); i++) {
+                Deque<Edge> path = paths.get(i);
+                assertTrue(distinct.add(List.copyOf(path)));
+                Set<Node> visited = new HashSet<Node>();
+                Node at = start;
+                visited.add(at);
+                for (Edge e : path) { // every edge continues from where the last one ended
+                    assertTrue(e.origin().equals(at) || e.destination().equals(at));
+                    at = e.origin().equals(at) ? e.destination() : e.origin();
+                    assertTrue(visited.add(at), "no station twice");
+                }
+                assertEquals(destination, at);
+                assertEquals(all.get(i)[0], path.size());
+                assertEquals(all.get(i)[1], transfers(path));
+            }
+        }
+    }
+
+    // modifies: all, path, visited
+    //  effects: adds the edges and line changes of every path from the end of path to destination that visits no
+    //           station twice
+    private static void enumerate(MultiGraph graph, Node at, Node destination, List<Edge> path, Set<Node> visited,
+                                  List<int[]> all) {
+        visited.add(at);
+        if (at.equals(destination)) {
+            all.add(new int[] {path.size(), transfers(path)});
+        } else {
+            GraphSnapshot snapshot = graph.snapshot();
+            for (int i = 0; i < snapshot.edgeCount(); i++) {
+                Edge e = snapshot.edge(i);
+                Node next = e.origin().equals(at) ? e.destination() : e.destination().equals(at) ? e.origin() : null;
+                if (next == null || visited.contains(next)) continue;
+                path.add(e);
+                enumerate(graph, next, destination, path, visited, all);
+                path.remove(path.size() - 1);
+            }
+        }
+        visited.remove(at);
+    }
+
+    // effects: returns the number of i | ei.label != e(i+1).label of path
+    private static int transfers(Iterable<Edge> path) {
+        int changes = 0;
+        Edge last = null;
+        for (Edge e : path) {
+            if (last != null && !last.getLabel().equals(e.getLabel())) changes++;
+            last = e;
+        }
+        return changes;
+    }
+
+    // effects: returns the paths as lists
+    private static List<List<Edge>> copy(List<Deque<Edge>> paths) {
+        List<List<Edge>> lists = new ArrayList<List<Edge>>();
+        for (Deque<Edge> path : paths) lists.add(List.copyOf(path));
+        return lists;
+    }
+}
@@ -0,0 +1,122 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class findPathBidirectionalTest {
+
+    private IMultiGraph multigraph;
+    private Station station0, station1, station2, station3, station4, station5;
+    private Edge blue0, blue1, blue2, red0, red1, red2;
+
+    @BeforeEach
+    void setUp() {
+        // See graph3.jpg
+        multigraph = new MultiGraph();
+
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        station4 = new Station(4);
+        station5 = new Station(5);
+
+        blue0 = new Line("Blue", station0, station1);
+        blue1 = new Line("Blue", station1, station2);
+        blue2 = new Line("Blue", station2, station3);
+        red0 = new Line("Red", station4, station1);
+        red1 = new Line("Red", station1, station2);
+        red2 = new Line("Red", station2, station5);
+
+        multigraph.addEdge(blue0);
+        multigraph.addEdge(blue1);
+        multigraph.addEdge(blue2);
+        multigraph.addEdge(red0);
+        multigraph.addEdge(red1);
+        multigraph.addEdge(red2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = station4 = station5 = null;
+        blue0 = blue1 = blue2 = red0 = red1 = red2 = null;
+    }
+
+
+    /*
+     * Testing strategy for findPath with SearchMode.BIDIRECTIONAL
+     *
+     * Input partitions and outputs are the same as findPath:
+     * start:       !in Nodes, in Nodes
+     * destination: !in Nodes, in Nodes
+     * P = {} (start == destination), P = {} (no path), P = {e1}, P = {e1,..,eN}, null
+     *
+     * Also test that the path stays on edges with the same label where the two searches meet.
+     */
+
+    @Test
+    void startNodeNotInNodes() {
+        assertNull(multigraph.findPath(new Station(9), station0, SearchMode.BIDIRECTIONAL));
+    }
+
+    @Test
+    void startEqualsDestination() {
+        assertTrue(multigraph.findPath(station3, station3, SearchMode.BIDIRECTIONAL).isEmpty());
+    }
+
+    @Test
+    void noPathBetweenStartAndDestination() {
+        Station station6 = new Station(6);
+        multigraph.addNode(station6);
+        assertTrue(multigraph.findPath(station0, station6, SearchMode.BIDIRECTIONAL).isEmpty());
+    }
+
+    @Test
+    void singleEdgePath() {
+        Deque<Edge> expectedPath = new LinkedList<>();
+        expectedPath.add(blue2);
+        assertEquals(expectedPath, multigraph.findPath(station2, station3, SearchMode.BIDIRECTIONAL));
+    }
+
+    @Test
+    void pathsStayOnOneLine() {
+        Deque<Edge> expectedPath4to5 = new LinkedList<>();
+        expectedPath4to5.add(red0);
+        expectedPath4to5.add(red1);
+        expectedPath4to5.add(red2);
+
+        Deque<Edge> expectedPath3to0 = new LinkedList<>();
+        expectedPath3to0.add(blue2);
+        expectedPath3to0.add(blue1);
+        expectedPath3to0.add(blue0);
+
+        assertAll("Test various start/destination pairs and compare with expected path",
+                () -> assertEquals(expectedPath4to5, multigraph.findPath(station4, station5, SearchMode.BIDIRECTIONAL)),
+                () -> assertEquals(expectedPath3to0, multigraph.findPath(station3, station0, SearchMode.BIDIRECTIONAL))
+        );
+    }
+
+    @Test
+    void sameNumberOfEdgesAsForwardSearchOnLongLine() {
+        multigraph = new MultiGraph();
+        Station previous = new Station(0);
+        for (int i = 1; i <= 50; i++) {
+            Station next = new Station(i);
+            multigraph.addEdge(new Line(i % 2 == 0 ? "Even" : "Odd", previous, next));
+            previous = next;
+        }
+
+        Deque<Edge> forward = multigraph.findPath(new Station(3), new Station(47));
+        Deque<Edge> bidirectional = multigraph.findPath(new Station(3), new Station(47), SearchMode.BIDIRECTIONAL);
+        assertAll("A line has only one path",
+                () -> assertEquals(44, forward.size()),
+                () -> assertEquals(forward, bidirectional));
+    }
+}
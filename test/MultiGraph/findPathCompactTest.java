@@ -0,0 +1,111 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class findPathCompactTest {
+
+    @TempDir
+    Path directory;
+
+    private MultiGraph multigraph;
+    private Station station0, station1, station2, station3;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        multigraph.addEdge(new Line("Red", station0, station1));
+        multigraph.addEdge(new Line("Blue", station1, station2, 5));
+        multigraph.addEdge(new Line("Blue", station2, station3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = null;
+    }
+
+
+    /*
+     * Testing strategy for findPathCompact and findShortestPathCompact
+     *
+     * Input partitions:
+     * start, destination: !in Nodes, equal, unconnected, connected
+     * graph:              small, random with parallel edges and loops, mapped from a file
+     *
+     * Test for outputs:
+     * null, empty path, the path of findPath or findShortestPath with its length and line changes
+     */
+
+    @Test
+    void smallGraph() {
+        CompactPath path = multigraph.findPathCompact(station0, station3);
+        assertAll("Compact path should hold the edge indices of findPath",
+                () -> assertEquals(3, path.length()),
+                () -> assertEquals(1, path.transferCount()),
+                () -> assertArrayEquals(new int[] {0, 1, 2}, path.edgeIndices()),
+                () -> assertEquals(new Line("Blue", station1, station2), path.edge(1)),
+                () -> assertEquals(multigraph.findPath(station0, station3), path.asDeque()),
+                () -> assertNull(multigraph.findPathCompact(station0, new Station(9))),
+                () -> assertTrue(multigraph.findPathCompact(station2, station2).isEmpty()),
+                () -> assertEquals(0, multigraph.findShortestPathCompact(station2, station2).length()));
+
+        multigraph.addNode(new Station(4));
+        assertTrue(multigraph.findShortestPathCompact(station0, new Station(4)).isEmpty());
+    }
+
+    @Test
+    void sameAsFindPathOnRandomGraph() throws IOException {
+        Random random = new Random(18);
+        Station[] stations = new Station[50];
+        for (int i = 0; i < stations.length; i++) multigraph.addNode(stations[i] = new Station(i + 10));
+        for (int i = 0; i < 120; i++) {
+            multigraph.addEdge(new Line("Line"+random.nextInt(5), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)], 1 + random.nextInt(9)));
+        }
+        Path file = directory.resolve("random.mgrf");
+        GraphFile.write(multigraph.snapshot(), file);
+        MappedGraph mapped = GraphFile.map(file);
+
+        for (Station a : stations) {
+            for (Station b : stations) {
+                Deque<Edge> path = multigraph.findPath(a, b);
+                CompactPath compact = multigraph.findPathCompact(a, b);
+                assertEquals(path, compact.asDeque());
+                assertEquals(path.size(), compact.length());
+                assertEquals(transfers(path), compact.transferCount());
+                assertEquals(compact, mapped.findPathCompact(a, b));
+                assertEquals(compact.transferCount(), mapped.findPathCompact(a, b).transferCount());
+
+                Deque<Edge> shortest = multigraph.findShortestPath(a, b);
+                CompactPath compactShortest = multigraph.findShortestPathCompact(a, b);
+                assertEquals(shortest, compactShortest.asDeque());
+                assertEquals(transfers(shortest), compactShortest.transferCount());
+            }
+        }
+    }
+
+    // effects: returns the number of i | ei.label != e(i+1).label of path
+    private static int transfers(Deque<Edge> path) {
+        int changes = 0;
+        Edge last = null;
+        for (Edge e : path) {
+            if (last != null && !last.getLabel().equals(e.getLabel())) changes++;
+            last = e;
+        }
+        return changes;
+    }
+}
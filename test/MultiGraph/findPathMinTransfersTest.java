@@ -0,0 +1,138 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class findPathMinTransfersTest {
+
+    private IMultiGraph multigraph;
+    private Station station0, station1, station2, station3, station4, station5;
+    private Edge green0, red0, blue0, blue1, blue2, blue3, blue4;
+
+    @BeforeEach
+    void setUp() {
+        // station0 to station3 is three edges on three lines (green, red, blue)
+        // or five edges on the blue line through station1, station4, station5 and station2
+        multigraph = new MultiGraph();
+
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        station4 = new Station(4);
+        station5 = new Station(5);
+
+        green0 = new Line("Green", station0, station1);
+        red0 = new Line("Red", station1, station2);
+        blue0 = new Line("Blue", station0, station1);
+        blue1 = new Line("Blue", station1, station4);
+        blue2 = new Line("Blue", station4, station5);
+        blue3 = new Line("Blue", station5, station2);
+        blue4 = new Line("Blue", station2, station3);
+
+        multigraph.addEdge(green0);
+        multigraph.addEdge(red0);
+        multigraph.addEdge(blue0);
+        multigraph.addEdge(blue1);
+        multigraph.addEdge(blue2);
+        multigraph.addEdge(blue3);
+        multigraph.addEdge(blue4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = station4 = station5 = null;
+        green0 = red0 = blue0 = blue1 = blue2 = blue3 = blue4 = null;
+    }
+
+
+    /*
+     * Testing strategy for findPathMinTransfers and findPathMinTransfersThenHops
+     *
+     * Input partitions:
+     * start:       !in Nodes, in Nodes
+     * destination: !in Nodes, in Nodes
+     *
+     * Test for outputs:
+     * P = {} (start == destination), P = {} (no path), P = {e1,..,eN} with 0 and with > 0 line changes,
+     * null (start !in Nodes || destination !in Nodes)
+     *
+     * Also test that fewer line changes win over fewer edges, and that fewer edges win between paths with as many
+     * line changes.
+     */
+
+    @Test
+    void startNodeNotInNodes() {
+        assertAll("Should return null if start !in Nodes",
+                () -> assertNull(multigraph.findPathMinTransfers(new Station(9), station0)),
+                () -> assertNull(multigraph.findPathMinTransfersThenHops(new Station(9), station0)));
+    }
+
+    @Test
+    void startEqualsDestination() {
+        assertAll("Should return an empty path",
+                () -> assertTrue(multigraph.findPathMinTransfers(station2, station2).isEmpty()),
+                () -> assertTrue(multigraph.findPathMinTransfersThenHops(station2, station2).isEmpty()));
+    }
+
+    @Test
+    void noPathBetweenStartAndDestination() {
+        Station station6 = new Station(6);
+        multigraph.addNode(station6);
+        assertAll("Should return an empty path",
+                () -> assertTrue(multigraph.findPathMinTransfers(station0, station6).isEmpty()),
+                () -> assertTrue(multigraph.findPathMinTransfersThenHops(station0, station6).isEmpty()));
+    }
+
+    @Test
+    void fewerLineChangesWinOverFewerEdges() {
+        Deque<Edge> expectedPath = new LinkedList<>();
+        expectedPath.add(blue0);
+        expectedPath.add(blue1);
+        expectedPath.add(blue2);
+        expectedPath.add(blue3);
+        expectedPath.add(blue4);
+
+        assertAll("Staying on the blue line has no line changes",
+                () -> assertEquals(3, multigraph.findPath(station0, station3).size()),
+                () -> assertEquals(expectedPath, multigraph.findPathMinTransfers(station0, station3)),
+                () -> assertEquals(expectedPath, multigraph.findPathMinTransfersThenHops(station0, station3)));
+    }
+
+    @Test
+    void fewerEdgesWinBetweenAsManyLineChanges() {
+        // the green line reaches station2 with no line change in three edges, the blue line in four
+        Station station6 = new Station(6);
+        Edge green1 = new Line("Green", station1, station6);
+        Edge green2 = new Line("Green", station6, station2);
+        multigraph.addEdge(green1);
+        multigraph.addEdge(green2);
+
+        Deque<Edge> expectedPath = new LinkedList<>();
+        expectedPath.add(green0);
+        expectedPath.add(green1);
+        expectedPath.add(green2);
+
+        Deque<Edge> path = multigraph.findPathMinTransfers(station0, station2);
+        assertAll("Should use the fewest line changes and then the fewest edges",
+                () -> assertEquals(expectedPath, multigraph.findPathMinTransfersThenHops(station0, station2)),
+                () -> assertEquals(0, transfers(path)));
+    }
+
+    private static int transfers(Deque<Edge> path) {
+        int transfers = 0;
+        String label = null;
+        for (Edge e : path) {
+            if (label != null && !label.equals(e.getLabel())) transfers++;
+            label = e.getLabel();
+        }
+        return transfers;
+    }
+}
@@ -0,0 +1,93 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class findPathsTest {
+
+    private IMultiGraph multigraph;
+    private List<Pair<Node, Node>> queries;
+
+    @BeforeEach
+    void setUp() {
+        // See graph3.jpg
+        multigraph = new MultiGraph();
+
+        Station station0 = new Station(0);
+        Station station1 = new Station(1);
+        Station station2 = new Station(2);
+        Station station3 = new Station(3);
+        Station station4 = new Station(4);
+        Station station5 = new Station(5);
+
+        multigraph.addEdge(new Line("Blue", station0, station1));
+        multigraph.addEdge(new Line("Blue", station1, station2));
+        multigraph.addEdge(new Line("Blue", station2, station3));
+        multigraph.addEdge(new Line("Red", station4, station1));
+        multigraph.addEdge(new Line("Red", station1, station2));
+        multigraph.addEdge(new Line("Red", station2, station5));
+
+        // every pair of stations, plus a station !in Nodes
+        queries = new ArrayList<>();
+        for (int start = 0; start <= 6; start++) {
+            for (int destination = 0; destination <= 6; destination++) {
+                queries.add(Pair.of(new Station(start), new Station(destination)));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        queries = null;
+    }
+
+
+    /*
+     * Testing strategy for findPaths
+     *
+     * Input partitions:
+     * queries:  {}, queries sharing a start, queries with start or destination !in Nodes
+     * executor: common pool, given executor
+     *
+     * Each result should equal findPath for the query at the same position.
+     */
+
+    @Test
+    void noQueries() {
+        assertTrue(multigraph.findPaths(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    void sameAsFindPathInInputOrder() {
+        List<Deque<Edge>> paths = multigraph.findPaths(queries);
+        assertEquals(queries.size(), paths.size());
+        for (int i = 0; i < queries.size(); i++) {
+            Pair<Node, Node> query = queries.get(i);
+            assertEquals(multigraph.findPath(query.first(), query.second()), paths.get(i), query.toString());
+        }
+    }
+
+    @Test
+    void sameAsFindPathOnGivenExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Deque<Edge>> paths = multigraph.findPaths(queries, executor);
+            for (int i = 0; i < queries.size(); i++) {
+                Pair<Node, Node> query = queries.get(i);
+                assertEquals(multigraph.findPath(query.first(), query.second()), paths.get(i), query.toString());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class findShortestPathTest {
+
+    private IMultiGraph multigraph;
+    private Station station0, station1, station2, station3;
+    private Edge express, local0, local1, local2, walk;
+
+    @BeforeEach
+    void setUp() {
+        // station0 to station3 is 600 seconds on the express or 3 * 120 seconds on the local line
+        multigraph = new MultiGraph();
+
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+
+        express = new Line("Express", station0, station3, 600);
+        local0 = new Line("Local", station0, station1, 120);
+        local1 = new Line("Local", station1, station2, 120);
+        local2 = new Line("Local", station2, station3, 120);
+        walk = new Line("Walk", station1, station2, 120);
+
+        multigraph.addEdge(express);
+        multigraph.addEdge(local0);
+        multigraph.addEdge(walk);
+        multigraph.addEdge(local1);
+        multigraph.addEdge(local2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = null;
+        express = local0 = local1 = local2 = walk = null;
+    }
+
+
+    /*
+     * Testing strategy for findShortestPath
+     *
+     * Input partitions:
+     * start:       !in Nodes, in Nodes
+     * destination: !in Nodes, in Nodes
+     * heuristic:   none, lower bound
+     *
+     * Test for outputs:
+     * P = {} (start == destination), P = {} (no path), P = {e1,..,eN} lighter than a path with fewer edges,
+     * null (start !in Nodes || destination !in Nodes)
+     *
+     * Also test that the path stays on edges with the same label between paths of the same weight, and that edges
+     * cannot have negative weights.
+     */
+
+    @Test
+    void startNodeNotInNodes() {
+        assertNull(multigraph.findShortestPath(new Station(9), station0));
+    }
+
+    @Test
+    void startEqualsDestination() {
+        assertTrue(multigraph.findShortestPath(station1, station1).isEmpty());
+    }
+
+    @Test
+    void noPathBetweenStartAndDestination() {
+        Station station4 = new Station(4);
+        multigraph.addNode(station4);
+        assertTrue(multigraph.findShortestPath(station0, station4).isEmpty());
+    }
+
+    @Test
+    void lighterPathWinsOverFewerEdges() {
+        Deque<Edge> expectedPath = new LinkedList<>();
+        expectedPath.add(local0);
+        expectedPath.add(local1);
+        expectedPath.add(local2);
+
+        Heuristic remainingStations = (n, destination) -> 120 * Math.abs(destination.getId() - n.getId()) / 3;
+
+        assertAll("The local line takes 360 seconds and the express 600",
+                () -> assertEquals(expectedPath, multigraph.findShortestPath(station0, station3)),
+                () -> assertEquals(expectedPath, multigraph.findShortestPath(station0, station3, remainingStations)));
+    }
+
+    @Test
+    void findPathStillCountsEdges() {
+        Deque<Edge> expectedPath = new LinkedList<>();
+        expectedPath.add(express);
+        assertEquals(expectedPath, multigraph.findPath(station0, station3));
+    }
+
+    @Test
+    void unweightedEdgesWeighOne() {
+        multigraph = new MultiGraph();
+        Edge edge0 = new Line("Line1", station0, station1);
+        Edge edge1 = new Line("Line1", station1, station2);
+        multigraph.addEdge(edge0);
+        multigraph.addEdge(edge1);
+
+        assertAll("Edges without a travel time should weigh 1",
+                () -> assertEquals(1, edge0.getWeight()),
+                () -> assertEquals(multigraph.findPath(station0, station2),
+                        multigraph.findShortestPath(station0, station2)));
+    }
+
+    @Test
+    void negativeWeightNotAllowed() {
+        assertThrows(IllegalArgumentException.class, () -> new Line("Line1", station0, station1, -1));
+    }
+}
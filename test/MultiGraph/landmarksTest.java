@@ -0,0 +1,160 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class landmarksTest {
+
+    @TempDir
+    Path directory;
+
+    private MultiGraph multigraph;
+    private Station[] stations;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        random = new Random(21);
+        stations = new Station[80];
+        for (int i = 0; i < stations.length; i++) multigraph.addNode(stations[i] = new Station(i * 3 - 50));
+        addRandomEdges(120);
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        stations = null;
+        random = null;
+    }
+
+    // modifies: multigraph, random
+    //  effects: adds count random edges between stations, loops and parallel edges included
+    private void addRandomEdges(int count) {
+        for (int i = 0; i < count; i++) {
+            multigraph.addEdge(new Line("Line"+random.nextInt(5), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)]));
+        }
+    }
+
+    // effects: asserts that LANDMARKS finds a valid path with as few edges as BIDIRECTIONAL between every pair
+    private void assertShortest(IMultiGraph graph) {
+        for (Station a : stations) {
+            for (Station b : stations) {
+                Deque<Edge> path = graph.findPath(a, b, SearchMode.LANDMARKS);
+                assertEquals(graph.findPath(a, b, SearchMode.BIDIRECTIONAL).size(), path.size(), a+" to "+b);
+                Node at = a;
+                for (Edge e : path) {
+                    assertTrue(e.origin().equals(at) || e.destination().equals(at));
+                    at = e.origin().equals(at) ? e.destination() : e.origin();
+                }
+                if (!path.isEmpty()) assertEquals(b, at);
+            }
+        }
+    }
+
+
+    /*
+     * Testing strategy for Landmarks and SearchMode.LANDMARKS
+     *
+     * Input partitions:
+     * graph:      random with loops, parallel edges and unconnected stations, grown after the landmarks were built,
+     *             with closed stations and edges
+     * landmarks:  built, extended, written and read back, of another graph, corrupt file
+     *
+     * Test for outputs:
+     * paths as short as BIDIRECTIONAL, bounds that never overestimate, the same distances however the landmarks
+     * were made
+     */
+
+    @Test
+    void shortestPaths() {
+        assertShortest(multigraph);
+        Landmarks landmarks = multigraph.snapshot().landmarks();
+        assertTrue(landmarks.count() > 1 && landmarks.count() <= Landmarks.DEFAULT_COUNT);
+
+        multigraph.closures().close(stations[7]);
+        multigraph.closures().close(multigraph.snapshot().edge(3));
+        assertShortest(multigraph);
+    }
+
+    @Test
+    void boundsNeverOverestimate() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        Landmarks landmarks = Landmarks.build(snapshot, 4);
+        int[] row = new int[landmarks.count()];
+        for (Station b : stations) {
+            landmarks.row(snapshot.indexOf(b), row);
+            SearchTree tree = snapshot.searchFrom(b);
+            for (Station a : stations) {
+                int hops = snapshot.findPath(a, b, SearchMode.BIDIRECTIONAL).size();
+                if (tree.reaches(a) && !a.equals(b)) {
+                    assertTrue(landmarks.bound(snapshot.indexOf(a), row) <= hops);
+                }
+            }
+        }
+    }
+
+    @Test
+    void extendedAfterGrowing() {
+        Landmarks before = multigraph.snapshot().landmarks();
+        addRandomEdges(60);
+        multigraph.addNode(new Station(1000));
+        GraphSnapshot grown = multigraph.snapshot();
+        Landmarks extended = grown.landmarks();
+        Landmarks rebuilt = Landmarks.build(grown, before.count());
+
+        assertNotSame(before, extended);
+        assertTrue(extended.isOf(grown));
+        assertFalse(before.isOf(grown));
+        for (int l = 0; l < extended.count(); l++) {
+            assertEquals(before.landmark(l), extended.landmark(l));
+            SearchTree tree = grown.searchFrom(grown.nodes[extended.landmark(l)]);
+            for (int n = 0; n < grown.nodeCount(); n++) { // distances of the extended table are exact
+                Deque<Edge> path = grown.findPath(grown.nodes[extended.landmark(l)], grown.nodes[n],
+                        SearchMode.BIDIRECTIONAL);
+                assertEquals(tree.reaches(grown.nodes[n]) ? path.size() : -1, extended.distance(n, l));
+            }
+        }
+        assertTrue(rebuilt.count() > 0);
+        assertShortest(multigraph);
+    }
+
+    @Test
+    void persisted() throws IOException {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        Landmarks landmarks = snapshot.landmarks();
+        Path file = directory.resolve("graph.mglm");
+        landmarks.write(file);
+
+        Landmarks read = Landmarks.read(file, snapshot);
+        assertEquals(landmarks.count(), read.count());
+        for (int n = 0; n < snapshot.nodeCount(); n++) {
+            for (int l = 0; l < read.count(); l++) assertEquals(landmarks.distance(n, l), read.distance(n, l));
+        }
+
+        addRandomEdges(10);
+        GraphSnapshot grown = multigraph.snapshot();
+        assertThrows(IOException.class, () -> Landmarks.read(file, grown));
+        assertThrows(IllegalArgumentException.class, () -> grown.landmarks(read));
+
+        MultiGraph restarted = new MultiGraph();
+        for (Station s : stations) restarted.addNode(s);
+        for (int e = 0; e < snapshot.edgeCount(); e++) restarted.addEdge(snapshot.edge(e));
+        restarted.snapshot().landmarks(Landmarks.read(file, restarted.snapshot()));
+        assertEquals(landmarks.count(), restarted.snapshot().landmarks().count());
+
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> Landmarks.read(file, snapshot));
+    }
+}
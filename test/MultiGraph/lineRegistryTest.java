@@ -0,0 +1,83 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class lineRegistryTest {
+
+    private final LineRegistry registry = LineRegistry.global();
+
+
+    /*
+     * Testing strategy for LineRegistry
+     *
+     * Input partitions:
+     * label:   new, interned already, interned by another thread at the same time
+     *
+     * Ids should be dense and stable, and Lines should keep the id of their label.
+     */
+
+    @Test
+    void sameLabelSameId() {
+        int id = registry.id("lineRegistryTest.Blue");
+        assertAll("A label should keep its id",
+                () -> assertEquals(id, registry.id(new String("lineRegistryTest.Blue"))),
+                () -> assertEquals(id, registry.find("lineRegistryTest.Blue")),
+                () -> assertEquals("lineRegistryTest.Blue", registry.label(id)),
+                () -> assertTrue(id < registry.size()));
+    }
+
+    @Test
+    void newLabelsGetNextIds() {
+        int size = registry.size();
+        assertEquals(-1, registry.find("lineRegistryTest.Unseen"));
+        int first = registry.id("lineRegistryTest.New0");
+        int second = registry.id("lineRegistryTest.New1");
+        assertAll("Ids should be dense",
+                () -> assertTrue(first >= size),
+                () -> assertEquals(first + 1, second));
+    }
+
+    @Test
+    void linesKeepTheIdOfTheirLabel() {
+        Station station0 = new Station(0), station1 = new Station(1);
+        Line blue = new Line("lineRegistryTest.Blue", station0, station1);
+        Line sameBlue = new Line(new String("lineRegistryTest.Blue"), station0, station1);
+        Line red = new Line("lineRegistryTest.Red", station0, station1);
+        assertAll("Lines should compare by line id",
+                () -> assertEquals(registry.id("lineRegistryTest.Blue"), blue.getLineId()),
+                () -> assertEquals(blue, sameBlue),
+                () -> assertEquals(blue.hashCode(), sameBlue.hashCode()),
+                () -> assertNotEquals(blue, red),
+                () -> assertEquals("lineRegistryTest.Red", red.getLabel()));
+    }
+
+    @Test
+    void concurrentInterning() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    int[] ids = new int[500];
+                    for (int i = 0; i < ids.length; i++) ids[i] = registry.id("lineRegistryTest.Line"+i);
+                    return ids;
+                }));
+            }
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) assertArrayEquals(expected, result.get());
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals("lineRegistryTest.Line"+i, registry.label(expected[i]));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class mappedGraphTest {
+
+    @TempDir
+    Path directory;
+
+    private MultiGraph multigraph;
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        // See graph3.jpg, with names and travel times
+        multigraph = new MultiGraph();
+
+        Station station0 = new Station(0, "Aldgate");
+        Station station1 = new Station(1, "Bank");
+        Station station2 = new Station(2, "Camden Town");
+        Station station3 = new Station(3);
+        Station station4 = new Station(4, "Euston");
+        Station station5 = new Station(5, "Finchley Road");
+
+        multigraph.addEdge(new Line("Blue", station0, station1, 120));
+        multigraph.addEdge(new Line("Blue", station1, station2, 90));
+        multigraph.addEdge(new Line("Blue", station2, station3, 60));
+        multigraph.addEdge(new Line("Red", station4, station1, 150));
+        multigraph.addEdge(new Line("Red", station1, station2, 80));
+        multigraph.addEdge(new Line("Red", station2, station5, 200));
+
+        file = directory.resolve("graph3.mgrf");
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        file = null;
+    }
+
+
+    /*
+     * Testing strategy for GraphFile and MappedGraph
+     *
+     * Input partitions:
+     * graph: graph3, empty, random with parallel edges and loops
+     * file:  written by GraphFile.write, not a graph file, truncated, with a slot count out of range
+     *
+     * A mapped graph should answer every query exactly as the graph it was written from, for all pairs of nodes
+     * (including start == destination and nodes !in Nodes), and should keep station names and travel times. A mapped
+     * graph that was searched and dropped should be collected.
+     */
+
+    @Test
+    void sameAsGraph() throws IOException {
+        GraphFile.write(multigraph.snapshot(), file);
+        MappedGraph mapped = GraphFile.map(file);
+
+        assertAll("Mapped graph should contain every node, edge and line label",
+                () -> assertEquals(6, mapped.nodeCount()),
+                () -> assertEquals(6, mapped.edgeCount()),
+                () -> assertEquals(2, mapped.lineCount()));
+        for (int s = 0; s <= 6; s++) {
+            for (int d = 0; d <= 6; d++) {
+                Station start = new Station(s), destination = new Station(d);
+                assertEquals(multigraph.findPath(start, destination), mapped.findPath(start, destination), s+" to "+d);
+                assertEquals(multigraph.findShortestPath(start, destination),
+                        mapped.findShortestPath(start, destination), s+" to "+d);
+            }
+        }
+    }
+
+    @Test
+    void keepsNamesAndTravelTimes() throws IOException {
+        GraphFile.write(multigraph.snapshot(), file);
+        MappedGraph mapped = GraphFile.map(file);
+
+        assertAll("Names and travel times should survive the file",
+                () -> assertEquals("Camden Town", ((Station)mapped.getNode(2)).getName()),
+                () -> assertNull(((Station)mapped.getNode(3)).getName()),
+                () -> assertNull(mapped.getNode(6)),
+                () -> assertEquals(200, mapped.findPath(new Station(2), new Station(5)).getFirst().getWeight()));
+    }
+
+    @Test
+    void emptyGraph() throws IOException {
+        GraphFile.write(new MultiGraph().snapshot(), file);
+        MappedGraph mapped = GraphFile.map(file);
+        assertAll("Empty graph should map to an empty graph",
+                () -> assertEquals(0, mapped.nodeCount()),
+                () -> assertNull(mapped.getNode(0)),
+                () -> assertNull(mapped.findPath(new Station(0), new Station(0))));
+    }
+
+    @Test
+    void sameAsRandomGraph() throws IOException {
+        Random random = new Random(7);
+        Station[] stations = new Station[40];
+        for (int i = 0; i < stations.length; i++) stations[i] = new Station(random.nextInt(1000) - 500);
+        MultiGraph graph = new MultiGraph();
+        for (int i = 0; i < 120; i++) {
+            graph.addEdge(new Line("Line"+random.nextInt(5), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)]));
+        }
+
+        GraphFile.write(graph.snapshot(), file);
+        MappedGraph mapped = GraphFile.map(file);
+        for (Station start : stations) {
+            for (Station destination : stations) {
+                assertEquals(graph.findPath(start, destination), mapped.findPath(start, destination));
+            }
+        }
+    }
+
+    @Test
+    void notAGraphFile() throws IOException {
+        Files.write(file, "Aldgate,Bank,Blue".getBytes());
+        assertThrows(IOException.class, () -> GraphFile.map(file));
+    }
+
+    @Test
+    void truncatedFile() throws IOException {
+        GraphFile.write(multigraph.snapshot(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> GraphFile.map(file));
+    }
+
+    @Test
+    void corruptSlotCount() throws IOException {
+        GraphFile.write(multigraph.snapshot(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        for (int slots : new int[] {-1, 5}) { // 6 edges take at least 6 slots
+            ByteBuffer header = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            int fewer = header.getInt(20) - slots;
+            header.putInt(20, slots);
+            header.putInt(24, header.getInt(24) + 12 * fewer); // the same size with more string bytes
+            Files.write(file, header.array());
+            assertThrows(IOException.class, () -> GraphFile.map(file), slots+" slots");
+        }
+    }
+
+    @Test
+    void mappedGraphIsImmutable() throws IOException {
+        GraphFile.write(multigraph.snapshot(), file);
+        MappedGraph mapped = GraphFile.map(file);
+        assertThrows(UnsupportedOperationException.class, () -> mapped.addNode(new Station(9)));
+    }
+
+    @Test
+    void droppedGraphIsCollected() throws IOException, InterruptedException {
+        GraphFile.write(multigraph.snapshot(), file);
+        WeakReference<MappedGraph> dropped = new WeakReference<MappedGraph>(GraphFile.map(file));
+        assertEquals(2, dropped.get().findPath(new Station(0), new Station(2)).size());
+        assertEquals(3, dropped.get().findPathCompact(new Station(4), new Station(5)).length());
+
+        GarbageCollection.await(() -> dropped.get() == null);
+        assertNull(dropped.get(), "Search state of the threads that searched the graph should not keep it alive");
+    }
+}
@@ -0,0 +1,185 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class networkImporterTest {
+
+    @TempDir
+    Path directory;
+
+    private Path stations, segments;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // See graph3.jpg
+        stations = directory.resolve("stations.csv");
+        segments = directory.resolve("segments.csv");
+        Files.writeString(stations, "id,name\n0,Aldgate\n1,Bank\n2,\"Camden Town\"\n3,\"King's Cross, St Pancras\"\n"
+                + "4,Euston\n5,Finchley Road\n");
+        Files.writeString(segments, "line,from,to,seconds\nBlue,0,1,120\nBlue,1,2,90\nBlue,2,3,60\n"
+                + "Red,4,1,150\nRed,1,2,80\nRed,2,5,200\n");
+    }
+
+    @AfterEach
+    void tearDown() {
+        stations = segments = null;
+    }
+
+
+    /*
+     * Testing strategy for NetworkImporter
+     *
+     * Input partitions:
+     * files:     with header, without header, GTFS column names in another order, quoted fields, blank lines
+     * segments:  new, parallel to an earlier one in either direction, joining a station !in stations file
+     * chunks:    whole file, many small chunks parsed in parallel
+     * lines:     valid, not a number, too few fields
+     *
+     * The graph should equal the one built with addNode and addEdge in file order.
+     */
+
+    // effects: returns graph3 built by hand, as the files describe it
+    private MultiGraph graph3() {
+        Station[] station = new Station[6];
+        for (int i = 0; i < 6; i++) station[i] = new Station(i);
+        MultiGraph graph = new MultiGraph();
+        for (Station s : station) graph.addNode(s);
+        graph.addEdge(new Line("Blue", station[0], station[1], 120));
+        graph.addEdge(new Line("Blue", station[1], station[2], 90));
+        graph.addEdge(new Line("Blue", station[2], station[3], 60));
+        graph.addEdge(new Line("Red", station[4], station[1], 150));
+        graph.addEdge(new Line("Red", station[1], station[2], 80));
+        graph.addEdge(new Line("Red", station[2], station[5], 200));
+        return graph;
+    }
+
+    // effects: asserts that expected and actual find the same paths between all pairs of stations 0 .. count-1
+    private static void assertSamePaths(MultiGraph expected, MultiGraph actual, int count) {
+        assertEquals(expected.snapshot().edgeCount(), actual.snapshot().edgeCount());
+        for (int s = 0; s < count; s++) {
+            for (int d = 0; d < count; d++) {
+                Station start = new Station(s), destination = new Station(d);
+                assertEquals(expected.findPath(start, destination), actual.findPath(start, destination), s+" to "+d);
+                assertEquals(expected.findShortestPath(start, destination),
+                        actual.findShortestPath(start, destination), s+" to "+d);
+            }
+        }
+    }
+
+    @Test
+    void sameAsAddEdge() throws IOException {
+        MultiGraph graph = new NetworkImporter().load(stations, segments);
+        assertSamePaths(graph3(), graph, 7);
+        assertAll("Quoted names should keep their commas",
+                () -> assertEquals("Camden Town", ((Station)graph.getNode(2)).getName()),
+                () -> assertEquals("King's Cross, St Pancras", ((Station)graph.getNode(3)).getName()));
+    }
+
+    @Test
+    void noHeaderAndBlankLines() throws IOException {
+        Files.writeString(stations, "0,Aldgate\r\n1,Bank\r\n\r\n2,Camden Town\r\n3\r\n4,Euston\r\n5,Finchley Road");
+        Files.writeString(segments, "Blue,0,1,120\n\nBlue,1,2,90\nBlue,2,3,60\nRed,4,1,150\nRed,1,2,80\n"
+                + "Red,2,5,200\n\n");
+        MultiGraph graph = new NetworkImporter().load(stations, segments);
+        assertSamePaths(graph3(), graph, 7);
+        assertNull(((Station)graph.getNode(3)).getName());
+    }
+
+    @Test
+    void gtfsColumnNames() throws IOException {
+        Files.writeString(stations, "stop_name,stop_lat,stop_id\nAldgate,51.51,0\nBank,51.51,1\n");
+        Files.writeString(segments, "from_stop_id,to_stop_id,route_id\n0,1,Blue\n");
+        MultiGraph graph = new NetworkImporter().load(stations, segments);
+        assertAll("Columns should be found by name",
+                () -> assertEquals("Bank", ((Station)graph.getNode(1)).getName()),
+                () -> assertEquals(1, graph.findPath(new Station(0), new Station(1)).getFirst().getWeight()),
+                () -> assertEquals("Blue", graph.findPath(new Station(0), new Station(1)).getFirst().getLabel()));
+    }
+
+    @Test
+    void parallelSegmentsAreDeduped() throws IOException {
+        Files.writeString(segments, "line,from,to,seconds\nBlue,0,1,120\nBlue,1,0,130\nBlue,0,1,140\nRed,0,1,100\n");
+        MultiGraph graph = new NetworkImporter().load(stations, segments);
+        assertAll("Only the first segment of a line between two stations should be kept",
+                () -> assertEquals(2, graph.snapshot().edgeCount()),
+                () -> assertEquals(100, graph.findShortestPath(new Station(0), new Station(1)).getFirst().getWeight()),
+                () -> assertTrue(graph.containsEdge(new Line("Blue", new Station(0), new Station(1)))));
+    }
+
+    @Test
+    void segmentToStationNotInStationsFile() throws IOException {
+        Files.writeString(segments, "line,from,to\nGreen,5,9\n");
+        MultiGraph graph = new NetworkImporter().load(stations, segments);
+        assertAll("Unknown stations should be added without a name",
+                () -> assertNull(((Station)graph.getNode(9)).getName()),
+                () -> assertEquals(1, graph.findPath(new Station(5), new Station(9)).size()));
+    }
+
+    @Test
+    void smallChunksInParallel() throws IOException {
+        Random random = new Random(11);
+        StringBuilder text = new StringBuilder("line,from,to,seconds\n");
+        List<Line> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Station from = new Station(random.nextInt(300)), to = new Station(random.nextInt(300));
+            Line line = new Line("Line"+random.nextInt(8), from, to, 60 + random.nextInt(200));
+            lines.add(line);
+            text.append(line.getLabel()).append(',').append(from.getId()).append(',').append(to.getId())
+                    .append(',').append(line.getWeight()).append('\n');
+        }
+        Files.writeString(segments, text);
+        Files.writeString(stations, "id,name\n");
+
+        MultiGraph expected = new MultiGraph();
+        for (Line line : lines) {
+            if (!expected.containsEdge(new Line(line.getLabel(), line.destination(), line.origin()))) {
+                expected.addEdge(line);
+            }
+        }
+
+        List<Long> progress = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            MultiGraph graph = new NetworkImporter().chunkSize(64).executor(executor, 4)
+                    .progress((file, done, total) -> { if (file.equals(segments)) progress.add(done); })
+                    .load(stations, segments);
+            assertSamePaths(expected, graph, 300);
+        } finally {
+            executor.shutdown();
+        }
+        assertAll("Progress should grow to the size of the file",
+                () -> assertTrue(progress.size() > 100),
+                () -> assertEquals(Files.size(segments), progress.get(progress.size() - 1)));
+    }
+
+    @Test
+    void invalidLineIsReported() throws IOException {
+        Files.writeString(segments, "line,from,to\nBlue,0,1\n\nBlue,1,two\n");
+        IOException e = assertThrows(IOException.class, () -> new NetworkImporter().load(stations, segments));
+        assertTrue(e.getMessage().contains("line 4"), e.getMessage());
+
+        Files.writeString(segments, "Blue,0\n");
+        e = assertThrows(IOException.class, () -> new NetworkImporter().load(stations, segments));
+        assertTrue(e.getMessage().contains("line 1"), e.getMessage());
+    }
+
+    @Test
+    void missingColumn() throws IOException {
+        Files.writeString(segments, "line,from\nBlue,0\n");
+        assertThrows(IOException.class, () -> new NetworkImporter().load(stations, segments));
+    }
+}
@@ -0,0 +1,180 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class routeServerTest {
+
+    private ConcurrentMultiGraph graph;
+    private RouteServer server;
+    private Station station0, station1, station2, station3;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        graph = new ConcurrentMultiGraph();
+        station0 = new Station(0, "Aldgate East");
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        graph.addEdge(new Line("District", station0, station1, 90));
+        graph.addEdge(new Line("Hammersmith & City", station1, station2, 120));
+        graph.addNode(station3);
+        server = RouteServer.start(graph::snapshot, 0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+        graph = null;
+        station0 = station1 = station2 = station3 = null;
+    }
+
+
+    /*
+     * Testing strategy for RouteServer and RouteClient
+     *
+     * Input partitions:
+     * request:     PATH, NODE, QUIT, unknown, wrong arguments, ids that are not ints
+     * stations:    in the graph, not in the graph, unconnected, named, unnamed, label with spaces
+     * clients:     one request at a time, pipelined, many at once, graph changed while connected
+     * accept:      succeeds, fails every time
+     *
+     * Test for outputs:
+     * the same paths and stations as the graph, NONE as null, ERR as an IOException, waits that double while accepts
+     * fail, up to a second, and start again after one succeeds
+     */
+
+    @Test
+    void answersLikeGraph() throws IOException {
+        try (RouteClient client = new RouteClient(server.port())) {
+            Deque<Edge> path = client.findPath(0, 2);
+            assertAll("Server should answer as the graph does",
+                    () -> assertEquals(graph.findPath(station0, station2), path),
+                    () -> assertEquals(90, path.getFirst().getWeight()),
+                    () -> assertEquals("Hammersmith & City", path.getLast().getLabel()),
+                    () -> assertTrue(client.findPath(0, 3).isEmpty()),
+                    () -> assertTrue(client.findPath(2, 2).isEmpty()),
+                    () -> assertNull(client.findPath(0, 9)),
+                    () -> assertEquals("Aldgate East", client.getNode(0).getName()),
+                    () -> assertNull(client.getNode(3).getName()),
+                    () -> assertNull(client.getNode(9)));
+
+            graph.addEdge(new Line("Jubilee", station2, station3));
+            assertEquals(3, client.findPath(0, 3).size());
+        }
+    }
+
+    @Test
+    void pipelinedInOrder() throws IOException {
+        Random random = new Random(20);
+        int[] starts = new int[500], destinations = new int[500];
+        try (RouteClient client = new RouteClient(server.port())) {
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = random.nextInt(5);
+                destinations[i] = random.nextInt(5);
+                client.requestPath(starts[i], destinations[i]);
+                client.requestNode(starts[i]);
+            }
+            client.flush();
+            for (int i = 0; i < starts.length; i++) {
+                Node s = graph.getNode(starts[i]), d = graph.getNode(destinations[i]);
+                assertEquals(s == null || d == null ? null : graph.findPath(s, d), client.readPath());
+                assertEquals(s, client.readNode());
+            }
+        }
+        assertTrue(server.requests() >= 1000);
+    }
+
+    @Test
+    void manyClients() {
+        ThreadFactory threads = RouteServer.connectionThreads();
+        List<CompletableFuture<Void>> clients = new ArrayList<CompletableFuture<Void>>();
+        for (int c = 0; c < 200; c++) {
+            clients.add(CompletableFuture.runAsync(() -> {
+                try (RouteClient client = new RouteClient(server.port())) {
+                    for (int i = 0; i < 20; i++) {
+                        assertEquals(2, client.findPath(0, 2).size());
+                    }
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }, task -> threads.newThread(task).start()));
+        }
+        assertDoesNotThrow(() -> CompletableFuture.allOf(clients.toArray(new CompletableFuture<?>[0])).join());
+        assertEquals(4000, server.requests());
+    }
+
+    @Test
+    void badRequests() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.println("ROUTE 0 1");
+            assertTrue(in.readLine().startsWith("ERR"));
+            out.println("PATH 0");
+            assertTrue(in.readLine().startsWith("ERR"));
+            out.println("NODE zero");
+            assertTrue(in.readLine().startsWith("ERR"));
+            out.println("  NODE   1 ");
+            assertEquals("OK 1", in.readLine());
+            out.println("QUIT");
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    void backsOffWhileAcceptFails() throws Exception {
+        AtomicInteger accepts = new AtomicInteger();
+        ServerSocket failing = new ServerSocket() {
+            @Override
+            public Socket accept() throws IOException {
+                if (accepts.incrementAndGet() == 4) return new Socket(); // one accept in between succeeds
+                throw new IOException("Too many open files");
+            }
+        };
+        List<Long> pauses = new ArrayList<Long>();
+        CompletableFuture<Void> paused = new CompletableFuture<Void>();
+        CountDownLatch closed = new CountDownLatch(1);
+        RouteServer backingOff = RouteServer.start(graph::snapshot, failing, millis -> {
+            pauses.add(millis);
+            if (pauses.size() == 12) {
+                paused.complete(null);
+                try {
+                    closed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        paused.get(10, TimeUnit.SECONDS);
+        backingOff.close();
+        closed.countDown();
+
+        assertEquals(Arrays.asList(10L, 20L, 40L, 10L, 20L, 40L, 80L, 160L, 320L, 640L, 1000L, 1000L), pauses,
+                "Accept should wait twice as long after each failure in a row, up to a second");
+        assertEquals(13, accepts.get());
+    }
+}
@@ -0,0 +1,226 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class routingCoordinatorTest {
+
+    private MultiGraph multigraph;
+    private Station[] stations;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        Random random = new Random(23);
+        stations = new Station[100];
+        for (int i = 0; i < stations.length; i++) multigraph.addNode(stations[i] = new Station(i + 1));
+        for (int i = 0; i < 90; i++) { // a ring of nine lines, with edges across it
+            multigraph.addEdge(new Line("Line"+(i / 10), stations[i], stations[(i + 1) % 90]));
+        }
+        for (int i = 0; i < 12; i++) {
+            multigraph.addEdge(new Line("Cross", stations[random.nextInt(90)], stations[random.nextInt(90)]));
+        }
+        for (int i = 90; i < 98; i++) { // a line on its own, and two stations without edges
+            multigraph.addEdge(new Line("Branch", stations[i], stations[i + 1]));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        stations = null;
+    }
+
+
+    /*
+     * Testing strategy for Partition and RoutingCoordinator
+     *
+     * Input partitions:
+     * regions:     1, several, more than there are stations, < 1
+     * start, dest: equal, same region, different regions, unconnected, !in Nodes
+     * transport:   loopback, sockets, accepts that fail every time
+     * requests:    stations in the region, ids of no station in the region
+     *
+     * Test for outputs:
+     * every station in one region, balanced regions, cut and boundary, paths with the fewest edges, as DistanceOracle
+     * counts them, that run from start to destination, empty paths, null, -1 from a server that keeps serving,
+     * waits that double while accepts fail, up to a second
+     */
+
+    @Test
+    void partitionsIntoBalancedRegions() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        Partition partition = Partition.of(snapshot, 4);
+
+        int[] sizes = new int[4];
+        for (Station s : stations) sizes[partition.region(s)]++;
+        int cut = 0;
+        for (int r = 0; r < 4; r++) {
+            assertEquals(sizes[r], partition.size(r));
+            assertTrue(sizes[r] >= 20 && sizes[r] <= 30, "region "+r+" has "+sizes[r]+" stations");
+            MultiGraph region = partition.regionGraph(r);
+            for (Station s : stations) assertEquals(partition.region(s) == r, region.getNode(s.getId()) != null);
+            for (Node b : partition.boundary(r)) assertEquals(r, partition.region(b));
+        }
+        for (Edge e : partition.cut()) {
+            assertNotEquals(partition.region(e.origin()), partition.region(e.destination()));
+            assertTrue(partition.boundary(partition.region(e.origin())).contains(e.origin()));
+            cut++;
+        }
+        assertEquals(cut, partition.cutSize());
+        for (int r = 0; r < 4; r++) cut += partition.regionGraph(r).snapshot().edgeCount();
+        assertEquals(snapshot.edgeCount(), cut);
+
+        assertAll("Partition should cover the graph with few cut edges",
+                () -> assertTrue(partition.cutSize() < snapshot.edgeCount() / 3),
+                () -> assertEquals(-1, partition.region(new Station(999))),
+                () -> assertEquals(1, Partition.of(snapshot, 1).regionCount()),
+                () -> assertEquals(0, Partition.of(snapshot, 1).cutSize()),
+                () -> assertEquals(stations.length, Partition.of(snapshot, 500).regionCount()),
+                () -> assertThrows(IllegalArgumentException.class, () -> Partition.of(snapshot, 0)));
+    }
+
+    @Test
+    void fewestEdges() throws IOException {
+        DistanceOracle oracle = multigraph.distanceOracle();
+        for (int regions : new int[] {1, 3, 8}) {
+            Partition partition = Partition.of(multigraph.snapshot(), regions);
+            RoutingCoordinator coordinator = new RoutingCoordinator(partition, LoopbackTransport.of(partition));
+            for (Station a : stations) {
+                for (Station b : stations) {
+                    Deque<Edge> path = coordinator.findPath(a, b);
+                    assertEquals(Math.max(0, oracle.distance(a, b)), path.size(), a+" to "+b+" in "+regions+" regions");
+                    Node at = a;
+                    for (Edge e : path) { // every edge continues from where the last one ended
+                        assertTrue(multigraph.containsEdge(e));
+                        assertTrue(e.origin().equals(at) || e.destination().equals(at));
+                        at = e.origin().equals(at) ? e.destination() : e.origin();
+                    }
+                    if (!path.isEmpty()) assertEquals(b, at);
+                }
+            }
+            assertNull(coordinator.findPath(stations[0], new Station(999)));
+            assertNull(coordinator.findPath(new Station(999), stations[0]));
+        }
+    }
+
+    @Test
+    void routesOverSockets() throws IOException {
+        DistanceOracle oracle = multigraph.distanceOracle();
+        Partition partition = Partition.of(multigraph.snapshot(), 3);
+        PartitionServer[] servers = new PartitionServer[3];
+        int[] ports = new int[3];
+        for (int r = 0; r < 3; r++) {
+            servers[r] = new PartitionServer(partition.regionGraph(r).snapshot());
+            ports[r] = servers[r].listen(0);
+        }
+        try (SocketTransport transport = new SocketTransport(ports)) {
+            RoutingCoordinator coordinator = new RoutingCoordinator(partition, transport);
+            assertTrue(coordinator.overlaySize() > 0);
+            for (int i = 0; i < stations.length; i += 7) {
+                for (int j = 0; j < stations.length; j += 3) {
+                    assertEquals(Math.max(0, oracle.distance(stations[i], stations[j])),
+                            coordinator.findPath(stations[i], stations[j]).size());
+                }
+            }
+        } finally {
+            for (PartitionServer server : servers) server.close();
+        }
+        assertThrows(IOException.class, () -> new PartitionServer(multigraph.snapshot()).handle(new byte[] {9}));
+    }
+
+    @Test
+    void unknownIdsAnswerMinusOne() throws IOException {
+        GraphSnapshot region = multigraph.snapshot();
+        try (PartitionServer server = new PartitionServer(region)) {
+            int port = server.listen(0);
+            try (SocketTransport transport = new SocketTransport(port)) {
+                for (int round = 0; round < 2; round++) { // the connection outlives unknown ids
+                    int[] distances = distances(transport.call(0, request(PartitionServer.DISTANCES, 999, 2, 1, 2)));
+                    assertArrayEquals(new int[] {-1, -1}, distances);
+                    distances = distances(transport.call(0, request(PartitionServer.DISTANCES, 1, 3, 2, 999, 1)));
+                    assertArrayEquals(new int[] {1, -1, 0}, distances);
+                    assertEquals(-1, answer(transport.call(0, request(PartitionServer.PATH, 999, 1))));
+                    assertEquals(-1, answer(transport.call(0, request(PartitionServer.PATH, 1, 999))));
+                    assertEquals(1, answer(transport.call(0, request(PartitionServer.PATH, 1, 2))));
+                }
+            }
+        }
+    }
+
+    @Test
+    void backsOffWhileAcceptFails() throws Exception {
+        AtomicInteger accepts = new AtomicInteger();
+        ServerSocket failing = new ServerSocket() {
+            @Override
+            public Socket accept() throws IOException {
+                accepts.incrementAndGet();
+                throw new IOException("Too many open files");
+            }
+        };
+        List<Long> pauses = new ArrayList<Long>();
+        CompletableFuture<Void> paused = new CompletableFuture<Void>();
+        CountDownLatch closed = new CountDownLatch(1);
+        try (PartitionServer server = new PartitionServer(multigraph.snapshot())) {
+            server.listen(failing, millis -> {
+                pauses.add(millis);
+                if (pauses.size() == 8) {
+                    paused.complete(null);
+                    try {
+                        closed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            paused.get(10, TimeUnit.SECONDS);
+        } finally {
+            closed.countDown();
+        }
+        assertEquals(Arrays.asList(10L, 20L, 40L, 80L, 160L, 320L, 640L, 1000L), pauses,
+                "Accept should wait twice as long after each failure in a row, up to a second");
+        assertEquals(8, accepts.get());
+    }
+
+    // effects: returns a request of kind with ints
+    private static byte[] request(byte kind, int... ints) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(kind);
+        for (int i : ints) out.writeInt(i);
+        return bytes.toByteArray();
+    }
+
+    // effects: returns the first int of response
+    private static int answer(byte[] response) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(response)).readInt();
+    }
+
+    // effects: returns the distances of the response to a DISTANCES request
+    private static int[] distances(byte[] response) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(response));
+        int[] distances = new int[in.readInt()];
+        for (int i = 0; i < distances.length; i++) distances[i] = in.readInt();
+        return distances;
+    }
+}
@@ -0,0 +1,110 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class searchFromTest {
+
+    private MultiGraph multigraph;
+    private Station station0, station1, station2, station3, station4;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        station4 = new Station(4);
+        // a loop that findPath leaves the Red line to take a shortcut on, and station4 on its own
+        multigraph.addEdge(new Line("Red", station0, station1));
+        multigraph.addEdge(new Line("Red", station1, station2));
+        multigraph.addEdge(new Line("Red", station2, station3));
+        multigraph.addEdge(new Line("Blue", station0, station3));
+        multigraph.addNode(station4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = station4 = null;
+    }
+
+
+    /*
+     * Testing strategy for searchFrom
+     *
+     * Input partitions:
+     * start:       !in Nodes, in Nodes
+     * destination: !in Nodes, start, reachable, unreachable
+     * graph:       small, random with parallel edges and loops
+     *
+     * Test for outputs:
+     * pathTo: null, {}, same path as findPath
+     * hopsTo: -1, 0, |pathTo|
+     * withinHops: {start}, stations with hopsTo <= k
+     */
+
+    @Test
+    void startNotInNodes() {
+        assertNull(multigraph.searchFrom(new Station(9)));
+    }
+
+    @Test
+    void smallGraph() {
+        SearchTree tree = multigraph.searchFrom(station0);
+        assertAll("Tree should answer as findPath",
+                () -> assertEquals(station0, tree.start()),
+                () -> assertNull(tree.pathTo(new Station(9))),
+                () -> assertEquals(-1, tree.hopsTo(new Station(9))),
+                () -> assertTrue(tree.pathTo(station0).isEmpty()),
+                () -> assertEquals(0, tree.hopsTo(station0)),
+                () -> assertTrue(tree.pathTo(station4).isEmpty()),
+                () -> assertEquals(-1, tree.hopsTo(station4)),
+                () -> assertFalse(tree.reaches(station4)),
+                () -> assertTrue(tree.reaches(station2)),
+                () -> assertEquals(multigraph.findPath(station0, station2), tree.pathTo(station2)),
+                () -> assertEquals(multigraph.findPath(station0, station3), tree.pathTo(station3)),
+                () -> assertEquals(List.of(station0), tree.withinHops(0)),
+                () -> assertEquals(4, tree.withinHops(10).size()));
+    }
+
+    @Test
+    void sameAsFindPathOnRandomGraph() {
+        Random random = new Random(14);
+        Station[] stations = new Station[50];
+        for (int i = 0; i < stations.length; i++) multigraph.addNode(stations[i] = new Station(i + 10));
+        for (int i = 0; i < 90; i++) {
+            multigraph.addEdge(new Line("Line"+random.nextInt(4), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)]));
+        }
+
+        for (Station start : stations) {
+            SearchTree tree = multigraph.searchFrom(start);
+            for (Station destination : stations) {
+                Deque<Edge> path = multigraph.findPath(start, destination);
+                assertEquals(path, tree.pathTo(destination));
+                int hops = tree.hopsTo(destination);
+                assertEquals(path.isEmpty() && !start.equals(destination) ? -1 : path.size(), hops);
+            }
+            for (int k = 0; k < 4; k++) {
+                List<Node> within = tree.withinHops(k);
+                assertEquals(start, within.get(0));
+                int count = 0;
+                for (Station s : stations) {
+                    int hops = tree.hopsTo(s);
+                    if (hops >= 0 && hops <= k) count++;
+                }
+                assertEquals(count, within.size());
+                for (Node n : within) assertTrue(tree.hopsTo(n) <= k);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class searchMetricsTest {
+
+    private MultiGraph multigraph;
+    private SearchMetrics metrics;
+    private Station station0, station1, station2, station3;
+
+    @BeforeEach
+    void setUp() {
+        multigraph = new MultiGraph();
+        metrics = new SearchMetrics();
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        // whichever of 1 and 2 is expanded first, exactly one of them is moved onto the line of the other
+        multigraph.addEdge(new Line("Red", station0, station1));
+        multigraph.addEdge(new Line("Blue", station0, station2));
+        multigraph.addEdge(new Line("Red", station1, station2));
+        multigraph.addEdge(new Line("Blue", station1, station2));
+        multigraph.addEdge(new Line("Green", station2, station3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        metrics = null;
+        station0 = station1 = station2 = station3 = null;
+    }
+
+
+    /*
+     * Testing strategy for SearchProbe, SearchMetrics and LatencyHistogram
+     *
+     * Input partitions:
+     * probe:       none, attached, detached again, attached before the graph changes
+     * search:      destination found, destination cut off by a closed edge so every station is expanded
+     * histogram:   empty, values below 64, large values, percentiles 0, 50, 100
+     *
+     * Test for outputs:
+     * counts of the searches, paths the same as without a probe, values within 1/32 of those recorded
+     */
+
+    @Test
+    void countsWholeSearch() {
+        multigraph.closures().close(new Line("Green", station2, station3)); // so every station is expanded
+        multigraph.probe(metrics);
+        assertTrue(multigraph.findPath(station0, station3).isEmpty());
+        assertAll("Probe should be told of the search",
+                () -> assertEquals(1, metrics.searches()),
+                () -> assertEquals(3, metrics.expanded()),
+                () -> assertEquals(9, metrics.scanned()),
+                () -> assertEquals(2, metrics.peakFrontier()),
+                () -> assertEquals(1, metrics.swaps()),
+                () -> assertEquals(1, metrics.latency().count()));
+    }
+
+    @Test
+    void followsGraphAndStops() {
+        multigraph.probe(metrics);
+        multigraph.findPathCompact(station0, station1);
+        multigraph.addEdge(new Line("Green", station3, station0));
+        multigraph.findPath(station0, station3);
+        multigraph.findPath(station0, station0); // nothing to search
+        assertEquals(2, metrics.searches());
+
+        multigraph.probe(null);
+        multigraph.findPath(station0, station3);
+        assertEquals(2, metrics.searches());
+
+        ConcurrentMultiGraph concurrent = new ConcurrentMultiGraph();
+        concurrent.probe(metrics);
+        concurrent.addEdge(new Line("Red", station0, station1));
+        concurrent.findPath(station0, station1);
+        assertEquals(3, metrics.searches());
+
+        Map<String, Long> exported = metrics.export();
+        assertEquals(3L, exported.get("searches"));
+        assertTrue(exported.get("latency_p50_ns") <= exported.get("latency_max_ns"));
+    }
+
+    @Test
+    void sameResultsWithProbe() {
+        Random random = new Random(19);
+        MultiGraph plain = new MultiGraph(), probed = new MultiGraph();
+        Station[] stations = new Station[40];
+        for (int i = 0; i < stations.length; i++) stations[i] = new Station(i + 10);
+        for (int i = 0; i < 90; i++) {
+            Line line = new Line("Line"+random.nextInt(4), stations[random.nextInt(stations.length)],
+                    stations[random.nextInt(stations.length)]);
+            plain.addEdge(line);
+            probed.addEdge(line);
+        }
+        probed.probe(metrics);
+        for (Station a : stations) {
+            for (Station b : stations) {
+                assertEquals(plain.findPath(a, b), probed.findPath(a, b));
+                assertEquals(plain.findPathCompact(a, b), probed.findPathCompact(a, b));
+            }
+        }
+        assertTrue(metrics.swaps() > 0);
+    }
+
+    @Test
+    void histogramError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAt(50));
+        for (long v = 0; v < 64; v++) {
+            assertEquals(v, LatencyHistogram.highest(LatencyHistogram.bucket(v)));
+        }
+        Random random = new Random(5);
+        for (int i = 0; i < 10000; i++) {
+            long v = random.nextLong() >>> 1 + random.nextInt(63);
+            long reported = LatencyHistogram.highest(LatencyHistogram.bucket(v));
+            assertTrue(reported >= v && reported - v <= v / 32, v+" reported as "+reported);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highest(LatencyHistogram.bucket(Long.MAX_VALUE)));
+
+        for (int v = 1; v <= 1000; v++) histogram.record(v * 1000L);
+        histogram.record(-1);
+        assertAll("Percentiles should be within the error of the buckets",
+                () -> assertEquals(1001, histogram.count()),
+                () -> assertEquals(0, histogram.valueAt(0)),
+                () -> assertEquals(500000, histogram.valueAt(50), 500000 / 32),
+                () -> assertEquals(990000, histogram.valueAt(99), 990000 / 32),
+                () -> assertEquals(1000000, histogram.valueAt(100)),
+                () -> assertThrows(IllegalArgumentException.class, () -> histogram.valueAt(101)));
+    }
+}
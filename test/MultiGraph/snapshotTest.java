@@ -0,0 +1,137 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class snapshotTest {
+
+    private MultiGraph multigraph;
+    private Station station0, station1, station2, station3, station4, station5;
+    private Edge blue0, blue1, blue2, red0, red1, red2;
+
+    @BeforeEach
+    void setUp() {
+        // See graph3.jpg
+        multigraph = new MultiGraph();
+
+        station0 = new Station(0);
+        station1 = new Station(1);
+        station2 = new Station(2);
+        station3 = new Station(3);
+        station4 = new Station(4);
+        station5 = new Station(5);
+
+        blue0 = new Line("Blue", station0, station1);
+        blue1 = new Line("Blue", station1, station2);
+        blue2 = new Line("Blue", station2, station3);
+        red0 = new Line("Red", station4, station1);
+        red1 = new Line("Red", station1, station2);
+        red2 = new Line("Red", station2, station5);
+
+        multigraph.addEdge(blue0);
+        multigraph.addEdge(blue1);
+        multigraph.addEdge(blue2);
+        multigraph.addEdge(red0);
+        multigraph.addEdge(red1);
+        multigraph.addEdge(red2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        multigraph = null;
+        station0 = station1 = station2 = station3 = station4 = station5 = null;
+        blue0 = blue1 = blue2 = red0 = red1 = red2 = null;
+    }
+
+
+    /*
+     * Testing strategy for snapshot
+     *
+     * The snapshot should answer every query exactly as the graph it was taken from, for all pairs of nodes
+     * (including start == destination and nodes !in Nodes), and should not change when the graph changes. A snapshot
+     * nothing refers to any more should be collected, even after threads have searched it, and an engine whose
+     * snapshot was collected should throw IllegalStateException.
+     */
+
+    @Test
+    void sameSizeAsGraph() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        assertAll("Snapshot should contain every node, edge and line label",
+                () -> assertEquals(6, snapshot.nodeCount()),
+                () -> assertEquals(6, snapshot.edgeCount()),
+                () -> assertEquals(2, snapshot.lineCount()));
+    }
+
+    @Test
+    void findPathSameAsGraphForAllPairs() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        for (int from = 0; from <= 6; from++) {
+            for (int to = 0; to <= 6; to++) {
+                Station start = new Station(from), destination = new Station(to);
+                assertEquals(multigraph.findPath(start, destination), snapshot.findPath(start, destination),
+                        "path from "+from+" to "+to);
+            }
+        }
+    }
+
+    @Test
+    void getNodeSameAsGraph() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        assertAll("Should find nodes in Nodes and return null otherwise",
+                () -> assertSame(station4, snapshot.getNode(4)),
+                () -> assertNull(snapshot.getNode(9)));
+    }
+
+    @Test
+    void snapshotDoesNotSeeLaterEdges() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        Station station6 = new Station(6);
+        multigraph.addEdge(new Line("Green", station5, station6));
+
+        assertAll("Graph should find the new edge but the snapshot should not know station6",
+                () -> assertEquals(4, multigraph.findPath(station4, station6).size()),
+                () -> assertNull(snapshot.findPath(station4, station6)));
+    }
+
+    @Test
+    void snapshotIsImmutable() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        assertAll("Should not allow modification",
+                () -> assertThrows(UnsupportedOperationException.class, () -> snapshot.addNode(new Station(7))),
+                () -> assertThrows(UnsupportedOperationException.class, () -> snapshot.addEdge(blue0)));
+    }
+
+    @Test
+    void engineOfCollectedSnapshotThrows() {
+        GraphSnapshot snapshot = multigraph.snapshot();
+        SearchEngine engine = new SearchEngine(snapshot);
+        int s = snapshot.indexOf(station0), d = snapshot.indexOf(station2);
+        assertEquals(2, engine.findPath(s, d).size());
+        assertSame(snapshot, engine.graph());
+
+        engine.dropGraph();
+        assertAll("Engine should say its snapshot was collected",
+                () -> assertThrows(IllegalStateException.class, engine::graph),
+                () -> assertThrows(IllegalStateException.class, () -> engine.findPath(s, d)),
+                () -> assertThrows(IllegalStateException.class, () -> engine.findPathMinTransfers(s, d)));
+    }
+
+    @Test
+    void droppedSnapshotIsCollected() throws InterruptedException {
+        WeakReference<GraphSnapshot> dropped = new WeakReference<GraphSnapshot>(multigraph.snapshot());
+        assertEquals(2, dropped.get().findPath(station0, station2).size());
+        assertEquals(1, dropped.get().findPathMinTransfers(station0, station5).size() - 2);
+        assertEquals(3, dropped.get().distanceMatrix(Arrays.asList(station0, station4), Arrays.asList(station3))
+                .get(1, 0));
+        multigraph.addEdge(new Line("Green", station3, station5)); // the graph takes a new snapshot
+
+        GarbageCollection.await(() -> dropped.get() == null);
+        assertNull(dropped.get(), "Engines of the threads that searched the snapshot should not keep it alive");
+    }
+}
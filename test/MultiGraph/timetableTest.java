@@ -0,0 +1,250 @@
+package MultiGraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class timetableTest {
+
+    private Timetable timetable;
+    private Station stationA, stationB, stationC, stationD, stationE;
+
+    @BeforeEach
+    void setUp() {
+        stationA = new Station(1, "A");
+        stationB = new Station(2, "B");
+        stationC = new Station(3, "C");
+        stationD = new Station(4, "D");
+        stationE = new Station(5, "E");
+        timetable = timetable(120);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timetable = null;
+        stationA = stationB = stationC = stationD = stationE = null;
+    }
+
+    // effects: returns the seconds since midnight of hours:minutes
+    private static int time(int hours, int minutes) {
+        return 3600 * hours + 60 * minutes;
+    }
+
+    // effects: returns a timetable where D can be reached from A at 08:30 directly, at 08:22 changing at B and at
+    //          08:18 changing again at E, with changeAtB seconds to change at B and a minute everywhere else
+    private Timetable timetable(int changeAtB) {
+        return Timetable.builder()
+                .changeTime(60)
+                .changeTime(stationB, changeAtB)
+                .addTrip("Red", new Station[] {stationA, stationB, stationC, stationD},
+                        new int[] {time(8, 0), time(8, 10), time(8, 20), time(8, 30)})
+                .addTrip("Red", new Station[] {stationA, stationB, stationC, stationD},
+                        new int[] {time(8, 30), time(8, 40), time(8, 50), time(9, 0)})
+                .addTrip("Blue", new Station[] {stationB, stationE, stationD},
+                        new int[] {0, time(8, 15), time(8, 22)}, new int[] {time(8, 12), time(8, 15), 0})
+                .addTrip("Green", new Station[] {stationE, stationD}, new int[] {time(8, 16), time(8, 18)})
+                .build();
+    }
+
+
+    /*
+     * Testing strategy for Timetable
+     *
+     * Input partitions:
+     * from, to:      equal, reachable, reachable by staying on board, unreachable, !in stations
+     * departure:     before the first trip, between trips, after the last trip
+     * change time:   enough to change, too short to change, 0 (the default) with connections that take no time,
+     *                in and out of feed order and feeding each other in a cycle
+     * transfers:     0, 1, more, < 0
+     * trips:         valid, too few stops, times out of order
+     *
+     * Test for outputs:
+     * earliest arrival and its legs, profile pairs, Pareto set of journeys, null, empty journeys,
+     * the same arrivals from all three scans on random timetables
+     */
+
+    @Test
+    void earliestArrival() {
+        Journey journey = timetable.earliestArrival(stationA, stationD, time(7, 0));
+        assertAll("Scan should change twice to arrive earliest",
+                () -> assertEquals(time(8, 18), journey.arrival()),
+                () -> assertEquals(time(8, 0), journey.departure()),
+                () -> assertEquals(2, journey.transfers()),
+                () -> assertEquals("Red", journey.legs().get(0).getLabel()),
+                () -> assertEquals(stationB, journey.legs().get(0).destination()),
+                () -> assertEquals(stationE, journey.legs().get(1).destination()),
+                () -> assertEquals(120, journey.legs().get(2).getWeight()),
+                () -> assertEquals(time(9, 0), timetable.earliestArrival(stationA, stationD, time(8, 1)).arrival()),
+                () -> assertEquals(time(8, 20), timetable.earliestArrival(stationA, stationC, time(8, 0)).arrival()),
+                () -> assertFalse(timetable.earliestArrival(stationA, stationD, time(8, 31)).reaches()),
+                () -> assertFalse(timetable.earliestArrival(stationD, stationA, 0).reaches()),
+                () -> assertTrue(timetable.earliestArrival(stationC, stationC, 0).legs().isEmpty()),
+                () -> assertNull(timetable.earliestArrival(stationA, new Station(9), 0)),
+                () -> assertNull(timetable.earliestArrival(new Station(9), stationA, 0)));
+
+        Timetable slowChange = timetable(180);
+        Journey direct = slowChange.earliestArrival(stationA, stationD, time(7, 0));
+        assertEquals(time(8, 30), direct.arrival());
+        assertEquals(0, direct.transfers());
+        assertEquals(time(8, 20), slowChange.earliestArrival(stationA, stationC, time(7, 0)).arrival());
+    }
+
+    @Test
+    void profileAndParetoJourneys() {
+        Profile profile = timetable.profile(stationA, stationD, time(7, 0), time(9, 0));
+        assertAll("Profile should hold the latest departure for each arrival",
+                () -> assertEquals(2, profile.size()),
+                () -> assertEquals(time(8, 0), profile.departure(0)),
+                () -> assertEquals(time(8, 18), profile.arrival(0)),
+                () -> assertEquals(time(9, 0), profile.arrivalLeavingAt(time(8, 1))),
+                () -> assertEquals(time(8, 18), profile.arrivalLeavingAt(time(7, 0))),
+                () -> assertEquals(-1, profile.arrivalLeavingAt(time(8, 31))),
+                () -> assertEquals(time(9, 0),
+                        timetable.profile(stationA, stationD, time(7, 0), time(8, 29)).arrivalLeavingAt(time(8, 29))),
+                () -> assertEquals(1, timetable.profile(stationA, stationD, time(8, 1), time(8, 29)).size()),
+                () -> assertEquals(0, timetable.profile(stationD, stationA, 0, time(9, 0)).size()),
+                () -> assertNull(timetable.profile(stationA, new Station(9), 0, 0)));
+
+        List<Journey> journeys = timetable.paretoJourneys(stationA, stationD, time(7, 0), 5);
+        assertAll("Pareto set should trade transfers for earlier arrivals",
+                () -> assertEquals(3, journeys.size()),
+                () -> assertEquals(time(8, 30), journeys.get(0).arrival()),
+                () -> assertEquals(0, journeys.get(0).transfers()),
+                () -> assertEquals(time(8, 22), journeys.get(1).arrival()),
+                () -> assertEquals("Blue", journeys.get(1).legs().get(1).getLabel()),
+                () -> assertEquals(time(8, 18), journeys.get(2).arrival()),
+                () -> assertEquals(2, timetable.paretoJourneys(stationA, stationD, time(7, 0), 1).size()),
+                () -> assertEquals(1, timetable.paretoJourneys(stationA, stationA, 0, 0).size()),
+                () -> assertTrue(timetable.paretoJourneys(stationD, stationA, 0, 3).isEmpty()),
+                () -> assertNull(timetable.paretoJourneys(stationA, new Station(9), 0, 0)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> timetable.paretoJourneys(stationA, stationD, 0, -1)));
+    }
+
+    @Test
+    void zeroDurationConnectionsInFeedOrder() {
+        Timetable tied = Timetable.builder()
+                .addTrip("X", new Station[] {stationB, stationC}, new int[] {time(8, 0), time(8, 0)})
+                .addTrip("Y", new Station[] {stationA, stationB}, new int[] {time(8, 0), time(8, 0)})
+                .build();
+        Timetable inOrder = Timetable.builder()
+                .addTrip("Y", new Station[] {stationA, stationB}, new int[] {time(8, 0), time(8, 0)})
+                .addTrip("X", new Station[] {stationB, stationC}, new int[] {time(8, 0), time(8, 0)})
+                .build();
+        Journey journey = tied.earliestArrival(stationA, stationC, time(8, 0));
+        assertAll("Scans should take a connection that takes no time before the one it feeds",
+                () -> assertEquals(time(8, 0), journey.arrival()),
+                () -> assertEquals(1, journey.transfers()),
+                () -> assertEquals("Y", journey.legs().get(0).getLabel()),
+                () -> assertEquals(time(8, 0), inOrder.earliestArrival(stationA, stationC, time(8, 0)).arrival()),
+                () -> assertEquals(time(8, 0),
+                        tied.profile(stationA, stationC, time(7, 0), time(9, 0)).arrivalLeavingAt(time(8, 0))),
+                () -> assertEquals(time(8, 0), tied.paretoJourneys(stationA, stationC, time(8, 0), 2).get(0).arrival()),
+                () -> assertFalse(tied.earliestArrival(stationA, stationC, time(8, 1)).reaches()));
+
+        Timetable cycle = Timetable.builder()
+                .addTrip("X", new Station[] {stationC, stationD}, new int[] {time(8, 0), time(8, 0)})
+                .addTrip("V", new Station[] {stationC, stationB}, new int[] {time(8, 0), time(8, 0)})
+                .addTrip("W", new Station[] {stationB, stationC}, new int[] {time(8, 0), time(8, 0)})
+                .addTrip("U", new Station[] {stationA, stationB}, new int[] {time(8, 0), time(8, 0)})
+                .build();
+        Journey around = cycle.earliestArrival(stationA, stationD, time(8, 0));
+        assertAll("Scans should follow a chain through connections that feed each other in a cycle",
+                () -> assertEquals(time(8, 0), around.arrival()),
+                () -> assertEquals(2, around.transfers()),
+                () -> assertEquals(time(8, 0),
+                        cycle.profile(stationA, stationD, time(7, 0), time(9, 0)).arrivalLeavingAt(time(8, 0))),
+                () -> assertEquals(time(8, 0),
+                        cycle.paretoJourneys(stationA, stationD, time(8, 0), 3).get(0).arrival()));
+
+        Timetable loop = Timetable.builder()
+                .changeTime(stationC, 60)
+                .addTrip("T", new Station[] {stationC, stationD, stationB, stationC},
+                        new int[] {time(8, 0), time(8, 0), time(8, 0), time(8, 0)})
+                .addTrip("S", new Station[] {stationA, stationB}, new int[] {time(8, 0), time(8, 0)})
+                .build();
+        assertAll("Scans should not ride a trip back to a stop it left before it was boarded",
+                () -> assertEquals(time(8, 0), loop.earliestArrival(stationA, stationC, time(8, 0)).arrival()),
+                () -> assertFalse(loop.earliestArrival(stationA, stationD, time(8, 0)).reaches()),
+                () -> assertEquals(-1,
+                        loop.profile(stationA, stationD, time(7, 0), time(9, 0)).arrivalLeavingAt(time(8, 0))),
+                () -> assertTrue(loop.paretoJourneys(stationA, stationD, time(8, 0), 3).isEmpty()));
+    }
+
+    @Test
+    void rejectsBadTrips() {
+        Timetable.Builder builder = Timetable.builder();
+        assertAll("Builder should reject trips it cannot scan",
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> builder.addTrip("Red", new Station[] {stationA}, new int[] {0})),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> builder.addTrip("Red", new Station[] {stationA, stationB}, new int[] {10, 5})),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> builder.addTrip("Red", new Station[] {stationA, stationB}, new int[] {0})),
+                () -> assertThrows(IllegalArgumentException.class, () -> builder.changeTime(-1)));
+        assertEquals("Timetable[0 stations, 0 trips, 0 connections]", builder.build().toString());
+    }
+
+    @Test
+    void scansAgreeOnRandomTimetables() {
+        Random random = new Random(24);
+        Station[] stations = new Station[30];
+        for (int i = 0; i < stations.length; i++) stations[i] = new Station(i);
+        Timetable.Builder builder = Timetable.builder().changeTime(90);
+        for (int trip = 0; trip < 200; trip++) {
+            Station[] stops = new Station[2 + random.nextInt(6)];
+            int[] times = new int[stops.length];
+            times[0] = time(6, 0) + random.nextInt(4 * 3600);
+            for (int i = 0; i < stops.length; i++) {
+                stops[i] = stations[random.nextInt(stations.length)];
+                if (i > 0) times[i] = times[i - 1] + random.nextInt(600);
+            }
+            builder.addTrip("Line"+random.nextInt(5), stops, times);
+        }
+        Timetable scanned = builder.build();
+
+        for (int q = 0; q < 300; q++) {
+            Station from = stations[random.nextInt(stations.length)], to = stations[random.nextInt(stations.length)];
+            int departure = time(6, 0) + random.nextInt(4 * 3600);
+            Journey journey = scanned.earliestArrival(from, to, departure);
+            if (journey == null) {
+                continue; // a station no trip stops at
+            }
+            Profile profile = scanned.profile(from, to, time(5, 0), time(11, 0));
+            List<Journey> journeys = scanned.paretoJourneys(from, to, departure, 10);
+            if (from.equals(to)) {
+                assertEquals(departure, journey.arrival());
+                continue;
+            }
+            assertEquals(journey.arrival(), profile.arrivalLeavingAt(departure), from+" to "+to+" at "+departure);
+            assertEquals(journey.arrival(), journeys.isEmpty() ? -1 : journeys.get(journeys.size() - 1).arrival());
+
+            assertChained(journey, from, to, departure);
+            for (int i = 0; i < journeys.size(); i++) {
+                assertChained(journeys.get(i), from, to, departure);
+                if (i > 0) assertTrue(journeys.get(i).arrival() < journeys.get(i - 1).arrival());
+                if (i > 0) assertTrue(journeys.get(i).transfers() > journeys.get(i - 1).transfers());
+            }
+        }
+    }
+
+    // effects: fails unless every leg of journey leaves where the last one arrived, at least 90 s later, and the
+    //          journey goes from from at departure or later to to if it reaches it
+    private static void assertChained(Journey journey, Node from, Node to, int departure) {
+        int at = departure;
+        Node station = from;
+        for (Journey.Leg leg : journey.legs()) {
+            assertEquals(station, leg.origin());
+            assertTrue(leg.departure() >= at);
+            at = leg.arrival() + 90;
+            station = leg.destination();
+        }
+        if (journey.reaches()) assertEquals(to, station);
+        if (journey.reaches()) assertEquals(journey.arrival(), at - 90);
+    }
+}